@@ -1,6 +1,9 @@
 package de.heiden.c64dt.assembler;
 
+import java.util.Objects;
+
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.common.Checks.requireBetween;
 
 /**
  * Abstract implementation of input stream for code.
@@ -63,7 +66,7 @@ public abstract class AbstractCodeBuffer implements ICodeBuffer {
 
   @Override
   public final boolean has(int number) {
-    requireThat(number, "number").isGreaterThanOrEqualTo(0);
+    requireBetween(number, "number", 0, Integer.MAX_VALUE);
 
     return position + number <= length;
   }
@@ -77,7 +80,7 @@ public abstract class AbstractCodeBuffer implements ICodeBuffer {
 
   @Override
   public final int read(int number) {
-    requireThat(number, "number").isBetween(0, 2 + 1);
+    requireBetween(number, "number", 0, 2 + 1);
 
     if (number == 0) {
       return -1;
@@ -96,6 +99,35 @@ public abstract class AbstractCodeBuffer implements ICodeBuffer {
     return readByteAt(position++) + (readByteAt(position++) << 8);
   }
 
+  @Override
+  public final int peek(byte[] buffer, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, buffer.length);
+
+    int number = Math.max(0, Math.min(length, this.length - position));
+    if (number > 0) {
+      copy(position, buffer, offset, number);
+    }
+    return number;
+  }
+
+  @Override
+  public final int read(byte[] buffer, int offset, int length) {
+    int number = peek(buffer, offset, length);
+    position += number;
+    return number;
+  }
+
+  @Override
+  public void copy(int index, byte[] buffer, int offset, int length) {
+    Objects.checkFromIndexSize(index, length, this.length);
+    Objects.checkFromIndexSize(offset, length, buffer.length);
+
+    // Default implementation, should be overridden by subclasses with a faster way
+    for (int i = 0; i < length; i++) {
+      buffer[offset + i] = (byte) readByteAt(index + i);
+    }
+  }
+
   /**
    * Read a byte from the source.
    *
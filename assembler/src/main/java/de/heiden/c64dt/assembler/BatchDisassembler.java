@@ -0,0 +1,291 @@
+package de.heiden.c64dt.assembler;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Disassembles many programs in parallel.
+ * Each program is written to its own file in the output directory,
+ * named like the program with the suffix {@value #SUFFIX}.
+ * Programs with the same name, e.g. from different directories, get a number appended to their name,
+ * e.g. "name.asm", "name_1.asm", "name_2.asm", in the order they are given.
+ */
+public class BatchDisassembler {
+  /**
+   * Logger.
+   */
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /**
+   * Suffix of the output files.
+   */
+  public static final String SUFFIX = ".asm";
+
+  /**
+   * Line buffer per thread.
+   */
+  private static final ThreadLocal<char[]> LINE = ThreadLocal.withInitial(Disassembler::createLineBuffer);
+
+  /**
+   * Byte buffer per thread.
+   */
+  private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(Disassembler::createByteBuffer);
+
+  /**
+   * Number of threads.
+   */
+  private final int parallelism;
+
+  /**
+   * Constructor using one thread per processor.
+   */
+  public BatchDisassembler() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param parallelism Number of threads
+   */
+  public BatchDisassembler(int parallelism) {
+    requireThat(parallelism, "parallelism").isGreaterThan(0);
+
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Disassemble programs.
+   *
+   * @param inputs Programs or directories. All regular files of a directory are disassembled, not recursing.
+   * @param output Output directory, will be created if it does not exist
+   */
+  public Result disassemble(List<Path> inputs, Path output) throws IOException, InterruptedException {
+    requireThat(inputs, "inputs").isNotNull();
+    requireThat(output, "output").isNotNull();
+
+    List<Path> programs = new ArrayList<>();
+    for (Path input : inputs) {
+      if (Files.isDirectory(input)) {
+        try (Stream<Path> files = Files.list(input)) {
+          files.filter(Files::isRegularFile).sorted().forEach(programs::add);
+        }
+      } else {
+        programs.add(input);
+      }
+    }
+    Files.createDirectories(output);
+
+    // Output names are assigned upfront, because the tasks run in parallel
+    Set<String> names = new HashSet<>();
+    List<Callable<Long>> tasks = new ArrayList<>(programs.size());
+    for (Path program : programs) {
+      Path file = output.resolve(outputName(program.getFileName().toString(), names));
+      tasks.add(() -> disassemble(program, file));
+    }
+
+    long start = System.nanoTime();
+    int files = 0;
+    int failed = 0;
+    long bytes = 0;
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      for (Future<Long> result : pool.invokeAll(tasks)) {
+        long size = result.get();
+        if (size >= 0) {
+          files++;
+          bytes += size;
+        } else {
+          failed++;
+        }
+      }
+    } catch (ExecutionException e) {
+      // Cannot happen, because the tasks handle all exceptions
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+
+    return new Result(files, failed, bytes, System.nanoTime() - start);
+  }
+
+  /**
+   * Unique name of the output file of a program.
+   * Names are compared case-insensitive, to avoid collisions on case-insensitive file systems too.
+   *
+   * @param program Name of the program
+   * @param names Lower case names used so far, the returned name is added
+   */
+  static String outputName(String program, Set<String> names) {
+    String name = program + SUFFIX;
+    for (int i = 1; !names.add(name.toLowerCase(Locale.ROOT)); i++) {
+      name = program + "_" + i + SUFFIX;
+    }
+    return name;
+  }
+
+  /**
+   * Disassemble one program.
+   * Lists the basic header, if the program starts at $0801.
+   *
+   * @param program Program with start address
+   * @param output Output file
+   * @return Size of the program in bytes, or -1 if disassembly failed
+   */
+  private long disassemble(Path program, Path output) {
+    try {
+      byte[] bytes = Files.readAllBytes(program);
+      if (bytes.length < 2) {
+        logger.warn("Program {} has no start address.", program);
+        return -1;
+      }
+
+      CodeBuffer code = CodeBuffer.fromProgram(bytes);
+      try (FileChannel channel = FileChannel.open(output,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        if (code.getCurrentAddress() == 0x0801) {
+          StringWriter basic = new StringWriter();
+          new Lister().list(code, basic);
+          ByteBuffer header = StandardCharsets.UTF_8.encode(basic.toString());
+          while (header.hasRemaining()) {
+            channel.write(header);
+          }
+        }
+        new Disassembler().stream(code, channel, LINE.get(), BUFFER.get());
+      }
+
+      return bytes.length;
+    } catch (Exception e) {
+      logger.warn("Failed to disassemble {}.", program, e);
+      return -1;
+    }
+  }
+
+  /**
+   * Result of a batch disassembly.
+   */
+  public static class Result {
+    private final int files;
+    private final int failed;
+    private final long bytes;
+    private final long nanos;
+
+    /**
+     * Constructor.
+     *
+     * @param files Number of disassembled programs
+     * @param failed Number of programs which could not be disassembled
+     * @param bytes Number of disassembled bytes
+     * @param nanos Duration in nanoseconds
+     */
+    public Result(int files, int failed, long bytes, long nanos) {
+      this.files = files;
+      this.failed = failed;
+      this.bytes = bytes;
+      this.nanos = nanos;
+    }
+
+    /**
+     * Number of disassembled programs.
+     */
+    public int getFiles() {
+      return files;
+    }
+
+    /**
+     * Number of programs which could not be disassembled.
+     */
+    public int getFailed() {
+      return failed;
+    }
+
+    /**
+     * Number of disassembled bytes.
+     */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /**
+     * Duration in nanoseconds.
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * Throughput in programs per second.
+     */
+    public double getFilesPerSecond() {
+      return perSecond(files);
+    }
+
+    /**
+     * Throughput in bytes per second.
+     */
+    public double getBytesPerSecond() {
+      return perSecond(bytes);
+    }
+
+    /**
+     * Scale a count to per second.
+     *
+     * @param count Count
+     */
+    private double perSecond(long count) {
+      return nanos > 0 ? count * 1e9 / nanos : 0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d files (%d failed), %d bytes in %.3f s: %.1f files/s, %.1f bytes/s",
+        files, failed, bytes, nanos / 1e9, getFilesPerSecond(), getBytesPerSecond());
+    }
+  }
+
+  //
+  // Command line
+  //
+
+  /**
+   * Disassemble programs.
+   * Usage: {@code BatchDisassembler <output directory> <program or directory>...}.
+   *
+   * @param args Output directory followed by programs or directories
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.err.println("Usage: BatchDisassembler <output directory> <program or directory>...");
+      System.exit(1);
+    }
+
+    List<Path> inputs = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      inputs.add(Path.of(args[i]));
+    }
+
+    Result result = new BatchDisassembler().disassemble(inputs, Path.of(args[0]));
+    System.out.println(result);
+  }
+}
@@ -2,6 +2,7 @@ package de.heiden.c64dt.assembler;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Objects;
 
 import de.heiden.c64dt.bytes.ByteUtil;
 import org.apache.commons.io.IOUtils;
@@ -35,6 +36,32 @@ public class CodeBuffer extends AbstractCodeBuffer {
     return ByteUtil.toByte(code[index]);
   }
 
+  @Override
+  public void copy(int index, byte[] buffer, int offset, int length) {
+    Objects.checkFromIndexSize(index, length, code.length);
+    Objects.checkFromIndexSize(offset, length, buffer.length);
+
+    System.arraycopy(code, index, buffer, offset, length);
+  }
+
+  /**
+   * Fast path of {@link #read(int)} for hot loops.
+   * Does not validate anything, so the caller has to ensure {@link #has(int) has(number)}
+   * and 0 &lt;= number &lt;= 2.
+   *
+   * @param number number of bytes to read
+   * @return read byte if number == 1, read word if number == 2, -1 if number == 0
+   */
+  public int readUnchecked(int number) {
+    int index = getCurrentIndex();
+    setCurrentIndex(index + number);
+    return switch (number) {
+      case 1 -> code[index] & 0xFF;
+      case 2 -> (code[index] & 0xFF) | (code[index + 1] & 0xFF) << 8;
+      default -> -1;
+    };
+  }
+
   /**
    * The code.
    */
@@ -69,7 +96,10 @@ public class CodeBuffer extends AbstractCodeBuffer {
   public static CodeBuffer fromProgram(InputStream program) throws IOException {
     requireThat(program, "program").isNotNull();
 
-    return fromProgram(IOUtils.toByteArray(program));
+    // Read start address separately, to avoid copying the code again
+    byte[] address = new byte[2];
+    IOUtils.readFully(program, address);
+    return new CodeBuffer(toWord(address, 0), IOUtils.toByteArray(program));
   }
 
   /**
@@ -1,12 +1,13 @@
 package de.heiden.c64dt.assembler;
 
 import java.io.BufferedWriter;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
-import static de.heiden.c64dt.bytes.ByteUtil.hi;
-import static de.heiden.c64dt.bytes.ByteUtil.lo;
 import static de.heiden.c64dt.bytes.HexUtil.hexBytePlain;
 import static de.heiden.c64dt.bytes.HexUtil.hexWordPlain;
 
@@ -14,6 +15,26 @@ import static de.heiden.c64dt.bytes.HexUtil.hexWordPlain;
  * Reassembler.
  */
 public class Disassembler {
+  /**
+   * Maximum length of a line, including the line separator.
+   */
+  private static final int MAX_LINE_LENGTH = 64;
+
+  /**
+   * Size of the byte buffer for streaming to channels.
+   */
+  private static final int BUFFER_SIZE = 0x10000;
+
+  /**
+   * Size of the code window.
+   */
+  private static final int WINDOW_SIZE = 0x400;
+
+  /**
+   * Line separator.
+   */
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
   /**
    * List basic header and disassemble.
    *
@@ -50,46 +71,203 @@ public class Disassembler {
         new Lister().list(code, out);
       }
 
-      while (code.hasMore()) {
-        disassembleOpcode(code, out);
-      }
+      disassemble(code, createLineBuffer(), (line, length) -> out.write(line, 0, length));
     }
     output.flush();
   }
 
   /**
-   * Disassemble one opcode.
+   * Disassemble into a character sink, without listing the basic header.
+   * Each line is formatted into a reusable line buffer, so no objects are created per opcode.
+   * {@link Writer}s are written to directly, other {@link Appendable}s char by char.
+   *
+   * @param code Code buffer.
+   * @param output Output for reassembled code.
+   */
+  public void stream(ICodeBuffer code, Appendable output) throws IOException {
+    requireThat(code, "code").isNotNull();
+    requireThat(output, "output").isNotNull();
+
+    if (output instanceof Writer writer) {
+      disassemble(code, createLineBuffer(), (line, length) -> writer.write(line, 0, length));
+    } else {
+      disassemble(code, createLineBuffer(), (line, length) -> {
+        for (int i = 0; i < length; i++) {
+          output.append(line[i]);
+        }
+      });
+    }
+    if (output instanceof Flushable flushable) {
+      flushable.flush();
+    }
+  }
+
+  /**
+   * Disassemble into a byte sink, without listing the basic header.
+   * Each line is formatted into a reusable line buffer, so no objects are created per opcode.
+   * The output is ASCII encoded.
+   *
+   * @param code Code buffer.
+   * @param output Output for reassembled code.
+   */
+  public void stream(ICodeBuffer code, WritableByteChannel output) throws IOException {
+    stream(code, output, createLineBuffer(), createByteBuffer());
+  }
+
+  /**
+   * Disassemble into a byte sink, without listing the basic header.
+   * Uses the given buffers, so they may be reused for many disassemblies.
+   *
+   * @param code Code buffer.
+   * @param output Output for reassembled code.
+   * @param line Line buffer, see {@link #createLineBuffer()}.
+   * @param buffer Byte buffer, see {@link #createByteBuffer()}.
+   */
+  void stream(ICodeBuffer code, WritableByteChannel output, char[] line, ByteBuffer buffer) throws IOException {
+    requireThat(code, "code").isNotNull();
+    requireThat(output, "output").isNotNull();
+
+    buffer.clear();
+    disassemble(code, line, (l, length) -> {
+      if (buffer.remaining() < length) {
+        write(buffer, output);
+      }
+      for (int i = 0; i < length; i++) {
+        buffer.put((byte) l[i]);
+      }
+    });
+    write(buffer, output);
+  }
+
+  /**
+   * Create a line buffer for {@link #stream(ICodeBuffer, WritableByteChannel, char[], ByteBuffer)}.
+   */
+  static char[] createLineBuffer() {
+    return new char[MAX_LINE_LENGTH];
+  }
+
+  /**
+   * Create a byte buffer for {@link #stream(ICodeBuffer, WritableByteChannel, char[], ByteBuffer)}.
+   */
+  static ByteBuffer createByteBuffer() {
+    return ByteBuffer.allocate(BUFFER_SIZE);
+  }
+
+  /**
+   * Write the buffer completely to the channel.
+   * Clears the buffer afterward.
+   *
+   * @param buffer Buffer
+   * @param output Channel
+   */
+  private void write(ByteBuffer buffer, WritableByteChannel output) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      output.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Disassemble the code.
+   * The code is read window by window via {@link ICodeBuffer#peek(byte[], int, int)},
+   * so the opcodes are decoded from an array and not byte by byte from the code buffer.
    *
    * @param code Code buffer
-   * @param output output for reassembled code
+   * @param line Line buffer
+   * @param output Output for the lines
+   */
+  private void disassemble(ICodeBuffer code, char[] line, LineOutput output) throws IOException {
+    byte[] window = new byte[WINDOW_SIZE];
+    while (code.hasMore()) {
+      int pc = code.getCurrentAddress();
+      int available = code.peek(window, 0, window.length);
+      // Does the window reach to the end of the code?
+      boolean end = !code.has(available + 1);
+      int i = 0;
+      // Incomplete opcodes at the end of the window are disassembled in the next window
+      while (i < available && (end || i + 3 <= available)) {
+        i += disassembleOpcode(window, i, available, pc + i, line, output);
+      }
+      code.setCurrentIndex(code.getCurrentIndex() + i);
+    }
+  }
+
+  /**
+   * Disassemble one opcode.
+   *
+   * @param window Code window
+   * @param i Index of the opcode in the code window
+   * @param available Number of valid bytes in the code window
+   * @param pc Address of the opcode
+   * @param line Line buffer
+   * @param output Output for the line
+   * @return Number of bytes used by the opcode
    */
-  private void disassembleOpcode(ICodeBuffer code, BufferedWriter output) throws IOException {
-    Opcode opcode = code.readOpcode();
-    OpcodeMode mode = opcode.getMode();
-    int size = mode.getSize();
+  private int disassembleOpcode(byte[] window, int i, int available, int pc, char[] line, LineOutput output) throws IOException {
+    int opcode = window[i] & 0xFF;
+    int size = OpcodeTable.argumentSize(opcode);
+    int used = 1;
 
-    int pc = code.getCommandAddress();
-    output.append(hexWordPlain(pc));
-    output.append("  ");
-    output.append(hexBytePlain(opcode.getOpcode()));
+    int index = hexWordPlain(line, 0, pc);
+    index = append(line, index, "  ");
+    index = hexBytePlain(line, index, opcode);
 
-    if (opcode.isLegal() && code.has(size)) {
+    if (OpcodeTable.isLegal(opcode) && i + 1 + size <= available) {
+      String type = OpcodeTable.type(opcode).name();
       if (size > 0) {
-        int argument = code.read(mode.getSize());
-
-        output.append(size >= 1 ? " " + hexBytePlain(lo(argument)) : "   ");
-        output.append(size >= 2 ? " " + hexBytePlain(hi(argument)) : "   ");
-        output.append("  ");
-        output.append(opcode.getType().toString());
-        output.append(" ");
-        output.append(mode.toString(pc, argument));
+        int argument = window[i + 1] & 0xFF;
+        line[index++] = ' ';
+        index = hexBytePlain(line, index, argument);
+        if (size >= 2) {
+          int hi = window[i + 2] & 0xFF;
+          argument |= hi << 8;
+          line[index++] = ' ';
+          index = hexBytePlain(line, index, hi);
+        } else {
+          index = append(line, index, "   ");
+        }
+        index = append(line, index, "  ");
+        index = append(line, index, type);
+        line[index++] = ' ';
+        index = OpcodeTable.mode(opcode).toString(line, index, pc, argument);
       } else {
-        output.append("        ");
-        output.append(opcode.getType().toString());
+        index = append(line, index, "        ");
+        index = append(line, index, type);
       }
+      used += size;
     } else {
-      output.append("        ???");
+      index = append(line, index, "        ???");
     }
-    output.newLine();
+    output.line(line, append(line, index, LINE_SEPARATOR));
+
+    return used;
+  }
+
+  /**
+   * Output for disassembled lines.
+   */
+  @FunctionalInterface
+  private interface LineOutput {
+    /**
+     * Output a line.
+     *
+     * @param line Line buffer
+     * @param length Length of the line, including the line separator
+     */
+    void line(char[] line, int length) throws IOException;
+  }
+
+  /**
+   * Append a string to the line buffer.
+   *
+   * @param line Line buffer
+   * @param index Index in the line buffer to write to
+   * @param s String
+   * @return Index after the written chars
+   */
+  private static int append(char[] line, int index, String s) {
+    s.getChars(0, s.length(), line, index);
+    return index + s.length();
   }
 }
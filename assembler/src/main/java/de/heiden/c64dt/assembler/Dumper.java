@@ -4,19 +4,67 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
 
-import de.heiden.c64dt.bytes.HexUtil;
+import de.heiden.c64dt.charset.AbstractCharset;
 import de.heiden.c64dt.charset.C64Charset;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.bytes.HexUtil.hexBytePlain;
+import static de.heiden.c64dt.bytes.HexUtil.hexWordPlain;
 
 /**
  * Dumps memory.
+ * Whole rows are formatted via precomputed tables into a reusable line buffer.
  */
 public class Dumper {
   /**
-   * Charset.
+   * Default number of bytes per row.
    */
-  private final C64Charset charset = C64Charset.LOWER;
+  public static final int DEFAULT_WIDTH = 16;
+
+  /**
+   * Hex digits of all bytes: 2 chars per byte.
+   */
+  private static final char[] HEX = new char[0x100 * 2];
+
+  static {
+    for (int b = 0; b < 0x100; b++) {
+      hexBytePlain(HEX, b * 2, b);
+    }
+  }
+
+  /**
+   * Number of bytes per row.
+   */
+  private final int width;
+
+  /**
+   * Char of all bytes, '.' for non-printable chars.
+   */
+  private final char[] chars = new char[0x100];
+
+  /**
+   * Constructor for 16 bytes per row and lower case charset.
+   */
+  public Dumper() {
+    this(DEFAULT_WIDTH, C64Charset.LOWER);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param width Number of bytes per row
+   * @param charset Charset
+   */
+  public Dumper(int width, AbstractCharset charset) {
+    requireThat(width, "width").isGreaterThan(0);
+    requireThat(charset, "charset").isNotNull();
+
+    this.width = width;
+    for (int b = 0; b < 0x100; b++) {
+      char c = charset.toChar((byte) b);
+      chars[b] = c != 0 ? c : '.';
+    }
+  }
 
   /**
    * Dump memory.
@@ -44,29 +92,32 @@ public class Dumper {
     requireThat(code, "code").isNotNull();
     requireThat(output, "output").isNotNull();
 
-    StringBuilder chars = new StringBuilder(16);
+    String lineSeparator = System.lineSeparator();
+    // address, 3 chars per byte, 2 spaces, 1 char per byte, line separator
+    int charsStart = 4 + 2 + width * 3 + 2;
+    char[] line = new char[charsStart + width + lineSeparator.length()];
+    byte[] row = new byte[width];
     while (code.hasMore()) {
-      output.append(HexUtil.hexWordPlain(code.getCurrentAddress()));
-      output.append("  ");
-      for (int i = 0; i < 16; i++) {
-        if (code.hasMore()) {
-          int b = code.readByte();
-          output.append(HexUtil.hexBytePlain(b));
-          output.append(" ");
-
-          char c = charset.toChar((byte) b);
-          chars.append(c != 0 ? c : '.');
-        } else {
-          output.append("   ");
-        }
+      hexWordPlain(line, 0, code.getCurrentAddress());
+      line[4] = ' ';
+      line[5] = ' ';
+      int length = code.read(row, 0, row.length);
+      int hex = 6;
+      for (int i = 0; i < length; i++) {
+        int b = row[i] & 0xFF;
+        line[hex++] = HEX[b * 2];
+        line[hex++] = HEX[b * 2 + 1];
+        line[hex++] = ' ';
+        line[charsStart + i] = chars[b];
       }
+      // pad hex part of a short last row
+      while (hex < charsStart) {
+        line[hex++] = ' ';
+      }
+      int end = charsStart + length;
+      lineSeparator.getChars(0, lineSeparator.length(), line, end);
 
-      output.append("  ");
-      output.append(chars);
-
-      output.newLine();
-
-      chars.setLength(0);
+      output.write(line, 0, end + lineSeparator.length());
     }
   }
 }
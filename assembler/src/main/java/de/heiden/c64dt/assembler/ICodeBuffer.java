@@ -76,4 +76,42 @@ public interface ICodeBuffer {
    * Read a word from the code at the current position and advance.
    */
   int readWord();
+
+  //
+  // bulk operations
+  //
+
+  /**
+   * Copy bytes from the current position into a buffer without advancing.
+   *
+   * @param buffer buffer
+   * @param offset offset in the buffer
+   * @param length maximum number of bytes to copy
+   * @return number of copied bytes, less than length if the end of the code has been reached
+   * @throws IndexOutOfBoundsException if the range is not within the buffer
+   */
+  int peek(byte[] buffer, int offset, int length);
+
+  /**
+   * Read bytes from the current position into a buffer and advance.
+   *
+   * @param buffer buffer
+   * @param offset offset in the buffer
+   * @param length maximum number of bytes to read
+   * @return number of read bytes, less than length if the end of the code has been reached
+   * @throws IndexOutOfBoundsException if the range is not within the buffer
+   */
+  int read(byte[] buffer, int offset, int length);
+
+  /**
+   * Copy a range of the code into a buffer.
+   * Does not change the current position.
+   *
+   * @param index index of the first byte to copy
+   * @param buffer buffer
+   * @param offset offset in the buffer
+   * @param length number of bytes to copy
+   * @throws IndexOutOfBoundsException if the range is not within the code or not within the buffer
+   */
+  void copy(int index, byte[] buffer, int offset, int length);
 }
@@ -111,7 +111,10 @@ public class Lister {
       output.append("<PI>");
     } else if (b < 0x80 || escaped) {
       // output char unmodified
-      output.append(charset.toString((byte) b));
+      char c = charset.toChar((byte) b);
+      if (c != 0) {
+        output.append(c);
+      }
     } else {
       // command
       output.append(BASIC[b - 0x80]);
@@ -0,0 +1,131 @@
+package de.heiden.c64dt.assembler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Code buffer backed by a memory mapped file region.
+ * Large dumps are not copied into the heap, the bytes are read directly from the mapping.
+ */
+public class MappedCodeBuffer extends AbstractCodeBuffer {
+  /**
+   * The code.
+   */
+  private final ByteBuffer code;
+
+  /**
+   * Constructor.
+   *
+   * @param address start address of the code
+   * @param code code, from index 0 to its limit
+   */
+  public MappedCodeBuffer(int address, ByteBuffer code) {
+    super(address, code.limit());
+
+    this.code = code;
+  }
+
+  @Override
+  protected int readByteAt(int index) {
+    return code.get(index) & 0xFF;
+  }
+
+  @Override
+  public void copy(int index, byte[] buffer, int offset, int length) {
+    code.get(index, buffer, offset, length);
+  }
+
+  /**
+   * The code.
+   * Read only view, independent of the position of this buffer.
+   */
+  public ByteBuffer getCode() {
+    return code.asReadOnlyBuffer();
+  }
+
+  //
+  // Factories
+  //
+
+  /**
+   * Map a whole file with code.
+   *
+   * @param startAddr Start address of code
+   * @param file File with code
+   */
+  public static MappedCodeBuffer mapCode(int startAddr, Path file) throws IOException {
+    requireThat(file, "file").isNotNull();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return mapCode(startAddr, channel, 0, channel.size());
+    }
+  }
+
+  /**
+   * Map a whole file with a program.
+   * The first two bytes are used as start address.
+   *
+   * @param file File with program with start address
+   */
+  public static MappedCodeBuffer mapProgram(Path file) throws IOException {
+    requireThat(file, "file").isNotNull();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return mapProgram(channel, 0, channel.size());
+    }
+  }
+
+  /**
+   * Map a region of a file with code.
+   * The mapping stays valid after the channel has been closed.
+   *
+   * @param startAddr Start address of code
+   * @param channel File
+   * @param offset Offset of the code in the file
+   * @param length Length of the code
+   */
+  public static MappedCodeBuffer mapCode(int startAddr, FileChannel channel, long offset, long length) throws IOException {
+    requireThat(startAddr, "startAddr").isGreaterThanOrEqualTo(0);
+
+    return new MappedCodeBuffer(startAddr, map(channel, offset, length));
+  }
+
+  /**
+   * Map a region of a file with a program.
+   * The first two bytes of the region are used as start address.
+   * The mapping stays valid after the channel has been closed.
+   *
+   * @param channel File
+   * @param offset Offset of the program in the file
+   * @param length Length of the program including the start address
+   */
+  public static MappedCodeBuffer mapProgram(FileChannel channel, long offset, long length) throws IOException {
+    requireThat(length, "length").isGreaterThanOrEqualTo(2L);
+
+    ByteBuffer program = map(channel, offset, length);
+    int startAddr = program.order(ByteOrder.LITTLE_ENDIAN).getShort(0) & 0xFFFF;
+    return new MappedCodeBuffer(startAddr, program.slice(2, program.limit() - 2));
+  }
+
+  /**
+   * Map a region of a file read only.
+   *
+   * @param channel File
+   * @param offset Offset of the region in the file
+   * @param length Length of the region
+   */
+  private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+    requireThat(channel, "channel").isNotNull();
+    requireThat(offset, "offset").isGreaterThanOrEqualTo(0L);
+    requireThat(length, "length").isBetween(0L, (long) Integer.MAX_VALUE + 1);
+    requireThat(offset + length, "offset + length").isLessThanOrEqualTo(channel.size(), "channel.size()");
+
+    return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+  }
+}
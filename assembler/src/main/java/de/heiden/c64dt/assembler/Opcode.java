@@ -1,5 +1,7 @@
 package de.heiden.c64dt.assembler;
 
+import java.util.List;
+
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
 import static de.heiden.c64dt.assembler.OpcodeMode.ABS;
 import static de.heiden.c64dt.assembler.OpcodeMode.ABX;
@@ -89,6 +91,7 @@ import static de.heiden.c64dt.assembler.OpcodeType.TXA;
 import static de.heiden.c64dt.assembler.OpcodeType.TXS;
 import static de.heiden.c64dt.assembler.OpcodeType.TYA;
 import static de.heiden.c64dt.assembler.OpcodeType.XAA;
+import static de.heiden.c64dt.common.Checks.requireBetween;
 
 /**
  * 6502 series opcodes.
@@ -367,13 +370,31 @@ public enum Opcode {
   OPCODE_FE(0xFE, REG, INC, ABX, 7),
   OPCODE_FF(0xFF, ILL, ISC, ABX, 7);
 
+  /**
+   * Byte representation of opcode to opcode.
+   *
+   * @deprecated Arrays are mutable, use {@link #opcode(int)} or {@link #opcodes()} instead.
+   */
+  @Deprecated
   public static final Opcode[] OPCODES = values();
 
+  /**
+   * Byte representation of opcode to opcode.
+   * Private copy of {@link #OPCODES} used for decoding, so modifications of the public array do no harm.
+   */
+  private static final Opcode[] LOOKUP = values();
+
+  /**
+   * Immutable view of {@link #LOOKUP}.
+   */
+  private static final List<Opcode> OPCODE_LIST = List.of(LOOKUP);
+
   private final int opcode;
   private final boolean legal;
   private final OpcodeType type;
   private final OpcodeMode mode;
   private final int cycles;
+  private final int size;
 
   /**
    * The byte representation of the opcode.
@@ -424,21 +445,26 @@ public enum Opcode {
    * Size of the whole command.
    */
   public int getSize() {
-    return 1 + mode.getSize();
+    return size;
   }
 
   /**
    * Get opcode for byte representation of opcode.
+   * Does not allocate, so it may be used for decoding every byte.
    *
    * @param opcode byte representation of opcode
    */
   public static Opcode opcode(int opcode) {
-    requireThat(opcode, "opcode").isBetween(0x00, 0xFF + 1);
+    requireBetween(opcode, "opcode", 0x00, 0xFF + 1);
 
-    Opcode result = values()[opcode];
+    return LOOKUP[opcode];
+  }
 
-    requireThat(result.getOpcode(), "result.getOpcode()").isEqualTo(opcode, "opcode");
-    return result;
+  /**
+   * All opcodes, indexed by their byte representation.
+   */
+  public static List<Opcode> opcodes() {
+    return OPCODE_LIST;
   }
 
   /**
@@ -487,5 +513,8 @@ public enum Opcode {
     this.type = type;
     this.mode = mode;
     this.cycles = cycles;
+    this.size = 1 + mode.getSize();
+
+    requireThat(ordinal(), "ordinal()").isEqualTo(opcode, "opcode");
   }
 }
@@ -2,7 +2,9 @@ package de.heiden.c64dt.assembler;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
 import static de.heiden.c64dt.bytes.HexUtil.hexByte;
+import static de.heiden.c64dt.bytes.HexUtil.hexBytePlain;
 import static de.heiden.c64dt.bytes.HexUtil.hexWord;
+import static de.heiden.c64dt.bytes.HexUtil.hexWordPlain;
 
 /**
  * Opcode address mode.
@@ -114,6 +116,12 @@ public enum OpcodeMode {
       return toString(hexWord(getAddress(pc, argument)));
     }
 
+    @Override
+    protected int argumentToString(char[] buffer, int index, int pc, int argument) {
+      buffer[index++] = '$';
+      return hexWordPlain(buffer, index, getAddress(pc, argument));
+    }
+
     @Override
     public String toString(String argument) {
       return argument;
@@ -123,11 +131,30 @@ public enum OpcodeMode {
   private final int size;
   private final boolean isAddress;
 
+  /**
+   * Chars in front of the argument in the string representation.
+   */
+  private char[] prefix;
+
+  /**
+   * Chars after the argument in the string representation.
+   */
+  private char[] suffix;
+
+  static {
+    // Derive the templates from toString(String), so both representations are always the same
+    for (OpcodeMode mode : values()) {
+      String template = mode.toString("\0");
+      int argument = Math.max(template.indexOf('\0'), 0);
+      mode.prefix = template.substring(0, argument).toCharArray();
+      mode.suffix = template.substring(Math.min(argument + 1, template.length())).toCharArray();
+    }
+  }
+
   /**
    * Number of bytes this address mode uses.
    */
   public final int getSize() {
-    requireThat(size, "size").isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(2);
     return size;
   }
 
@@ -167,6 +194,42 @@ public enum OpcodeMode {
     return toString(getSize() == 1 ? hexByte(argument) : hexWord(argument));
   }
 
+  /**
+   * Write the string representation for this address mode with a given argument into a buffer.
+   * Same as {@link #toString(int, int)}, but without creating any objects.
+   *
+   * @param buffer Buffer
+   * @param index Index in the buffer to write to
+   * @param pc address of opcode
+   * @param argument argument of opcode
+   * @return Index after the written chars
+   */
+  public final int toString(char[] buffer, int index, int pc, int argument) {
+    if (!hasArgument()) {
+      return index;
+    }
+
+    System.arraycopy(prefix, 0, buffer, index, prefix.length);
+    index = argumentToString(buffer, index + prefix.length, pc, argument);
+    System.arraycopy(suffix, 0, buffer, index, suffix.length);
+    return index + suffix.length;
+  }
+
+  /**
+   * Write the string representation of the argument into a buffer.
+   *
+   * @param buffer Buffer
+   * @param index Index in the buffer to write to
+   * @param pc address of opcode
+   * @param argument argument of opcode
+   * @return Index after the written chars
+   */
+  protected int argumentToString(char[] buffer, int index, int pc, int argument) {
+    // Default implementation, will be overridden by some modes
+    buffer[index++] = '$';
+    return getSize() == 1 ? hexBytePlain(buffer, index, argument) : hexWordPlain(buffer, index, argument);
+  }
+
   /**
    * String representation for this address mode with a given (generic) argument.
    * This method is used for reassembling, if the argument is label.
@@ -0,0 +1,165 @@
+package de.heiden.c64dt.assembler;
+
+/**
+ * Packed primitive table of the opcode properties, indexed by the byte representation of the opcode.
+ * Intended for hot decode loops which only need the properties and not the {@link Opcode} itself.
+ * <p>
+ * Layout of an entry:
+ * <ul>
+ *   <li>bits 0-1: size of the argument in bytes</li>
+ *   <li>bit 2: legal opcode</li>
+ *   <li>bit 3: mode addresses memory</li>
+ *   <li>bit 4: type is a jump</li>
+ *   <li>bit 5: type ends the code flow</li>
+ *   <li>bits 8-15: ordinal of the {@link OpcodeMode}</li>
+ *   <li>bits 16-23: ordinal of the {@link OpcodeType}</li>
+ *   <li>bits 24-31: cycles</li>
+ * </ul>
+ */
+public class OpcodeTable {
+  /**
+   * Mask for the size of the argument.
+   */
+  public static final int ARGUMENT_SIZE = 0x03;
+
+  /**
+   * Flag for legal opcodes.
+   */
+  public static final int LEGAL = 0x04;
+
+  /**
+   * Flag for modes which address memory.
+   */
+  public static final int ADDRESS = 0x08;
+
+  /**
+   * Flag for jump types.
+   */
+  public static final int JUMP = 0x10;
+
+  /**
+   * Flag for types which end the code flow.
+   */
+  public static final int END = 0x20;
+
+  /**
+   * Opcode modes by ordinal.
+   */
+  private static final OpcodeMode[] MODES = OpcodeMode.values();
+
+  /**
+   * Opcode types by ordinal.
+   */
+  private static final OpcodeType[] TYPES = OpcodeType.values();
+
+  /**
+   * Packed entries.
+   */
+  private static final int[] TABLE = new int[0x100];
+
+  static {
+    for (var opcode : Opcode.opcodes()) {
+      var mode = opcode.getMode();
+      var type = opcode.getType();
+      int entry = mode.getSize();
+      entry |= opcode.isLegal() ? LEGAL : 0;
+      entry |= mode.isAddress() ? ADDRESS : 0;
+      entry |= type.isJump() ? JUMP : 0;
+      entry |= type.isEnd() ? END : 0;
+      entry |= mode.ordinal() << 8;
+      entry |= type.ordinal() << 16;
+      entry |= opcode.getCycles() << 24;
+      TABLE[opcode.getOpcode()] = entry;
+    }
+  }
+
+  /**
+   * Packed entry of an opcode.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static int entry(int opcode) {
+    return TABLE[opcode & 0xFF];
+  }
+
+  /**
+   * Size of the argument of an opcode in bytes.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static int argumentSize(int opcode) {
+    return entry(opcode) & ARGUMENT_SIZE;
+  }
+
+  /**
+   * Size of an opcode including its argument in bytes.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static int size(int opcode) {
+    return 1 + argumentSize(opcode);
+  }
+
+  /**
+   * Is the opcode legal?.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static boolean isLegal(int opcode) {
+    return (entry(opcode) & LEGAL) != 0;
+  }
+
+  /**
+   * Does the mode of the opcode address memory?.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static boolean isAddress(int opcode) {
+    return (entry(opcode) & ADDRESS) != 0;
+  }
+
+  /**
+   * Is the opcode a jump?.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static boolean isJump(int opcode) {
+    return (entry(opcode) & JUMP) != 0;
+  }
+
+  /**
+   * Does the opcode end the code flow?.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static boolean isEnd(int opcode) {
+    return (entry(opcode) & END) != 0;
+  }
+
+  /**
+   * Mode of an opcode.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static OpcodeMode mode(int opcode) {
+    return MODES[(entry(opcode) >> 8) & 0xFF];
+  }
+
+  /**
+   * Type of an opcode.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static OpcodeType type(int opcode) {
+    return TYPES[(entry(opcode) >> 16) & 0xFF];
+  }
+
+  /**
+   * Cycles of an opcode.
+   *
+   * @param opcode byte representation of opcode
+   */
+  public static int cycles(int opcode) {
+    return entry(opcode) >>> 24;
+  }
+}
@@ -0,0 +1,89 @@
+package de.heiden.c64dt.assembler;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link BatchDisassembler}.
+ */
+public class BatchDisassemblerTest {
+  @Test
+  public void testDisassemble(@TempDir Path temp) throws Exception {
+    Path input = Files.createDirectories(temp.resolve("input"));
+    byte[] basic = {
+      0x01, 0x08,
+      // 10 SYS2061
+      0x0B, 0x08, 0x0A, 0x00, (byte) 0x9E, 0x32, 0x30, 0x36, 0x31, 0x00, 0x00, 0x00,
+      // LDA #$00, RTS
+      (byte) 0xA9, 0x00, 0x60
+    };
+    byte[] random = new byte[0x1002];
+    new Random(0).nextBytes(random);
+    random[0] = 0x00;
+    random[1] = (byte) 0xC0;
+    Files.write(input.resolve("basic"), basic);
+    Files.write(input.resolve("random"), random);
+    Path single = Files.write(temp.resolve("single"), random);
+    Path broken = Files.write(temp.resolve("broken"), new byte[1]);
+
+    Path output = temp.resolve("output");
+    var result = new BatchDisassembler(2).disassemble(List.of(input, single, broken), output);
+
+    assertEquals(3, result.getFiles());
+    assertEquals(1, result.getFailed());
+    assertEquals(basic.length + 2L * random.length, result.getBytes());
+    assertEquals(disassemble(basic), Files.readString(output.resolve("basic.asm")));
+    assertEquals(disassemble(random), Files.readString(output.resolve("random.asm")));
+    assertEquals(disassemble(random), Files.readString(output.resolve("single.asm")));
+  }
+
+  @Test
+  public void testDisassembleSameNames(@TempDir Path temp) throws Exception {
+    byte[] program1 = {0x00, (byte) 0xC0, (byte) 0xA9, 0x01, 0x60};
+    byte[] program2 = {0x00, (byte) 0xC0, (byte) 0xA9, 0x02, 0x60};
+    byte[] program3 = {0x00, (byte) 0xC0, (byte) 0xA9, 0x03, 0x60};
+    Path input1 = Files.write(Files.createDirectories(temp.resolve("input1")).resolve("prg"), program1);
+    Path input2 = Files.write(Files.createDirectories(temp.resolve("input2")).resolve("prg"), program2);
+    Path input3 = Files.write(Files.createDirectories(temp.resolve("input3")).resolve("PRG"), program3);
+
+    Path output = temp.resolve("output");
+    var result = new BatchDisassembler(3).disassemble(List.of(input1, input2, input3), output);
+
+    assertEquals(3, result.getFiles());
+    assertEquals(disassemble(program1), Files.readString(output.resolve("prg.asm")));
+    assertEquals(disassemble(program2), Files.readString(output.resolve("prg_1.asm")));
+    assertEquals(disassemble(program3), Files.readString(output.resolve("PRG_2.asm")));
+  }
+
+  @Test
+  public void testOutputName() {
+    Set<String> names = new HashSet<>();
+    assertEquals("prg.asm", BatchDisassembler.outputName("prg", names));
+    assertEquals("prg_1.asm", BatchDisassembler.outputName("prg", names));
+    assertEquals("Prg_2.asm", BatchDisassembler.outputName("Prg", names));
+    // Does not collide with the generated names
+    assertEquals("prg_1_1.asm", BatchDisassembler.outputName("prg_1", names));
+    assertEquals("other.asm", BatchDisassembler.outputName("other", names));
+  }
+
+  /**
+   * Disassemble a program serially.
+   *
+   * @param program Program with start address
+   */
+  private String disassemble(byte[] program) throws Exception {
+    StringWriter output = new StringWriter();
+    new Disassembler().disassemble(CodeBuffer.fromProgram(program), output);
+    return output.toString();
+  }
+}
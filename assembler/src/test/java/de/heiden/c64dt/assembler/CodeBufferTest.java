@@ -2,8 +2,10 @@ package de.heiden.c64dt.assembler;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -44,4 +46,81 @@ public class CodeBufferTest {
     assertEquals(0x5634, buffer.read(2));
     assertFalse(buffer.has(1));
   }
+
+  @Test
+  public void testReadUnchecked() {
+    CodeBuffer buffer = new CodeBuffer(0x1000, new byte[]{0x12, 0x34, 0x56});
+    assertEquals(-1, buffer.readUnchecked(0));
+    assertEquals(0x1000, buffer.getCurrentAddress());
+    assertEquals(0x12, buffer.readUnchecked(1));
+    assertEquals(0x1001, buffer.getCurrentAddress());
+    assertEquals(0x5634, buffer.readUnchecked(2));
+    assertEquals(0x1003, buffer.getCurrentAddress());
+    assertFalse(buffer.hasMore());
+  }
+
+  @Test
+  public void testPeek() {
+    CodeBuffer buffer = new CodeBuffer(0, new byte[]{0x12, 0x34, 0x56});
+    byte[] window = new byte[4];
+
+    // Does not advance
+    assertEquals(2, buffer.peek(window, 1, 2));
+    assertArrayEquals(new byte[]{0x00, 0x12, 0x34, 0x00}, window);
+    assertEquals(0, buffer.getCurrentIndex());
+
+    // Stops at the end of the code
+    buffer.setCurrentIndex(1);
+    assertEquals(2, buffer.peek(window, 0, 4));
+    assertArrayEquals(new byte[]{0x34, 0x56, 0x34, 0x00}, window);
+    assertEquals(1, buffer.getCurrentIndex());
+
+    // Nothing left
+    buffer.setCurrentIndex(3);
+    assertEquals(0, buffer.peek(window, 0, 4));
+    buffer.setCurrentIndex(4);
+    assertEquals(0, buffer.peek(window, 0, 4));
+
+    // Range has to be within the buffer, even if less bytes are left
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.peek(window, 1, 4));
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.peek(window, -1, 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.peek(window, 0, -1));
+  }
+
+  @Test
+  public void testReadBytes() {
+    CodeBuffer buffer = new CodeBuffer(0x1000, new byte[]{0x12, 0x34, 0x56});
+    byte[] window = new byte[2];
+
+    assertEquals(2, buffer.read(window, 0, 2));
+    assertArrayEquals(new byte[]{0x12, 0x34}, window);
+    assertEquals(0x1002, buffer.getCurrentAddress());
+
+    // Stops at the end of the code
+    assertEquals(1, buffer.read(window, 0, 2));
+    assertArrayEquals(new byte[]{0x56, 0x34}, window);
+    assertEquals(0x1003, buffer.getCurrentAddress());
+
+    assertEquals(0, buffer.read(window, 0, 2));
+    assertEquals(0x1003, buffer.getCurrentAddress());
+  }
+
+  @Test
+  public void testCopy() {
+    CodeBuffer buffer = new CodeBuffer(0, new byte[]{0x12, 0x34, 0x56});
+    buffer.setCurrentIndex(1);
+    byte[] window = new byte[3];
+
+    buffer.copy(0, window, 1, 2);
+    assertArrayEquals(new byte[]{0x00, 0x12, 0x34}, window);
+    buffer.copy(3, window, 0, 0);
+    // Does not change the position
+    assertEquals(1, buffer.getCurrentIndex());
+
+    // Range has to be within the code and within the buffer
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.copy(2, window, 0, 2));
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.copy(-1, window, 0, 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.copy(0, window, 2, 2));
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.copy(0, window, 0, -1));
+  }
 }
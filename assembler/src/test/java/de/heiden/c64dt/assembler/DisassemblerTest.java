@@ -0,0 +1,69 @@
+package de.heiden.c64dt.assembler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link Disassembler}.
+ */
+public class DisassemblerTest {
+  @Test
+  public void testDisassemble() throws Exception {
+    byte[] code = {
+      (byte) 0xA9, (byte) 0x12,
+      (byte) 0x6C, (byte) 0x34, (byte) 0x12,
+      (byte) 0xD0, (byte) 0xFE,
+      (byte) 0xB1, (byte) 0xFB,
+      (byte) 0x60,
+      (byte) 0x02,
+      (byte) 0x20, (byte) 0xD2
+    };
+
+    String n = System.lineSeparator();
+    String expected =
+      "1000  A9 12     LDA #$12" + n +
+      "1002  6C 34 12  JMP ($1234)" + n +
+      "1005  D0 FE     BNE $1005" + n +
+      "1007  B1 FB     LDA ($FB),Y" + n +
+      "1009  60        RTS" + n +
+      "100A  02        ???" + n +
+      "100B  20        ???" + n +
+      "100C  D2        ???" + n;
+
+    StringWriter output = new StringWriter();
+    new Disassembler().listAndDisassemble(new CodeBuffer(0x1000, code), output, false);
+    assertEquals(expected, output.toString());
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    byte[] code = new byte[0x1000];
+    new Random(0).nextBytes(code);
+    // all opcodes
+    for (int i = 0; i < 0x100; i++) {
+      code[i * 3] = (byte) i;
+    }
+
+    StringWriter expected = new StringWriter();
+    new Disassembler().listAndDisassemble(new CodeBuffer(0xF000, code), expected, false);
+
+    StringBuilder appendable = new StringBuilder();
+    new Disassembler().stream(new CodeBuffer(0xF000, code), appendable);
+    assertEquals(expected.toString(), appendable.toString());
+
+    StringWriter writer = new StringWriter();
+    new Disassembler().stream(new CodeBuffer(0xF000, code), writer);
+    assertEquals(expected.toString(), writer.toString());
+
+    ByteArrayOutputStream channel = new ByteArrayOutputStream();
+    new Disassembler().stream(new CodeBuffer(0xF000, code), Channels.newChannel(channel));
+    assertEquals(expected.toString(), channel.toString(StandardCharsets.US_ASCII));
+  }
+}
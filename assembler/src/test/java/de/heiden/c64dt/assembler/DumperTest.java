@@ -0,0 +1,53 @@
+package de.heiden.c64dt.assembler;
+
+import java.io.StringWriter;
+
+import de.heiden.c64dt.charset.C64Charset;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link Dumper}.
+ */
+public class DumperTest {
+  @Test
+  public void testDump() throws Exception {
+    byte[] code = new byte[18];
+    for (int i = 0; i < code.length; i++) {
+      code[i] = (byte) (0x41 + i);
+    }
+    code[17] = 0x00;
+
+    String n = System.lineSeparator();
+    StringWriter output = new StringWriter();
+    new Dumper().dump(new CodeBuffer(0xC000, code), output);
+    assertEquals(
+      "C000  41 42 43 44 45 46 47 48 49 4A 4B 4C 4D 4E 4F 50   ABCDEFGHIJKLMNOP" + n +
+      "C010  51 00                                             Q@" + n,
+      output.toString());
+  }
+
+  @Test
+  public void testDumpWidth() throws Exception {
+    byte[] code = {0x01, 0x02, 0x03, (byte) 0x8D, 0x41};
+
+    String n = System.lineSeparator();
+    StringWriter output = new StringWriter();
+    new Dumper(4, C64Charset.UPPER).dump(new CodeBuffer(0x0800, code), output);
+    assertEquals(
+      "0800  01 02 03 8D   " + charOf(0x01) + charOf(0x02) + charOf(0x03) + charOf(0x8D) + n +
+      "0804  41            " + charOf(0x41) + n,
+      output.toString());
+  }
+
+  /**
+   * Upper case char of a byte, '.' for non-printable chars.
+   *
+   * @param b byte
+   */
+  private String charOf(int b) {
+    char c = C64Charset.UPPER.toChar((byte) b);
+    return String.valueOf(c != 0 ? c : '.');
+  }
+}
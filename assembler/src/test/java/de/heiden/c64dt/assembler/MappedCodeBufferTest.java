@@ -0,0 +1,88 @@
+package de.heiden.c64dt.assembler;
+
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link MappedCodeBuffer}.
+ */
+public class MappedCodeBufferTest {
+  @Test
+  public void testMapProgram(@TempDir Path temp) throws Exception {
+    byte[] program = new byte[0x1002];
+    new Random(0).nextBytes(program);
+    program[0] = 0x00;
+    program[1] = (byte) 0xC0;
+    Path file = Files.write(temp.resolve("program"), program);
+
+    MappedCodeBuffer buffer = MappedCodeBuffer.mapProgram(file);
+    assertEquals(0xC000, buffer.getCurrentAddress());
+    assertEquals(0x1000, buffer.getCode().remaining());
+    assertEquals(disassemble(CodeBuffer.fromProgram(program)), disassemble(buffer));
+  }
+
+  @Test
+  public void testMapRegion(@TempDir Path temp) throws Exception {
+    byte[] dump = {0x11, 0x22, 0x00, 0x10, (byte) 0xA9, 0x33, 0x44};
+    Path file = Files.write(temp.resolve("dump"), dump);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedCodeBuffer program = MappedCodeBuffer.mapProgram(channel, 2, 4);
+      assertEquals(0x1000, program.getCurrentAddress());
+      assertTrue(program.has(2));
+      assertFalse(program.has(3));
+      assertEquals(0xA9, program.readByte());
+      assertEquals(0x33, program.readByte());
+      assertFalse(program.hasMore());
+
+      MappedCodeBuffer code = MappedCodeBuffer.mapCode(0x2000, channel, 5, 2);
+      assertEquals(0x2000, code.getCurrentAddress());
+      assertEquals(0x4433, code.readWord());
+      assertFalse(code.hasMore());
+    }
+  }
+
+  @Test
+  public void testBulkRead(@TempDir Path temp) throws Exception {
+    Path file = Files.write(temp.resolve("program"), new byte[]{0x00, 0x10, 0x12, 0x34, 0x56});
+
+    MappedCodeBuffer buffer = MappedCodeBuffer.mapProgram(file);
+    byte[] window = new byte[4];
+    assertEquals(3, buffer.peek(window, 0, 4));
+    assertArrayEquals(new byte[]{0x12, 0x34, 0x56, 0x00}, window);
+    assertEquals(0x1000, buffer.getCurrentAddress());
+
+    assertEquals(2, buffer.read(window, 1, 2));
+    assertArrayEquals(new byte[]{0x12, 0x12, 0x34, 0x00}, window);
+    assertEquals(0x1002, buffer.getCurrentAddress());
+
+    buffer.copy(1, window, 2, 2);
+    assertArrayEquals(new byte[]{0x12, 0x12, 0x34, 0x56}, window);
+    assertEquals(0x1002, buffer.getCurrentAddress());
+    assertThrows(IndexOutOfBoundsException.class, () -> buffer.copy(2, window, 0, 2));
+  }
+
+  /**
+   * Disassemble code.
+   *
+   * @param code Code
+   */
+  private String disassemble(ICodeBuffer code) throws Exception {
+    StringWriter output = new StringWriter();
+    new Disassembler().listAndDisassemble(code, output, false);
+    return output.toString();
+  }
+}
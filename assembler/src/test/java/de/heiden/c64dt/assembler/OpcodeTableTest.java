@@ -0,0 +1,52 @@
+package de.heiden.c64dt.assembler;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link OpcodeTable}.
+ */
+public class OpcodeTableTest {
+  @Test
+  public void testEntries() {
+    for (int i = 0x00; i <= 0xFF; i++) {
+      var opcode = Opcode.opcode(i);
+      assertSame(opcode, Opcode.opcodes().get(i));
+      assertEquals(opcode.getSize(), OpcodeTable.size(i));
+      assertEquals(opcode.getMode().getSize(), OpcodeTable.argumentSize(i));
+      assertEquals(opcode.isLegal(), OpcodeTable.isLegal(i));
+      assertEquals(opcode.getMode().isAddress(), OpcodeTable.isAddress(i));
+      assertEquals(opcode.getType().isJump(), OpcodeTable.isJump(i));
+      assertEquals(opcode.getType().isEnd(), OpcodeTable.isEnd(i));
+      assertSame(opcode.getMode(), OpcodeTable.mode(i));
+      assertSame(opcode.getType(), OpcodeTable.type(i));
+      assertEquals(opcode.getCycles(), OpcodeTable.cycles(i));
+    }
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testDeprecatedOpcodes() {
+    assertEquals(Opcode.opcodes(), List.of(Opcode.OPCODES));
+
+    // Modifications of the public array must not affect decoding
+    Opcode original = Opcode.OPCODES[0xEA];
+    try {
+      Opcode.OPCODES[0xEA] = Opcode.OPCODE_00;
+      assertSame(original, Opcode.opcode(0xEA));
+    } finally {
+      Opcode.OPCODES[0xEA] = original;
+    }
+  }
+
+  @Test
+  public void testIllegalOpcode() {
+    assertThrows(IllegalArgumentException.class, () -> Opcode.opcode(-1));
+    assertThrows(IllegalArgumentException.class, () -> Opcode.opcode(0x100));
+  }
+}
@@ -0,0 +1,24 @@
+dependencies {
+    implementation(project(":assembler"))
+    implementation(project(":bytes"))
+    implementation(project(":charset"))
+    implementation(project(":common"))
+    implementation(project(":disk"))
+    implementation(project(":reassembler"))
+
+    implementation(libs.jmh.core)
+    annotationProcessor(libs.jmh.generator.annprocess)
+}
+
+// Run all benchmarks: ./gradlew :benchmarks:jmh
+// Run selected benchmarks with JMH options: ./gradlew :benchmarks:jmh -Pjmh="Disassembler -f 1 -wi 2 -i 3"
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks."
+
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+    // Keep the logging of the benchmarked code quiet. Forked benchmark VMs inherit this property.
+    systemProperty("logback.configurationFile", "logback-benchmarks.xml")
+    args(providers.gradleProperty("jmh").map { it.trim().split(Regex("\\s+")) }.getOrElse(emptyList()))
+}
@@ -0,0 +1,70 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.charset.C64Charset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link C64Charset#toString(byte...)} and {@link C64Charset#view(byte...)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharsetBenchmark {
+  /**
+   * Length of the text in bytes.
+   */
+  @Param({"16", "1000"})
+  private int length;
+
+  private byte[] text;
+
+  private final StringBuilder builder = new StringBuilder();
+
+  @Setup
+  public void setUp() {
+    text = Corpus.text(length, length);
+  }
+
+  @Benchmark
+  public String toStringLower() {
+    return C64Charset.LOWER.toString(text);
+  }
+
+  @Benchmark
+  public String toStringUpper() {
+    return C64Charset.UPPER.toString(text);
+  }
+
+  @Benchmark
+  public int appendString() {
+    return builder().append(C64Charset.LOWER.toString(text)).length();
+  }
+
+  @Benchmark
+  public int appendView() {
+    return builder().append(C64Charset.LOWER.view(text)).length();
+  }
+
+  /**
+   * Reused string builder.
+   */
+  private StringBuilder builder() {
+    builder.setLength(0);
+    return builder;
+  }
+}
@@ -0,0 +1,154 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.reassembler.Reassembler;
+import de.heiden.c64dt.reassembler.command.BitCommand;
+import de.heiden.c64dt.reassembler.command.BlockIndex;
+import de.heiden.c64dt.reassembler.command.CommandBuffer;
+import de.heiden.c64dt.reassembler.command.CommandIterator;
+import de.heiden.c64dt.reassembler.command.ICommand;
+import de.heiden.c64dt.reassembler.command.OpcodeCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the cross-reference lookup, the label lookup, the address computations and the commands of {@link CommandBuffer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBufferBenchmark {
+  /**
+   * Size of the program in bytes.
+   */
+  @Param({"4096", "40960"})
+  private int size;
+
+  /**
+   * Reassembled program.
+   */
+  private CommandBuffer commands;
+
+  /**
+   * Program split into 3 segments.
+   */
+  private CommandBuffer segments;
+
+  @Setup
+  public void setUp() throws IOException {
+    Reassembler reassembler = new Reassembler();
+    reassembler.reassemble(CodeBuffer.fromProgram(Corpus.program(size, size)));
+    commands = reassembler.getCommands();
+
+    segments = new CommandBuffer(new byte[size], 0x1000);
+    segments.rebase(size / 3, 0x8000);
+    segments.base(size * 2 / 3, 0xC000);
+  }
+
+  /**
+   * Cross-reference of 64 addresses, like selecting 64 rows in the GUI.
+   */
+  @Benchmark
+  public int getReferences() {
+    int result = 0;
+    int step = commands.getLength() / 64;
+    for (int index = 0; index < commands.getLength(); index += step) {
+      result += commands.getReferences(commands.addressForIndex(index)).size();
+    }
+
+    return result;
+  }
+
+  /**
+   * Translation of all relative addresses to absolute addresses and back.
+   */
+  @Benchmark
+  public int addressTranslation() {
+    int result = 0;
+    for (int index = 0; index < segments.getLength(); index++) {
+      result += segments.indexForAddress(segments.addressForIndex(index));
+    }
+
+    return result;
+  }
+
+  /**
+   * Label lookup for all addresses, like the writer and the detectors do.
+   */
+  @Benchmark
+  public int labels() {
+    int result = 0;
+    for (int index = 0; index < commands.getLength(); index++) {
+      int address = commands.addressForIndex(index);
+      if (commands.hasLabel(address) && commands.getLabel(address) != null) {
+        result++;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Jump block to block through all blocks using the cached block index.
+   */
+  @Benchmark
+  public int blocks() {
+    BlockIndex blocks = commands.getBlocks();
+    int result = 0;
+    for (int index = blocks.next(0); index >= 0; index = blocks.next(index + 1)) {
+      result += blocks.getEnd(index) - index;
+    }
+
+    return result;
+  }
+
+  /**
+   * Find the starts of all blocks by walking command to command, like before the block index.
+   */
+  @Benchmark
+  public int commandBlocks() {
+    int result = 0;
+    boolean inBlock = false;
+    for (CommandIterator iter = commands.iterator(); iter.hasNext(); ) {
+      ICommand command = iter.next();
+      boolean code = command.isReachable() && (command instanceof OpcodeCommand || command instanceof BitCommand);
+      if (code && (!inBlock || commands.hasCodeLabel(command.getAddress()))) {
+        result++;
+      }
+      inBlock = code && !command.isEnd() &&
+        !(command instanceof OpcodeCommand opcodeCommand && opcodeCommand.getOpcode().getType().isJump()) &&
+        !(command instanceof BitCommand);
+    }
+
+    return result;
+  }
+
+  /**
+   * Byte representation of all commands, like the writer does.
+   */
+  @Benchmark
+  public int toBytes() {
+    byte[] bytes = new byte[commands.getLength()];
+    int result = 0;
+    for (ICommand command : commands) {
+      result += command.toBytes(bytes, 0);
+    }
+
+    return result;
+  }
+}
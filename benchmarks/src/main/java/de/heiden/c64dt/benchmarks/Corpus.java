@@ -0,0 +1,432 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import de.heiden.c64dt.assembler.Opcode;
+import de.heiden.c64dt.assembler.OpcodeMode;
+import de.heiden.c64dt.assembler.OpcodeType;
+import de.heiden.c64dt.disk.d64.D64Reader;
+import de.heiden.c64dt.disk.d71.D71Reader;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Deterministic corpus of synthetic programs and disk images for the benchmarks.
+ * The same seed always produces the same bytes, so results of different runs are comparable.
+ */
+public final class Corpus {
+  /**
+   * Start address of BASIC programs.
+   */
+  public static final int BASIC_START = 0x0801;
+
+  /**
+   * BASIC header "10 SYS2061" at $0801, followed by the end of the BASIC program.
+   * The machine code starts at $080D directly after it.
+   */
+  private static final byte[] BASIC_HEADER = {
+    0x0B, 0x08, 0x0A, 0x00, (byte) 0x9E, 0x32, 0x30, 0x36, 0x31, 0x00, 0x00, 0x00
+  };
+
+  /**
+   * All legal opcodes.
+   */
+  private static final Opcode[] LEGAL = Arrays.stream(Opcode.values()).filter(Opcode::isLegal).toArray(Opcode[]::new);
+
+  /**
+   * Hidden constructor.
+   */
+  private Corpus() {
+  }
+
+  //
+  // Programs
+  //
+
+  /**
+   * Synthetic program (with load address) consisting of a BASIC header followed by machine code.
+   * The machine code is a mix of legal opcodes referencing the program itself, text and tables,
+   * so that disassembler and reassembler find code and data labels, subroutines and unreachable code.
+   *
+   * @param seed Seed
+   * @param size Size of the program in bytes, without load address
+   */
+  public static byte[] program(long seed, int size) {
+    requireThat(size, "size").isGreaterThanOrEqualTo(BASIC_HEADER.length).isLessThanOrEqualTo(0x10000 - BASIC_START);
+
+    Random random = new Random(seed);
+    byte[] result = new byte[2 + size];
+    result[0] = (byte) BASIC_START;
+    result[1] = (byte) (BASIC_START >> 8);
+    System.arraycopy(BASIC_HEADER, 0, result, 2, BASIC_HEADER.length);
+
+    int end = BASIC_START + size;
+    for (int pos = 2 + BASIC_HEADER.length; pos < result.length; ) {
+      int remaining = result.length - pos;
+      int kind = random.nextInt(100);
+      if (kind < 4) {
+        // zero terminated text
+        pos = text(random, result, pos, Math.min(remaining, 4 + random.nextInt(28)), true);
+      } else if (kind < 6) {
+        // table of data bytes
+        pos = data(random, result, pos, Math.min(remaining, 8 + random.nextInt(24)));
+      } else {
+        // opcode
+        Opcode opcode = LEGAL[random.nextInt(LEGAL.length)];
+        if (opcode.getSize() > remaining) {
+          opcode = Opcode.OPCODE_60;
+        }
+        int pc = BASIC_START - 2 + pos;
+        result[pos++] = (byte) opcode.getOpcode();
+        pos = argument(random, result, pos, opcode, pc, end);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Write the argument of an opcode.
+   *
+   * @param random Random
+   * @param program Program
+   * @param pos Position of argument in program
+   * @param opcode Opcode
+   * @param pc Address of opcode
+   * @param end End address of program (excl.)
+   * @return Position after argument
+   */
+  private static int argument(Random random, byte[] program, int pos, Opcode opcode, int pc, int end) {
+    OpcodeMode mode = opcode.getMode();
+    if (mode == OpcodeMode.REL) {
+      // short branch, mostly forward
+      program[pos++] = (byte) (random.nextInt(48) - 16);
+    } else if (mode.getSize() == 1) {
+      program[pos++] = (byte) random.nextInt(0x100);
+    } else if (mode.getSize() == 2) {
+      int address;
+      if (opcode.getType() == OpcodeType.JSR && random.nextInt(4) > 0 || random.nextInt(2) == 0) {
+        // reference into the program
+        address = BASIC_START + random.nextInt(end - BASIC_START);
+      } else {
+        // reference to I/O or kernal
+        address = 0xD000 + random.nextInt(0x3000);
+      }
+      program[pos++] = (byte) address;
+      program[pos++] = (byte) (address >> 8);
+    }
+
+    return pos;
+  }
+
+  /**
+   * Write text in C64 encoding.
+   *
+   * @param random Random
+   * @param buffer Buffer
+   * @param pos Position to write to
+   * @param length Length of text
+   * @param terminate Terminate text with a zero byte?
+   * @return Position after text
+   */
+  private static int text(Random random, byte[] buffer, int pos, int length, boolean terminate) {
+    for (int i = 0; i < length; i++) {
+      int c = random.nextInt(64);
+      buffer[pos++] = (byte) (c == 0 ? 0x20 : c);
+    }
+    if (terminate) {
+      buffer[pos - 1] = 0x00;
+    }
+
+    return pos;
+  }
+
+  /**
+   * Write data bytes.
+   *
+   * @param random Random
+   * @param buffer Buffer
+   * @param pos Position to write to
+   * @param length Number of bytes
+   * @return Position after data
+   */
+  private static int data(Random random, byte[] buffer, int pos, int length) {
+    byte fill = (byte) random.nextInt(0x100);
+    boolean same = random.nextBoolean();
+    for (int i = 0; i < length; i++) {
+      buffer[pos++] = same ? fill : (byte) random.nextInt(0x100);
+    }
+
+    return pos;
+  }
+
+  /**
+   * Synthetic text in C64 encoding (screen codes).
+   *
+   * @param seed Seed
+   * @param length Length of text
+   */
+  public static byte[] text(long seed, int length) {
+    requireThat(length, "length").isGreaterThanOrEqualTo(0);
+
+    byte[] result = new byte[length];
+    text(new Random(seed), result, 0, length, false);
+    return result;
+  }
+
+  //
+  // Disk images
+  //
+
+  /**
+   * Synthetic D64 image (35 tracks, no error information) with the given number of programs.
+   *
+   * @param seed Seed
+   * @param files Number of files (at most 144)
+   */
+  public static byte[] d64(long seed, int files) {
+    return new DiskImageBuilder(35, D64Reader.SIZE_35_TRACKS_NO_ERRORS).build(seed, files);
+  }
+
+  /**
+   * Synthetic D71 image (70 tracks, no error information) with the given number of programs.
+   *
+   * @param seed Seed
+   * @param files Number of files (at most 144)
+   */
+  public static byte[] d71(long seed, int files) {
+    return new DiskImageBuilder(70, D71Reader.SIZE_70_TRACKS_NO_ERRORS).build(seed, files);
+  }
+
+  /**
+   * Builder for the binary representation of 1541 / 1571 disk images.
+   */
+  private static final class DiskImageBuilder {
+    /**
+     * Directory track.
+     */
+    private static final int DIRECTORY_TRACK = 18;
+
+    private final int tracks;
+    private final int tracksPerSide;
+    private final byte[] image;
+
+    /**
+     * Offset of first sector of each track in the image (index 0 is unused).
+     */
+    private final int[] trackOffsets;
+
+    /**
+     * Used sectors.
+     */
+    private final boolean[][] used;
+
+    /**
+     * Constructor.
+     *
+     * @param tracks Number of tracks
+     * @param size Size of the image in bytes
+     */
+    private DiskImageBuilder(int tracks, int size) {
+      this.tracks = tracks;
+      this.tracksPerSide = tracks > 40 ? tracks / 2 : tracks;
+      this.image = new byte[size];
+      this.trackOffsets = new int[tracks + 2];
+      this.used = new boolean[tracks + 1][];
+      for (int track = 1; track <= tracks; track++) {
+        trackOffsets[track + 1] = trackOffsets[track] + getSectors(track) * 256;
+        used[track] = new boolean[getSectors(track)];
+      }
+      requireThat(trackOffsets[tracks + 1], "image size").isEqualTo(size, "size");
+    }
+
+    /**
+     * Number of sectors of a track.
+     *
+     * @param track Track
+     */
+    private int getSectors(int track) {
+      if (track > tracksPerSide) {
+        track -= tracksPerSide;
+      }
+
+      if (track < 18) {
+        return 21;
+      } else if (track < 25) {
+        return 19;
+      } else if (track < 31) {
+        return 18;
+      } else {
+        return 17;
+      }
+    }
+
+    /**
+     * Is the track reserved for BAM and directory?.
+     *
+     * @param track Track
+     */
+    private boolean isDirectoryTrack(int track) {
+      return track == DIRECTORY_TRACK || tracks > tracksPerSide && track == DIRECTORY_TRACK + tracksPerSide;
+    }
+
+    /**
+     * Offset of a sector in the image.
+     *
+     * @param track Track
+     * @param sector Sector
+     */
+    private int offset(int track, int sector) {
+      return trackOffsets[track] + sector * 256;
+    }
+
+    /**
+     * Build image.
+     *
+     * @param seed Seed
+     * @param files Number of files
+     */
+    private byte[] build(long seed, int files) {
+      requireThat(files, "files").isGreaterThanOrEqualTo(0).isLessThanOrEqualTo(144);
+
+      Random random = new Random(seed);
+
+      // reserve BAM and directory
+      used[DIRECTORY_TRACK][0] = true;
+      if (tracks > tracksPerSide) {
+        used[DIRECTORY_TRACK + tracksPerSide][0] = true;
+      }
+      int directorySectors = Math.max(1, (files + 7) / 8);
+      int[] directory = new int[directorySectors];
+      for (int i = 0; i < directorySectors; i++) {
+        // interleave 3
+        directory[i] = 1 + (i * 3) % 18 + i / 6;
+        used[DIRECTORY_TRACK][directory[i]] = true;
+      }
+
+      // files
+      int free = 0;
+      for (int track = 1; track <= tracks; track++) {
+        if (!isDirectoryTrack(track)) {
+          free += getSectors(track);
+        }
+      }
+      int maxBlocks = Math.min(40, free / Math.max(1, files));
+      requireThat(maxBlocks, "maxBlocks").isGreaterThanOrEqualTo(1);
+
+      List<byte[]> entries = new ArrayList<>(files);
+      int track = 1;
+      int sector = 0;
+      for (int file = 0; file < files; file++) {
+        int size = BASIC_HEADER.length + random.nextInt(maxBlocks * 254 - 2 - BASIC_HEADER.length);
+        if ((2 + size) % 254 == 0) {
+          // keep the last sector partially filled, its link byte is the index of the last used byte
+          size--;
+        }
+        byte[] content = program(random.nextLong(), size);
+
+        int startTrack = 0;
+        int startSector = 0;
+        int lastOffset = -1;
+        int blocks = 0;
+        for (int pos = 0; pos < content.length; pos += 254, blocks++) {
+          // search next free sector
+          while (isDirectoryTrack(track) || used[track][sector]) {
+            if (++sector >= getSectors(track)) {
+              sector = 0;
+              track++;
+            }
+            requireThat(track, "track").isLessThanOrEqualTo(tracks);
+          }
+          used[track][sector] = true;
+
+          int offset = offset(track, sector);
+          if (lastOffset < 0) {
+            startTrack = track;
+            startSector = sector;
+          } else {
+            image[lastOffset] = (byte) track;
+            image[lastOffset + 1] = (byte) sector;
+          }
+          int length = Math.min(254, content.length - pos);
+          System.arraycopy(content, pos, image, offset + 2, length);
+          // last sector: index of last used byte
+          image[offset] = 0x00;
+          image[offset + 1] = (byte) (length + 1);
+          lastOffset = offset;
+        }
+
+        byte[] entry = new byte[30];
+        entry[0] = (byte) 0x82; // closed PRG
+        entry[1] = (byte) startTrack;
+        entry[2] = (byte) startSector;
+        Arrays.fill(entry, 3, 19, (byte) 0xA0);
+        text(random, entry, 3, 4 + random.nextInt(12), false);
+        entry[28] = (byte) blocks;
+        entry[29] = (byte) (blocks >> 8);
+        entries.add(entry);
+      }
+
+      // directory
+      for (int i = 0; i < directorySectors; i++) {
+        int offset = offset(DIRECTORY_TRACK, directory[i]);
+        if (i + 1 < directorySectors) {
+          image[offset] = (byte) DIRECTORY_TRACK;
+          image[offset + 1] = (byte) directory[i + 1];
+        } else {
+          image[offset] = 0x00;
+          image[offset + 1] = (byte) 0xFF;
+        }
+        for (int j = 0; j < 8 && i * 8 + j < entries.size(); j++) {
+          System.arraycopy(entries.get(i * 8 + j), 0, image, offset + j * 0x20 + 2, 30);
+        }
+      }
+
+      // BAM
+      int bam = offset(DIRECTORY_TRACK, 0);
+      image[bam] = (byte) DIRECTORY_TRACK;
+      image[bam + 0x01] = 0x01;
+      image[bam + 0x02] = 0x41;
+      writeBAM(bam, 1);
+      if (tracks > tracksPerSide) {
+        writeBAM(offset(DIRECTORY_TRACK + tracksPerSide, 0), 1 + tracksPerSide);
+      }
+      Arrays.fill(image, bam + 0x90, bam + 0xAB, (byte) 0xA0);
+      text(random, image, bam + 0x90, 16, false);
+      image[bam + 0xA2] = (byte) (0x30 + random.nextInt(10));
+      image[bam + 0xA3] = (byte) (0x30 + random.nextInt(10));
+      // DOS type "2A"
+      image[bam + 0xA5] = 0x32;
+      image[bam + 0xA6] = 0x41;
+
+      return image;
+    }
+
+    /**
+     * Write BAM entries of one disk side.
+     *
+     * @param offset Offset of BAM sector
+     * @param firstTrack First track of the side
+     */
+    private void writeBAM(int offset, int firstTrack) {
+      for (int i = 0, pos = offset + 0x04; i < tracksPerSide; i++, pos += 4) {
+        int track = firstTrack + i;
+        int free = 0;
+        int map = 0;
+        for (int sector = 0; sector < getSectors(track); sector++) {
+          if (!used[track][sector]) {
+            free++;
+            map |= 1 << sector;
+          }
+        }
+        image[pos] = (byte) free;
+        image[pos + 1] = (byte) map;
+        image[pos + 2] = (byte) (map >> 8);
+        image[pos + 3] = (byte) (map >> 16);
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.Disassembler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link Disassembler#listAndDisassemble(de.heiden.c64dt.assembler.ICodeBuffer, Writer)}
+ * and the streaming variants of {@link Disassembler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisassemblerBenchmark {
+  /**
+   * Size of the program in bytes.
+   */
+  @Param({"4096", "40960"})
+  private int size;
+
+  /**
+   * Program with load address.
+   */
+  private byte[] program;
+
+  @Setup
+  public void setUp() {
+    program = Corpus.program(size, size);
+  }
+
+  @Benchmark
+  public void listAndDisassemble() throws IOException {
+    new Disassembler().listAndDisassemble(CodeBuffer.fromProgram(program), Writer.nullWriter());
+  }
+
+  @Benchmark
+  public void streamToWriter() throws IOException {
+    new Disassembler().stream(CodeBuffer.fromProgram(program), Writer.nullWriter());
+  }
+
+  @Benchmark
+  public void streamToChannel() throws IOException {
+    new Disassembler().stream(CodeBuffer.fromProgram(program), Channels.newChannel(OutputStream.nullOutputStream()));
+  }
+}
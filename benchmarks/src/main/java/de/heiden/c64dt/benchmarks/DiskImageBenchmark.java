@@ -0,0 +1,185 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.disk.AbstractDiskImage;
+import de.heiden.c64dt.disk.ChainValidator;
+import de.heiden.c64dt.disk.IDirectory;
+import de.heiden.c64dt.disk.IDiskImage;
+import de.heiden.c64dt.disk.IFile;
+import de.heiden.c64dt.disk.SectorInputStream;
+import de.heiden.c64dt.disk.WrongDiskImageFormatException;
+import de.heiden.c64dt.disk.d64.D64Reader;
+import de.heiden.c64dt.disk.d71.D71Reader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for reading disk images, their directories and files.
+ * Images files are either read into the heap or memory mapped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiskImageBenchmark {
+  /**
+   * Number of files per image.
+   */
+  @Param({"8", "144"})
+  private int files;
+
+  private byte[] d64;
+  private byte[] d71;
+  private AbstractDiskImage d64Image;
+  private IDiskImage d71Image;
+  private List<IFile> d64Files;
+  private Path d64File;
+
+  @Setup
+  public void setUp() throws Exception {
+    d64 = Corpus.d64(files, files);
+    d71 = Corpus.d71(files, files);
+    d64Image = (AbstractDiskImage) new D64Reader().read(d64);
+    d64Files = d64Image.getDirectory().getFiles().stream().filter(file -> file.getMode().isVisible()).toList();
+    d71Image = new D71Reader().read(d71);
+    d64File = Files.createTempFile("benchmark", ".d64");
+    Files.write(d64File, d64);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(d64File);
+  }
+
+  @Benchmark
+  public IDiskImage readD64() throws WrongDiskImageFormatException {
+    return new D64Reader().read(d64);
+  }
+
+  @Benchmark
+  public IDiskImage readD71() throws WrongDiskImageFormatException {
+    return new D71Reader().read(d71);
+  }
+
+  @Benchmark
+  public IDiskImage readD64File() throws IOException, WrongDiskImageFormatException {
+    return new D64Reader().read(d64File.toFile());
+  }
+
+  @Benchmark
+  public IDiskImage mapD64File() throws IOException, WrongDiskImageFormatException {
+    return new D64Reader().map(d64File);
+  }
+
+  @Benchmark
+  public IDirectory directoryD64() {
+    return d64Image.getDirectory();
+  }
+
+  @Benchmark
+  public IDirectory directoryD71() {
+    return d71Image.getDirectory();
+  }
+
+  @Benchmark
+  public IDirectory readAndDirectoryD64() throws WrongDiskImageFormatException {
+    return new D64Reader().read(d64).getDirectory();
+  }
+
+  @Benchmark
+  public IDirectory mapAndDirectoryD64() throws IOException, WrongDiskImageFormatException {
+    return new D64Reader().map(d64File).getDirectory();
+  }
+
+  @Benchmark
+  public ChainValidator.Result validateD64() {
+    return ChainValidator.validate(d64Image);
+  }
+
+  @Benchmark
+  public long readFilesD64() {
+    long length = 0;
+    for (IFile file : d64Files) {
+      length += d64Image.read(file).length;
+    }
+    return length;
+  }
+
+  @Benchmark
+  public long streamFilesD64() throws IOException {
+    long length = 0;
+    for (IFile file : d64Files) {
+      try (InputStream stream = new SectorInputStream(d64Image, file)) {
+        length += stream.transferTo(OutputStream.nullOutputStream());
+      }
+    }
+    return length;
+  }
+
+  @Benchmark
+  public long writeFilesD64() throws IOException {
+    long length = 0;
+    for (IFile file : d64Files) {
+      length += d64Image.write(file, NullChannel.INSTANCE);
+    }
+    return length;
+  }
+
+  /**
+   * Channel discarding everything written to it.
+   */
+  private static final class NullChannel implements GatheringByteChannel {
+    private static final NullChannel INSTANCE = new NullChannel();
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      long written = 0;
+      for (int i = offset; i < offset + length; i++) {
+        written += write(srcs[i]);
+      }
+      return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      int written = src.remaining();
+      src.position(src.limit());
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
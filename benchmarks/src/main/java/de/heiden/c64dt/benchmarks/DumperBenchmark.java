@@ -0,0 +1,43 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.Dumper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link Dumper#dump(de.heiden.c64dt.assembler.ICodeBuffer, Writer)} of a 64 KB RAM image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DumperBenchmark {
+  private byte[] ram;
+
+  @Setup
+  public void setUp() {
+    ram = new byte[0x10000];
+    new Random(0x10000).nextBytes(ram);
+  }
+
+  @Benchmark
+  public void dump() throws IOException {
+    new Dumper().dump(new CodeBuffer(0x0000, ram), Writer.nullWriter());
+  }
+}
@@ -0,0 +1,71 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.assembler.Opcode;
+import de.heiden.c64dt.assembler.OpcodeTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Benchmark for decoding opcodes via {@link Opcode#opcode(int)} and {@link OpcodeTable}.
+ * Each invocation decodes every byte of a 40 KB program as opcode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpcodeBenchmark {
+  private byte[] program;
+
+  @Setup
+  public void setUp() {
+    program = Corpus.program(40960, 40960);
+  }
+
+  /**
+   * Decoding as done before the lookup table: Cloning the values per call and validating argument and result.
+   */
+  @Benchmark
+  public int valuesAndRequireThat() {
+    int sum = 0;
+    for (byte b : program) {
+      int opcode = b & 0xFF;
+      requireThat(opcode, "opcode").isBetween(0x00, 0xFF + 1);
+      Opcode result = Opcode.values()[opcode];
+      requireThat(result.getOpcode(), "result.getOpcode()").isEqualTo(opcode, "opcode");
+      sum += result.getSize();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int opcode() {
+    int sum = 0;
+    for (byte b : program) {
+      sum += Opcode.opcode(b & 0xFF).getSize();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int opcodeTable() {
+    int sum = 0;
+    for (byte b : program) {
+      sum += OpcodeTable.size(b);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,107 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.reassembler.ProjectFormat;
+import de.heiden.c64dt.reassembler.ProjectXmlFormat;
+import de.heiden.c64dt.reassembler.Reassembler;
+import de.heiden.c64dt.reassembler.xml.XmlUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for loading a reassembler project from XML via {@link XmlUtil#unmarshal} and {@link ProjectXmlFormat#read}
+ * and from the binary format via {@link ProjectFormat#read}.
+ * Fragmented projects alternate the code type after every byte, which leads to the maximum number of type ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectFormatBenchmark {
+  /**
+   * Size of the program in bytes.
+   */
+  @Param({"4096", "40960"})
+  private int size;
+
+  /**
+   * Code types: "detected" or "fragmented".
+   */
+  @Param({"detected", "fragmented"})
+  private String types;
+
+  /**
+   * Project as XML.
+   */
+  private byte[] xml;
+
+  /**
+   * Project in the binary format including the created commands.
+   */
+  private byte[] binary;
+
+  /**
+   * Project in the binary format without the created commands.
+   */
+  private byte[] binaryWithoutCommands;
+
+  @Setup
+  public void setUp() throws Exception {
+    Reassembler reassembler = new Reassembler();
+    reassembler.reassemble(CodeBuffer.fromProgram(Corpus.program(size, size)));
+    if (types.equals("fragmented")) {
+      for (int index = 0; index < reassembler.getCommands().getLength(); index++) {
+        reassembler.getCommands().setType(index, index % 2 == 0 ? CodeType.DATA : CodeType.CODE);
+      }
+      reassembler.reassemble();
+    }
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    XmlUtil.marshal(reassembler, os);
+    xml = os.toByteArray();
+
+    os = new ByteArrayOutputStream();
+    ProjectFormat.write(reassembler, os, true);
+    binary = os.toByteArray();
+
+    os = new ByteArrayOutputStream();
+    ProjectFormat.write(reassembler, os, false);
+    binaryWithoutCommands = os.toByteArray();
+  }
+
+  @Benchmark
+  public Reassembler loadXml() throws Exception {
+    return XmlUtil.unmarshal(new ByteArrayInputStream(xml), Reassembler.class);
+  }
+
+  @Benchmark
+  public Reassembler loadXmlStreaming() throws Exception {
+    return ProjectXmlFormat.read(new ByteArrayInputStream(xml));
+  }
+
+  @Benchmark
+  public Reassembler loadBinary() throws Exception {
+    return ProjectFormat.read(new ByteArrayInputStream(binary));
+  }
+
+  @Benchmark
+  public Reassembler loadBinaryWithoutCommands() throws Exception {
+    return ProjectFormat.read(new ByteArrayInputStream(binaryWithoutCommands));
+  }
+}
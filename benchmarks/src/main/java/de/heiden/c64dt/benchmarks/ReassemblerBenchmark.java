@@ -0,0 +1,108 @@
+package de.heiden.c64dt.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.reassembler.Reassembler;
+import de.heiden.c64dt.reassembler.command.CommandBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link Reassembler#reassemble(CodeBuffer)}
+ * and for reassembling after a code type edit via {@link Reassembler#reassemble()} and {@link Reassembler#update()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReassemblerBenchmark {
+  /**
+   * Size of the program in bytes.
+   */
+  @Param({"4096", "40960"})
+  private int size;
+
+  /**
+   * Program with load address.
+   */
+  private byte[] program;
+
+  /**
+   * Reassembler for code type edits.
+   */
+  private Reassembler edited;
+
+  /**
+   * Toggle for the code type of the edit.
+   */
+  private boolean data;
+
+  @Setup
+  public void setUp() throws IOException {
+    program = Corpus.program(size, size);
+    edited = new Reassembler();
+    edited.reassemble(CodeBuffer.fromProgram(program));
+  }
+
+  @Benchmark
+  public CommandBuffer reassemble() throws IOException {
+    Reassembler reassembler = new Reassembler();
+    reassembler.reassemble(CodeBuffer.fromProgram(program));
+    return reassembler.getCommands();
+  }
+
+  @Benchmark
+  public CommandBuffer reassembleParallel() throws IOException {
+    Reassembler reassembler = new Reassembler();
+    reassembler.setParallel(true);
+    reassembler.reassemble(CodeBuffer.fromProgram(program));
+    return reassembler.getCommands();
+  }
+
+  @Benchmark
+  public CommandBuffer reassembleRebased() throws IOException {
+    Reassembler reassembler = new Reassembler();
+    reassembler.reassemble(CodeBuffer.fromProgram(program));
+    // move the second half of the program to another segment
+    reassembler.getCommands().rebase(size / 2, 0x1000);
+    reassembler.reassemble();
+    return reassembler.getCommands();
+  }
+
+  @Benchmark
+  public CommandBuffer editAndReassemble() {
+    edit();
+    edited.reassemble();
+    return edited.getCommands();
+  }
+
+  @Benchmark
+  public CommandBuffer editAndUpdate() {
+    edit();
+    edited.update();
+    return edited.getCommands();
+  }
+
+  /**
+   * Toggle the code type of some bytes in the middle of the program.
+   */
+  private void edit() {
+    data = !data;
+    int index = size / 2;
+    edited.getCommands().setType(index, index + 8, data ? CodeType.DATA : CodeType.UNKNOWN);
+  }
+}
@@ -6,6 +6,11 @@ import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requir
  * Helper class for handling hexadecimal values.
  */
 public class HexUtil {
+  /**
+   * Hex digits by value.
+   */
+  private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
   /**
    * String representation of a byte.
    *
@@ -66,6 +71,35 @@ public class HexUtil {
     return "$" + hexPlain(value);
   }
 
+  /**
+   * Write the string representation of a byte into a buffer.
+   * Does not validate the value, just the lower 8 bits are used.
+   *
+   * @param buffer Buffer
+   * @param index Index in the buffer to write to
+   * @param value Value
+   * @return Index after the written chars
+   */
+  public static int hexBytePlain(char[] buffer, int index, int value) {
+    buffer[index++] = DIGITS[(value >> 4) & 0x0F];
+    buffer[index++] = DIGITS[value & 0x0F];
+    return index;
+  }
+
+  /**
+   * Write the string representation of a word into a buffer.
+   * Does not validate the value, just the lower 16 bits are used.
+   *
+   * @param buffer Buffer
+   * @param index Index in the buffer to write to
+   * @param value Value
+   * @return Index after the written chars
+   */
+  public static int hexWordPlain(char[] buffer, int index, int value) {
+    index = hexBytePlain(buffer, index, value >> 8);
+    return hexBytePlain(buffer, index, value);
+  }
+
   /**
    * Parse string representation of a hex number.
    *
@@ -29,6 +29,24 @@ public class HexUtilTest {
     assertEquals("FFFF", HexUtil.hexWordPlain(0xFFFF));
   }
 
+  @Test
+  public void testHexBytePlainBuffer() throws Exception {
+    char[] buffer = new char[4];
+    assertEquals(3, HexUtil.hexBytePlain(buffer, 1, 0x1F));
+    assertEquals("1F", new String(buffer, 1, 2));
+    assertEquals(2, HexUtil.hexBytePlain(buffer, 0, 0xA0));
+    assertEquals("A0", new String(buffer, 0, 2));
+  }
+
+  @Test
+  public void testHexWordPlainBuffer() throws Exception {
+    char[] buffer = new char[5];
+    assertEquals(5, HexUtil.hexWordPlain(buffer, 1, 0x12EF));
+    assertEquals("12EF", new String(buffer, 1, 4));
+    assertEquals(4, HexUtil.hexWordPlain(buffer, 0, 0x0000));
+    assertEquals("0000", new String(buffer, 0, 4));
+  }
+
   @Test
   public void testHexWord() throws Exception {
     assertEquals("$0000", HexUtil.hexWord(0x0000));
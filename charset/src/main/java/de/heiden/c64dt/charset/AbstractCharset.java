@@ -4,11 +4,25 @@ import java.nio.charset.Charset;
 import java.nio.charset.UnmappableCharacterException;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.common.Checks.requireNotNull;
+import static de.heiden.c64dt.common.Checks.requireRange;
 
 /**
  * Charset with some convenience methods.
  */
 public abstract class AbstractCharset extends Charset {
+  /**
+   * Decoded char for every byte, 0 for unmappable bytes.
+   * Lazily computed by {@link #decodeTable()}, because subclasses are not initialized in the constructor.
+   */
+  private volatile char[] decodeTable;
+
+  /**
+   * Encoded byte for every Latin-1 char, space for unmappable chars.
+   * Lazily computed by {@link #encodeTable()}, because subclasses are not initialized in the constructor.
+   */
+  private volatile byte[] encodeTable;
+
   /**
    * Constructor.
    *
@@ -41,21 +55,42 @@ public abstract class AbstractCharset extends Charset {
    * @param length number of bytes to convert
    */
   public String toString(byte[] bytes, int pos, int length) {
-    requireThat(bytes, "bytes").isNotNull();
-    requireThat(pos, "pos").isGreaterThanOrEqualTo(0);
-    requireThat(length, "length").isGreaterThanOrEqualTo(0);
-    requireThat(pos + length, "pos+length").isLessThanOrEqualTo(bytes.length, "bytes.length");
+    requireNotNull(bytes, "bytes");
+    requireRange(pos, length, bytes.length);
 
-    AbstractDecoder decoder = newDecoder();
-    StringBuilder result = new StringBuilder(bytes.length);
+    char[] result = new char[length];
+    int count = 0;
     for (int i = 0; i < length; i++, pos++) {
-      char c = toChar(bytes[pos], decoder);
+      char c = toChar(bytes[pos]);
       if (c > 0) {
-        result.append(c);
+        result[count++] = c;
       }
     }
 
-    return result.toString();
+    return new String(result, 0, count);
+  }
+
+  /**
+   * View C64 encoded bytes as chars, without copying them.
+   *
+   * @param bytes bytes
+   */
+  public CharSequence view(byte... bytes) {
+    requireThat(bytes, "bytes").isNotNull();
+
+    return view(bytes, 0, bytes.length);
+  }
+
+  /**
+   * View C64 encoded bytes as chars, without copying them.
+   * Unmappable bytes are skipped like in {@link #toString(byte[], int, int)}.
+   *
+   * @param bytes bytes
+   * @param pos position in bytes to start from
+   * @param length number of bytes to view
+   */
+  public CharSequence view(byte[] bytes, int pos, int length) {
+    return new DecodedCharSequence(decodeTable(), bytes, pos, length);
   }
 
   /**
@@ -65,17 +100,34 @@ public abstract class AbstractCharset extends Charset {
    * @return Decoded char or 0
    */
   public char toChar(byte b) {
-    return toChar(b, newDecoder());
+    return decodeTable()[b & 0xFF];
   }
 
   /**
-   * Convenience method to convert C64 encoded byte into a char.
+   * Decoded char for every byte, 0 for unmappable bytes.
+   */
+  private char[] decodeTable() {
+    char[] result = decodeTable;
+    if (result == null) {
+      AbstractDecoder decoder = newDecoder();
+      result = new char[0x100];
+      for (int b = 0; b < result.length; b++) {
+        result[b] = toChar((byte) b, decoder);
+      }
+      decodeTable = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Convert C64 encoded byte into a char via the decoder.
    *
    * @param b Byte
    * @param decoder Decoder
    * @return Decoded char or 0
    */
-  private char toChar(byte b, AbstractDecoder decoder) {
+  protected static char toChar(byte b, AbstractDecoder decoder) {
     try {
       return decoder.toChar(b);
     } catch (UnmappableCharacterException e) {
@@ -114,28 +166,45 @@ public abstract class AbstractCharset extends Charset {
     requireThat(pos, "pos").isGreaterThanOrEqualTo(0);
     requireThat(pos + string.length(), "pos+string.length()").isLessThanOrEqualTo(bytes.length, "bytes.length");
 
-    AbstractEncoder encoder = newEncoder();
     for (int i = 0; i < string.length(); i++, pos++) {
-      bytes[pos] = toByte(string.charAt(i), encoder);
+      bytes[pos] = toByte(string.charAt(i));
     }
   }
 
   /**
    * Convenience method to convert a char into C64 encoded byte.
+   * Uses a table for Latin-1 chars and the encoder for all other chars.
    *
    * @param c Character
    */
   public byte toByte(char c) {
-    return toByte(c, newEncoder());
+    return c < 0x100 ? encodeTable()[c] : toByte(c, newEncoder());
   }
 
   /**
-   * Convenience method to convert a char into C64 encoded byte.
+   * Encoded byte for every Latin-1 char, space for unmappable chars.
+   */
+  private byte[] encodeTable() {
+    byte[] result = encodeTable;
+    if (result == null) {
+      AbstractEncoder encoder = newEncoder();
+      result = new byte[0x100];
+      for (int c = 0; c < result.length; c++) {
+        result[c] = toByte((char) c, encoder);
+      }
+      encodeTable = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Convert a char into C64 encoded byte via the encoder.
    *
    * @param c Character
    * @param encoder Encoder
    */
-  private byte toByte(char c, AbstractEncoder encoder) {
+  private static byte toByte(char c, AbstractEncoder encoder) {
     try {
       return encoder.toByte(c);
     } catch (UnmappableCharacterException e) {
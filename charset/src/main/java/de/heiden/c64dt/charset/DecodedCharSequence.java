@@ -0,0 +1,149 @@
+package de.heiden.c64dt.charset;
+
+import java.util.Objects;
+
+/**
+ * View of C64 encoded bytes as chars.
+ * The bytes are not copied, but decoded on access via the decode table of the charset.
+ * Like {@link AbstractCharset#toString(byte[], int, int)}, unmappable bytes are skipped.
+ * <p>
+ * The bytes must not be changed while the view is in use.
+ * Not thread-safe, because a cursor is kept to make sequential access fast even if bytes have to be skipped.
+ */
+public class DecodedCharSequence implements CharSequence {
+  /**
+   * Decoded char for every byte, 0 for unmappable bytes.
+   */
+  private final char[] table;
+
+  /**
+   * Bytes.
+   */
+  private final byte[] bytes;
+
+  /**
+   * Position of the first byte.
+   */
+  private final int start;
+
+  /**
+   * Position after the last byte.
+   */
+  private final int end;
+
+  /**
+   * Number of chars, -1 if not computed yet.
+   */
+  private int length = -1;
+
+  /**
+   * Index of the char at {@link #cursorPosition}.
+   */
+  private int cursorIndex;
+
+  /**
+   * Position of the byte of the char with the index {@link #cursorIndex}.
+   */
+  private int cursorPosition;
+
+  /**
+   * Constructor.
+   *
+   * @param table decoded char for every byte, 0 for unmappable bytes
+   * @param bytes bytes
+   * @param pos position in bytes to start from
+   * @param length number of bytes
+   */
+  DecodedCharSequence(char[] table, byte[] bytes, int pos, int length) {
+    Objects.checkFromIndexSize(pos, length, bytes.length);
+
+    this.table = table;
+    this.bytes = bytes;
+    this.start = pos;
+    this.end = pos + length;
+    this.cursorIndex = 0;
+    this.cursorPosition = pos;
+  }
+
+  @Override
+  public int length() {
+    if (length < 0) {
+      int count = 0;
+      for (int i = start; i < end; i++) {
+        if (table[bytes[i] & 0xFF] != 0) {
+          count++;
+        }
+      }
+      length = count;
+    }
+
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    return table[bytes[position(index)] & 0xFF];
+  }
+
+  /**
+   * Position of the byte of a char.
+   *
+   * @param index index of char
+   */
+  private int position(int index) {
+    Objects.checkIndex(index, length());
+
+    if (length == end - start) {
+      // fast path: no bytes to skip
+      return start + index;
+    }
+
+    int i = cursorIndex;
+    int position = cursorPosition;
+    if (index < i) {
+      i = 0;
+      position = start;
+    }
+    while (true) {
+      while (table[bytes[position] & 0xFF] == 0) {
+        position++;
+      }
+      if (i == index) {
+        break;
+      }
+      position++;
+      i++;
+    }
+
+    cursorIndex = i;
+    cursorPosition = position;
+    return position;
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    Objects.checkFromToIndex(start, end, length());
+
+    if (start == end) {
+      return new DecodedCharSequence(table, bytes, this.start, 0);
+    }
+
+    int from = position(start);
+    int to = end == length ? this.end : position(end);
+    return new DecodedCharSequence(table, bytes, from, to - from);
+  }
+
+  @Override
+  public String toString() {
+    char[] result = new char[length()];
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      char c = table[bytes[i] & 0xFF];
+      if (c != 0) {
+        result[count++] = c;
+      }
+    }
+
+    return new String(result, 0, count);
+  }
+}
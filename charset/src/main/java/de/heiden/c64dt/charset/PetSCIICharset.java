@@ -6,6 +6,28 @@ import java.nio.charset.Charset;
  * Charset for C64 ASCII "PetSCII".
  */
 public class PetSCIICharset extends AbstractCharset {
+  /**
+   * Decoded char for every byte, 0 for unmappable bytes: [0] in lower case mode, [1] in upper case mode.
+   */
+  private static final char[][] DECODE = new char[2][0x100];
+
+  /**
+   * Upper case mode after decoding a byte: [0] from lower case mode, [1] from upper case mode.
+   */
+  private static final boolean[][] UPPER = new boolean[2][0x100];
+
+  static {
+    PetSCIICharset charset = new PetSCIICharset(false);
+    AbstractDecoder decoder = charset.newDecoder();
+    for (int mode = 0; mode < 2; mode++) {
+      for (int b = 0; b < 0x100; b++) {
+        charset.upper = mode == 1;
+        DECODE[mode][b] = toChar((byte) b, decoder);
+        UPPER[mode][b] = charset.upper;
+      }
+    }
+  }
+
   /**
    * Upper case and graphic chars?
    */
@@ -27,6 +49,29 @@ public class PetSCIICharset extends AbstractCharset {
     return cs instanceof PetSCIICharset;
   }
 
+  /**
+   * Convert C64 encoded byte into a char.
+   * Switches between upper and lower case mode for the control bytes.
+   *
+   * @param b Byte
+   * @return Decoded char or 0
+   */
+  @Override
+  public char toChar(byte b) {
+    int mode = upper ? 1 : 0;
+    upper = UPPER[mode][b & 0xFF];
+    return DECODE[mode][b & 0xFF];
+  }
+
+  /**
+   * Decodes the bytes immediately into a string,
+   * because the decoding depends on the case mode switched by previous bytes.
+   */
+  @Override
+  public CharSequence view(byte[] bytes, int pos, int length) {
+    return toString(bytes, pos, length);
+  }
+
   @Override
   public AbstractDecoder newDecoder() {
     return new PetSCIIDecoder(this);
@@ -1,5 +1,7 @@
 package de.heiden.c64dt.charset;
 
+import java.nio.ByteBuffer;
+
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
@@ -52,4 +54,28 @@ public class C64CharsetTest {
     byte[] hello = new byte[]{0x08, 0x05, 0x0C, 0x0C, 0x0F};
     assertEquals("hello", C64Charset.LOWER.toString(hello));
   }
+
+  @Test
+  public void testUnmappable() {
+    // unmappable chars are encoded as space
+    assertEquals(0x20, C64Charset.LOWER.toByte('~'));
+    assertEquals(0x20, C64Charset.LOWER.toByte('\u20AC'));
+
+    // unmappable bytes are skipped
+    assertEquals(0, C64Charset.UPPER.toChar((byte) 0x60));
+    assertEquals("AB", C64Charset.UPPER.toString(new byte[]{0x01, 0x60, 0x02}));
+  }
+
+  @Test
+  public void testDecoder() throws Exception {
+    // the tables have to be consistent with the decoder
+    for (C64Charset charset : new C64Charset[]{C64Charset.UPPER, C64Charset.LOWER}) {
+      for (int b = 0; b < 0x100; b++) {
+        char c = charset.toChar((byte) b);
+        if (c != 0) {
+          assertEquals(String.valueOf(c), charset.decode(ByteBuffer.wrap(new byte[]{(byte) b})).toString());
+        }
+      }
+    }
+  }
 }
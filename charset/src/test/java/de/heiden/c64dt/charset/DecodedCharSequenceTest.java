@@ -0,0 +1,53 @@
+package de.heiden.c64dt.charset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link DecodedCharSequence}.
+ */
+public class DecodedCharSequenceTest {
+  @Test
+  public void testView() {
+    byte[] hello = {0x08, 0x05, 0x0C, 0x0C, 0x0F};
+    CharSequence view = C64Charset.LOWER.view(hello);
+
+    assertEquals(5, view.length());
+    assertEquals('h', view.charAt(0));
+    assertEquals('o', view.charAt(4));
+    assertEquals("ell", view.subSequence(1, 4).toString());
+    assertEquals("hello", view.toString());
+    assertEquals("hello", new StringBuilder().append(view).toString());
+    assertEquals(0, CharSequence.compare("hello", view));
+  }
+
+  @Test
+  public void testUnmappable() {
+    // 0x60 is unmappable in the upper case charset
+    byte[] bytes = {0x60, 0x01, 0x60, 0x60, 0x02, 0x03, 0x60};
+    CharSequence view = C64Charset.UPPER.view(bytes, 0, bytes.length);
+
+    assertEquals(C64Charset.UPPER.toString(bytes), view.toString());
+    assertEquals(3, view.length());
+    assertEquals('A', view.charAt(0));
+    assertEquals('C', view.charAt(2));
+    // backward access
+    assertEquals('B', view.charAt(1));
+    assertEquals('A', view.charAt(0));
+    assertEquals("BC", view.subSequence(1, 3).toString());
+    assertEquals("AB", view.subSequence(0, 2).toString());
+    assertEquals("", view.subSequence(1, 1).toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(3));
+  }
+
+  @Test
+  public void testSlice() {
+    byte[] bytes = {0x01, 0x02, 0x03, 0x04};
+    CharSequence view = C64Charset.UPPER.view(bytes, 1, 2);
+
+    assertEquals("BC", view.toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> C64Charset.UPPER.view(bytes, 3, 2));
+  }
+}
@@ -0,0 +1,77 @@
+package de.heiden.c64dt.common;
+
+/**
+ * Precondition checks for hot paths, e.g. methods called for every opcode or every command.
+ * {@code requireThat()} creates a validator per call, which noticeably slows down these paths,
+ * e.g. the reassembly of a 40 KB program from 34 ms to 51 ms.
+ * Everywhere else {@code requireThat()} should be used.
+ * The exceptions and messages resemble those of {@code requireThat()}.
+ */
+public final class Checks {
+  /**
+   * Utility class.
+   */
+  private Checks() {
+  }
+
+  /**
+   * Require a condition to be true.
+   *
+   * @param value value of the condition
+   * @param name name of the condition
+   * @throws IllegalArgumentException if the condition is false
+   */
+  public static void requireTrue(boolean value, String name) {
+    if (!value) {
+      throw new IllegalArgumentException(name + " must be true.");
+    }
+  }
+
+  /**
+   * Require a value to be not null.
+   *
+   * @param value value
+   * @param name name of the value
+   * @return value
+   * @throws NullPointerException if the value is null
+   */
+  public static <T> T requireNotNull(T value, String name) {
+    if (value == null) {
+      throw new NullPointerException(name + " may not be null.");
+    }
+    return value;
+  }
+
+  /**
+   * Require a value to be within a range.
+   *
+   * @param value value
+   * @param name name of the value
+   * @param startInclusive lower bound, inclusive
+   * @param endExclusive upper bound, exclusive
+   * @return value
+   * @throws IllegalArgumentException if the value is outside the range
+   */
+  public static int requireBetween(int value, String name, int startInclusive, int endExclusive) {
+    if (value < startInclusive || value >= endExclusive) {
+      throw new IllegalArgumentException(
+        name + " must be in [" + startInclusive + ", " + endExclusive + ") but was " + value + ".");
+    }
+    return value;
+  }
+
+  /**
+   * Require a range to be within an array.
+   *
+   * @param pos start of the range
+   * @param length length of the range
+   * @param arrayLength length of the array
+   * @throws IllegalArgumentException if the range is not within the array
+   */
+  public static void requireRange(int pos, int length, int arrayLength) {
+    if ((pos | length) < 0 || length > arrayLength - pos) {
+      throw new IllegalArgumentException(
+        "Range [" + pos + ", " + pos + "+" + length + ") must be within [0, " + arrayLength + ").");
+    }
+  }
+}
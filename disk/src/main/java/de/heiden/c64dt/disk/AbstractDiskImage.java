@@ -3,11 +3,12 @@ package de.heiden.c64dt.disk;
 import de.heiden.c64dt.bytes.ByteUtil;
 import de.heiden.c64dt.charset.TextUtil;
 import org.apache.commons.io.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,28 +17,49 @@ import static de.heiden.c64dt.disk.SectorModelUtil.requireValidSector;
 
 /**
  * Abstract disk image implementation.
+ * The content is stored in the layout of the image file: all sectors track by track, followed by the error bytes.
+ * The sectors are addressed via a precomputed track offset table.
+ * So images can be backed by a buffer of the image file, e.g. a memory mapped one, without copying.
+ * Read-only buffers are copied to the heap on the first modification.
  */
 public abstract class AbstractDiskImage implements IDiskImage {
-  /**
-   * Logger.
-   */
-  private final Logger logger = LoggerFactory.getLogger(getClass());
-
   private final int sides;
   private final int tracks;
   private final int tracksPerSide;
   private final boolean hasErrors;
-  private final byte[][][] sectors;
-  private final Error[][] errors;
 
   /**
-   * Constructor.
+   * Track (0-based) to the offset of its first sector in the image.
+   * The additional last entry is the offset of the error bytes.
+   */
+  private final int[] trackOffsets;
+
+  /**
+   * Image content.
+   */
+  private ByteBuffer image;
+
+  /**
+   * Constructor for an empty image.
    *
    * @param sides number of disk sides
    * @param tracks number of tracks
    * @param hasErrors support error informations?
    */
   protected AbstractDiskImage(int sides, int tracks, boolean hasErrors) {
+    this(sides, tracks, hasErrors, null);
+  }
+
+  /**
+   * Constructor for an image backed by the given buffer.
+   * The buffer is not copied.
+   *
+   * @param sides number of disk sides
+   * @param tracks number of tracks
+   * @param hasErrors support error informations?
+   * @param image content in the layout of the image file, null for an empty image
+   */
+  protected AbstractDiskImage(int sides, int tracks, boolean hasErrors, ByteBuffer image) {
     requireThat(sides, "sides").isGreaterThanOrEqualTo(1).isLessThanOrEqualTo(2);
     requireThat(tracks, "tracks").isGreaterThanOrEqualTo(0);
     requireThat(tracks % sides, "tracks%sides").isEqualTo(0);
@@ -47,30 +69,39 @@ public abstract class AbstractDiskImage implements IDiskImage {
     this.tracksPerSide = tracks / sides;
     this.hasErrors = hasErrors;
 
-    sectors = new byte[tracks][][];
-    errors = new Error[tracks][];
+    trackOffsets = new int[tracks + 1];
     for (int track = 1; track <= tracks; track++) {
-      int spt = getSectors(track);
-      sectors[track - 1] = new byte[spt][];
-      errors[track - 1] = new Error[spt];
-      for (int sector = 0; sector < spt; sector++) {
-        sectors[track - 1][sector] = new byte[256];
-        errors[track - 1][sector] = Error.NO_ERROR;
+      trackOffsets[track] = trackOffsets[track - 1] + getSectors(track) * 256;
+    }
+    int size = getSize();
+
+    if (image == null) {
+      this.image = ByteBuffer.allocate(size);
+      if (hasErrors) {
+        for (int pos = trackOffsets[tracks]; pos < size; pos++) {
+          this.image.put(pos, Error.NO_ERROR.getError());
+        }
       }
+    } else {
+      requireThat(image.remaining(), "image.remaining()").isEqualTo(size, "size");
+      this.image = image.slice();
     }
   }
 
+  /**
+   * Size of the image in bytes.
+   */
+  public int getSize() {
+    int sectorsSize = trackOffsets[tracks];
+    return hasErrors ? sectorsSize + sectorsSize / 256 : sectorsSize;
+  }
+
   /**
    * Load D64 from binary representation.
    */
   public void load(InputStream stream) throws IOException {
     byte[] bytes = IOUtils.toByteArray(stream);
-    for (int pos = 0, track = 1; track <= getTracks(); track++) {
-      for (int sector = 0; sector < getSectors(track) && pos < bytes.length; sector++, pos += 256) {
-        logger.info("Reading track {} sector {}.", track, sector);
-        System.arraycopy(bytes, pos, sectors[track - 1][sector], 0, 256);
-      }
-    }
+    writable().put(0, bytes, 0, Math.min(bytes.length / 256 * 256, trackOffsets[tracks]));
   }
 
   //
@@ -100,7 +131,16 @@ public abstract class AbstractDiskImage implements IDiskImage {
   public byte[] getSector(int track, int sector) {
     requireValidSector(this, track, sector);
 
-    return sectors[track - 1][sector];
+    byte[] result = new byte[256];
+    image.get(offset(track, sector), result);
+    return result;
+  }
+
+  @Override
+  public ByteBuffer getSectorBuffer(int track, int sector) {
+    requireValidSector(this, track, sector);
+
+    return image.slice(offset(track, sector), 256).asReadOnlyBuffer();
   }
 
   @Override
@@ -111,7 +151,31 @@ public abstract class AbstractDiskImage implements IDiskImage {
       throw new IllegalArgumentException("Illegal sector content");
     }
 
-    System.arraycopy(content, 0, sectors[track - 1][sector], 0, 256);
+    writable().put(offset(track, sector), content);
+  }
+
+  /**
+   * Offset of a sector in the image.
+   *
+   * @param track track (1-based)
+   * @param sector sector (0-based)
+   */
+  private int offset(int track, int sector) {
+    return trackOffsets[track - 1] + sector * 256;
+  }
+
+  /**
+   * Image content for modification.
+   * Read-only content, e.g. of a memory mapped file, is copied to the heap before.
+   */
+  private ByteBuffer writable() {
+    if (image.isReadOnly()) {
+      ByteBuffer copy = ByteBuffer.allocate(image.capacity());
+      copy.put(0, image, 0, image.capacity());
+      image = copy;
+    }
+
+    return image;
   }
 
   //
@@ -133,7 +197,7 @@ public abstract class AbstractDiskImage implements IDiskImage {
     requireThat(hasErrors(), "hasErrors()").isTrue();
     requireValidSector(this, track, sector);
 
-    return errors[track - 1][sector];
+    return Error.error(image.get(errorOffset(track, sector)));
   }
 
   @Override
@@ -142,7 +206,17 @@ public abstract class AbstractDiskImage implements IDiskImage {
     requireValidSector(this, track, sector);
     requireThat(error, "error").isNotNull();
 
-    errors[track - 1][sector] = error;
+    writable().put(errorOffset(track, sector), error.getError());
+  }
+
+  /**
+   * Offset of the error byte of a sector in the image.
+   *
+   * @param track track (1-based)
+   * @param sector sector (0-based)
+   */
+  private int errorOffset(int track, int sector) {
+    return trackOffsets[tracks] + trackOffsets[track - 1] / 256 + sector;
   }
 
   //
@@ -154,6 +228,17 @@ public abstract class AbstractDiskImage implements IDiskImage {
    */
   protected abstract int getBamEntrySize();
 
+  /**
+   * Is the sector reserved, so it is in use without being part of a sector chain?.
+   * The default is the BAM sector 18/0.
+   *
+   * @param track track
+   * @param sector sector
+   */
+  protected boolean isReserved(int track, int sector) {
+    return track == 18 && sector == 0;
+  }
+
   /**
    * Read a track entry.
    *
@@ -234,26 +319,98 @@ public abstract class AbstractDiskImage implements IDiskImage {
    * Read file content.
    */
   public byte[] read(IFile file) {
-    int track = file.getTrack();
-    int sector = file.getSector();
-    byte[] content = new byte[file.getSize() * 256];
+    ByteBuffer[] payloads = payloads(file);
+    byte[] result = new byte[length(payloads)];
     int pos = 0;
-    while (track > 0) {
-      byte[] sectorContent = getSector(track, sector);
-      track = ByteUtil.toByte(sectorContent, 0);
-      sector = ByteUtil.toByte(sectorContent, 1);
-      if (track == 0) {
-        System.arraycopy(sectorContent, 2, content, pos, sector);
-        pos += sector;
-      } else {
-        System.arraycopy(sectorContent, 2, content, pos, 254);
-        pos += 254;
-      }
+    for (ByteBuffer payload : payloads) {
+      int length = payload.remaining();
+      payload.get(result, pos, length);
+      pos += length;
     }
 
-    // Resize array to actual file size.
-    byte[] result = new byte[pos];
-    System.arraycopy(content, 0, result, 0, pos);
     return result;
   }
+
+  /**
+   * Write file content to a channel.
+   * The sector payloads are written directly from the image with gathering writes without copying.
+   *
+   * @param file file
+   * @param channel channel to write to
+   * @return number of bytes written
+   */
+  public long write(IFile file, GatheringByteChannel channel) throws IOException {
+    requireThat(channel, "channel").isNotNull();
+
+    ByteBuffer[] payloads = payloads(file);
+    long length = length(payloads);
+    long written = 0;
+    while (written < length) {
+      written += channel.write(payloads);
+    }
+
+    return written;
+  }
+
+  /**
+   * Feed file content into a message digest.
+   * The sector payloads are passed directly from the image to the digest without copying.
+   *
+   * @param file file
+   * @param digest message digest to update
+   * @return number of bytes digested
+   */
+  public int digest(IFile file, MessageDigest digest) {
+    requireThat(digest, "digest").isNotNull();
+
+    int length = 0;
+    for (ByteBuffer payload : payloads(file)) {
+      length += payload.remaining();
+      digest.update(payload);
+    }
+
+    return length;
+  }
+
+  /**
+   * Views of the payloads of the sector chain of a file, in file order.
+   * The views are read-only slices of the image, so no content is copied.
+   *
+   * @param file file
+   */
+  public ByteBuffer[] payloads(IFile file) {
+    requireThat(file, "file").isNotNull();
+
+    List<ByteBuffer> payloads = new ArrayList<>(file.getSize());
+    for (SectorIterator iter = new SectorIterator(this, file); iter.hasNext(); ) {
+      payloads.add(payload(iter.nextBuffer()));
+    }
+
+    return payloads.toArray(new ByteBuffer[0]);
+  }
+
+  /**
+   * Payload of a sector of a sector chain.
+   * For the last sector of a chain, the sector link is the index of the last used byte.
+   *
+   * @param sector sector content
+   * @return view of the payload
+   */
+  static ByteBuffer payload(ByteBuffer sector) {
+    int last = sector.get(0) == 0 ? Math.max(ByteUtil.toByte(sector.get(1)), 1) : 0xFF;
+    return sector.slice(2, last - 1);
+  }
+
+  /**
+   * Total number of remaining bytes of buffers.
+   *
+   * @param buffers buffers
+   */
+  private static int length(ByteBuffer[] buffers) {
+    int length = 0;
+    for (ByteBuffer buffer : buffers) {
+      length += buffer.remaining();
+    }
+    return length;
+  }
 }
@@ -3,11 +3,13 @@ package de.heiden.c64dt.disk;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
 
@@ -15,11 +17,6 @@ import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requir
  * Abstract base class for disk image readers.
  */
 public abstract class AbstractDiskImageReader {
-  /**
-   * Logger.
-   */
-  private final Logger logger = LoggerFactory.getLogger(getClass());
-
   /**
    * Read disk image from file.
    *
@@ -28,7 +25,7 @@ public abstract class AbstractDiskImageReader {
   public IDiskImage read(File file) throws IOException, WrongDiskImageFormatException {
     requireThat(file, "file").isNotNull();
 
-    return read(FileUtils.readFileToByteArray(file));
+    return read(ByteBuffer.wrap(FileUtils.readFileToByteArray(file)));
   }
 
   /**
@@ -40,55 +37,46 @@ public abstract class AbstractDiskImageReader {
   public IDiskImage read(InputStream stream) throws IOException, WrongDiskImageFormatException {
     requireThat(stream, "stream").isNotNull();
 
-    return read(IOUtils.toByteArray(stream));
+    return read(ByteBuffer.wrap(IOUtils.toByteArray(stream)));
   }
 
   /**
    * Read disk image from byte array.
+   * The data is copied.
    *
    * @param data image data to read from
    */
-  public abstract IDiskImage read(byte[] data) throws WrongDiskImageFormatException;
+  public IDiskImage read(byte[] data) throws WrongDiskImageFormatException {
+    requireThat(data, "data").isNotNull();
+
+    return read(ByteBuffer.wrap(data.clone()));
+  }
 
   /**
-   * Read disk image from byte array.
+   * Map disk image file into memory.
+   * The sectors are read directly from the mapping, until the image gets modified.
+   * The mapping stays valid after the file has been closed.
    *
-   * @param data image data to read from
-   * @param diskImage disk image
-   * @return diskImage for method chaining
+   * @param file file
    */
-  protected IDiskImage read(byte[] data, IDiskImage diskImage) {
-    requireThat(data, "data").isNotNull();
-    requireThat(diskImage, "diskImage").isNotNull();
-
-    int i = 0;
+  public IDiskImage map(Path file) throws IOException, WrongDiskImageFormatException {
+    requireThat(file, "file").isNotNull();
 
-    // read sector contents
-    byte[] content = new byte[256];
-    for (int track = 1; track <= diskImage.getTracks(); track++) {
-      logger.debug("Reading track {}", track);
-      for (int sector = 0; sector < diskImage.getSectors(track); sector++) {
-        logger.debug("Reading sector {} from {}", sector, Integer.toHexString(i));
-        System.arraycopy(data, i, content, 0, content.length);
-        diskImage.setSector(track, sector, content);
-        i += content.length;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new WrongDiskImageFormatException(-1);
       }
-    }
 
-    // read errors
-    if (diskImage.hasErrors()) {
-      logger.debug("Reading errors");
-      for (int track = 1; track <= diskImage.getTracks(); track++) {
-        for (int sector = 0; sector < diskImage.getSectors(track); sector++) {
-          diskImage.setError(track, sector, Error.error(data[i]));
-          i++;
-        }
-      }
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
     }
-
-    requireThat(i, "i").isEqualTo(data.length, "data.length");
-
-    requireThat(diskImage, "diskImage").isNotNull();
-    return diskImage;
   }
+
+  /**
+   * Create disk image backed by the given image data.
+   * The data is not copied.
+   *
+   * @param image image data from the current position to the limit
+   */
+  public abstract IDiskImage read(ByteBuffer image) throws WrongDiskImageFormatException;
 }
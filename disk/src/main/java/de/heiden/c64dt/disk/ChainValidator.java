@@ -0,0 +1,325 @@
+package de.heiden.c64dt.disk;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.heiden.c64dt.bytes.ByteUtil;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.disk.SectorModelUtil.isValidSector;
+
+/**
+ * Validates all sector chains of a disk image in a single linear pass.
+ * Each sector is read at most once, the chains are stopped at the first broken link,
+ * so even badly damaged images neither hang nor throw.
+ * <p>
+ * Side sector chains of relative files are not followed, so their sectors are reported as orphaned.
+ */
+public class ChainValidator {
+  /**
+   * Disk image.
+   */
+  private final AbstractDiskImage diskImage;
+
+  /**
+   * Sector index to the chain (1-based) the sector belongs to, 0 if the sector is not part of a chain.
+   */
+  private final int[] owners;
+
+  /**
+   * Names of the chains, index 0 is unused.
+   */
+  private final List<String> chains = new ArrayList<>();
+
+  /**
+   * Detected problems.
+   */
+  private final List<Problem> problems = new ArrayList<>();
+
+  /**
+   * Block allocation map.
+   */
+  private IBAM bam;
+
+  /**
+   * Number of sectors in chains.
+   */
+  private int sectors;
+
+  /**
+   * Constructor.
+   *
+   * @param diskImage disk image
+   */
+  private ChainValidator(AbstractDiskImage diskImage) {
+    this.diskImage = diskImage;
+    this.owners = new int[SectorModelUtil.indexes(diskImage)];
+    this.chains.add(null);
+  }
+
+  /**
+   * Validate the directory and all files of a disk image.
+   *
+   * @param diskImage disk image
+   */
+  public static Result validate(AbstractDiskImage diskImage) {
+    requireThat(diskImage, "diskImage").isNotNull();
+
+    return new ChainValidator(diskImage).validate();
+  }
+
+  /**
+   * Validate the directory and all files.
+   */
+  private Result validate() {
+    bam = diskImage.getBAM();
+
+    // Directory
+    List<ByteBuffer> directory = walk("directory", 18, 1);
+    List<IFile> files = new ArrayList<>(directory.size() * 8);
+    byte[] content = new byte[256];
+    for (ByteBuffer sector : directory) {
+      sector.get(0, content);
+      for (int pos = 0; pos < 256; pos += 0x20) {
+        files.add(diskImage.getFile(content, pos));
+      }
+    }
+
+    // Files
+    for (IFile file : files) {
+      if (file.getMode().isVisible() && file.getTrack() != 0) {
+        walk(file.toString(), file.getTrack(), file.getSector());
+      }
+    }
+
+    // Orphans
+    for (int track = 1; track <= diskImage.getTracks(); track++) {
+      for (int sector = 0; sector < diskImage.getSectors(track); sector++) {
+        if (!bam.isFree(track, sector) && owners[SectorModelUtil.index(diskImage, track, sector)] == 0 &&
+          !diskImage.isReserved(track, sector)) {
+          problems.add(new Problem(ProblemType.ORPHANED, null, track, sector, null));
+        }
+      }
+    }
+
+    return new Result(chains.size() - 1, sectors, problems);
+  }
+
+  /**
+   * Walk a sector chain, until its end or the first broken link.
+   *
+   * @param name name of the chain
+   * @param track start track
+   * @param sector start sector
+   * @return sectors of the chain
+   */
+  private List<ByteBuffer> walk(String name, int track, int sector) {
+    int chain = chains.size();
+    chains.add(name);
+
+    List<ByteBuffer> result = new ArrayList<>();
+    while (track != 0) {
+      if (!isValidSector(diskImage, track, sector)) {
+        problems.add(new Problem(ProblemType.ILLEGAL_LINK, name, track, sector, null));
+        break;
+      }
+
+      int index = SectorModelUtil.index(diskImage, track, sector);
+      int owner = owners[index];
+      if (owner == chain) {
+        problems.add(new Problem(ProblemType.LOOPING, name, track, sector, null));
+        break;
+      } else if (owner != 0) {
+        problems.add(new Problem(ProblemType.CROSS_LINKED, name, track, sector, chains.get(owner)));
+        break;
+      }
+      owners[index] = chain;
+      sectors++;
+      if (bam.isFree(track, sector)) {
+        problems.add(new Problem(ProblemType.UNALLOCATED, name, track, sector, null));
+      }
+
+      ByteBuffer content = diskImage.getSectorBuffer(track, sector);
+      result.add(content);
+      track = ByteUtil.toByte(content.get(0));
+      sector = ByteUtil.toByte(content.get(1));
+    }
+
+    return result;
+  }
+
+  /**
+   * Type of chain problem.
+   */
+  public enum ProblemType {
+    /**
+     * Link to a non-existing sector.
+     */
+    ILLEGAL_LINK,
+
+    /**
+     * Link to a sector visited before by the same chain.
+     */
+    LOOPING,
+
+    /**
+     * Link to a sector belonging to another chain.
+     */
+    CROSS_LINKED,
+
+    /**
+     * Sector of a chain which is marked as free in the BAM.
+     */
+    UNALLOCATED,
+
+    /**
+     * Sector marked as used in the BAM, which does not belong to any chain.
+     */
+    ORPHANED
+  }
+
+  /**
+   * Chain problem.
+   */
+  public static class Problem {
+    private final ProblemType type;
+    private final String chain;
+    private final int track;
+    private final int sector;
+    private final String otherChain;
+
+    /**
+     * Constructor.
+     *
+     * @param type problem type
+     * @param chain name of the chain, null for orphaned sectors
+     * @param track track of the affected sector
+     * @param sector affected sector
+     * @param otherChain name of the other chain for cross-linked sectors, otherwise null
+     */
+    public Problem(ProblemType type, String chain, int track, int sector, String otherChain) {
+      requireThat(type, "type").isNotNull();
+
+      this.type = type;
+      this.chain = chain;
+      this.track = track;
+      this.sector = sector;
+      this.otherChain = otherChain;
+    }
+
+    /**
+     * Problem type.
+     */
+    public ProblemType getType() {
+      return type;
+    }
+
+    /**
+     * Name of the chain, null for orphaned sectors.
+     */
+    public String getChain() {
+      return chain;
+    }
+
+    /**
+     * Track of the affected sector.
+     */
+    public int getTrack() {
+      return track;
+    }
+
+    /**
+     * Affected sector.
+     */
+    public int getSector() {
+      return sector;
+    }
+
+    /**
+     * Name of the other chain for cross-linked sectors, otherwise null.
+     */
+    public String getOtherChain() {
+      return otherChain;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder(32);
+      result.append(type).append(" ").append(track).append(" / ").append(sector);
+      if (chain != null) {
+        result.append(" in ").append(chain);
+      }
+      if (otherChain != null) {
+        result.append(" and ").append(otherChain);
+      }
+      return result.toString();
+    }
+  }
+
+  /**
+   * Result of a validation.
+   */
+  public static class Result {
+    private final int chains;
+    private final int sectors;
+    private final List<Problem> problems;
+
+    /**
+     * Constructor.
+     *
+     * @param chains number of validated chains, including the directory
+     * @param sectors number of sectors in chains
+     * @param problems detected problems
+     */
+    public Result(int chains, int sectors, List<Problem> problems) {
+      requireThat(problems, "problems").isNotNull();
+
+      this.chains = chains;
+      this.sectors = sectors;
+      this.problems = List.copyOf(problems);
+    }
+
+    /**
+     * Are all chains valid?.
+     */
+    public boolean isValid() {
+      return problems.isEmpty();
+    }
+
+    /**
+     * Number of validated chains, including the directory.
+     */
+    public int getChains() {
+      return chains;
+    }
+
+    /**
+     * Number of sectors in chains.
+     */
+    public int getSectors() {
+      return sectors;
+    }
+
+    /**
+     * Detected problems.
+     */
+    public List<Problem> getProblems() {
+      return problems;
+    }
+
+    /**
+     * Detected problems of the given type.
+     *
+     * @param type problem type
+     */
+    public List<Problem> getProblems(ProblemType type) {
+      return problems.stream().filter(problem -> problem.getType() == type).toList();
+    }
+
+    @Override
+    public String toString() {
+      return chains + " chains with " + sectors + " sectors, " + problems.size() + " problems";
+    }
+  }
+}
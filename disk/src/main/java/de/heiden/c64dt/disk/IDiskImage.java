@@ -1,17 +1,27 @@
 package de.heiden.c64dt.disk;
 
+import java.nio.ByteBuffer;
+
 /**
  * Disk image.
  */
 public interface IDiskImage extends ISectorModel {
   /**
-   * Get sector content.
+   * Get a copy of the sector content.
    *
    * @param track track (1-based)
    * @param sector sector (0-based)
    */
   byte[] getSector(int track, int sector);
 
+  /**
+   * Get read-only view of the sector content, without copying it.
+   *
+   * @param track track (1-based)
+   * @param sector sector (0-based)
+   */
+  ByteBuffer getSectorBuffer(int track, int sector);
+
   /**
    * Set sector content.
    *
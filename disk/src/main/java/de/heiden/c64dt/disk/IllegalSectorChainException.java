@@ -0,0 +1,16 @@
+package de.heiden.c64dt.disk;
+
+/**
+ * Exception thrown when a chain of sectors is looping.
+ */
+public class IllegalSectorChainException extends IllegalSectorException {
+  /**
+   * Constructor.
+   *
+   * @param track track of the sector which is linked twice
+   * @param sector sector which is linked twice
+   */
+  public IllegalSectorChainException(int track, int sector) {
+    super("Sector chain loops at " + track + " / " + sector);
+  }
+}
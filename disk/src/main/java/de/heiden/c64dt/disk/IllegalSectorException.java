@@ -22,4 +22,13 @@ public class IllegalSectorException extends IllegalArgumentException {
   public IllegalSectorException(int track, int sector) {
     super("Illegal sector " + track + " / " + sector);
   }
+
+  /**
+   * Constructor for subclasses.
+   *
+   * @param message message
+   */
+  protected IllegalSectorException(String message) {
+    super(message);
+  }
 }
@@ -2,23 +2,25 @@ package de.heiden.c64dt.disk;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
 
 import de.heiden.c64dt.bytes.ByteUtil;
 
-import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
-import static de.heiden.c64dt.disk.SectorModelUtil.requireValidSector;
-
 /**
  * Reads a file from a chain of sectors.
+ * Broken chains are detected by the underlying {@link SectorIterator}.
  */
 public class SectorInputStream extends InputStream {
-  private final IDiskImage diskImage;
-  private int track;
-  private int sector;
+  /**
+   * Sector chain.
+   */
+  private final SectorIterator sectors;
 
-  private byte[] currentSector;
-  private int pos;
-  private int remaining;
+  /**
+   * Payload of the current sector, null before the first sector.
+   */
+  private ByteBuffer payload;
 
   /**
    * Constructor.
@@ -38,33 +40,53 @@ public class SectorInputStream extends InputStream {
    * @param sector start sector
    */
   public SectorInputStream(IDiskImage diskImage, int track, int sector) {
-    requireThat(diskImage, "diskImage").isNotNull();
-    requireValidSector(diskImage, track, sector);
+    this.sectors = new SectorIterator(diskImage, track, sector);
+    this.payload = null;
+  }
 
-    this.diskImage = diskImage;
-    this.track = track;
-    this.sector = sector;
+  @Override
+  public int read() throws IOException {
+    if (!hasRemaining()) {
+      return -1;
+    }
 
-    this.currentSector = null;
-    this.pos = 0;
-    this.remaining = 0;
+    return ByteUtil.toByte(payload.get());
   }
 
   @Override
-  public int read() throws IOException {
-    if (remaining == 0) {
-      if (track == 0x00) {
-        return -1;
+  public int read(byte[] b, int off, int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+
+    int read = 0;
+    while (read < len && hasRemaining()) {
+      int length = Math.min(len - read, payload.remaining());
+      payload.get(b, off + read, length);
+      read += length;
+    }
+
+    return read > 0 ? read : -1;
+  }
+
+  @Override
+  public int available() {
+    return payload != null ? payload.remaining() : 0;
+  }
+
+  /**
+   * Are there remaining bytes? Advances to the next sector of the chain, if needed.
+   */
+  private boolean hasRemaining() {
+    while (payload == null || !payload.hasRemaining()) {
+      if (!sectors.hasNext()) {
+        return false;
       }
 
-      currentSector = diskImage.getSector(track, sector);
-      track = ByteUtil.toByte(currentSector[0]);
-      sector = ByteUtil.toByte(currentSector[1]);
-      pos = 0x02;
-      remaining = track == 0x00 ? sector : 0xFE;
+      payload = AbstractDiskImage.payload(sectors.nextBuffer());
     }
 
-    --remaining;
-    return ByteUtil.toByte(currentSector[pos++]);
+    return true;
   }
 }
@@ -1,5 +1,7 @@
 package de.heiden.c64dt.disk;
 
+import java.nio.ByteBuffer;
+import java.util.BitSet;
 import java.util.Iterator;
 
 import de.heiden.c64dt.bytes.ByteUtil;
@@ -9,12 +11,30 @@ import static de.heiden.c64dt.disk.SectorModelUtil.requireValidSector;
 
 /**
  * Reads a chain of sectors.
+ * Links are checked before they are followed:
+ * Links to non-existing sectors throw an {@link IllegalSectorException},
+ * links to an already visited sector of the chain throw an {@link IllegalSectorChainException}.
  */
 public class SectorIterator implements Iterator<byte[]> {
   private final IDiskImage diskImage;
   private int track;
   private int sector;
 
+  /**
+   * Visited sectors, one bit per sector.
+   */
+  private final BitSet visited;
+
+  /**
+   * Constructor.
+   *
+   * @param diskImage disk image
+   * @param file file
+   */
+  public SectorIterator(IDiskImage diskImage, IFile file) {
+    this(diskImage, file.getTrack(), file.getSector());
+  }
+
   /**
    * Constructor.
    *
@@ -29,6 +49,7 @@ public class SectorIterator implements Iterator<byte[]> {
     this.diskImage = diskImage;
     this.track = track;
     this.sector = sector;
+    this.visited = new BitSet(SectorModelUtil.indexes(diskImage));
   }
 
   @Override
@@ -38,13 +59,30 @@ public class SectorIterator implements Iterator<byte[]> {
 
   @Override
   public byte[] next() {
+    byte[] currentSector = new byte[256];
+    nextBuffer().get(0, currentSector);
+
+    requireThat(currentSector, "result").isNotNull();
+    return currentSector;
+  }
+
+  /**
+   * Next sector as read-only view of the image.
+   */
+  public ByteBuffer nextBuffer() {
     requireThat(hasNext(), "hasNext()").isTrue();
+    requireValidSector(diskImage, track, sector);
 
-    byte[] currentSector = diskImage.getSector(track, sector);
-    track = ByteUtil.toByte(currentSector[0]);
-    sector = ByteUtil.toByte(currentSector[1]);
+    int index = SectorModelUtil.index(diskImage, track, sector);
+    if (visited.get(index)) {
+      throw new IllegalSectorChainException(track, sector);
+    }
+    visited.set(index);
+
+    ByteBuffer currentSector = diskImage.getSectorBuffer(track, sector);
+    track = ByteUtil.toByte(currentSector.get(0));
+    sector = ByteUtil.toByte(currentSector.get(1));
 
-    requireThat(currentSector, "result").isNotNull();
     return currentSector;
   }
 
@@ -16,4 +16,36 @@ public class SectorModelUtil {
       throw new IllegalSectorException(track, sector);
     }
   }
+
+  /**
+   * Is the given sector valid?.
+   *
+   * @param sectorModel sector model
+   * @param track track
+   * @param sector sector
+   */
+  public static boolean isValidSector(ISectorModel sectorModel, int track, int sector) {
+    return track >= 1 && track <= sectorModel.getTracks() && sector >= 0 && sector < sectorModel.getSectors(track);
+  }
+
+  /**
+   * Dense index of a sector, e.g. for bit sets with one bit per sector.
+   *
+   * @param sectorModel sector model
+   * @param track track
+   * @param sector sector
+   */
+  public static int index(ISectorModel sectorModel, int track, int sector) {
+    return (track - 1) * sectorModel.getSectors() + sector;
+  }
+
+  /**
+   * Number of sector indexes.
+   *
+   * @param sectorModel sector model
+   * @see #index(ISectorModel, int, int)
+   */
+  public static int indexes(ISectorModel sectorModel) {
+    return sectorModel.getTracks() * sectorModel.getSectors();
+  }
 }
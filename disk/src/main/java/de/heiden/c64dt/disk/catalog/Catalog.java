@@ -0,0 +1,641 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import de.heiden.c64dt.charset.C64Charset;
+import de.heiden.c64dt.charset.TextUtil;
+import de.heiden.c64dt.disk.FileType;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Catalog of the disk images of an archive, memory mapped from its file.
+ * The catalog consists of fixed size records, so lookups work directly on the mapping without parsing it:
+ * <ul>
+ *   <li>Header: magic, version, number of images and number of files.</li>
+ *   <li>Images sorted by path.</li>
+ *   <li>Files in the order of their images.</li>
+ *   <li>Indexes of the files sorted by name and sorted by content hash.</li>
+ *   <li>UTF-8 encoded paths of the images.</li>
+ * </ul>
+ * Names are stored padded with 0xA0 to 16 bytes, like in the directory of disk images.
+ * <p>
+ * The mapping is released on {@link #close()}.
+ * Some platforms do not allow to replace a file while it is mapped, so catalogs need to be closed before they get replaced.
+ */
+public class Catalog implements Closeable {
+  /**
+   * Magic number at the start of catalogs: "C64C".
+   */
+  public static final int MAGIC = 0x43363443;
+
+  /**
+   * Current version of the format.
+   */
+  public static final int VERSION = 2;
+
+  /**
+   * Length of content hashes in bytes.
+   */
+  public static final int HASH_LENGTH = 16;
+
+  /**
+   * Length of the keys of the indexes in bytes: padded names and content hashes.
+   */
+  private static final int KEY_LENGTH = 16;
+
+  /**
+   * Size of the header in bytes.
+   */
+  private static final int HEADER = 16;
+
+  /**
+   * Size of an image record in bytes.
+   */
+  private static final int IMAGE_RECORD = 56;
+
+  /**
+   * Offset of the path offset and path length in an image record.
+   */
+  private static final int IMAGE_PATH = 0;
+
+  /**
+   * Offset of the file size in an image record.
+   */
+  private static final int IMAGE_SIZE = 8;
+
+  /**
+   * Offset of the modification time in an image record.
+   */
+  private static final int IMAGE_MODIFIED = 16;
+
+  /**
+   * Offset of the disk name in an image record.
+   */
+  private static final int IMAGE_NAME = 24;
+
+  /**
+   * Offset of the disk id and dos type in an image record.
+   */
+  private static final int IMAGE_ID_AND_TYPE = 40;
+
+  /**
+   * Offset of the index of the first file and of the number of files in an image record.
+   */
+  private static final int IMAGE_FILES = 48;
+
+  /**
+   * Size of a file record in bytes.
+   */
+  private static final int FILE_RECORD = 48;
+
+  /**
+   * Offset of the image index in a file record.
+   */
+  private static final int FILE_IMAGE = 0;
+
+  /**
+   * Offset of the name in a file record.
+   */
+  private static final int FILE_NAME = 4;
+
+  /**
+   * Offset of the file type in a file record.
+   */
+  private static final int FILE_TYPE = 20;
+
+  /**
+   * Offset of the size in blocks and of the content length in a file record.
+   */
+  private static final int FILE_SIZE = 24;
+
+  /**
+   * Offset of the content hash in a file record.
+   */
+  private static final int FILE_HASH = 32;
+
+  /**
+   * File types by ordinal.
+   */
+  private static final FileType[] TYPES = FileType.values();
+
+  /**
+   * Arena of the mapping.
+   */
+  private final Arena arena;
+
+  /**
+   * Catalog content.
+   */
+  private final ByteBuffer catalog;
+
+  /**
+   * Number of images.
+   */
+  private final int images;
+
+  /**
+   * Number of files.
+   */
+  private final int files;
+
+  /**
+   * Offset of the file records.
+   */
+  private final int filesOffset;
+
+  /**
+   * Offset of the index of the files sorted by name.
+   */
+  private final int byNameOffset;
+
+  /**
+   * Offset of the index of the files sorted by content hash.
+   */
+  private final int byHashOffset;
+
+  /**
+   * Offset of the paths.
+   */
+  private final int pathsOffset;
+
+  /**
+   * Constructor.
+   *
+   * @param arena arena of the mapping
+   * @param catalog catalog content from the current position to the limit
+   */
+  private Catalog(Arena arena, ByteBuffer catalog) throws IOException {
+    this.arena = arena;
+    this.catalog = catalog.slice();
+    if (this.catalog.remaining() < HEADER || this.catalog.getInt(0) != MAGIC) {
+      throw new IOException("No catalog.");
+    }
+    int version = this.catalog.getInt(4);
+    if (version != VERSION) {
+      throw new IOException("Unsupported version " + version + ".");
+    }
+
+    images = this.catalog.getInt(8);
+    files = this.catalog.getInt(12);
+    long paths = HEADER + (long) images * IMAGE_RECORD + (long) files * (FILE_RECORD + 8);
+    if (images < 0 || files < 0 || paths > this.catalog.remaining()) {
+      throw new IOException("Invalid catalog.");
+    }
+
+    filesOffset = HEADER + images * IMAGE_RECORD;
+    byNameOffset = filesOffset + files * FILE_RECORD;
+    byHashOffset = byNameOffset + files * 4;
+    pathsOffset = byHashOffset + files * 4;
+  }
+
+  /**
+   * Map catalog file into memory.
+   * The mapping stays valid after the file has been closed, until the catalog gets closed.
+   *
+   * @param file catalog file
+   */
+  public static Catalog open(Path file) throws IOException {
+    requireThat(file, "file").isNotNull();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Catalog too large.");
+      }
+
+      Arena arena = Arena.ofShared();
+      try {
+        MemorySegment mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        return new Catalog(arena, mapping.asByteBuffer());
+      } catch (IOException | RuntimeException e) {
+        arena.close();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Release the mapping.
+   * Accessing the catalog afterwards fails with an {@link IllegalStateException}.
+   */
+  @Override
+  public void close() {
+    if (arena.scope().isAlive()) {
+      arena.close();
+    }
+  }
+
+  //
+  // Images
+  //
+
+  /**
+   * Number of images.
+   */
+  public int getImageCount() {
+    return images;
+  }
+
+  /**
+   * Image with the given index, including its files.
+   *
+   * @param index index of the image, images are sorted by path
+   */
+  public CatalogImage getImage(int index) {
+    requireThat(index, "index").isBetween(0, images);
+
+    int image = HEADER + index * IMAGE_RECORD;
+    String path = path(index);
+    int firstFile = catalog.getInt(image + IMAGE_FILES);
+    int count = catalog.getInt(image + IMAGE_FILES + 4);
+    List<CatalogFile> imageFiles = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      imageFiles.add(getFile(firstFile + i, path));
+    }
+
+    return new CatalogImage(path,
+      catalog.getLong(image + IMAGE_SIZE),
+      catalog.getLong(image + IMAGE_MODIFIED),
+      name(image + IMAGE_NAME),
+      bytes(image + IMAGE_ID_AND_TYPE, 5),
+      imageFiles);
+  }
+
+  /**
+   * Find image by its path.
+   *
+   * @param path path of the disk image relative to the root of the archive
+   * @return image or null, if there is no image with the given path
+   */
+  public CatalogImage findImage(String path) {
+    requireThat(path, "path").isNotNull();
+
+    int low = 0;
+    int high = images - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int compare = path(mid).compareTo(path);
+      if (compare < 0) {
+        low = mid + 1;
+      } else if (compare > 0) {
+        high = mid - 1;
+      } else {
+        return getImage(mid);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Path of an image.
+   *
+   * @param index index of the image
+   */
+  private String path(int index) {
+    int image = HEADER + index * IMAGE_RECORD;
+    int offset = catalog.getInt(image + IMAGE_PATH);
+    int length = catalog.getInt(image + IMAGE_PATH + 4);
+    return new String(bytes(pathsOffset + offset, length), StandardCharsets.UTF_8);
+  }
+
+  //
+  // Files
+  //
+
+  /**
+   * Number of files.
+   */
+  public int getFileCount() {
+    return files;
+  }
+
+  /**
+   * Find files by name.
+   *
+   * @param name name in the upper case C64 charset
+   */
+  public List<CatalogFile> findByName(String name) {
+    requireThat(name, "name").isNotNull();
+
+    return findByName(name.getBytes(C64Charset.UPPER));
+  }
+
+  /**
+   * Find files by name.
+   *
+   * @param name name in C64 encoding, without trailing 0xA0
+   */
+  public List<CatalogFile> findByName(byte[] name) {
+    requireThat(name, "name").isNotNull();
+    requireThat(name.length, "name.length").isLessThanOrEqualTo(16);
+
+    return find(byNameOffset, FILE_NAME, pad(name));
+  }
+
+  /**
+   * Find files by content hash.
+   *
+   * @param hash content hash
+   */
+  public List<CatalogFile> findByHash(byte[] hash) {
+    requireThat(hash, "hash").isNotNull();
+    requireThat(hash.length, "hash.length").isEqualTo(HASH_LENGTH);
+
+    return find(byHashOffset, FILE_HASH, hash);
+  }
+
+  /**
+   * Find files via an index by binary search.
+   *
+   * @param indexOffset offset of the index
+   * @param field offset of the searched field in the file records
+   * @param key searched value of the field
+   */
+  private List<CatalogFile> find(int indexOffset, int field, byte[] key) {
+    int low = 0;
+    int high = files;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compare(fileRecord(indexOffset, mid) + field, key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    List<CatalogFile> result = new ArrayList<>();
+    for (int i = low; i < files && compare(fileRecord(indexOffset, i) + field, key) == 0; i++) {
+      int file = catalog.getInt(indexOffset + i * 4);
+      result.add(getFile(file, path(catalog.getInt(filesOffset + file * FILE_RECORD + FILE_IMAGE))));
+    }
+
+    return result;
+  }
+
+  /**
+   * Offset of the file record referenced by an index.
+   *
+   * @param indexOffset offset of the index
+   * @param i position in the index
+   */
+  private int fileRecord(int indexOffset, int i) {
+    return filesOffset + catalog.getInt(indexOffset + i * 4) * FILE_RECORD;
+  }
+
+  /**
+   * Compare bytes of the catalog unsigned with the given key.
+   *
+   * @param offset offset of the bytes
+   * @param key key
+   */
+  private int compare(int offset, byte[] key) {
+    for (int i = 0; i < key.length; i++) {
+      int compare = Byte.compareUnsigned(catalog.get(offset + i), key[i]);
+      if (compare != 0) {
+        return compare;
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * File with the given index.
+   *
+   * @param index index of the file
+   * @param image path of its image
+   */
+  private CatalogFile getFile(int index, String image) {
+    int file = filesOffset + index * FILE_RECORD;
+    int type = catalog.get(file + FILE_TYPE) & 0xFF;
+    return new CatalogFile(image,
+      name(file + FILE_NAME),
+      type < TYPES.length ? TYPES[type] : FileType.UNKNOWN,
+      catalog.getInt(file + FILE_SIZE),
+      catalog.getInt(file + FILE_SIZE + 4),
+      bytes(file + FILE_HASH, HASH_LENGTH));
+  }
+
+  /**
+   * Name without trailing 0xA0.
+   *
+   * @param offset offset of the padded name
+   */
+  private byte[] name(int offset) {
+    return TextUtil.strip(bytes(offset, 16));
+  }
+
+  /**
+   * Copy of bytes of the catalog.
+   *
+   * @param offset offset of the bytes
+   * @param length number of bytes
+   */
+  private byte[] bytes(int offset, int length) {
+    byte[] result = new byte[length];
+    catalog.get(offset, result);
+    return result;
+  }
+
+  //
+  // Write
+  //
+
+  /**
+   * Write catalog.
+   * The catalog is written to a temporary file first, which replaces the catalog file at the end.
+   * So an existing catalog file stays intact, if writing fails.
+   *
+   * @param images images with their files
+   * @param file catalog file
+   */
+  public static void write(List<CatalogImage> images, Path file) throws IOException {
+    requireThat(images, "images").isNotNull();
+    requireThat(file, "file").isNotNull();
+
+    List<CatalogImage> sorted = new ArrayList<>(images);
+    sorted.sort(Comparator.comparing(CatalogImage::getPath));
+    List<CatalogFile> files = new ArrayList<>();
+    for (CatalogImage image : sorted) {
+      files.addAll(image.getFiles());
+    }
+    byte[][] names = new byte[files.size()][];
+    byte[][] hashes = new byte[files.size()][];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = pad(files.get(i).getName());
+      hashes[i] = files.get(i).getHash();
+    }
+
+    Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(sorted.size());
+        output.writeInt(files.size());
+        writeImages(sorted, output);
+        writeFiles(sorted, names, output);
+        writeIndex(names, output);
+        writeIndex(hashes, output);
+        for (CatalogImage image : sorted) {
+          output.write(image.getPath().getBytes(StandardCharsets.UTF_8));
+        }
+      }
+
+      replace(temp, file);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Replace a file by a temporary file, atomically if supported by the file system.
+   *
+   * @param temp temporary file
+   * @param file file to replace
+   */
+  static void replace(Path temp, Path file) throws IOException {
+    try {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Write image records.
+   *
+   * @param images images sorted by path
+   * @param output output to write to
+   */
+  private static void writeImages(List<CatalogImage> images, DataOutputStream output) throws IOException {
+    int pathOffset = 0;
+    int firstFile = 0;
+    for (CatalogImage image : images) {
+      int pathLength = image.getPath().getBytes(StandardCharsets.UTF_8).length;
+      output.writeInt(pathOffset);
+      output.writeInt(pathLength);
+      output.writeLong(image.getSize());
+      output.writeLong(image.getModified());
+      output.write(pad(image.getName()));
+      output.write(image.getIdAndType());
+      output.write(new byte[3]);
+      output.writeInt(firstFile);
+      output.writeInt(image.getFiles().size());
+      pathOffset += pathLength;
+      firstFile += image.getFiles().size();
+    }
+  }
+
+  /**
+   * Write file records.
+   *
+   * @param images images sorted by path
+   * @param names padded names of all files
+   * @param output output to write to
+   */
+  private static void writeFiles(List<CatalogImage> images, byte[][] names, DataOutputStream output) throws IOException {
+    int index = 0;
+    for (int image = 0; image < images.size(); image++) {
+      for (CatalogFile file : images.get(image).getFiles()) {
+        output.writeInt(image);
+        output.write(names[index++]);
+        output.writeByte(file.getType().ordinal());
+        output.write(new byte[3]);
+        output.writeInt(file.getBlocks());
+        output.writeInt(file.getLength());
+        output.write(file.getHash());
+      }
+    }
+  }
+
+  /**
+   * Write index of the files sorted by their keys.
+   * Files with the same key stay in the order of their images.
+   *
+   * @param keys keys of the files, all with {@value #KEY_LENGTH} bytes
+   * @param output output to write to
+   */
+  private static void writeIndex(byte[][] keys, DataOutputStream output) throws IOException {
+    int[] index = new int[keys.length];
+    for (int i = 0; i < index.length; i++) {
+      index[i] = i;
+    }
+    sortIndex(keys, index, 0, index.length, 0);
+    for (int file : index) {
+      output.writeInt(file);
+    }
+  }
+
+  /**
+   * Sort a range of an index by the keys, starting at the given key offset.
+   * The 4 key bytes at the offset are packed together with the file index into a long, so a primitive sort suffices.
+   * Ranges of files with the same 4 key bytes are sorted by the next 4 key bytes afterwards.
+   *
+   * @param keys keys of the files
+   * @param index index of the files
+   * @param from start of the range (inclusive)
+   * @param to end of the range (exclusive)
+   * @param offset key offset
+   */
+  private static void sortIndex(byte[][] keys, int[] index, int from, int to, int offset) {
+    if (to - from < 2 || offset >= KEY_LENGTH) {
+      return;
+    }
+
+    long[] packed = new long[to - from];
+    for (int i = 0; i < packed.length; i++) {
+      int file = index[from + i];
+      // flip the sign bit, so the signed sort orders the key bytes unsigned
+      packed[i] = (long) (keyBytes(keys[file], offset) ^ Integer.MIN_VALUE) << 32 | file;
+    }
+    Arrays.sort(packed);
+
+    for (int start = 0, end; start < packed.length; start = end) {
+      long key = packed[start] >> 32;
+      for (end = start; end < packed.length && packed[end] >> 32 == key; end++) {
+        index[from + end] = (int) packed[end];
+      }
+      sortIndex(keys, index, from + start, from + end, offset + 4);
+    }
+  }
+
+  /**
+   * 4 key bytes big endian.
+   *
+   * @param key key
+   * @param offset offset of the bytes
+   */
+  private static int keyBytes(byte[] key, int offset) {
+    return (key[offset] & 0xFF) << 24 | (key[offset + 1] & 0xFF) << 16 | (key[offset + 2] & 0xFF) << 8 | key[offset + 3] & 0xFF;
+  }
+
+  /**
+   * Pad name with 0xA0 to 16 bytes.
+   *
+   * @param name name in C64 encoding
+   */
+  private static byte[] pad(byte[] name) {
+    byte[] result = Arrays.copyOf(name, 16);
+    Arrays.fill(result, name.length, 16, (byte) 0xA0);
+    return result;
+  }
+}
@@ -0,0 +1,93 @@
+package de.heiden.c64dt.disk.catalog;
+
+import de.heiden.c64dt.charset.C64Charset;
+import de.heiden.c64dt.disk.FileType;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Catalog entry of a file of a disk image.
+ */
+public class CatalogFile {
+  private final String image;
+  private final byte[] name;
+  private final FileType type;
+  private final int blocks;
+  private final int length;
+  private final byte[] hash;
+
+  /**
+   * Constructor.
+   *
+   * @param image path of the disk image relative to the root of the archive
+   * @param name name in C64 encoding, without trailing 0xA0
+   * @param type file type
+   * @param blocks file size in blocks as stated in the directory
+   * @param length content length in bytes, -1 if the content could not be read
+   * @param hash content hash with {@value Catalog#HASH_LENGTH} bytes
+   */
+  public CatalogFile(String image, byte[] name, FileType type, int blocks, int length, byte[] hash) {
+    requireThat(image, "image").isNotNull();
+    requireThat(name, "name").isNotNull();
+    requireThat(name.length, "name.length").isLessThanOrEqualTo(16);
+    requireThat(type, "type").isNotNull();
+    requireThat(blocks, "blocks").isGreaterThanOrEqualTo(0);
+    requireThat(length, "length").isGreaterThanOrEqualTo(-1);
+    requireThat(hash, "hash").isNotNull();
+    requireThat(hash.length, "hash.length").isEqualTo(Catalog.HASH_LENGTH);
+
+    this.image = image;
+    this.name = name;
+    this.type = type;
+    this.blocks = blocks;
+    this.length = length;
+    this.hash = hash;
+  }
+
+  /**
+   * Path of the disk image relative to the root of the archive.
+   */
+  public String getImage() {
+    return image;
+  }
+
+  /**
+   * Name in C64 encoding, without trailing 0xA0.
+   */
+  public byte[] getName() {
+    return name;
+  }
+
+  /**
+   * File type.
+   */
+  public FileType getType() {
+    return type;
+  }
+
+  /**
+   * File size in blocks as stated in the directory.
+   */
+  public int getBlocks() {
+    return blocks;
+  }
+
+  /**
+   * Content length in bytes, -1 if the content could not be read.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Content hash.
+   */
+  public byte[] getHash() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return image + ": " + C64Charset.UPPER.toString(name) + "." + type.getExtension();
+  }
+}
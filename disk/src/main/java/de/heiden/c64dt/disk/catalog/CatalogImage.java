@@ -0,0 +1,93 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.util.List;
+
+import de.heiden.c64dt.charset.C64Charset;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Catalog entry of a disk image.
+ */
+public class CatalogImage {
+  private final String path;
+  private final long size;
+  private final long modified;
+  private final byte[] name;
+  private final byte[] idAndType;
+  private final List<CatalogFile> files;
+
+  /**
+   * Constructor.
+   *
+   * @param path path of the disk image relative to the root of the archive
+   * @param size size of the image file in bytes
+   * @param modified last modification time of the image file in milliseconds
+   * @param name disk name in C64 encoding, without trailing 0xA0
+   * @param idAndType disk id (2 bytes), 0xA0 and dos type (2 bytes) in C64 encoding
+   * @param files files of the disk image
+   */
+  public CatalogImage(String path, long size, long modified, byte[] name, byte[] idAndType, List<CatalogFile> files) {
+    requireThat(path, "path").isNotNull();
+    requireThat(size, "size").isGreaterThanOrEqualTo(0L);
+    requireThat(name, "name").isNotNull();
+    requireThat(name.length, "name.length").isLessThanOrEqualTo(16);
+    requireThat(idAndType, "idAndType").isNotNull();
+    requireThat(idAndType.length, "idAndType.length").isEqualTo(5);
+    requireThat(files, "files").isNotNull();
+
+    this.path = path;
+    this.size = size;
+    this.modified = modified;
+    this.name = name;
+    this.idAndType = idAndType;
+    this.files = files;
+  }
+
+  /**
+   * Path of the disk image relative to the root of the archive.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Size of the image file in bytes.
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * Last modification time of the image file in milliseconds.
+   */
+  public long getModified() {
+    return modified;
+  }
+
+  /**
+   * Disk name in C64 encoding, without trailing 0xA0.
+   */
+  public byte[] getName() {
+    return name;
+  }
+
+  /**
+   * Disk id (2 bytes), 0xA0 and dos type (2 bytes) in C64 encoding.
+   */
+  public byte[] getIdAndType() {
+    return idAndType;
+  }
+
+  /**
+   * Files of the disk image.
+   */
+  public List<CatalogFile> getFiles() {
+    return files;
+  }
+
+  @Override
+  public String toString() {
+    return path + ": " + C64Charset.UPPER.toString(name) + " " + C64Charset.UPPER.toString(idAndType);
+  }
+}
@@ -0,0 +1,63 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import de.heiden.c64dt.disk.AbstractDiskImage;
+import de.heiden.c64dt.disk.IFile;
+
+/**
+ * Content hashes of files of disk images.
+ * SHA-256 truncated to {@value Catalog#HASH_LENGTH} bytes.
+ */
+final class ContentHash {
+  /**
+   * Hash algorithm.
+   */
+  private static final String ALGORITHM = "SHA-256";
+
+  /**
+   * Message digest per thread.
+   */
+  private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
+  /**
+   * Buffer for the full digest per thread.
+   */
+  private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[32]);
+
+  /**
+   * Utility class.
+   */
+  private ContentHash() {
+  }
+
+  /**
+   * Hash the content of a file by streaming its sector chain.
+   *
+   * @param diskImage disk image
+   * @param file file
+   * @param hash receives the hash, {@value Catalog#HASH_LENGTH} bytes
+   * @return content length in bytes
+   */
+  static int hash(AbstractDiskImage diskImage, IFile file, byte[] hash) {
+    MessageDigest digest = DIGEST.get();
+    digest.reset();
+    int length = diskImage.digest(file, digest);
+    byte[] buffer = BUFFER.get();
+    try {
+      digest.digest(buffer, 0, buffer.length);
+    } catch (DigestException e) {
+      throw new IllegalStateException(e);
+    }
+    System.arraycopy(buffer, 0, hash, 0, Catalog.HASH_LENGTH);
+    return length;
+  }
+}
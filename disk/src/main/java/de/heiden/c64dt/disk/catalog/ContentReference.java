@@ -0,0 +1,55 @@
+package de.heiden.c64dt.disk.catalog;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Occurrence of a content in a disk image: The first sector of the sector chain of a file.
+ */
+public class ContentReference {
+  private final String image;
+  private final int track;
+  private final int sector;
+
+  /**
+   * Constructor.
+   *
+   * @param image path of the disk image relative to the root of the archive
+   * @param track first track of the file
+   * @param sector first sector of the file
+   */
+  public ContentReference(String image, int track, int sector) {
+    requireThat(image, "image").isNotNull();
+    requireThat(track, "track").isBetween(1, 0xFF + 1);
+    requireThat(sector, "sector").isBetween(0, 0xFF + 1);
+
+    this.image = image;
+    this.track = track;
+    this.sector = sector;
+  }
+
+  /**
+   * Path of the disk image relative to the root of the archive.
+   */
+  public String getImage() {
+    return image;
+  }
+
+  /**
+   * First track of the file.
+   */
+  public int getTrack() {
+    return track;
+  }
+
+  /**
+   * First sector of the file.
+   */
+  public int getSector() {
+    return sector;
+  }
+
+  @Override
+  public String toString() {
+    return image + ": " + track + "/" + sector;
+  }
+}
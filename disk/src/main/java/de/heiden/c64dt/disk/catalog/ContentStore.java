@@ -0,0 +1,364 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import de.heiden.c64dt.disk.AbstractDiskImage;
+import de.heiden.c64dt.disk.IFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Content addressed store for the files of disk images.
+ * Every distinct content is stored just once in a file named by its content hash.
+ * For each content all its occurrences in the disk images are recorded.
+ * <p>
+ * Layout of the store directory:
+ * <ul>
+ *   <li>{@value #REFERENCES}: contents with their references</li>
+ *   <li>first two hex digits of the hash / remaining hex digits of the hash: content</li>
+ * </ul>
+ */
+public class ContentStore {
+  /**
+   * Logger.
+   */
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /**
+   * Magic number of the references file: "C64S".
+   */
+  public static final int MAGIC = 0x43363453;
+
+  /**
+   * Version of the references file format.
+   */
+  public static final int VERSION = 2;
+
+  /**
+   * Name of the references file.
+   */
+  public static final String REFERENCES = "references";
+
+  /**
+   * Hex format for the content file names.
+   */
+  private static final HexFormat HEX = HexFormat.of();
+
+  /**
+   * Store directory.
+   */
+  private final Path directory;
+
+  /**
+   * Hex hash to content.
+   */
+  private final Map<String, Content> contents = new HashMap<>();
+
+  /**
+   * Image path to the hex hashes of its contents.
+   */
+  private final Map<String, List<String>> images = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param directory store directory
+   */
+  private ContentStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Open store.
+   * The store directory is created, if it does not exist yet.
+   *
+   * @param directory store directory
+   */
+  public static ContentStore open(Path directory) throws IOException {
+    requireThat(directory, "directory").isNotNull();
+
+    Files.createDirectories(directory);
+    ContentStore store = new ContentStore(directory);
+    Path references = directory.resolve(REFERENCES);
+    if (Files.exists(references)) {
+      store.load(references);
+    }
+
+    return store;
+  }
+
+  /**
+   * Add all visible files of a disk image.
+   * Previously recorded references of the image are replaced.
+   * Files whose sector chain is broken are skipped.
+   * All new contents are stored before any reference gets replaced, so the store stays unchanged, if storing fails.
+   *
+   * @param image path of the disk image relative to the root of the archive
+   * @param diskImage disk image
+   * @return number of contents which were new to the store
+   */
+  public synchronized int add(String image, AbstractDiskImage diskImage) throws IOException {
+    requireThat(image, "image").isNotNull();
+    requireThat(diskImage, "diskImage").isNotNull();
+
+    List<String> hashes = new ArrayList<>();
+    List<ContentReference> references = new ArrayList<>();
+    Map<String, Content> added = new HashMap<>();
+    byte[] hash = new byte[Catalog.HASH_LENGTH];
+    for (IFile file : diskImage.getDirectory().getFiles()) {
+      if (!file.getMode().isVisible()) {
+        continue;
+      }
+
+      int length;
+      try {
+        length = ContentHash.hash(diskImage, file, hash);
+      } catch (RuntimeException e) {
+        logger.debug("Skipping file {} of {}.", file, image, e);
+        continue;
+      }
+
+      String hex = HEX.formatHex(hash);
+      if (!contents.containsKey(hex) && !added.containsKey(hex)) {
+        store(hex, diskImage, file);
+        added.put(hex, new Content(hash.clone(), length));
+      }
+      hashes.add(hex);
+      references.add(new ContentReference(image, file.getTrack(), file.getSector()));
+    }
+
+    remove(image);
+    contents.putAll(added);
+    for (int i = 0; i < hashes.size(); i++) {
+      contents.get(hashes.get(i)).references.add(references.get(i));
+    }
+    images.put(image, hashes);
+
+    return added.size();
+  }
+
+  /**
+   * Remove all references of a disk image.
+   * Stored contents are kept, even if they are no longer referenced.
+   *
+   * @param image path of the disk image relative to the root of the archive
+   */
+  public synchronized void remove(String image) {
+    requireThat(image, "image").isNotNull();
+
+    List<String> hashes = images.remove(image);
+    if (hashes == null) {
+      return;
+    }
+
+    for (String hex : hashes) {
+      contents.get(hex).references.removeIf(reference -> reference.getImage().equals(image));
+    }
+  }
+
+  /**
+   * All occurrences of a content.
+   *
+   * @param hash content hash
+   * @return references, empty if the content is unknown
+   */
+  public synchronized List<ContentReference> find(byte[] hash) {
+    requireThat(hash, "hash").isNotNull();
+
+    Content content = contents.get(HEX.formatHex(hash));
+    return content == null ? List.of() : List.copyOf(content.references);
+  }
+
+  /**
+   * Stored content.
+   *
+   * @param hash content hash
+   * @return content file or null, if the content is unknown
+   */
+  public synchronized Path getContent(byte[] hash) {
+    requireThat(hash, "hash").isNotNull();
+
+    String hex = HEX.formatHex(hash);
+    return contents.containsKey(hex) ? path(hex) : null;
+  }
+
+  /**
+   * Number of distinct contents.
+   */
+  public synchronized int getContentCount() {
+    return contents.size();
+  }
+
+  /**
+   * Number of references to all contents.
+   */
+  public synchronized int getReferenceCount() {
+    int references = 0;
+    for (Content content : contents.values()) {
+      references += content.references.size();
+    }
+    return references;
+  }
+
+  /**
+   * Number of bytes of all distinct contents.
+   */
+  public synchronized long getStoredBytes() {
+    long bytes = 0;
+    for (Content content : contents.values()) {
+      bytes += content.length;
+    }
+    return bytes;
+  }
+
+  /**
+   * Number of bytes of all contents, if each reference would have been stored separately.
+   */
+  public synchronized long getReferencedBytes() {
+    long bytes = 0;
+    for (Content content : contents.values()) {
+      bytes += (long) content.length * content.references.size();
+    }
+    return bytes;
+  }
+
+  /**
+   * Content file for a hex hash.
+   *
+   * @param hex hex hash
+   */
+  private Path path(String hex) {
+    return directory.resolve(hex.substring(0, 2)).resolve(hex.substring(2));
+  }
+
+  /**
+   * Store the content of a file, if it is not already stored.
+   * The sector payloads are written without copying into a temporary file which is moved into place.
+   *
+   * @param hex hex hash of the content
+   * @param diskImage disk image
+   * @param file file
+   */
+  private void store(String hex, AbstractDiskImage diskImage, IFile file) throws IOException {
+    Path path = path(hex);
+    if (Files.exists(path)) {
+      return;
+    }
+
+    Files.createDirectories(path.getParent());
+    Path temp = Files.createTempFile(path.getParent(), hex, ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        diskImage.write(file, channel);
+      }
+      Catalog.replace(temp, path);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  //
+  // Persistence
+  //
+
+  /**
+   * Write the references.
+   * They are written to a temporary file first, which replaces the references file at the end.
+   */
+  public synchronized void save() throws IOException {
+    Path temp = Files.createTempFile(directory, REFERENCES, ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(contents.size());
+        for (Content content : contents.values()) {
+          output.write(content.hash);
+          output.writeInt(content.length);
+          output.writeInt(content.references.size());
+          for (ContentReference reference : content.references) {
+            output.writeUTF(reference.getImage());
+            output.writeByte(reference.getTrack());
+            output.writeByte(reference.getSector());
+          }
+        }
+      }
+
+      Catalog.replace(temp, directory.resolve(REFERENCES));
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Read the references.
+   *
+   * @param references references file
+   */
+  private void load(Path references) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(references)))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        throw new IOException("Not a content store references file: " + references);
+      }
+
+      for (int i = input.readInt(); i > 0; i--) {
+        byte[] hash = new byte[Catalog.HASH_LENGTH];
+        input.readFully(hash);
+        String hex = HEX.formatHex(hash);
+        Content content = new Content(hash, input.readInt());
+        for (int j = input.readInt(); j > 0; j--) {
+          ContentReference reference = new ContentReference(input.readUTF(), input.readUnsignedByte(), input.readUnsignedByte());
+          content.references.add(reference);
+          images.computeIfAbsent(reference.getImage(), image -> new ArrayList<>()).add(hex);
+        }
+        contents.put(hex, content);
+      }
+    }
+  }
+
+  /**
+   * Distinct content.
+   */
+  private static class Content {
+    /**
+     * Content hash.
+     */
+    private final byte[] hash;
+
+    /**
+     * Content length in bytes.
+     */
+    private final int length;
+
+    /**
+     * Occurrences in disk images.
+     */
+    private final List<ContentReference> references = new ArrayList<>(1);
+
+    /**
+     * Constructor.
+     *
+     * @param hash content hash
+     * @param length content length in bytes
+     */
+    private Content(byte[] hash, int length) {
+      this.hash = hash;
+      this.length = length;
+    }
+  }
+}
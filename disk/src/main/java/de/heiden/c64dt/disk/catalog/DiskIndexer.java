@@ -0,0 +1,418 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import de.heiden.c64dt.charset.TextUtil;
+import de.heiden.c64dt.disk.AbstractDiskImage;
+import de.heiden.c64dt.disk.ChainValidator;
+import de.heiden.c64dt.disk.IDirectory;
+import de.heiden.c64dt.disk.IDiskImage;
+import de.heiden.c64dt.disk.IFile;
+import de.heiden.c64dt.disk.d64.D64Reader;
+import de.heiden.c64dt.disk.d71.D71Reader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Indexes the D64 and D71 images of an archive in parallel into a {@link Catalog}.
+ * Runs are incremental: Images whose size and modification time did not change since the last run
+ * are taken from the existing catalog without reading them again.
+ * The catalog is just replaced at the end of a run.
+ * Until then, the images indexed since the last checkpoint are written periodically to a new numbered checkpoint
+ * catalog next to it, so each image is written to just one checkpoint.
+ * A restarted run takes the unchanged images from all checkpoints too, so an aborted run does not lose its progress.
+ */
+public class DiskIndexer {
+  /**
+   * Logger.
+   */
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /**
+   * Number of images between two checkpoints.
+   */
+  private static final int CHECKPOINT_INTERVAL = 1000;
+
+  /**
+   * Number of threads.
+   */
+  private final int parallelism;
+
+  /**
+   * Constructor using one thread per processor.
+   */
+  public DiskIndexer() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param parallelism Number of threads
+   */
+  public DiskIndexer(int parallelism) {
+    requireThat(parallelism, "parallelism").isGreaterThan(0);
+
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Index all disk images below a directory.
+   *
+   * @param root Root directory of the archive
+   * @param catalog Catalog file. If it exists, unchanged images are taken from it. It will be replaced.
+   */
+  public Result index(Path root, Path catalog) throws IOException, InterruptedException {
+    requireThat(root, "root").isNotNull();
+    requireThat(catalog, "catalog").isNotNull();
+
+    long start = System.nanoTime();
+    List<Path> checkpoints = checkpoints(catalog);
+    Map<String, CatalogImage> resumed = resume(checkpoints);
+
+    List<Path> images;
+    try (Stream<Path> files = Files.walk(root)) {
+      images = files.filter(DiskIndexer::isDiskImage).sorted().toList();
+    }
+
+    AtomicInteger skipped = new AtomicInteger();
+    AtomicInteger damaged = new AtomicInteger();
+    List<CatalogImage> indexed = new ArrayList<>(images.size());
+    int checkpointed = 0;
+    int failed = 0;
+    int files = 0;
+    Catalog previous = open(catalog);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      CompletionService<CatalogImage> results = new ExecutorCompletionService<>(pool);
+      for (Path image : images) {
+        results.submit(() -> index(image, relativePath(root, image), resumed, previous, skipped, damaged));
+      }
+
+      for (int i = 0; i < images.size(); i++) {
+        CatalogImage image = results.take().get();
+        if (image != null) {
+          indexed.add(image);
+          files += image.getFiles().size();
+          if (indexed.size() - checkpointed == CHECKPOINT_INTERVAL) {
+            // Keep the checkpoints of an aborted run, because their images may not have been taken yet
+            Path checkpoint = checkpoint(catalog, checkpoints.size());
+            Catalog.write(indexed.subList(checkpointed, indexed.size()), checkpoint);
+            checkpoints.add(checkpoint);
+            checkpointed = indexed.size();
+          }
+        } else {
+          failed++;
+        }
+      }
+    } catch (ExecutionException e) {
+      // Cannot happen, because the tasks handle all exceptions
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+      if (previous != null) {
+        // Release the mapping before the catalog gets replaced
+        previous.close();
+      }
+    }
+
+    Catalog.write(indexed, catalog);
+    for (Path checkpoint : checkpoints) {
+      Files.deleteIfExists(checkpoint);
+    }
+
+    return new Result(indexed.size() - skipped.get(), skipped.get(), damaged.get(), failed, files, System.nanoTime() - start);
+  }
+
+  /**
+   * Checkpoint catalog file of a catalog file.
+   *
+   * @param catalog Catalog file
+   * @param number Number of the checkpoint, starting at 0
+   */
+  static Path checkpoint(Path catalog, int number) {
+    return catalog.resolveSibling(catalog.getFileName() + ".checkpoint." + number);
+  }
+
+  /**
+   * Existing checkpoint catalog files of a catalog file.
+   * Checkpoints are numbered consecutively, because they are deleted all together at the end of a run.
+   *
+   * @param catalog Catalog file
+   * @return Checkpoint catalog files, ordered by their number
+   */
+  private static List<Path> checkpoints(Path catalog) {
+    List<Path> result = new ArrayList<>();
+    while (Files.exists(checkpoint(catalog, result.size()))) {
+      result.add(checkpoint(catalog, result.size()));
+    }
+
+    return result;
+  }
+
+  /**
+   * Images of the checkpoints of aborted runs.
+   * The checkpoints are read completely and closed, so they can be deleted at the end of the run.
+   *
+   * @param checkpoints Checkpoint catalog files, ordered by their number
+   * @return Path to image, empty if there are no usable checkpoints
+   */
+  private Map<String, CatalogImage> resume(List<Path> checkpoints) throws IOException {
+    Map<String, CatalogImage> result = new HashMap<>();
+    for (Path checkpoint : checkpoints) {
+      try (Catalog catalog = open(checkpoint)) {
+        if (catalog != null) {
+          // Later checkpoints contain the more recent entries
+          for (int i = 0; i < catalog.getImageCount(); i++) {
+            CatalogImage image = catalog.getImage(i);
+            result.put(image.getPath(), image);
+          }
+        }
+      }
+    }
+    if (!result.isEmpty()) {
+      logger.info("Resuming with {} images from {} checkpoints.", result.size(), checkpoints.size());
+    }
+
+    return result;
+  }
+
+  /**
+   * Open the catalog of a previous run.
+   * Catalogs of an older format are ignored, so all images get indexed again.
+   *
+   * @param catalog Catalog file
+   * @return Catalog or null, if there is no usable one
+   */
+  private Catalog open(Path catalog) throws IOException {
+    if (!Files.exists(catalog)) {
+      return null;
+    }
+
+    try {
+      return Catalog.open(catalog);
+    } catch (IOException e) {
+      logger.info("Ignoring catalog {}: {}", catalog, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Index one disk image, if it changed since the previous run.
+   * The sector chains of the image are validated before, to report damaged images.
+   *
+   * @param image Disk image file
+   * @param path Path of the disk image relative to the root of the archive
+   * @param resumed Images of the checkpoints of aborted runs
+   * @param previous Catalog of the previous run or null
+   * @param skipped Counter for unchanged images
+   * @param damaged Counter for images with broken sector chains
+   * @return Catalog entry of the image or null, if the image could not be read
+   */
+  private CatalogImage index(Path image, String path, Map<String, CatalogImage> resumed, Catalog previous, AtomicInteger skipped, AtomicInteger damaged) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(image, BasicFileAttributes.class);
+      long size = attributes.size();
+      long modified = attributes.lastModifiedTime().toMillis();
+      CatalogImage unchanged = resumed.get(path);
+      if (unchanged == null && previous != null) {
+        unchanged = previous.findImage(path);
+      }
+      if (unchanged != null && unchanged.getSize() == size && unchanged.getModified() == modified) {
+        skipped.incrementAndGet();
+        return unchanged;
+      }
+
+      IDiskImage diskImage = isD71(image) ? new D71Reader().map(image) : new D64Reader().map(image);
+      ChainValidator.Result validation = ChainValidator.validate((AbstractDiskImage) diskImage);
+      if (!validation.isValid()) {
+        damaged.incrementAndGet();
+        logger.info("Damaged image {}: {}", path, validation.getProblems());
+      }
+
+      IDirectory directory = diskImage.getDirectory();
+      List<CatalogFile> files = new ArrayList<>();
+      for (IFile file : directory.getFiles()) {
+        if (file.getMode().isVisible()) {
+          files.add(index(diskImage, path, file));
+        }
+      }
+
+      return new CatalogImage(path, size, modified, TextUtil.strip(directory.getName()), directory.getIdAndType(), files);
+    } catch (Exception e) {
+      logger.warn("Failed to index {}.", image, e);
+      return null;
+    }
+  }
+
+  /**
+   * Index one file of a disk image.
+   * Files whose content cannot be read are indexed with a content length of -1 and an empty hash.
+   *
+   * @param diskImage Disk image
+   * @param path Path of the disk image relative to the root of the archive
+   * @param file File
+   */
+  private CatalogFile index(IDiskImage diskImage, String path, IFile file) {
+    int length = -1;
+    byte[] hash = new byte[Catalog.HASH_LENGTH];
+    try {
+      length = ContentHash.hash((AbstractDiskImage) diskImage, file, hash);
+    } catch (RuntimeException e) {
+      logger.debug("Failed to hash file {} of {}.", file, path, e);
+    }
+
+    return new CatalogFile(path, file.getName(), file.getMode().getType(), file.getSize(), length, hash);
+  }
+
+  /**
+   * Is the given file a disk image?.
+   *
+   * @param file File
+   */
+  private static boolean isDiskImage(Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    return (name.endsWith(".d64") || name.endsWith(".d71")) && Files.isRegularFile(file);
+  }
+
+  /**
+   * Is the given disk image a D71 image?.
+   *
+   * @param file Disk image file
+   */
+  private static boolean isD71(Path file) {
+    return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".d71");
+  }
+
+  /**
+   * Path relative to the root of the archive with "/" as separator.
+   *
+   * @param root Root directory of the archive
+   * @param file File
+   */
+  private static String relativePath(Path root, Path file) {
+    return root.relativize(file).toString().replace(root.getFileSystem().getSeparator(), "/");
+  }
+
+  /**
+   * Result of an indexer run.
+   */
+  public static class Result {
+    private final int images;
+    private final int skipped;
+    private final int damaged;
+    private final int failed;
+    private final int files;
+    private final long nanos;
+
+    /**
+     * Constructor.
+     *
+     * @param images Number of indexed images
+     * @param skipped Number of unchanged images taken from the previous catalog
+     * @param damaged Number of indexed images with broken sector chains
+     * @param failed Number of images which could not be indexed
+     * @param files Number of files of all images in the catalog
+     * @param nanos Duration in nanoseconds
+     */
+    public Result(int images, int skipped, int damaged, int failed, int files, long nanos) {
+      this.images = images;
+      this.skipped = skipped;
+      this.damaged = damaged;
+      this.failed = failed;
+      this.files = files;
+      this.nanos = nanos;
+    }
+
+    /**
+     * Number of indexed images.
+     */
+    public int getImages() {
+      return images;
+    }
+
+    /**
+     * Number of unchanged images taken from the previous catalog.
+     */
+    public int getSkipped() {
+      return skipped;
+    }
+
+    /**
+     * Number of indexed images with broken sector chains.
+     */
+    public int getDamaged() {
+      return damaged;
+    }
+
+    /**
+     * Number of images which could not be indexed.
+     */
+    public int getFailed() {
+      return failed;
+    }
+
+    /**
+     * Number of files of all images in the catalog.
+     */
+    public int getFiles() {
+      return files;
+    }
+
+    /**
+     * Duration in nanoseconds.
+     */
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * Throughput in images per second, including the unchanged ones.
+     */
+    public double getImagesPerSecond() {
+      return nanos > 0 ? (images + skipped) * 1e9 / nanos : 0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d images indexed (%d damaged), %d unchanged (%d failed), %d files in %.3f s: %.1f images/s",
+        images, damaged, skipped, failed, files, nanos / 1e9, getImagesPerSecond());
+    }
+  }
+
+  //
+  // Command line
+  //
+
+  /**
+   * Index disk images.
+   * Usage: {@code DiskIndexer <catalog file> <archive directory>}.
+   *
+   * @param args Catalog file followed by the root directory of the archive
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      System.err.println("Usage: DiskIndexer <catalog file> <archive directory>");
+      System.exit(1);
+    }
+
+    Result result = new DiskIndexer().index(Path.of(args[1]), Path.of(args[0]));
+    System.out.println(result);
+  }
+}
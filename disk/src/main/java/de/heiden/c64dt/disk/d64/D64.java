@@ -1,5 +1,7 @@
 package de.heiden.c64dt.disk.d64;
 
+import java.nio.ByteBuffer;
+
 import de.heiden.c64dt.disk.AbstractDiskImage;
 import de.heiden.c64dt.disk.BAM;
 import de.heiden.c64dt.disk.IBAM;
@@ -21,6 +23,17 @@ public class D64 extends AbstractDiskImage {
     super(1, tracks, hasErrors);
   }
 
+  /**
+   * Constructor for an image backed by the given buffer.
+   *
+   * @param tracks number of tracks
+   * @param hasErrors support error informations?
+   * @param image content in the layout of the image file
+   */
+  public D64(int tracks, boolean hasErrors, ByteBuffer image) {
+    super(1, tracks, hasErrors, image);
+  }
+
   //
   // ISectorModel
   //
@@ -1,5 +1,7 @@
 package de.heiden.c64dt.disk.d64;
 
+import java.nio.ByteBuffer;
+
 import de.heiden.c64dt.disk.AbstractDiskImageReader;
 import de.heiden.c64dt.disk.IDiskImage;
 import de.heiden.c64dt.disk.WrongDiskImageFormatException;
@@ -23,12 +25,12 @@ public class D64Reader extends AbstractDiskImageReader {
   public static final int SIZE_40_TRACKS_WITH_ERRORS = 197376;
 
   @Override
-  public IDiskImage read(byte[] data) throws WrongDiskImageFormatException {
-    requireThat(data, "data").isNotNull();
+  public IDiskImage read(ByteBuffer image) throws WrongDiskImageFormatException {
+    requireThat(image, "image").isNotNull();
 
     int tracks;
     boolean hasErrors;
-    switch (data.length) {
+    switch (image.remaining()) {
       case SIZE_35_TRACKS_NO_ERRORS:
         tracks = 35;
         hasErrors = false;
@@ -46,11 +48,11 @@ public class D64Reader extends AbstractDiskImageReader {
         hasErrors = true;
         break;
       default:
-        throw new WrongDiskImageFormatException(data.length);
+        throw new WrongDiskImageFormatException(image.remaining());
     }
 
     logger.info("Detected {} tracks image {} error information", tracks, hasErrors ? "with" : "without");
 
-    return read(data, new D64(tracks, hasErrors));
+    return new D64(tracks, hasErrors, image);
   }
 }
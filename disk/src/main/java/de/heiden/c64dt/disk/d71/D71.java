@@ -1,5 +1,7 @@
 package de.heiden.c64dt.disk.d71;
 
+import java.nio.ByteBuffer;
+
 import de.heiden.c64dt.disk.AbstractDiskImage;
 import de.heiden.c64dt.disk.BAM;
 import de.heiden.c64dt.disk.IBAM;
@@ -20,6 +22,17 @@ public class D71 extends AbstractDiskImage {
     super(2, tracks, hasErrors);
   }
 
+  /**
+   * Constructor for an image backed by the given buffer.
+   *
+   * @param tracks number of tracks
+   * @param hasErrors support error informations?
+   * @param image content in the layout of the image file
+   */
+  public D71(int tracks, boolean hasErrors, ByteBuffer image) {
+    super(2, tracks, hasErrors, image);
+  }
+
   @Override
   public int getSectors() {
     return 21;
@@ -63,6 +76,12 @@ public class D71 extends AbstractDiskImage {
     return result;
   }
 
+  @Override
+  protected boolean isReserved(int track, int sector) {
+    // Track 53 holds the BAM of the second side and is not used for files
+    return super.isReserved(track, sector) || track == 53;
+  }
+
   @Override
   protected int getBamEntrySize() {
     return 4;
@@ -1,5 +1,7 @@
 package de.heiden.c64dt.disk.d71;
 
+import java.nio.ByteBuffer;
+
 import de.heiden.c64dt.disk.AbstractDiskImageReader;
 import de.heiden.c64dt.disk.IDiskImage;
 import de.heiden.c64dt.disk.WrongDiskImageFormatException;
@@ -21,12 +23,12 @@ public class D71Reader extends AbstractDiskImageReader {
   public static final int SIZE_70_TRACKS_WITH_ERRORS = 2 * 175531;
 
   @Override
-  public IDiskImage read(byte[] data) throws WrongDiskImageFormatException {
-    requireThat(data, "data").isNotNull();
+  public IDiskImage read(ByteBuffer image) throws WrongDiskImageFormatException {
+    requireThat(image, "image").isNotNull();
 
     int tracks = 70;
     boolean hasErrors;
-    switch (data.length) {
+    switch (image.remaining()) {
       case SIZE_70_TRACKS_NO_ERRORS:
         hasErrors = false;
         break;
@@ -34,11 +36,11 @@ public class D71Reader extends AbstractDiskImageReader {
         hasErrors = true;
         break;
       default:
-        throw new WrongDiskImageFormatException(data.length);
+        throw new WrongDiskImageFormatException(image.remaining());
     }
 
     logger.info("Detected 70 tracks image {} error information", hasErrors ? "with" : "without");
 
-    return read(data, new D71(tracks, hasErrors));
+    return new D71(tracks, hasErrors, image);
   }
 }
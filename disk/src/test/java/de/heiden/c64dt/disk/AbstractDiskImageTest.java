@@ -0,0 +1,244 @@
+package de.heiden.c64dt.disk;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.heiden.c64dt.disk.d64.D64;
+import de.heiden.c64dt.disk.d64.D64Reader;
+import de.heiden.c64dt.disk.d71.D71Reader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link AbstractDiskImage} and {@link AbstractDiskImageReader}.
+ */
+public class AbstractDiskImageTest {
+  @Test
+  public void testMapD64(@TempDir Path temp) throws Exception {
+    assertMapped(new D64Reader(), temp, D64Reader.SIZE_35_TRACKS_NO_ERRORS, false);
+    assertMapped(new D64Reader(), temp, D64Reader.SIZE_35_TRACKS_WITH_ERRORS, true);
+    assertMapped(new D64Reader(), temp, D64Reader.SIZE_40_TRACKS_NO_ERRORS, false);
+    assertMapped(new D64Reader(), temp, D64Reader.SIZE_40_TRACKS_WITH_ERRORS, true);
+  }
+
+  @Test
+  public void testMapD71(@TempDir Path temp) throws Exception {
+    assertMapped(new D71Reader(), temp, D71Reader.SIZE_70_TRACKS_NO_ERRORS, false);
+    assertMapped(new D71Reader(), temp, D71Reader.SIZE_70_TRACKS_WITH_ERRORS, true);
+  }
+
+  @Test
+  public void testWriteMapped(@TempDir Path temp) throws Exception {
+    byte[] data = image(D64Reader.SIZE_35_TRACKS_WITH_ERRORS, true);
+    Path file = Files.write(temp.resolve("test.d64"), data);
+    IDiskImage image = new D64Reader().map(file);
+    ByteBuffer mapped = image.getSectorBuffer(18, 0);
+
+    byte[] sector = new byte[256];
+    Arrays.fill(sector, (byte) 0x55);
+    image.setSector(18, 0, sector);
+    image.setError(35, 16, Error.WRITE_ERROR);
+
+    assertArrayEquals(sector, image.getSector(18, 0));
+    assertEquals(Error.WRITE_ERROR, image.getError(35, 16));
+    // The other sectors are copied from the mapping
+    assertArrayEquals(sectorOf(data, 17, 20), image.getSector(17, 20));
+    assertArrayEquals(sectorOf(data, 18, 1), image.getSector(18, 1));
+    // The file and views taken before the modification are unchanged
+    assertArrayEquals(data, Files.readAllBytes(file));
+    byte[] view = new byte[256];
+    mapped.get(0, view);
+    assertArrayEquals(sectorOf(data, 18, 0), view);
+  }
+
+  @Test
+  public void testGetSector() throws Exception {
+    byte[] data = image(D64Reader.SIZE_35_TRACKS_NO_ERRORS, false);
+    IDiskImage image = new D64Reader().read(data);
+
+    byte[] sector = image.getSector(1, 0);
+    Arrays.fill(sector, (byte) 0x55);
+    assertArrayEquals(sectorOf(data, 1, 0), image.getSector(1, 0));
+
+    ByteBuffer buffer = image.getSectorBuffer(1, 0);
+    assertTrue(buffer.isReadOnly());
+    assertEquals(256, buffer.remaining());
+    assertThrows(ReadOnlyBufferException.class, () -> buffer.put(0, (byte) 0x55));
+
+    // The image does not share the read data
+    data[0] = (byte) ~data[0];
+    assertFalse(Arrays.equals(sectorOf(data, 1, 0), image.getSector(1, 0)));
+  }
+
+  @Test
+  public void testWrongSize(@TempDir Path temp) throws Exception {
+    int size = D64Reader.SIZE_35_TRACKS_NO_ERRORS;
+    assertThrows(WrongDiskImageFormatException.class, () -> new D64Reader().read(new byte[size - 1]));
+    assertThrows(WrongDiskImageFormatException.class, () -> new D64Reader().read(new byte[size + 1]));
+    assertThrows(WrongDiskImageFormatException.class, () -> new D71Reader().read(new byte[size]));
+
+    Path file = Files.write(temp.resolve("test.d64"), new byte[size + 256]);
+    assertThrows(WrongDiskImageFormatException.class, () -> new D64Reader().map(file));
+
+    assertThrows(IllegalArgumentException.class, () -> new D64(35, false, ByteBuffer.allocate(size - 256)));
+  }
+
+  @Test
+  public void testPayloadLastSector() throws Exception {
+    // link 0x02: just the first data byte is used
+    AbstractDiskImage one = new D64Builder().addFile("ONE", 1, 0, new byte[]{0x11}).toImage();
+    assertEquals(2, one.getSector(1, 0)[1]);
+    assertArrayEquals(new byte[]{0x11}, one.read(file(one)));
+
+    // link 0xFF: the whole sector is used
+    byte[] content = new byte[254];
+    new Random(254).nextBytes(content);
+    AbstractDiskImage full = new D64Builder().addFile("FULL", 1, 0, content).toImage();
+    assertEquals((byte) 0xFF, full.getSector(1, 0)[1]);
+    assertArrayEquals(content, full.read(file(full)));
+
+    // link 0x00 and 0x01: nothing is used
+    D64Builder empty = new D64Builder().addFile("EMPTY", 1, 0, new byte[0]);
+    AbstractDiskImage image = empty.toImage();
+    assertEquals(1, image.getSector(1, 0)[1]);
+    assertEquals(0, image.read(file(image)).length);
+    image = empty.link(1, 0, 0, 0).toImage();
+    assertEquals(0, image.read(file(image)).length);
+  }
+
+  @Test
+  public void testPayloads(@TempDir Path temp) throws Exception {
+    for (int length : new int[]{1, 253, 254, 255, 508, 509, 1000}) {
+      byte[] content = new byte[length];
+      new Random(length).nextBytes(content);
+      AbstractDiskImage image = new D64Builder().addFile("FILE", 3, 2, content).toImage();
+      IFile file = file(image);
+
+      ByteBuffer[] payloads = image.payloads(file);
+      assertEquals((length + 253) / 254, payloads.length);
+      byte[] viewed = new byte[length];
+      for (int i = 0, pos = 0; i < payloads.length; i++) {
+        assertTrue(payloads[i].isReadOnly());
+        assertEquals(Math.min(length - pos, 254), payloads[i].remaining());
+        payloads[i].get(viewed, pos, payloads[i].remaining());
+        pos += 254;
+      }
+      assertArrayEquals(content, viewed);
+      assertArrayEquals(readSectors(image, file), viewed);
+      assertArrayEquals(content, image.read(file));
+
+      Path written = temp.resolve("file-" + length);
+      try (FileChannel channel = FileChannel.open(written, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+        assertEquals(length, image.write(file, channel));
+      }
+      assertArrayEquals(content, Files.readAllBytes(written));
+
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      assertEquals(length, image.digest(file, digest));
+      assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), digest.digest());
+    }
+  }
+
+  /**
+   * File content read sector by sector via {@link IDiskImage#getSector(int, int)}.
+   * The link of the last sector is the index of the last used byte.
+   *
+   * @param image disk image
+   * @param file file
+   */
+  private static byte[] readSectors(IDiskImage image, IFile file) {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    for (int track = file.getTrack(), sector = file.getSector(); track != 0; ) {
+      byte[] content = image.getSector(track, sector);
+      track = content[0] & 0xFF;
+      sector = content[1] & 0xFF;
+      result.write(content, 2, track != 0 ? 254 : sector - 1);
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * First file of a disk image.
+   *
+   * @param image disk image
+   */
+  private static IFile file(IDiskImage image) {
+    return image.getDirectory().getFiles().get(0);
+  }
+
+  /**
+   * Assert that the mapped image and the read image have the sectors and error bytes of the image file.
+   *
+   * @param reader reader
+   * @param temp temporary directory
+   * @param size size of the image file
+   * @param hasErrors does the image file contain error bytes?
+   */
+  private static void assertMapped(AbstractDiskImageReader reader, Path temp, int size, boolean hasErrors) throws Exception {
+    byte[] data = image(size, hasErrors);
+    Path file = Files.write(temp.resolve("image-" + size), data);
+    IDiskImage mapped = reader.map(file);
+    IDiskImage read = reader.read(data);
+
+    assertEquals(hasErrors, mapped.hasErrors());
+    assertEquals(read.getTracks(), mapped.getTracks());
+    int offset = 0;
+    int errors = hasErrors ? size / 257 * 256 : size;
+    for (int track = 1; track <= mapped.getTracks(); track++) {
+      for (int sector = 0; sector < mapped.getSectors(track); sector++, offset += 256) {
+        byte[] expected = Arrays.copyOfRange(data, offset, offset + 256);
+        assertArrayEquals(expected, mapped.getSector(track, sector));
+        assertArrayEquals(expected, read.getSector(track, sector));
+        if (hasErrors) {
+          Error error = Error.error(data[errors++]);
+          assertEquals(error, mapped.getError(track, sector));
+          assertEquals(error, read.getError(track, sector));
+        }
+      }
+    }
+    assertEquals(hasErrors ? size / 257 * 256 : size, offset);
+  }
+
+  /**
+   * Random image file content with valid error bytes.
+   *
+   * @param size size of the image file
+   * @param hasErrors does the image file contain error bytes?
+   */
+  private static byte[] image(int size, boolean hasErrors) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    if (hasErrors) {
+      for (int i = size / 257 * 256, error = 0; i < size; i++, error++) {
+        data[i] = (byte) (error % 0x0B + 1);
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Content of a sector of a 35 tracks D64 image file.
+   *
+   * @param data image file content
+   * @param track track
+   * @param sector sector
+   */
+  private static byte[] sectorOf(byte[] data, int track, int sector) {
+    int offset = D64Builder.offset(track, sector);
+    return Arrays.copyOfRange(data, offset, offset + 256);
+  }
+}
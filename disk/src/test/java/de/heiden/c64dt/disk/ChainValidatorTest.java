@@ -0,0 +1,142 @@
+package de.heiden.c64dt.disk;
+
+import java.util.List;
+
+import de.heiden.c64dt.disk.ChainValidator.Problem;
+import de.heiden.c64dt.disk.ChainValidator.ProblemType;
+import de.heiden.c64dt.disk.ChainValidator.Result;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ChainValidator}.
+ */
+public class ChainValidatorTest {
+  @Test
+  public void testValid() {
+    Result result = ChainValidator.validate(image().toImage());
+
+    assertTrue(result.isValid(), result.getProblems().toString());
+    // directory, GAME, DATA
+    assertEquals(3, result.getChains());
+    assertEquals(1 + 3 + 1, result.getSectors());
+  }
+
+  @Test
+  public void testEmpty() {
+    Result result = ChainValidator.validate(new D64Builder().toImage());
+
+    assertTrue(result.isValid(), result.getProblems().toString());
+    assertEquals(1, result.getChains());
+    assertEquals(1, result.getSectors());
+  }
+
+  @Test
+  public void testLooping() {
+    // last sector of GAME links back to its second sector
+    Result result = ChainValidator.validate(image().link(1, 2, 1, 1).toImage());
+
+    assertProblem(ProblemType.LOOPING, "GAME", 1, 1, null, result);
+    assertEquals(3, result.getChains());
+  }
+
+  @Test
+  public void testLoopingDirectory() {
+    Result result = ChainValidator.validate(image().link(18, 1, 18, 1).toImage());
+
+    assertProblem(ProblemType.LOOPING, "directory", 18, 1, null, result);
+  }
+
+  @Test
+  public void testCrossLinked() {
+    // DATA continues in the last sector of GAME
+    Result result = ChainValidator.validate(image().link(2, 0, 1, 2).toImage());
+
+    assertProblem(ProblemType.CROSS_LINKED, "DATA", 1, 2, "GAME", result);
+  }
+
+  @Test
+  public void testIllegalLink() {
+    // from the last sector of GAME, so no sector gets orphaned
+    assertProblem(ProblemType.ILLEGAL_LINK, "GAME", 36, 0, null,
+      ChainValidator.validate(image().link(1, 2, 36, 0).toImage()));
+    assertProblem(ProblemType.ILLEGAL_LINK, "GAME", 18, 19, null,
+      ChainValidator.validate(image().link(1, 2, 18, 19).toImage()));
+    assertProblem(ProblemType.ILLEGAL_LINK, "directory", 18, 0xFF, null,
+      ChainValidator.validate(image().link(18, 1, 18, 0xFF).toImage()));
+  }
+
+  @Test
+  public void testUnallocated() {
+    Result result = ChainValidator.validate(image().setFree(1, 1, true).toImage());
+
+    assertProblem(ProblemType.UNALLOCATED, "GAME", 1, 1, null, result);
+  }
+
+  @Test
+  public void testOrphaned() {
+    // the BAM sector 18/0 is reserved, so it is not reported
+    Result result = ChainValidator.validate(image().setFree(10, 3, false).toImage());
+
+    assertProblem(ProblemType.ORPHANED, null, 10, 3, null, result);
+  }
+
+  @Test
+  public void testDamaged() {
+    // every problem at once: the validation neither throws nor hangs
+    D64Builder builder = image()
+      .addFile("LOOP", 3, 0, new byte[600])
+      .addFile("CROSS", 4, 0, new byte[300])
+      .addFile("ILLEGAL", 5, 0, new byte[300])
+      .link(3, 2, 3, 0)
+      .link(4, 0, 3, 1)
+      .link(5, 0, 0xFF, 0xFF)
+      .setFree(1, 0, true);
+    Result result = ChainValidator.validate(builder.toImage());
+
+    assertEquals(6, result.getChains());
+    assertEquals(List.of(ProblemType.UNALLOCATED, ProblemType.LOOPING, ProblemType.CROSS_LINKED, ProblemType.ILLEGAL_LINK,
+        ProblemType.ORPHANED, ProblemType.ORPHANED),
+      result.getProblems().stream().map(Problem::getType).toList());
+    assertEquals("LOOP", result.getProblems(ProblemType.CROSS_LINKED).get(0).getOtherChain());
+    // the second sectors of CROSS and ILLEGAL are no longer part of a chain
+    List<Problem> orphaned = result.getProblems(ProblemType.ORPHANED);
+    assertEquals(4, orphaned.get(0).getTrack());
+    assertEquals(1, orphaned.get(0).getSector());
+    assertEquals(5, orphaned.get(1).getTrack());
+    assertEquals(1, orphaned.get(1).getSector());
+  }
+
+  /**
+   * Assert that a validation found just the given problem.
+   *
+   * @param type expected problem type
+   * @param chain expected chain
+   * @param track expected track
+   * @param sector expected sector
+   * @param otherChain expected other chain
+   * @param result validation result
+   */
+  private static void assertProblem(ProblemType type, String chain, int track, int sector, String otherChain, Result result) {
+    assertFalse(result.isValid());
+    assertEquals(1, result.getProblems().size(), result.getProblems().toString());
+    Problem problem = result.getProblems().get(0);
+    assertEquals(type, problem.getType());
+    assertEquals(chain, problem.getChain());
+    assertEquals(track, problem.getTrack());
+    assertEquals(sector, problem.getSector());
+    assertEquals(otherChain, problem.getOtherChain());
+  }
+
+  /**
+   * Valid image with the files "GAME" at 1/0-2 and "DATA" at 2/0.
+   */
+  private static D64Builder image() {
+    return new D64Builder()
+      .addFile("GAME", 1, 0, new byte[600])
+      .addFile("DATA", 2, 0, new byte[100]);
+  }
+}
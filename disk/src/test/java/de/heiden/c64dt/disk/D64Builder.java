@@ -0,0 +1,224 @@
+package de.heiden.c64dt.disk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import de.heiden.c64dt.charset.C64Charset;
+import de.heiden.c64dt.disk.d64.D64;
+import de.heiden.c64dt.disk.d64.D64Reader;
+
+/**
+ * Builds synthetic 35 tracks D64 images for tests.
+ * The image starts formatted: BAM at 18/0, empty directory at 18/1, all other sectors free.
+ * Files are stored in consecutive sectors of one track and are allocated in the BAM.
+ */
+public class D64Builder {
+  /**
+   * Sector model.
+   */
+  private static final D64 MODEL = new D64(35, false);
+
+  /**
+   * Image file content.
+   */
+  private final byte[] image = new byte[D64Reader.SIZE_35_TRACKS_NO_ERRORS];
+
+  /**
+   * Number of directory entries.
+   */
+  private int entries = 0;
+
+  /**
+   * Constructor for disk "TEST", id "01".
+   */
+  public D64Builder() {
+    this("TEST");
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name disk name
+   */
+  public D64Builder(String name) {
+    int bam = offset(18, 0);
+    image[bam] = 18;
+    image[bam + 0x01] = 1;
+    image[bam + 0x02] = 0x41;
+    for (int track = 1; track <= 35; track++) {
+      for (int sector = 0; sector < MODEL.getSectors(track); sector++) {
+        setFree(track, sector, true);
+      }
+    }
+    setFree(18, 0, false);
+    setFree(18, 1, false);
+    Arrays.fill(image, bam + 0x90, bam + 0xAB, (byte) 0xA0);
+    putName(bam + 0x90, name);
+    image[bam + 0xA2] = '0';
+    image[bam + 0xA3] = '1';
+    image[bam + 0xA5] = '2';
+    image[bam + 0xA6] = 'A';
+
+    int directory = offset(18, 1);
+    image[directory + 0x01] = (byte) 0xFF;
+  }
+
+  /**
+   * Add a program.
+   *
+   * @param name name
+   * @param track track of the sectors of the file
+   * @param sector first sector of the file
+   * @param content content
+   */
+  public D64Builder addFile(String name, int track, int sector, byte[] content) {
+    return addFile(name, FileType.PRG, track, sector, content);
+  }
+
+  /**
+   * Add a file.
+   *
+   * @param name name
+   * @param type file type
+   * @param track track of the sectors of the file
+   * @param sector first sector of the file
+   * @param content content
+   */
+  public D64Builder addFile(String name, FileType type, int track, int sector, byte[] content) {
+    if (entries == 8) {
+      throw new IllegalStateException("Directory full.");
+    }
+
+    int blocks = Math.max((content.length + 253) / 254, 1);
+    for (int i = 0, pos = 0; i < blocks; i++, pos += 254) {
+      int offset = offset(track, sector + i);
+      int length = Math.min(content.length - pos, 254);
+      if (i < blocks - 1) {
+        image[offset] = (byte) track;
+        image[offset + 0x01] = (byte) (sector + i + 1);
+      } else {
+        image[offset + 0x01] = (byte) (length + 1);
+      }
+      System.arraycopy(content, pos, image, offset + 0x02, Math.max(length, 0));
+      setFree(track, sector + i, false);
+    }
+
+    int entry = offset(18, 1) + entries++ * 0x20;
+    image[entry + 0x02] = (byte) (0x80 | type.getCode());
+    image[entry + 0x03] = (byte) track;
+    image[entry + 0x04] = (byte) sector;
+    Arrays.fill(image, entry + 0x05, entry + 0x15, (byte) 0xA0);
+    putName(entry + 0x05, name);
+    image[entry + 0x1E] = (byte) blocks;
+    image[entry + 0x1F] = (byte) (blocks >> 8);
+    return this;
+  }
+
+  /**
+   * Set the link of a sector.
+   *
+   * @param track track
+   * @param sector sector
+   * @param nextTrack linked track, 0 for the last sector of a chain
+   * @param nextSector linked sector or the index of the last used byte
+   */
+  public D64Builder link(int track, int sector, int nextTrack, int nextSector) {
+    int offset = offset(track, sector);
+    image[offset] = (byte) nextTrack;
+    image[offset + 0x01] = (byte) nextSector;
+    return this;
+  }
+
+  /**
+   * Mark a sector as free or as used in the BAM.
+   *
+   * @param track track
+   * @param sector sector
+   * @param free free?
+   */
+  public D64Builder setFree(int track, int sector, boolean free) {
+    int entry = offset(18, 0) + 0x04 + (track - 1) * 4;
+    int bit = 1 << (sector & 0x07);
+    int map = entry + 1 + (sector >> 3);
+    if (((image[map] & bit) != 0) != free) {
+      image[map] ^= (byte) bit;
+      image[entry] += (byte) (free ? 1 : -1);
+    }
+    return this;
+  }
+
+  /**
+   * Image file content.
+   */
+  public byte[] toBytes() {
+    return image.clone();
+  }
+
+  /**
+   * Disk image.
+   */
+  public D64 toImage() {
+    return new D64(35, false, ByteBuffer.wrap(toBytes()));
+  }
+
+  /**
+   * Write image file.
+   *
+   * @param file image file
+   * @return image file
+   */
+  public Path write(Path file) throws IOException {
+    return Files.write(file, image);
+  }
+
+  /**
+   * Offset of a sector in the image file.
+   *
+   * @param track track
+   * @param sector sector
+   */
+  public static int offset(int track, int sector) {
+    int offset = 0;
+    for (int t = 1; t < track; t++) {
+      offset += MODEL.getSectors(t) * 256;
+    }
+    return offset + sector * 256;
+  }
+
+  /**
+   * Name in the upper case C64 charset.
+   *
+   * @param name name
+   */
+  public static byte[] name(String name) {
+    return name.getBytes(C64Charset.UPPER);
+  }
+
+  /**
+   * File content with the given length.
+   * Contents of different lengths differ.
+   *
+   * @param length length
+   */
+  public static byte[] content(int length) {
+    byte[] content = new byte[length];
+    for (int i = 0; i < length; i++) {
+      content[i] = (byte) (i * 7 + length);
+    }
+    return content;
+  }
+
+  /**
+   * Store a name in the upper case C64 charset.
+   *
+   * @param offset offset of the name
+   * @param name name
+   */
+  private void putName(int offset, String name) {
+    byte[] bytes = name(name);
+    System.arraycopy(bytes, 0, image, offset, Math.min(bytes.length, 16));
+  }
+}
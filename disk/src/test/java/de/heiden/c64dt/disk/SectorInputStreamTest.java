@@ -0,0 +1,90 @@
+package de.heiden.c64dt.disk;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link SectorInputStream}.
+ */
+public class SectorInputStreamTest {
+  /**
+   * Content spanning 4 sectors, the last one partially.
+   */
+  private static final byte[] CONTENT = content(3 * 254 + 100);
+
+  @Test
+  public void testRead() throws Exception {
+    try (SectorInputStream stream = stream(CONTENT)) {
+      assertEquals(0, stream.available());
+      for (int i = 0; i < CONTENT.length; i++) {
+        assertEquals(CONTENT[i] & 0xFF, stream.read(), "byte " + i);
+      }
+      assertEquals(-1, stream.read());
+      assertEquals(0, stream.available());
+    }
+  }
+
+  @Test
+  public void testReadBytes() throws Exception {
+    try (SectorInputStream stream = stream(CONTENT)) {
+      byte[] read = new byte[CONTENT.length + 10];
+      // within the first sector
+      assertEquals(100, stream.read(read, 3, 100));
+      assertEquals(154, stream.available());
+      // across two sector boundaries
+      assertEquals(400, stream.read(read, 103, 400));
+      assertEquals(8, stream.available());
+      assertEquals(0, stream.read(read, 503, 0));
+      // up to the end
+      assertEquals(CONTENT.length - 500, stream.read(read, 503, read.length - 503));
+      assertEquals(-1, stream.read(read, 0, 1));
+      assertArrayEquals(CONTENT, Arrays.copyOfRange(read, 3, 3 + CONTENT.length));
+
+      assertThrows(IndexOutOfBoundsException.class, () -> stream.read(read, -1, 1));
+      assertThrows(IndexOutOfBoundsException.class, () -> stream.read(read, read.length, 1));
+    }
+  }
+
+  @Test
+  public void testReadAll() throws Exception {
+    for (int length : new int[]{0, 1, 254, 255, 1000}) {
+      byte[] content = content(length);
+      try (SectorInputStream stream = stream(content)) {
+        assertArrayEquals(content, stream.readAllBytes());
+      }
+      try (SectorInputStream stream = stream(content)) {
+        ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+        assertEquals(length, stream.transferTo(transferred));
+        assertArrayEquals(content, transferred.toByteArray());
+      }
+    }
+  }
+
+  /**
+   * Stream of the file with the given content.
+   *
+   * @param content content
+   */
+  private static SectorInputStream stream(byte[] content) {
+    IDiskImage image = new D64Builder().addFile("FILE", 5, 1, content).toImage();
+    return new SectorInputStream(image, image.getDirectory().getFiles().get(0));
+  }
+
+  /**
+   * Random content.
+   *
+   * @param length length
+   */
+  private static byte[] content(int length) {
+    byte[] content = new byte[length];
+    new Random(length).nextBytes(content);
+    return content;
+  }
+}
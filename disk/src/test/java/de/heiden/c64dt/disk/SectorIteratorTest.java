@@ -0,0 +1,104 @@
+package de.heiden.c64dt.disk;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link SectorIterator}.
+ */
+public class SectorIteratorTest {
+  @Test
+  public void testIterate() {
+    IDiskImage image = new D64Builder().addFile("FILE", 17, 19, new byte[300]).toImage();
+    // continue on the next track: the sector indexes of 17/20 and 18/0 are adjacent
+    image.setSector(17, 20, sector(18, 0));
+
+    SectorIterator iterator = new SectorIterator(image, 17, 19);
+    assertTrue(iterator.hasNext());
+    byte[] first = iterator.next();
+    assertEquals(17, first[0]);
+    assertEquals(20, first[1]);
+    first[0] = 0;
+
+    ByteBuffer second = iterator.nextBuffer();
+    assertTrue(second.isReadOnly());
+    assertEquals(18, second.get(0));
+    assertEquals(0, second.get(1));
+
+    // 18/0 is the BAM, which links to the directory
+    byte[] bam = iterator.next();
+    assertEquals(18, bam[0]);
+    assertEquals(1, bam[1]);
+    byte[] directory = iterator.next();
+    assertEquals(0, directory[0]);
+    assertFalse(iterator.hasNext());
+
+    assertThrows(UnsupportedOperationException.class, iterator::remove);
+  }
+
+  @Test
+  public void testLoop() {
+    IDiskImage image = new D64Builder().addFile("LOOP", 1, 0, new byte[600]).link(1, 2, 1, 1).toImage();
+
+    SectorIterator iterator = new SectorIterator(image, 1, 0);
+    iterator.next();
+    iterator.next();
+    iterator.next();
+    assertTrue(iterator.hasNext());
+    IllegalSectorChainException e = assertThrows(IllegalSectorChainException.class, iterator::next);
+    assertTrue(e.getMessage().contains("1 / 1"), e.getMessage());
+
+    // Each iterator has its own visited sectors
+    SectorIterator other = new SectorIterator(image, 1, 1);
+    other.next();
+    other.next();
+    assertThrows(IllegalSectorChainException.class, other::nextBuffer);
+  }
+
+  @Test
+  public void testSelfLink() {
+    IDiskImage image = new D64Builder().link(35, 16, 35, 16).toImage();
+
+    SectorIterator iterator = new SectorIterator(image, 35, 16);
+    iterator.next();
+    assertThrows(IllegalSectorChainException.class, iterator::next);
+  }
+
+  @Test
+  public void testIllegalLink() {
+    IDiskImage image = new D64Builder().addFile("FILE", 1, 0, new byte[300]).link(1, 0, 36, 0).toImage();
+
+    SectorIterator iterator = new SectorIterator(image, 1, 0);
+    iterator.next();
+    IllegalSectorException e = assertThrows(IllegalSectorException.class, iterator::next);
+    assertFalse(e instanceof IllegalSectorChainException);
+
+    IDiskImage sector = new D64Builder().addFile("FILE", 1, 0, new byte[300]).link(1, 0, 18, 19).toImage();
+    SectorIterator sectorIterator = new SectorIterator(sector, 1, 0);
+    sectorIterator.next();
+    assertInstanceOf(IllegalSectorException.class, assertThrows(IllegalArgumentException.class, sectorIterator::next));
+
+    assertThrows(IllegalSectorException.class, () -> new SectorIterator(image, 0, 0));
+    assertThrows(IllegalSectorException.class, () -> new SectorIterator(image, 1, 21));
+  }
+
+  /**
+   * Sector content with just a link.
+   *
+   * @param track linked track
+   * @param sector linked sector
+   */
+  private static byte[] sector(int track, int sector) {
+    byte[] content = new byte[256];
+    content[0] = (byte) track;
+    content[1] = (byte) sector;
+    return content;
+  }
+}
@@ -0,0 +1,237 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import de.heiden.c64dt.disk.FileType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static de.heiden.c64dt.disk.D64Builder.name;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link Catalog}.
+ */
+public class CatalogTest {
+  @Test
+  public void testWriteOpen(@TempDir Path temp) throws Exception {
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(
+      image("games/b.d64", file("games/b.d64", "GAME", 1), file("games/b.d64", "LOADER", 2)),
+      image("a.d64", file("a.d64", "DEMO", 3))), file);
+
+    try (Catalog catalog = Catalog.open(file)) {
+      assertEquals(2, catalog.getImageCount());
+      assertEquals(3, catalog.getFileCount());
+
+      CatalogImage a = catalog.getImage(0);
+      assertEquals("a.d64", a.getPath());
+      assertEquals(174848, a.getSize());
+      assertEquals(1234, a.getModified());
+      assertArrayEquals(name("DISK"), a.getName());
+      assertArrayEquals(new byte[]{'0', '1', (byte) 0xA0, '2', 'A'}, a.getIdAndType());
+      assertEquals(1, a.getFiles().size());
+      assertFile(file("a.d64", "DEMO", 3), a.getFiles().get(0));
+
+      CatalogImage b = catalog.getImage(1);
+      assertEquals("games/b.d64", b.getPath());
+      assertEquals(2, b.getFiles().size());
+      assertFile(file("games/b.d64", "GAME", 1), b.getFiles().get(0));
+      assertFile(file("games/b.d64", "LOADER", 2), b.getFiles().get(1));
+    }
+  }
+
+  @Test
+  public void testFindImage(@TempDir Path temp) throws Exception {
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(image("c.d64"), image("a.d64"), image("b/b.d64")), file);
+
+    try (Catalog catalog = Catalog.open(file)) {
+      assertEquals("a.d64", catalog.findImage("a.d64").getPath());
+      assertEquals("b/b.d64", catalog.findImage("b/b.d64").getPath());
+      assertEquals("c.d64", catalog.findImage("c.d64").getPath());
+      assertNull(catalog.findImage("b.d64"));
+      assertNull(catalog.findImage(""));
+      assertNull(catalog.findImage("d.d64"));
+    }
+  }
+
+  @Test
+  public void testFindByName(@TempDir Path temp) throws Exception {
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(
+      image("b.d64", file("b.d64", "GAME", 1), file("b.d64", "GAMES", 2)),
+      image("a.d64", file("a.d64", "GAME", 3), file("a.d64", "DEMO", 4))), file);
+
+    try (Catalog catalog = Catalog.open(file)) {
+      // same names in the order of their images
+      List<CatalogFile> games = catalog.findByName("GAME");
+      assertEquals(2, games.size());
+      assertFile(file("a.d64", "GAME", 3), games.get(0));
+      assertFile(file("b.d64", "GAME", 1), games.get(1));
+
+      assertEquals(1, catalog.findByName("GAMES").size());
+      assertFile(file("a.d64", "DEMO", 4), catalog.findByName(name("DEMO")).get(0));
+      assertTrue(catalog.findByName("GAM").isEmpty());
+      assertTrue(catalog.findByName("").isEmpty());
+      assertTrue(catalog.findByName("ZZZ").isEmpty());
+    }
+  }
+
+  @Test
+  public void testFindByHash(@TempDir Path temp) throws Exception {
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(
+      image("b.d64", file("b.d64", "B", 1), file("b.d64", "C", 2)),
+      image("a.d64", file("a.d64", "A", 1))), file);
+
+    try (Catalog catalog = Catalog.open(file)) {
+      // same contents in the order of their images
+      List<CatalogFile> same = catalog.findByHash(hash(1));
+      assertEquals(2, same.size());
+      assertFile(file("a.d64", "A", 1), same.get(0));
+      assertFile(file("b.d64", "B", 1), same.get(1));
+
+      assertFile(file("b.d64", "C", 2), catalog.findByHash(hash(2)).get(0));
+      assertTrue(catalog.findByHash(hash(3)).isEmpty());
+      assertTrue(catalog.findByHash(new byte[Catalog.HASH_LENGTH]).isEmpty());
+    }
+  }
+
+  @Test
+  public void testIndexOrder(@TempDir Path temp) throws Exception {
+    // Keys with long common prefixes and with bytes >= 0x80, so all key bytes and their sign matter
+    Random random = new Random(0);
+    List<CatalogFile> files = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      byte[] name = new byte[1 + random.nextInt(16)];
+      for (int j = 0; j < name.length; j++) {
+        name[j] = (byte) (random.nextBoolean() ? 0x41 : 0xC1 + random.nextInt(2));
+      }
+      byte[] hash = new byte[Catalog.HASH_LENGTH];
+      Arrays.fill(hash, (byte) 0x80);
+      hash[random.nextInt(Catalog.HASH_LENGTH)] = (byte) random.nextInt(256);
+      files.add(new CatalogFile("a.d64", name, FileType.PRG, i, i, hash));
+    }
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(new CatalogImage("a.d64", 0, 0, name("DISK"), new byte[5], files)), file);
+
+    try (Catalog catalog = Catalog.open(file)) {
+      for (CatalogFile expected : files) {
+        assertFound(expected, catalog.findByName(expected.getName()));
+        assertFound(expected, catalog.findByHash(expected.getHash()));
+      }
+    }
+  }
+
+  @Test
+  public void testInvalid(@TempDir Path temp) throws Exception {
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(image("a.d64", file("a.d64", "A", 1))), file);
+    byte[] valid = Files.readAllBytes(file);
+
+    byte[] magic = valid.clone();
+    magic[0] = 0;
+    assertThrows(IOException.class, () -> Catalog.open(Files.write(file, magic)));
+
+    byte[] version = valid.clone();
+    ByteBuffer.wrap(version).putInt(4, Catalog.VERSION + 1);
+    assertThrows(IOException.class, () -> Catalog.open(Files.write(file, version)));
+
+    byte[] truncated = Arrays.copyOf(valid, valid.length - 8 - 16);
+    assertThrows(IOException.class, () -> Catalog.open(Files.write(file, truncated)));
+
+    assertThrows(IOException.class, () -> Catalog.open(Files.write(file, new byte[0])));
+  }
+
+  @Test
+  public void testClose(@TempDir Path temp) throws Exception {
+    Path file = temp.resolve("catalog");
+    Catalog.write(List.of(image("a.d64")), file);
+
+    Catalog catalog = Catalog.open(file);
+    assertEquals(1, catalog.getImageCount());
+    catalog.close();
+    catalog.close();
+
+    // The closed catalog can be replaced
+    Catalog.write(List.of(image("a.d64"), image("b.d64")), file);
+    try (Catalog replaced = Catalog.open(file)) {
+      assertEquals(2, replaced.getImageCount());
+    }
+  }
+
+  /**
+   * Assert that a file is contained in the found files and that these are in the order of the files.
+   * The files are identified by their size in blocks.
+   *
+   * @param expected expected file
+   * @param found found files
+   */
+  private static void assertFound(CatalogFile expected, List<CatalogFile> found) {
+    assertTrue(found.stream().anyMatch(file -> file.getBlocks() == expected.getBlocks()), expected.toString());
+    for (int i = 1; i < found.size(); i++) {
+      assertTrue(found.get(i - 1).getBlocks() < found.get(i).getBlocks());
+    }
+  }
+
+  /**
+   * Assert that a file equals the expected file.
+   *
+   * @param expected expected file
+   * @param actual actual file
+   */
+  private static void assertFile(CatalogFile expected, CatalogFile actual) {
+    assertEquals(expected.getImage(), actual.getImage());
+    assertArrayEquals(expected.getName(), actual.getName());
+    assertEquals(expected.getType(), actual.getType());
+    assertEquals(expected.getBlocks(), actual.getBlocks());
+    assertEquals(expected.getLength(), actual.getLength());
+    assertArrayEquals(expected.getHash(), actual.getHash());
+  }
+
+  /**
+   * Image "DISK" with the given files.
+   *
+   * @param path path of the image
+   * @param files files
+   */
+  private static CatalogImage image(String path, CatalogFile... files) {
+    return new CatalogImage(path, 174848, 1234, name("DISK"), new byte[]{'0', '1', (byte) 0xA0, '2', 'A'}, List.of(files));
+  }
+
+  /**
+   * Program with a content of the given number.
+   * The number is used as size in blocks and as content length too.
+   *
+   * @param image path of the image
+   * @param name name
+   * @param content number of the content
+   */
+  private static CatalogFile file(String image, String name, int content) {
+    return new CatalogFile(image, name(name), FileType.PRG, content, content * 254, hash(content));
+  }
+
+  /**
+   * Content hash for a content number.
+   *
+   * @param content number of the content
+   */
+  private static byte[] hash(int content) {
+    byte[] hash = new byte[Catalog.HASH_LENGTH];
+    Arrays.fill(hash, (byte) 0xFF);
+    hash[Catalog.HASH_LENGTH - 1] = (byte) content;
+    return hash;
+  }
+}
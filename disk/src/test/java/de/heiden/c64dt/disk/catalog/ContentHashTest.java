@@ -0,0 +1,34 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import de.heiden.c64dt.disk.AbstractDiskImage;
+import de.heiden.c64dt.disk.D64Builder;
+import de.heiden.c64dt.disk.IFile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link ContentHash}.
+ */
+public class ContentHashTest {
+  @Test
+  public void testHash() throws Exception {
+    for (int length : new int[]{0, 1, 253, 254, 255, 508, 1000}) {
+      byte[] content = new byte[length];
+      new Random(length).nextBytes(content);
+      AbstractDiskImage diskImage = new D64Builder().addFile("FILE", 1, 0, content).toImage();
+      IFile file = diskImage.getDirectory().getFiles().get(0);
+
+      byte[] hash = new byte[Catalog.HASH_LENGTH];
+      assertEquals(length, ContentHash.hash(diskImage, file, hash));
+      byte[] expected = MessageDigest.getInstance("SHA-256").digest(content);
+      assertArrayEquals(Arrays.copyOf(expected, Catalog.HASH_LENGTH), hash, "length " + length);
+      assertArrayEquals(content, diskImage.read(file));
+    }
+  }
+}
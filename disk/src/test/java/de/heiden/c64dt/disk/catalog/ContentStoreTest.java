@@ -0,0 +1,196 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+
+import de.heiden.c64dt.disk.AbstractDiskImage;
+import de.heiden.c64dt.disk.D64Builder;
+import de.heiden.c64dt.disk.IFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static de.heiden.c64dt.disk.D64Builder.content;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ContentStore}.
+ */
+public class ContentStoreTest {
+  /**
+   * Content shared by both images.
+   */
+  private static final byte[] GAME = content(300);
+
+  /**
+   * Content just of the first image.
+   */
+  private static final byte[] DATA = content(20);
+
+  @Test
+  public void testAdd(@TempDir Path temp) throws Exception {
+    ContentStore store = ContentStore.open(temp);
+    AbstractDiskImage a = imageA();
+    AbstractDiskImage b = imageB();
+
+    assertEquals(2, store.add("a.d64", a));
+    assertEquals(0, store.add("b.d64", b));
+
+    // The shared content is stored once with two references
+    assertEquals(2, store.getContentCount());
+    assertEquals(3, store.getReferenceCount());
+    assertEquals(GAME.length + DATA.length, store.getStoredBytes());
+    assertEquals(2 * GAME.length + DATA.length, store.getReferencedBytes());
+
+    byte[] game = hash(a, 0);
+    List<ContentReference> references = store.find(game);
+    assertEquals(2, references.size());
+    assertReference("a.d64", 1, 0, references.get(0));
+    assertReference("b.d64", 3, 5, references.get(1));
+    assertArrayEquals(GAME, Files.readAllBytes(store.getContent(game)));
+
+    byte[] data = hash(a, 1);
+    assertEquals(1, store.find(data).size());
+    assertArrayEquals(DATA, Files.readAllBytes(store.getContent(data)));
+
+    byte[] unknown = new byte[Catalog.HASH_LENGTH];
+    assertTrue(store.find(unknown).isEmpty());
+    assertNull(store.getContent(unknown));
+  }
+
+  @Test
+  public void testRemove(@TempDir Path temp) throws Exception {
+    ContentStore store = ContentStore.open(temp);
+    AbstractDiskImage a = imageA();
+    store.add("a.d64", a);
+    store.add("b.d64", imageB());
+
+    // Adding an image again replaces its references
+    assertEquals(0, store.add("a.d64", a));
+    assertEquals(3, store.getReferenceCount());
+
+    store.remove("a.d64");
+    store.remove("unknown.d64");
+    assertEquals(1, store.getReferenceCount());
+    assertReference("b.d64", 3, 5, store.find(hash(a, 0)).get(0));
+    // Contents are kept
+    assertTrue(store.find(hash(a, 1)).isEmpty());
+    assertEquals(2, store.getContentCount());
+    assertArrayEquals(DATA, Files.readAllBytes(store.getContent(hash(a, 1))));
+
+    assertEquals(0, store.add("a.d64", a));
+    assertEquals(3, store.getReferenceCount());
+    assertEquals(1, store.find(hash(a, 1)).size());
+  }
+
+  @Test
+  public void testAddFailed(@TempDir Path temp) throws Exception {
+    ContentStore store = ContentStore.open(temp);
+    AbstractDiskImage a = imageA();
+    store.add("a.d64", a);
+
+    // Block the directory of a new content
+    AbstractDiskImage modified = new D64Builder("DISK A")
+      .addFile("GAME", 1, 0, GAME)
+      .addFile("NEW", 2, 0, content(30))
+      .toImage();
+    String hex = HexFormat.of().formatHex(hash(modified, 1));
+    Files.write(temp.resolve(hex.substring(0, 2)), new byte[0]);
+
+    assertThrows(IOException.class, () -> store.add("a.d64", modified));
+    assertEquals(2, store.getContentCount());
+    assertEquals(2, store.getReferenceCount());
+    assertReference("a.d64", 1, 0, store.find(hash(a, 0)).get(0));
+    assertReference("a.d64", 2, 0, store.find(hash(a, 1)).get(0));
+    assertTrue(store.find(hash(modified, 1)).isEmpty());
+  }
+
+  @Test
+  public void testSaveOpen(@TempDir Path temp) throws Exception {
+    ContentStore store = ContentStore.open(temp);
+    AbstractDiskImage a = imageA();
+    store.add("a.d64", a);
+    store.add("b.d64", imageB());
+    store.save();
+
+    ContentStore opened = ContentStore.open(temp);
+    assertEquals(2, opened.getContentCount());
+    assertEquals(3, opened.getReferenceCount());
+    assertEquals(store.getStoredBytes(), opened.getStoredBytes());
+    assertEquals(store.getReferencedBytes(), opened.getReferencedBytes());
+    List<ContentReference> references = opened.find(hash(a, 0));
+    assertEquals(2, references.size());
+    assertArrayEquals(GAME, Files.readAllBytes(opened.getContent(hash(a, 0))));
+
+    // The references of the images are restored too
+    opened.remove("a.d64");
+    assertEquals(1, opened.getReferenceCount());
+  }
+
+  @Test
+  public void testInvalid(@TempDir Path temp) throws Exception {
+    ContentStore store = ContentStore.open(temp);
+    store.add("a.d64", imageA());
+    store.save();
+    Path references = temp.resolve(ContentStore.REFERENCES);
+    byte[] valid = Files.readAllBytes(references);
+
+    byte[] magic = valid.clone();
+    magic[0] = 0;
+    Files.write(references, magic);
+    assertThrows(IOException.class, () -> ContentStore.open(temp));
+
+    byte[] version = valid.clone();
+    ByteBuffer.wrap(version).putInt(4, ContentStore.VERSION + 1);
+    Files.write(references, version);
+    assertThrows(IOException.class, () -> ContentStore.open(temp));
+  }
+
+  /**
+   * Assert a reference.
+   *
+   * @param image expected image path
+   * @param track expected track
+   * @param sector expected sector
+   * @param reference actual reference
+   */
+  private static void assertReference(String image, int track, int sector, ContentReference reference) {
+    assertEquals(image, reference.getImage());
+    assertEquals(track, reference.getTrack());
+    assertEquals(sector, reference.getSector());
+  }
+
+  /**
+   * Image with the files "GAME" and "DATA".
+   */
+  private static AbstractDiskImage imageA() {
+    return new D64Builder("DISK A").addFile("GAME", 1, 0, GAME).addFile("DATA", 2, 0, DATA).toImage();
+  }
+
+  /**
+   * Image with the file "GAME" at another position.
+   */
+  private static AbstractDiskImage imageB() {
+    return new D64Builder("DISK B").addFile("GAME", 3, 5, GAME).toImage();
+  }
+
+  /**
+   * Content hash of a file.
+   *
+   * @param diskImage disk image
+   * @param entry index of the directory entry of the file
+   */
+  private static byte[] hash(AbstractDiskImage diskImage, int entry) {
+    IFile file = diskImage.getDirectory().getFiles().get(entry);
+    byte[] hash = new byte[Catalog.HASH_LENGTH];
+    ContentHash.hash(diskImage, file, hash);
+    return hash;
+  }
+}
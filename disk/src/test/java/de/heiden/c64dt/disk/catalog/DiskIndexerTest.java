@@ -0,0 +1,153 @@
+package de.heiden.c64dt.disk.catalog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import de.heiden.c64dt.disk.D64Builder;
+import de.heiden.c64dt.disk.FileType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static de.heiden.c64dt.disk.D64Builder.content;
+import static de.heiden.c64dt.disk.D64Builder.name;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test for {@link DiskIndexer}.
+ */
+public class DiskIndexerTest {
+  @Test
+  public void testIndex(@TempDir Path temp) throws Exception {
+    Path root = archive(temp);
+    Path catalog = temp.resolve("catalog");
+
+    DiskIndexer.Result result = new DiskIndexer(2).index(root, catalog);
+    assertEquals(2, result.getImages());
+    assertEquals(0, result.getSkipped());
+    assertEquals(0, result.getDamaged());
+    assertEquals(0, result.getFailed());
+    assertEquals(3, result.getFiles());
+    assertFalse(Files.exists(DiskIndexer.checkpoint(catalog, 0)));
+
+    try (Catalog opened = Catalog.open(catalog)) {
+      assertEquals(2, opened.getImageCount());
+      CatalogImage image = opened.findImage("sub/b.d64");
+      assertArrayEquals(name("DISK B"), image.getName());
+      assertEquals(Files.size(root.resolve("sub/b.d64")), image.getSize());
+      assertEquals(1, image.getFiles().size());
+
+      // same content in both images
+      List<CatalogFile> files = opened.findByHash(opened.findByName("GAME").get(0).getHash());
+      assertEquals(2, files.size());
+      assertEquals("a.d64", files.get(0).getImage());
+      assertEquals("sub/b.d64", files.get(1).getImage());
+      assertEquals(300, files.get(0).getLength());
+      assertEquals(2, files.get(0).getBlocks());
+    }
+  }
+
+  @Test
+  public void testUnchanged(@TempDir Path temp) throws Exception {
+    Path root = archive(temp);
+    Path catalog = temp.resolve("catalog");
+    new DiskIndexer(2).index(root, catalog);
+
+    DiskIndexer.Result result = new DiskIndexer(2).index(root, catalog);
+    assertEquals(0, result.getImages());
+    assertEquals(2, result.getSkipped());
+    assertEquals(3, result.getFiles());
+    try (Catalog opened = Catalog.open(catalog)) {
+      assertEquals(2, opened.getImageCount());
+      assertEquals(3, opened.getFileCount());
+    }
+  }
+
+  @Test
+  public void testModified(@TempDir Path temp) throws Exception {
+    Path root = archive(temp);
+    Path catalog = temp.resolve("catalog");
+    new DiskIndexer(2).index(root, catalog);
+
+    Path b = root.resolve("sub/b.d64");
+    FileTime modified = Files.getLastModifiedTime(b);
+    new D64Builder("DISK B").addFile("OTHER", 1, 0, content(10)).write(b);
+    Files.setLastModifiedTime(b, FileTime.fromMillis(modified.toMillis() + 2000));
+
+    DiskIndexer.Result result = new DiskIndexer(2).index(root, catalog);
+    assertEquals(1, result.getImages());
+    assertEquals(1, result.getSkipped());
+    try (Catalog opened = Catalog.open(catalog)) {
+      assertEquals(1, opened.findByName("GAME").size());
+      assertEquals(1, opened.findByName("OTHER").size());
+    }
+  }
+
+  @Test
+  public void testResume(@TempDir Path temp) throws Exception {
+    Path root = archive(temp);
+    Path catalog = temp.resolve("catalog");
+
+    // Checkpoints of an aborted run, which indexed a.d64 already
+    Path a = root.resolve("a.d64");
+    CatalogImage stale = new CatalogImage("a.d64", Files.size(a), Files.getLastModifiedTime(a).toMillis(),
+      name("STALE"), new byte[5], List.of());
+    CatalogImage indexed = new CatalogImage("a.d64", Files.size(a), Files.getLastModifiedTime(a).toMillis(),
+      name("CHECKPOINT"), new byte[5], List.of());
+    Catalog.write(List.of(stale), DiskIndexer.checkpoint(catalog, 0));
+    Catalog.write(List.of(indexed), DiskIndexer.checkpoint(catalog, 1));
+
+    DiskIndexer.Result result = new DiskIndexer(2).index(root, catalog);
+    assertEquals(1, result.getImages());
+    assertEquals(1, result.getSkipped());
+    assertFalse(Files.exists(DiskIndexer.checkpoint(catalog, 0)));
+    assertFalse(Files.exists(DiskIndexer.checkpoint(catalog, 1)));
+    try (Catalog opened = Catalog.open(catalog)) {
+      // the later checkpoint wins
+      assertArrayEquals(name("CHECKPOINT"), opened.findImage("a.d64").getName());
+      assertArrayEquals(name("DISK B"), opened.findImage("sub/b.d64").getName());
+    }
+  }
+
+  @Test
+  public void testDamaged(@TempDir Path temp) throws Exception {
+    Path root = Files.createDirectories(temp.resolve("archive"));
+    new D64Builder().addFile("LOOP", 1, 0, content(300)).link(1, 1, 1, 0).write(root.resolve("loop.d64"));
+    Files.write(root.resolve("broken.d64"), new byte[100]);
+    Path catalog = temp.resolve("catalog");
+
+    DiskIndexer.Result result = new DiskIndexer(1).index(root, catalog);
+    assertEquals(1, result.getImages());
+    assertEquals(1, result.getDamaged());
+    assertEquals(1, result.getFailed());
+    try (Catalog opened = Catalog.open(catalog)) {
+      CatalogFile loop = opened.findByName("LOOP").get(0);
+      assertEquals(-1, loop.getLength());
+      assertNull(opened.findImage("broken.d64"));
+    }
+  }
+
+  /**
+   * Archive with two images sharing the content of the file "GAME".
+   *
+   * @param temp temporary directory
+   * @return root directory of the archive
+   */
+  private static Path archive(Path temp) throws Exception {
+    Path root = Files.createDirectories(temp.resolve("archive"));
+    new D64Builder("DISK A")
+      .addFile("GAME", 1, 0, content(300))
+      .addFile("DATA", FileType.SEQ, 2, 0, content(20))
+      .write(root.resolve("a.d64"));
+    new D64Builder("DISK B")
+      .addFile("GAME", 1, 0, content(300))
+      .write(Files.createDirectories(root.resolve("sub")).resolve("b.d64"));
+    // no disk image
+    Files.write(root.resolve("readme.txt"), new byte[]{'x'});
+    return root;
+  }
+}
@@ -8,7 +8,6 @@ import de.heiden.c64dt.reassembler.label.ILabel;
 
 import javax.swing.table.DefaultTableModel;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import static de.heiden.c64dt.bytes.HexUtil.hexBytePlain;
@@ -75,6 +74,8 @@ public class CodeTableModel extends DefaultTableModel {
     CommandBuffer commands = reassembler.getCommands();
 
     StringBuilder builder = new StringBuilder();
+    // commands are never longer than the code
+    byte[] data = new byte[commands.getLength()];
 
     CommandIterator iter = new CommandIterator(commands);
     while (iter.hasNext()) {
@@ -97,12 +98,11 @@ public class CodeTableModel extends DefaultTableModel {
       String flags = builder.toString();
 
       builder.setLength(0);
-      List<Integer> data = command.toBytes();
-      int i = index;
-      for (int dataByte : data) {
+      int size = command.toBytes(data, 0);
+      for (int i = 0; i < size; i++) {
         builder.append(" ");
-        builder.append(commands.getType(i++).getId().toLowerCase());
-        builder.append(hexBytePlain(dataByte));
+        builder.append(commands.getType(index + i).getId().toLowerCase());
+        builder.append(hexBytePlain(data[i] & 0xFF));
       }
       String bytes = builder.toString().trim();
 
@@ -160,4 +160,36 @@ public class CodeTableModel extends DefaultTableModel {
   public Integer getRow(int index) {
     return indexToRow.get(index);
   }
+
+  /**
+   * The row of the first block after the given row.
+   *
+   * @param row Row
+   * @return row or null, if there is no block after the given row
+   */
+  public Integer getNextBlockRow(int row) {
+    Integer index = getIndex(row);
+    if (reassembler == null || index == null) {
+      return null;
+    }
+
+    int blockIndex = reassembler.getCommands().getBlocks().next(index + 1);
+    return blockIndex >= 0 ? getRow(blockIndex) : null;
+  }
+
+  /**
+   * The row of the last block before the given row.
+   *
+   * @param row Row
+   * @return row or null, if there is no block before the given row
+   */
+  public Integer getPreviousBlockRow(int row) {
+    Integer index = getIndex(row);
+    if (reassembler == null || index == null || index == 0) {
+      return null;
+    }
+
+    int blockIndex = reassembler.getCommands().getBlocks().previous(index - 1);
+    return blockIndex >= 0 ? getRow(blockIndex) : null;
+  }
 }
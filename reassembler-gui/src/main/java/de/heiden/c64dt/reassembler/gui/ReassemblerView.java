@@ -12,8 +12,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.reassembler.ProjectFormat;
+import de.heiden.c64dt.reassembler.ProjectXmlFormat;
 import de.heiden.c64dt.reassembler.Reassembler;
-import de.heiden.c64dt.reassembler.xml.XmlUtil;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -106,7 +107,7 @@ public class ReassemblerView extends JFrame {
   private void reassemble() {
     try {
       File file = new File("retro replay", "rr38q-cnet-0.xml");
-      Reassembler reassembler = XmlUtil.unmarshal(new FileInputStream(file), Reassembler.class);
+      Reassembler reassembler = ProjectFormat.load(new FileInputStream(file));
       use(reassembler);
       currentFile = file;
     } catch (Exception e) {
@@ -186,7 +187,7 @@ public class ReassemblerView extends JFrame {
         }
         int result = chooser.showOpenDialog(ReassemblerView.this);
         if (result == JFileChooser.APPROVE_OPTION) {
-          use(XmlUtil.unmarshal(new FileInputStream(chooser.getSelectedFile()), Reassembler.class));
+          use(ProjectFormat.load(new FileInputStream(chooser.getSelectedFile())));
           currentFile = chooser.getSelectedFile();
         }
       } catch (Exception e) {
@@ -202,7 +203,7 @@ public class ReassemblerView extends JFrame {
     file.add(fileSave);
     fileSave.addActionListener(actionEvent -> {
       try {
-        XmlUtil.marshal(reassembler, new FileOutputStream(currentFile));
+        save(currentFile);
       } catch (Exception e) {
         logger.error("Failed to save file", e);
         JOptionPane.showMessageDialog(ReassemblerView.this,
@@ -222,7 +223,7 @@ public class ReassemblerView extends JFrame {
         }
         int result = chooser.showSaveDialog(ReassemblerView.this);
         if (result == JFileChooser.APPROVE_OPTION) {
-          XmlUtil.marshal(reassembler, new FileOutputStream(chooser.getSelectedFile()));
+          save(chooser.getSelectedFile());
           currentFile = chooser.getSelectedFile();
         }
       } catch (Exception e) {
@@ -235,4 +236,17 @@ public class ReassemblerView extends JFrame {
 
     return menuBar;
   }
+
+  /**
+   * Save the reassembler in the binary project format or, for files with the extension ".xml", in the XML format.
+   *
+   * @param file File
+   */
+  private void save(File file) throws Exception {
+    if (file.getName().toLowerCase().endsWith(".xml")) {
+      ProjectXmlFormat.write(reassembler, new FileOutputStream(file));
+    } else {
+      ProjectFormat.write(reassembler, new FileOutputStream(file));
+    }
+  }
 }
@@ -136,7 +136,7 @@ public class CodeTypeActions {
       commands.setType(index, index + command.getSize(), type);
     }
 
-    reassembler.reassemble();
+    reassembler.update();
     model.update();
   }
 }
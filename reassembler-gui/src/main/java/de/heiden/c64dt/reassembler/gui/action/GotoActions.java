@@ -8,6 +8,8 @@ import de.heiden.c64dt.reassembler.gui.util.TableUtil;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
@@ -25,6 +27,16 @@ public class GotoActions {
    */
   private final Action gotoAction;
 
+  /**
+   * Action "Go to next block".
+   */
+  private final Action nextBlockAction;
+
+  /**
+   * Action "Go to previous block".
+   */
+  private final Action previousBlockAction;
+
   /**
    * Constructor.
    *
@@ -34,8 +46,17 @@ public class GotoActions {
     this.table = table;
 
     gotoAction = createGotoAction();
-
-    table.getSelectionModel().addListSelectionListener(listSelectionEvent -> gotoAction.setEnabled(table.getSelectedRowCount() == 1));
+    nextBlockAction = createNextBlockAction();
+    previousBlockAction = createPreviousBlockAction();
+    bind(nextBlockAction, "gotoNextBlock", KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, InputEvent.ALT_DOWN_MASK));
+    bind(previousBlockAction, "gotoPreviousBlock", KeyStroke.getKeyStroke(KeyEvent.VK_UP, InputEvent.ALT_DOWN_MASK));
+
+    table.getSelectionModel().addListSelectionListener(listSelectionEvent -> {
+      boolean isSingleSelection = table.getSelectedRowCount() == 1;
+      gotoAction.setEnabled(isSingleSelection);
+      nextBlockAction.setEnabled(isSingleSelection);
+      previousBlockAction.setEnabled(isSingleSelection);
+    });
 
     table.addMouseListener(new MouseAdapter() {
       @Override
@@ -54,6 +75,21 @@ public class GotoActions {
    */
   public void addToMenu(JPopupMenu menu) {
     menu.add(gotoAction);
+    menu.add(nextBlockAction);
+    menu.add(previousBlockAction);
+  }
+
+  /**
+   * Bind an action to a key of the table.
+   *
+   * @param action Action
+   * @param name Name of the action in the action map of the table
+   * @param key Key
+   */
+  private void bind(Action action, String name, KeyStroke key) {
+    action.putValue(Action.ACCELERATOR_KEY, key);
+    table.getInputMap(JComponent.WHEN_FOCUSED).put(key, name);
+    table.getActionMap().put(name, action);
   }
 
   /**
@@ -68,6 +104,32 @@ public class GotoActions {
     };
   }
 
+  /**
+   * Create action "Go to next block".
+   */
+  private Action createNextBlockAction() {
+    return new AbstractAction("Go to next block") {
+      @Override
+      public void actionPerformed(ActionEvent actionEvent) {
+        CodeTableModel model = (CodeTableModel) table.getModel();
+        gotoRow(model.getNextBlockRow(table.getSelectedRow()));
+      }
+    };
+  }
+
+  /**
+   * Create action "Go to previous block".
+   */
+  private Action createPreviousBlockAction() {
+    return new AbstractAction("Go to previous block") {
+      @Override
+      public void actionPerformed(ActionEvent actionEvent) {
+        CodeTableModel model = (CodeTableModel) table.getModel();
+        gotoRow(model.getPreviousBlockRow(table.getSelectedRow()));
+      }
+    };
+  }
+
   /**
    * Goto destination (address) of an opcode.
    *
@@ -122,7 +184,19 @@ public class GotoActions {
       return;
     }
 
-    int row = model.getRow(index);
+    gotoRow(model.getRow(index));
+  }
+
+  /**
+   * Jump to the given row.
+   *
+   * @param row Row or null, if there is nothing to jump to
+   */
+  private void gotoRow(Integer row) {
+    if (row == null) {
+      return;
+    }
+
     table.scrollRectToVisible(TableUtil.getRowBounds(table, row, 3));
     table.getSelectionModel().setSelectionInterval(row, row);
   }
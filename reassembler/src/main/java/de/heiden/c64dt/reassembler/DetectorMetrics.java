@@ -0,0 +1,64 @@
+package de.heiden.c64dt.reassembler;
+
+import de.heiden.c64dt.reassembler.detector.IDetector;
+
+/**
+ * Metrics of a detector during the detection of code types.
+ */
+class DetectorMetrics {
+  /**
+   * Detector.
+   */
+  private final IDetector detector;
+
+  /**
+   * Number of passes the detector has been run.
+   */
+  private int passes = 0;
+
+  /**
+   * Number of passes in which the detector changed code types.
+   */
+  private int changes = 0;
+
+  /**
+   * Total run time of the detector in nanoseconds.
+   */
+  private long time = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param detector Detector
+   */
+  DetectorMetrics(IDetector detector) {
+    this.detector = detector;
+  }
+
+  /**
+   * Detector.
+   */
+  IDetector getDetector() {
+    return detector;
+  }
+
+  /**
+   * Record a pass of the detector.
+   *
+   * @param change whether the detector changed code types
+   * @param time run time in nanoseconds
+   */
+  void record(boolean change, long time) {
+    this.passes++;
+    if (change) {
+      this.changes++;
+    }
+    this.time += time;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d passes, %d with changes, %.3f ms",
+      detector.getClass().getSimpleName(), passes, changes, time / 1_000_000.0);
+  }
+}
@@ -0,0 +1,163 @@
+package de.heiden.c64dt.reassembler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import de.heiden.c64dt.reassembler.command.CommandBufferFormat;
+import de.heiden.c64dt.reassembler.detector.BitDetector;
+import de.heiden.c64dt.reassembler.detector.BrkDetector;
+import de.heiden.c64dt.reassembler.detector.IDetector;
+import de.heiden.c64dt.reassembler.detector.JsrDetector;
+import de.heiden.c64dt.reassembler.detector.LabelDetector;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Compact versioned binary project format for the state of a {@link Reassembler}.
+ * Stores the detectors and the command buffer via {@link CommandBufferFormat}.
+ * With the created commands included, projects are loaded without tokenizing the code again.
+ * The XML format of {@link ProjectXmlFormat} is kept for interchange.
+ */
+public class ProjectFormat {
+  /**
+   * Magic number at the start of binary projects: "C64R".
+   */
+  public static final int MAGIC = 0x43363452;
+
+  /**
+   * Current version of the format.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * Id of {@link LabelDetector}.
+   */
+  private static final int LABEL = 0;
+
+  /**
+   * Id of {@link BrkDetector}.
+   */
+  private static final int BRK = 1;
+
+  /**
+   * Id of {@link BitDetector}.
+   */
+  private static final int BIT = 2;
+
+  /**
+   * Id of {@link JsrDetector}.
+   */
+  private static final int JSR = 3;
+
+  /**
+   * Hidden constructor.
+   */
+  private ProjectFormat() {
+  }
+
+  /**
+   * Write reassembler including the created commands.
+   * Closes the stream.
+   *
+   * @param reassembler Reassembler
+   * @param stream Output stream to write to
+   */
+  public static void write(Reassembler reassembler, OutputStream stream) throws IOException {
+    write(reassembler, stream, true);
+  }
+
+  /**
+   * Write reassembler.
+   * Closes the stream.
+   *
+   * @param reassembler Reassembler
+   * @param stream Output stream to write to
+   * @param withCommands Write the created commands too?
+   */
+  public static void write(Reassembler reassembler, OutputStream stream, boolean withCommands) throws IOException {
+    requireThat(reassembler, "reassembler").isNotNull();
+    requireThat(stream, "stream").isNotNull();
+
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+
+      output.writeInt(reassembler.getDetectors().size());
+      for (IDetector detector : reassembler.getDetectors()) {
+        if (detector instanceof LabelDetector) {
+          output.writeByte(LABEL);
+        } else if (detector instanceof BrkDetector) {
+          output.writeByte(BRK);
+        } else if (detector instanceof BitDetector) {
+          output.writeByte(BIT);
+        } else if (detector instanceof JsrDetector jsrDetector) {
+          output.writeByte(JSR);
+          output.writeInt(jsrDetector.getMinMatches());
+          output.writeDouble(jsrDetector.getUnreachableRatio());
+          output.writeDouble(jsrDetector.getMatchRatio());
+          output.writeInt(jsrDetector.getMaxLength());
+        } else {
+          throw new IllegalArgumentException("Unsupported detector " + detector.getClass().getSimpleName() + ".");
+        }
+      }
+
+      CommandBufferFormat.write(reassembler.getCommands(), output, withCommands);
+    }
+  }
+
+  /**
+   * Read reassembler.
+   *
+   * @param stream Input stream to read from
+   */
+  public static Reassembler read(InputStream stream) throws IOException {
+    requireThat(stream, "stream").isNotNull();
+
+    DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+    if (input.readInt() != MAGIC) {
+      throw new IOException("No binary project.");
+    }
+    int version = input.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported version " + version + ".");
+    }
+
+    Reassembler result = new Reassembler();
+    result.getDetectors().clear();
+    for (int i = input.readInt(); i > 0; i--) {
+      int id = input.readUnsignedByte();
+      switch (id) {
+        case LABEL -> result.add(new LabelDetector());
+        case BRK -> result.add(new BrkDetector());
+        case BIT -> result.add(new BitDetector());
+        case JSR -> result.add(new JsrDetector(input.readInt(), input.readDouble(), input.readDouble(), input.readInt()));
+        default -> throw new IOException("Unsupported detector " + id + ".");
+      }
+    }
+
+    result.setCommands(CommandBufferFormat.read(input));
+
+    return result;
+  }
+
+  /**
+   * Read reassembler either from the binary or from the XML format.
+   *
+   * @param stream Input stream to read from
+   */
+  public static Reassembler load(InputStream stream) throws Exception {
+    requireThat(stream, "stream").isNotNull();
+
+    InputStream input = stream.markSupported() ? stream : new BufferedInputStream(stream);
+    input.mark(4);
+    int magic = new DataInputStream(input).readInt();
+    input.reset();
+
+    return magic == MAGIC ? read(input) : ProjectXmlFormat.read(input);
+  }
+}
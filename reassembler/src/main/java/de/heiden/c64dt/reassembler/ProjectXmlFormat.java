@@ -0,0 +1,186 @@
+package de.heiden.c64dt.reassembler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import de.heiden.c64dt.reassembler.command.CommandBufferMapper;
+import de.heiden.c64dt.reassembler.command.CommandBufferXmlFormat;
+import de.heiden.c64dt.reassembler.detector.BitDetector;
+import de.heiden.c64dt.reassembler.detector.BrkDetector;
+import de.heiden.c64dt.reassembler.detector.IDetector;
+import de.heiden.c64dt.reassembler.detector.JsrDetector;
+import de.heiden.c64dt.reassembler.detector.LabelDetector;
+import de.heiden.c64dt.reassembler.xml.XmlUtil;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.endWrapper;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.indent;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.nextElement;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.skipElement;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.startWrapper;
+
+/**
+ * Streaming StAX format for the state of a {@link Reassembler}
+ * with the same XML schema as the JAXB mapping via {@link XmlUtil} and {@link CommandBufferMapper}.
+ * Large projects are read with bounded memory, because the content is applied directly while parsing.
+ */
+public class ProjectXmlFormat {
+  /**
+   * Hidden constructor.
+   */
+  private ProjectXmlFormat() {
+  }
+
+  /**
+   * Write reassembler.
+   * Closes the stream.
+   *
+   * @param reassembler Reassembler
+   * @param stream Output stream to write to
+   */
+  public static void write(Reassembler reassembler, OutputStream stream) throws IOException, XMLStreamException {
+    requireThat(reassembler, "reassembler").isNotNull();
+    requireThat(stream, "stream").isNotNull();
+
+    try (Writer output = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+      XMLStreamWriter writer = XmlUtil.createWriter(output);
+      writer.writeStartElement("reassembler");
+
+      List<IDetector> detectors = reassembler.getDetectors();
+      if (startWrapper(writer, 1, "detectors", detectors.isEmpty())) {
+        for (IDetector detector : detectors) {
+          indent(writer, 2);
+          writeDetector(detector, writer);
+        }
+        endWrapper(writer, 1);
+      }
+
+      indent(writer, 1);
+      writer.writeStartElement("commands");
+      CommandBufferXmlFormat.write(reassembler.getCommands(), writer, 2);
+      endWrapper(writer, 1);
+
+      endWrapper(writer, 0);
+      writer.writeCharacters("\n");
+      writer.flush();
+      writer.close();
+    }
+  }
+
+  /**
+   * Write a detector.
+   *
+   * @param detector Detector
+   * @param writer StAX writer
+   */
+  private static void writeDetector(IDetector detector, XMLStreamWriter writer) throws XMLStreamException {
+    if (detector instanceof LabelDetector) {
+      writer.writeEmptyElement("label");
+    } else if (detector instanceof BrkDetector) {
+      writer.writeEmptyElement("brk");
+    } else if (detector instanceof BitDetector) {
+      writer.writeEmptyElement("bit");
+    } else if (detector instanceof JsrDetector jsrDetector) {
+      writer.writeEmptyElement("jsr");
+      writer.writeAttribute("min-matches", Integer.toString(jsrDetector.getMinMatches()));
+      writer.writeAttribute("unreachable-ratio", Double.toString(jsrDetector.getUnreachableRatio()));
+      writer.writeAttribute("match-ratio", Double.toString(jsrDetector.getMatchRatio()));
+      writer.writeAttribute("max-length", Integer.toString(jsrDetector.getMaxLength()));
+    } else {
+      throw new IllegalArgumentException("Unsupported detector " + detector.getClass().getSimpleName() + ".");
+    }
+  }
+
+  /**
+   * Read reassembler.
+   * Creates the commands, because the XML format does not contain them.
+   *
+   * @param stream Input stream to read from
+   */
+  public static Reassembler read(InputStream stream) throws XMLStreamException {
+    requireThat(stream, "stream").isNotNull();
+
+    XMLStreamReader reader = XmlUtil.createReader(new BufferedInputStream(stream));
+    try {
+      if (!nextElement(reader) || !reader.getLocalName().equals("reassembler")) {
+        throw new XMLStreamException("No reassembler project.", reader.getLocation());
+      }
+
+      Reassembler result = new Reassembler();
+      while (nextElement(reader)) {
+        switch (reader.getLocalName()) {
+          case "detectors" -> readDetectors(reader, result.getDetectors());
+          case "commands" -> result.setCommands(CommandBufferXmlFormat.read(reader));
+          default -> skipElement(reader);
+        }
+      }
+
+      return result;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Read the detectors, which replace the default detectors.
+   *
+   * @param reader StAX reader at the start of the detectors element
+   * @param detectors Detectors of the reassembler
+   */
+  private static void readDetectors(XMLStreamReader reader, List<IDetector> detectors) throws XMLStreamException {
+    detectors.clear();
+    while (nextElement(reader)) {
+      switch (reader.getLocalName()) {
+        case "label" -> detectors.add(new LabelDetector());
+        case "brk" -> detectors.add(new BrkDetector());
+        case "bit" -> detectors.add(new BitDetector());
+        case "jsr" -> detectors.add(readJsrDetector(reader));
+        default -> {
+          // ignore unknown detectors like JAXB does
+        }
+      }
+      skipElement(reader);
+    }
+  }
+
+  /**
+   * Read a {@link JsrDetector}.
+   * Missing attributes default to the default settings.
+   *
+   * @param reader StAX reader at the start of the jsr element
+   */
+  private static JsrDetector readJsrDetector(XMLStreamReader reader) throws XMLStreamException {
+    JsrDetector defaults = new JsrDetector();
+    try {
+      return new JsrDetector(
+        Integer.parseInt(attribute(reader, "min-matches", Integer.toString(defaults.getMinMatches()))),
+        Double.parseDouble(attribute(reader, "unreachable-ratio", Double.toString(defaults.getUnreachableRatio()))),
+        Double.parseDouble(attribute(reader, "match-ratio", Double.toString(defaults.getMatchRatio()))),
+        Integer.parseInt(attribute(reader, "max-length", Integer.toString(defaults.getMaxLength()))));
+    } catch (IllegalArgumentException e) {
+      throw new XMLStreamException("Invalid jsr detector.", reader.getLocation(), e);
+    }
+  }
+
+  /**
+   * Value of an optional attribute of the current element.
+   *
+   * @param reader StAX reader at the start of the element
+   * @param name Name of the attribute
+   * @param defaultValue Value, if the attribute is missing
+   */
+  private static String attribute(XMLStreamReader reader, String name, String defaultValue) {
+    String value = reader.getAttributeValue(null, name);
+    return value != null ? value : defaultValue;
+  }
+}
@@ -2,12 +2,15 @@ package de.heiden.c64dt.reassembler;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.reassembler.command.CommandBuffer;
 import de.heiden.c64dt.reassembler.command.CommandBufferMapper;
 import de.heiden.c64dt.reassembler.command.CommandCreator;
+import de.heiden.c64dt.reassembler.command.ControlFlowGraph;
 import de.heiden.c64dt.reassembler.detector.BitDetector;
 import de.heiden.c64dt.reassembler.detector.BrkDetector;
 import de.heiden.c64dt.reassembler.detector.IDetector;
@@ -17,17 +20,39 @@ import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlElementWrapper;
 import jakarta.xml.bind.annotation.XmlElements;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
 import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.bytes.HexUtil.hexWord;
 
 /**
  * Reassembler.
  */
 @XmlRootElement(name = "reassembler")
 public class Reassembler {
+  /**
+   * Maximum number of detection passes, in case the detectors do not reach a fixed point.
+   */
+  private static final int MAX_PASSES = 10;
+
+  /**
+   * Start address of BASIC programs.
+   */
+  private static final int BASIC_START = 0x0801;
+
+  /**
+   * BASIC token of SYS.
+   */
+  private static final int SYS = 0x9E;
+
+  /**
+   * Number of parts per processor for a parallel detection, to balance parts with different run times.
+   */
+  private static final int PARTS_PER_PROCESSOR = 4;
+
   /**
    * Logger.
    */
@@ -52,6 +77,17 @@ public class Reassembler {
   @XmlJavaTypeAdapter(CommandBufferMapper.class)
   private CommandBuffer commands;
 
+  /**
+   * Analyze the commands in parallel during detection?.
+   */
+  private boolean parallel = false;
+
+  /**
+   * Control flow graph of the last detection, which marked the reachable code.
+   * Null, if there is none or the commands have been replaced.
+   */
+  private ControlFlowGraph graph;
+
   /**
    * Constructor.
    */
@@ -83,6 +119,26 @@ public class Reassembler {
     detectors.add(detector);
   }
 
+  /**
+   * Analyze the commands in parallel during detection?.
+   */
+  @XmlTransient
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * Analyze the commands in parallel during detection?.
+   * The commands are split into parts at reachability boundaries, which are analyzed by the detectors in parallel.
+   * The result is the same as of a serial detection.
+   * Disabled by default, because no speedup has been measured yet.
+   *
+   * @param parallel analyze in parallel?
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
   /**
    * All detectors.
    * Just for the mapper.
@@ -91,6 +147,19 @@ public class Reassembler {
     return detectors;
   }
 
+  /**
+   * Use other commands.
+   * Just for the binary format.
+   *
+   * @param commands Command buffer
+   */
+  void setCommands(CommandBuffer commands) {
+    requireThat(commands, "commands").isNotNull();
+
+    this.commands = commands;
+    this.graph = null;
+  }
+
   /**
    * Reassemble.
    *
@@ -99,49 +168,183 @@ public class Reassembler {
   public void reassemble(CodeBuffer code) throws IOException {
     requireThat(code, "code").isNotNull();
 
-    if (code.getCurrentAddress() == 0x0801) {
-      // TODO check for basic header
-    }
-
     commands = new CommandBuffer(code.getCode(), code.getCurrentAddress());
+    graph = null;
+    if (code.getCurrentAddress() == BASIC_START) {
+      int address = sysAddress(code.getCode());
+      if (commands.hasAddress(address)) {
+        logger.info("Entry point {} from BASIC header", hexWord(address));
+        commands.addEntryPoint(address);
+      }
+    }
     new CommandCreator(commands).createCommands();
     reassemble();
   }
 
+  /**
+   * Absolute address of the SYS in the first line of a BASIC program, like "10 SYS2061".
+   *
+   * @param code BASIC program starting at $0801
+   * @return absolute address or -1, if the first line is no SYS
+   */
+  private int sysAddress(byte[] code) {
+    // skip link to next line and line number
+    int index = 4;
+    if (index >= code.length || (code[index++] & 0xFF) != SYS) {
+      return -1;
+    }
+    while (index < code.length && code[index] == ' ') {
+      index++;
+    }
+
+    int address = 0;
+    int digits = 0;
+    for (; index < code.length && code[index] >= '0' && code[index] <= '9' && digits < 5; index++, digits++) {
+      address = address * 10 + code[index] - '0';
+    }
+
+    return digits > 0 ? address : -1;
+  }
+
   /**
    * Reassemble again.
    */
   public void reassemble() {
-    boolean change = true;
-    for (int count = 0; change && count < 10; count++) {
-      logger.info("Iteration {}", count);
-      change = detectCodeType();
-    }
+    detectCodeTypes(null);
 
     new CommandCreator(commands).createCommands();
   }
 
   /**
-   * Detect type of code.
+   * Reassemble again incrementally, e.g. after code types have been changed.
+   * Detectors just check the commands which changed since the last reassembly
+   * and commands are just recreated where code types or references changed.
+   * The result is the same as of {@link #reassemble()}.
+   */
+  public void update() {
+    detectCodeTypes(commands.getChangedCommands());
+    commands.clearChanges();
+
+    new CommandCreator(commands).updateCommands();
+  }
+
+  /**
+   * Detect type of code until the detectors do not modify code types or labels anymore.
+   * After the first pass, just the commands are checked again,
+   * which contain a modification of the previous pass or reference a modified relative address.
+   *
+   * @param indices relative addresses of the commands to check in the first pass or null to check all commands
+   */
+  private void detectCodeTypes(BitSet indices) {
+    List<DetectorMetrics> metrics = detectors.stream().map(DetectorMetrics::new).toList();
+    // commands and their reachability do not change during detection
+    int[] parts = parallel ? commands.split(PARTS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors()) : null;
+
+    markReachableCode(indices);
+    // modifications from before the detection are already covered by the first pass
+    BitSet marked = commands.pollModifications();
+    if (indices != null) {
+      indices.or(worklist(marked));
+    }
+    for (int pass = 0; ; pass++) {
+      if (pass == MAX_PASSES) {
+        logger.warn("No fixed point of the detectors after {} passes", MAX_PASSES);
+        break;
+      }
+
+      logger.info("Iteration {}: {} commands", pass, indices != null ? indices.cardinality() : "all");
+      detectCodeType(indices, parts, metrics);
+
+      BitSet modifications = commands.pollModifications();
+      if (modifications.isEmpty()) {
+        // fixed point reached
+        break;
+      }
+      indices = worklist(modifications);
+    }
+
+    for (DetectorMetrics metric : metrics) {
+      logger.info("{}", metric);
+    }
+  }
+
+  /**
+   * Mark all commands reachable from the entry points as code,
+   * so that they are not considered unreachable, even if they lead to unreachable code.
+   * The unreachability sweep of the {@link CommandCreator} still handles all other code.
+   * For incremental detections the control flow graph of the last detection is reused,
+   * if the changed commands do not affect it, because its reachable code has been marked already.
+   *
+   * @param indices relative addresses of the changed commands or null, if all commands are checked
+   */
+  private void markReachableCode(BitSet indices) {
+    if (commands.getEntryPoints().isEmpty()) {
+      graph = null;
+      return;
+    }
+    if (graph != null && indices != null && !graph.isAffectedBy(indices)) {
+      logger.info("Control flow graph unaffected by the changes");
+      return;
+    }
+
+    graph = new ControlFlowGraph(commands);
+    BitSet reachable = graph.getReachable();
+    int marked = 0;
+    for (int index = reachable.nextSetBit(0); index >= 0; index = reachable.nextSetBit(index + 1)) {
+      if (commands.getType(index).isUnknown() && commands.setType(index, CodeType.OPCODE)) {
+        marked++;
+      }
+    }
+    logger.info("Marked {} of {} reachable commands as code", marked, reachable.cardinality());
+    if (!graph.getConflicts().isEmpty()) {
+      logger.warn("Control flow reaches {} relative addresses without instruction", graph.getConflicts().cardinality());
+    }
+  }
+
+  /**
+   * Relative addresses of the commands, which contain or reference a modified relative address.
    *
-   * @return whether a code label has been altered
+   * @param modifications modified relative addresses
    */
-  private boolean detectCodeType() {
-    boolean change = false;
+  private BitSet worklist(BitSet modifications) {
+    BitSet result = commands.getCommands(modifications);
+    for (int index = modifications.nextSetBit(0); index >= 0; index = modifications.nextSetBit(index + 1)) {
+      int address = commands.addressForIndex(index);
+      if (commands.hasLabel(address)) {
+        // references are from the start of commands
+        for (int reference : commands.getReferences(address)) {
+          result.set(reference);
+        }
+      }
+    }
+
+    return result;
+  }
 
-    for (IDetector detector : detectors) {
-      boolean detectorHit = detector.detect(commands);
+  /**
+   * Detect type of code.
+   *
+   * @param indices relative addresses of the commands to check or null to check all commands
+   * @param parts parts of the commands to analyze in parallel or null to analyze serially
+   * @param metrics metrics of all detectors
+   */
+  private void detectCodeType(BitSet indices, int[] parts, List<DetectorMetrics> metrics) {
+    for (DetectorMetrics metric : metrics) {
+      IDetector detector = metric.getDetector();
+      long start = System.nanoTime();
+      boolean detectorHit =
+        indices != null ? detector.detect(commands, indices) :
+          parts != null ? detector.detect(commands, parts) :
+            detector.detect(commands);
+      metric.record(detectorHit, System.nanoTime() - start);
       if (detectorHit) {
         logger.info("{} changed code types", detector.getClass().getSimpleName());
       }
-      change |= detectorHit;
     }
 
     // TODO mh: setType() for label locations?
     // TODO mh: setType(OPCODE/CODE) for OpcodeCommands?
     // TODO mh: detect self modifying code
     // TODO mh: detect JSR with parameters afterwards
-
-    return change;
   }
 }
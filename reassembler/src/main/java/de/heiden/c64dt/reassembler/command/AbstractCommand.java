@@ -1,5 +1,8 @@
 package de.heiden.c64dt.reassembler.command;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import de.heiden.c64dt.assembler.CodeType;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
@@ -12,6 +15,16 @@ public abstract class AbstractCommand implements ICommand {
   private boolean reachable = false;
   private int address = -1;
 
+  /**
+   * Command buffer holding the state of this command, if this command is a view of it.
+   */
+  private CommandBuffer buffer;
+
+  /**
+   * Relative address of this command in {@link #buffer}.
+   */
+  private int index = -1;
+
   /**
    * Constructor.
    *
@@ -21,6 +34,36 @@ public abstract class AbstractCommand implements ICommand {
     this.type = type;
   }
 
+  /**
+   * Make this command a view of the columns of a command buffer.
+   * Just for the command buffer.
+   *
+   * @param buffer command buffer
+   * @param index relative address
+   * @param address absolute address
+   */
+  void bind(CommandBuffer buffer, int index, int address) {
+    this.buffer = buffer;
+    this.index = index;
+    this.address = address;
+  }
+
+  /**
+   * Command buffer holding the state of this command.
+   *
+   * @return command buffer or null, if this command is not a view of a command buffer
+   */
+  final CommandBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Relative address of this command in {@link #getBuffer()}.
+   */
+  final int getIndex() {
+    return index;
+  }
+
   @Override
   public CodeType getType() {
     return type;
@@ -46,12 +89,16 @@ public abstract class AbstractCommand implements ICommand {
 
   @Override
   public final boolean isReachable() {
-    return reachable;
+    return buffer != null ? buffer.isReachable(index) : reachable;
   }
 
   @Override
   public final void setReachable(boolean reachable) {
-    this.reachable = reachable;
+    if (buffer != null) {
+      buffer.setReachable(index, reachable);
+    } else {
+      this.reachable = reachable;
+    }
   }
 
   @Override
@@ -59,4 +106,17 @@ public abstract class AbstractCommand implements ICommand {
     // Default implementation: No combine support.
     return false;
   }
+
+  @Override
+  public List<Integer> toBytes() {
+    byte[] bytes = new byte[getSize()];
+    toBytes(bytes, 0);
+
+    List<Integer> result = new ArrayList<>(bytes.length);
+    for (byte b : bytes) {
+      result.add(b & 0xFF);
+    }
+
+    return result;
+  }
 }
@@ -1,8 +1,5 @@
 package de.heiden.c64dt.reassembler.command;
 
-import java.util.Arrays;
-import java.util.List;
-
 import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.bytes.ByteUtil;
 import de.heiden.c64dt.reassembler.label.ILabel;
@@ -30,6 +27,13 @@ public class AddressCommand extends AbstractCommand {
     this.address = address;
   }
 
+  /**
+   * Referenced absolute code address.
+   */
+  public int getReferencedAddress() {
+    return address;
+  }
+
   @Override
   public final int getSize() {
     return 2;
@@ -54,7 +58,9 @@ public class AddressCommand extends AbstractCommand {
   }
 
   @Override
-  public List<Integer> toBytes() {
-    return Arrays.asList(ByteUtil.lo(address), ByteUtil.hi(address));
+  public int toBytes(byte[] bytes, int index) {
+    bytes[index++] = (byte) ByteUtil.lo(address);
+    bytes[index++] = (byte) ByteUtil.hi(address);
+    return index;
   }
 }
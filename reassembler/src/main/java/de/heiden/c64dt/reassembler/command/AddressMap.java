@@ -0,0 +1,190 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static de.heiden.c64dt.common.Checks.requireBetween;
+
+/**
+ * Map from absolute addresses to values, backed by dense pages of {@value #PAGE_SIZE} slots.
+ * Pages are allocated on first use, so the memory is proportional to the address ranges used.
+ * Lookups neither box the address nor allocate.
+ * Just 16-bit addresses are supported: Lookups of other addresses find nothing, {@link #put(int, Object)} rejects them.
+ *
+ * @param <V> Type of values
+ */
+class AddressMap<V> {
+  /**
+   * Number of bits of the address within a page.
+   */
+  private static final int PAGE_BITS = 8;
+
+  /**
+   * Number of slots per page.
+   */
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  /**
+   * Number of slots, one for every 16-bit address.
+   */
+  private static final int SLOTS = 0x10000;
+
+  /**
+   * Page of the absolute address to value, null if there is no value.
+   * Pages without any value ever are null.
+   */
+  private final Object[][] pages = new Object[SLOTS >> PAGE_BITS][];
+
+  /**
+   * Number of values.
+   */
+  private int size;
+
+  /**
+   * Value for an absolute address.
+   *
+   * @param address absolute address
+   * @return value or null, if there is no value for the address
+   */
+  @SuppressWarnings("unchecked")
+  V get(int address) {
+    Object[] page = page(address);
+    return page != null ? (V) page[address & (PAGE_SIZE - 1)] : null;
+  }
+
+  /**
+   * Is there a value for an absolute address?.
+   *
+   * @param address absolute address
+   */
+  boolean containsKey(int address) {
+    return get(address) != null;
+  }
+
+  /**
+   * Set the value for an absolute address.
+   *
+   * @param address absolute address
+   * @param value value
+   * @return previous value or null, if there was no value for the address
+   */
+  @SuppressWarnings("unchecked")
+  V put(int address, V value) {
+    requireBetween(address, "address", 0, SLOTS);
+
+    Object[] page = pages[address >> PAGE_BITS];
+    if (page == null) {
+      page = pages[address >> PAGE_BITS] = new Object[PAGE_SIZE];
+    }
+    V previous = (V) page[address & (PAGE_SIZE - 1)];
+    page[address & (PAGE_SIZE - 1)] = value;
+    if (previous == null) {
+      size++;
+    }
+
+    return previous;
+  }
+
+  /**
+   * Remove the value for an absolute address.
+   *
+   * @param address absolute address
+   * @return removed value or null, if there was no value for the address
+   */
+  @SuppressWarnings("unchecked")
+  V remove(int address) {
+    Object[] page = page(address);
+    if (page == null) {
+      return null;
+    }
+    V previous = (V) page[address & (PAGE_SIZE - 1)];
+    page[address & (PAGE_SIZE - 1)] = null;
+    if (previous != null) {
+      size--;
+    }
+
+    return previous;
+  }
+
+  /**
+   * Remove all values.
+   */
+  void clear() {
+    Arrays.fill(pages, null);
+    size = 0;
+  }
+
+  /**
+   * View of all values, ordered by their absolute address.
+   */
+  Collection<V> values() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new Iterator<>() {
+          /**
+           * Absolute address of the next value.
+           */
+          private int address = nextAddress(0);
+
+          @Override
+          public boolean hasNext() {
+            return address < SLOTS;
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public V next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+
+            V result = get(address);
+            address = nextAddress(address + 1);
+            return result;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Page of an absolute address.
+   *
+   * @param address absolute address
+   * @return page or null, if the address is invalid or the page has not been allocated
+   */
+  private Object[] page(int address) {
+    return address >= 0 && address < SLOTS ? pages[address >> PAGE_BITS] : null;
+  }
+
+  /**
+   * Absolute address of the next value.
+   * Skips pages which have not been allocated.
+   *
+   * @param address absolute address to start the search at
+   * @return absolute address of the next value or the number of slots, if there is no next value
+   */
+  private int nextAddress(int address) {
+    while (address < SLOTS) {
+      Object[] page = pages[address >> PAGE_BITS];
+      if (page == null) {
+        address = (address | (PAGE_SIZE - 1)) + 1;
+      } else if (page[address & (PAGE_SIZE - 1)] == null) {
+        address++;
+      } else {
+        break;
+      }
+    }
+
+    return address;
+  }
+}
@@ -0,0 +1,64 @@
+package de.heiden.c64dt.reassembler.command;
+
+import static de.heiden.c64dt.bytes.HexUtil.hexWord;
+
+/**
+ * Basic block of a {@link ControlFlowGraph}:
+ * Sequence of instructions, which is just entered at its first and just left after its last instruction.
+ * The label based blocks of the {@link BlockIndex} are no basic blocks in this sense.
+ */
+public class BasicBlock {
+  /**
+   * Relative address of the first instruction.
+   */
+  private final int startIndex;
+
+  /**
+   * Relative address after the last instruction.
+   */
+  private final int endIndex;
+
+  /**
+   * Relative addresses of the first instructions of the successor blocks.
+   */
+  private final int[] successors;
+
+  /**
+   * Constructor.
+   *
+   * @param startIndex relative address of the first instruction
+   * @param endIndex relative address after the last instruction
+   * @param successors relative addresses of the first instructions of the successor blocks
+   */
+  BasicBlock(int startIndex, int endIndex, int[] successors) {
+    this.startIndex = startIndex;
+    this.endIndex = endIndex;
+    this.successors = successors;
+  }
+
+  /**
+   * Relative address of the first instruction.
+   */
+  public int getStartIndex() {
+    return startIndex;
+  }
+
+  /**
+   * Relative address after the last instruction.
+   */
+  public int getEndIndex() {
+    return endIndex;
+  }
+
+  /**
+   * Relative addresses of the first instructions of the successor blocks.
+   */
+  public int[] getSuccessors() {
+    return successors.clone();
+  }
+
+  @Override
+  public String toString() {
+    return "Block " + hexWord(startIndex) + "-" + hexWord(endIndex);
+  }
+}
@@ -1,8 +1,5 @@
 package de.heiden.c64dt.reassembler.command;
 
-import java.util.Collections;
-import java.util.List;
-
 import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.assembler.Opcode;
 
@@ -29,6 +26,20 @@ public class BitCommand extends AbstractCommand {
     this.argument = argument;
   }
 
+  /**
+   * Opcode.
+   */
+  public Opcode getOpcode() {
+    return opcode;
+  }
+
+  /**
+   * Argument of the opcode, which is the skipped opcode.
+   */
+  public int getArgument() {
+    return argument;
+  }
+
   @Override
   public final int getSize() {
     return 1;
@@ -47,7 +58,8 @@ public class BitCommand extends AbstractCommand {
   }
 
   @Override
-  public List<Integer> toBytes() {
-    return Collections.singletonList(opcode.getOpcode());
+  public int toBytes(byte[] bytes, int index) {
+    bytes[index++] = (byte) opcode.getOpcode();
+    return index;
   }
 }
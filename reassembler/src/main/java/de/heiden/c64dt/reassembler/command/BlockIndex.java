@@ -0,0 +1,364 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import de.heiden.c64dt.assembler.OpcodeMode;
+import de.heiden.c64dt.assembler.OpcodeTable;
+
+/**
+ * Cached index of the blocks of the reachable opcodes of a command buffer.
+ * A block is a sequence of reachable opcode and bit commands,
+ * which just has a code label at its first and a jump or the end of the code flow at its last command.
+ * <p>
+ * The blocks differ from the {@link BasicBlock}s of the {@link ControlFlowGraph}:
+ * They start at code labels instead of at the targets found by following the control flow from the entry points,
+ * and they cover all commands marked reachable, not just the ones reachable from the entry points.
+ * They are used for navigating and exporting the reassembled code, so they follow its labels.
+ * <p>
+ * The index is kept in primitive arrays indexed by the relative start address of the blocks.
+ * Edits of the command buffer just invalidate the edited ranges,
+ * which are recomputed on the next access together with the blocks around them.
+ */
+public class BlockIndex {
+  /**
+   * Command buffer.
+   */
+  private final CommandBuffer commands;
+
+  /**
+   * Relative addresses of the first commands of all blocks.
+   */
+  private final BitSet starts;
+
+  /**
+   * Relative start address of a block to the relative address after its last command.
+   * Allocated with the first block, like {@link #targets} and {@link #nexts}.
+   */
+  private int[] ends;
+
+  /**
+   * Relative start address of a block to the relative address of its jump target or -1, if none.
+   */
+  private int[] targets;
+
+  /**
+   * Relative start address of a block to the relative address where the code flow continues after it or -1, if it does not.
+   */
+  private int[] nexts;
+
+  /**
+   * Relative addresses which have been edited since the last access.
+   */
+  private final BitSet stale;
+
+  /**
+   * Relative start address of a block to the offset of its predecessors in {@link #predecessors}, null if not computed.
+   */
+  private int[] predecessorOffsets;
+
+  /**
+   * Relative start addresses of the predecessors of all blocks.
+   */
+  private int[] predecessors;
+
+  /**
+   * Constructor.
+   *
+   * @param commands Command buffer
+   */
+  BlockIndex(CommandBuffer commands) {
+    this.commands = commands;
+    int length = commands.getLength();
+    this.starts = new BitSet(length);
+    this.stale = new BitSet(length);
+    this.stale.set(0, length);
+  }
+
+  /**
+   * Invalidate the blocks of an edited range.
+   * Just for the command buffer.
+   *
+   * @param startIndex first edited relative address (incl.)
+   * @param endIndex last edited relative address (excl.)
+   */
+  void invalidate(int startIndex, int endIndex) {
+    stale.set(startIndex, endIndex);
+  }
+
+  //
+  // Blocks
+  //
+
+  /**
+   * Does a block start at the given relative address?.
+   *
+   * @param index relative address
+   */
+  public boolean isStart(int index) {
+    validate();
+    return starts.get(index);
+  }
+
+  /**
+   * Relative address after the last command of the block.
+   *
+   * @param startIndex relative start address of the block
+   * @return relative end address or -1, if no block starts at the given relative address
+   */
+  public int getEnd(int startIndex) {
+    validate();
+    return starts.get(startIndex) ? ends[startIndex] : -1;
+  }
+
+  /**
+   * Relative start address of the first block at or after the given relative address.
+   *
+   * @param index relative address
+   * @return relative start address or -1, if there is none
+   */
+  public int next(int index) {
+    validate();
+    return starts.nextSetBit(index);
+  }
+
+  /**
+   * Relative start address of the last block at or before the given relative address.
+   *
+   * @param index relative address
+   * @return relative start address or -1, if there is none
+   */
+  public int previous(int index) {
+    validate();
+    return starts.previousSetBit(index);
+  }
+
+  /**
+   * Number of blocks.
+   */
+  public int size() {
+    validate();
+    return starts.cardinality();
+  }
+
+  /**
+   * Relative start addresses of the successor blocks of a block.
+   *
+   * @param startIndex relative start address of the block
+   */
+  public int[] getSuccessors(int startIndex) {
+    validate();
+    if (!starts.get(startIndex)) {
+      return new int[0];
+    }
+
+    int target = targets[startIndex];
+    int next = nexts[startIndex];
+    boolean hasTarget = target >= 0 && starts.get(target);
+    boolean hasNext = next >= 0 && next != target && starts.get(next);
+    if (hasTarget && hasNext) {
+      return new int[]{target, next};
+    } else if (hasTarget) {
+      return new int[]{target};
+    } else if (hasNext) {
+      return new int[]{next};
+    }
+
+    return new int[0];
+  }
+
+  /**
+   * Relative start addresses of the predecessor blocks of a block, ascending.
+   *
+   * @param startIndex relative start address of the block
+   */
+  public int[] getPredecessors(int startIndex) {
+    validate();
+    if (!starts.get(startIndex)) {
+      return new int[0];
+    }
+
+    if (predecessorOffsets == null) {
+      computePredecessors();
+    }
+    return Arrays.copyOfRange(predecessors, predecessorOffsets[startIndex], predecessorOffsets[startIndex + 1]);
+  }
+
+  //
+  // Computation
+  //
+
+  /**
+   * Recompute the blocks of all edited ranges.
+   */
+  private void validate() {
+    for (int index = stale.nextSetBit(0); index >= 0; index = stale.nextSetBit(index)) {
+      index = recompute(index, stale.nextClearBit(index));
+    }
+  }
+
+  /**
+   * Recompute the blocks of an edited range.
+   * Recomputation starts at the block leading into the range
+   * and stops after the range, where the blocks are the same as before.
+   *
+   * @param startIndex first edited relative address (incl.)
+   * @param endIndex last edited relative address (excl.)
+   * @return relative address up to which the blocks have been recomputed
+   */
+  private int recompute(int startIndex, int endIndex) {
+    predecessorOffsets = null;
+    predecessors = null;
+
+    // the block leading into the range may be extended into it
+    int index = Math.max(commands.commandIndex(startIndex), 0);
+    int previous = index > 0 ? starts.previousSetBit(index - 1) : -1;
+    if (previous >= 0 && ends[previous] >= index) {
+      index = previous;
+    }
+    starts.clear(index, endIndex);
+
+    int length = commands.getLength();
+    while (index < length) {
+      boolean start = startsBlock(index);
+      if (index >= endIndex && !stale.get(index) && start == starts.get(index)) {
+        // same blocks as before
+        break;
+      }
+
+      if (start) {
+        index = createBlock(index);
+      } else {
+        int nextIndex = index + (commands.hasCommand(index) ? commands.commandSize(index) : 1);
+        starts.clear(index, nextIndex);
+        index = nextIndex;
+      }
+    }
+
+    stale.clear(startIndex, Math.max(index, endIndex));
+    return Math.max(index, endIndex);
+  }
+
+  /**
+   * Create the block starting at the given relative address.
+   *
+   * @param startIndex relative start address of the block
+   * @return relative address after the last command of the block
+   */
+  private int createBlock(int startIndex) {
+    int index = startIndex;
+    int length = commands.getLength();
+    while (true) {
+      int nextIndex = index + commands.commandSize(index);
+      if (isLast(index) || nextIndex >= length || !isBlockCommand(nextIndex) || hasCodeLabel(nextIndex)) {
+        break;
+      }
+      index = nextIndex;
+    }
+
+    if (ends == null) {
+      ends = new int[length];
+      targets = new int[length];
+      nexts = new int[length];
+    }
+
+    int opcode = commands.opcode(index);
+    int end = index + commands.commandSize(index);
+    starts.set(startIndex);
+    starts.clear(startIndex + 1, end);
+    ends[startIndex] = end;
+    targets[startIndex] = target(index);
+    // for bit commands the code flow continues after the skipped opcode
+    int next = index + OpcodeTable.size(opcode);
+    nexts[startIndex] = !OpcodeTable.isEnd(opcode) && next < length ? next : -1;
+
+    return end;
+  }
+
+  /**
+   * Does a block start at the given relative address?.
+   *
+   * @param index relative address
+   */
+  private boolean startsBlock(int index) {
+    if (!isBlockCommand(index)) {
+      return false;
+    }
+
+    // a block starts after a command not belonging to a block, after a jump or at a jump target
+    int previousIndex = index > 0 ? commands.commandIndex(index - 1) : -1;
+    return previousIndex < 0 || !isBlockCommand(previousIndex) || isLast(previousIndex) || hasCodeLabel(index);
+  }
+
+  /**
+   * Does the command at the given relative address belong to a block?.
+   *
+   * @param index relative address
+   */
+  private boolean isBlockCommand(int index) {
+    return commands.hasCommand(index) && commands.isInstruction(index) && commands.isReachable(index);
+  }
+
+  /**
+   * Is the command at the given relative address the last of its block?.
+   *
+   * @param index relative address of the command
+   */
+  private boolean isLast(int index) {
+    int opcode = commands.opcode(index);
+    return commands.isBit(index) || OpcodeTable.isJump(opcode) || OpcodeTable.isEnd(opcode);
+  }
+
+  /**
+   * Has the given relative address a code label?.
+   *
+   * @param index relative address
+   */
+  private boolean hasCodeLabel(int index) {
+    return commands.hasCodeLabel(commands.addressForIndex(index));
+  }
+
+  /**
+   * Relative address of the jump target of a command.
+   *
+   * @param index relative address of the command
+   * @return relative address or -1, if the command has no static jump target in the code
+   */
+  private int target(int index) {
+    int opcode = commands.opcode(index);
+    OpcodeMode mode = OpcodeTable.mode(opcode);
+    if (!OpcodeTable.isJump(opcode) || (mode != OpcodeMode.ABS && mode != OpcodeMode.REL)) {
+      return -1;
+    }
+
+    int address = mode.getAddress(commands.addressForIndex(index), commands.argument(index));
+    return commands.hasAddress(address) ? commands.indexForAddress(address) : -1;
+  }
+
+  /**
+   * Compute the predecessors of all blocks.
+   */
+  private void computePredecessors() {
+    int length = commands.getLength();
+    int[] offsets = new int[length + 1];
+    for (int start = starts.nextSetBit(0); start >= 0; start = starts.nextSetBit(start + 1)) {
+      for (int successor : getSuccessors(start)) {
+        offsets[successor + 1]++;
+      }
+    }
+    for (int i = 0; i < length; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+
+    int[] result = new int[offsets[length]];
+    int[] fill = Arrays.copyOf(offsets, length);
+    for (int start = starts.nextSetBit(0); start >= 0; start = starts.nextSetBit(start + 1)) {
+      for (int successor : getSuccessors(start)) {
+        result[fill[successor]++] = start;
+      }
+    }
+
+    predecessorOffsets = offsets;
+    predecessors = result;
+  }
+}
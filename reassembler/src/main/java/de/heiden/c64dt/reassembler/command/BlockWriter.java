@@ -0,0 +1,109 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.bytes.HexUtil.hexWord;
+import static de.heiden.c64dt.bytes.HexUtil.hexWordPlain;
+
+/**
+ * Write the blocks of the {@link BlockIndex} of a {@link CommandBuffer} as control flow graph for external analysis.
+ * Blocks are identified by their relative start address, because absolute addresses may be ambiguous after a rebase.
+ */
+public class BlockWriter {
+  /**
+   * Writer to write output to.
+   */
+  private final Writer output;
+
+  /**
+   * Constructor.
+   *
+   * @param output writer to write output to
+   */
+  public BlockWriter(Writer output) {
+    requireThat(output, "output").isNotNull();
+
+    this.output = output;
+  }
+
+  /**
+   * Write blocks in the DOT format of Graphviz.
+   *
+   * @param commands Command buffer
+   */
+  public void writeDot(CommandBuffer commands) throws IOException {
+    requireThat(commands, "commands").isNotNull();
+
+    BlockIndex blocks = commands.getBlocks();
+    output.append("digraph code {\n");
+    output.append("  node [shape=box];\n");
+    for (int start = blocks.next(0); start >= 0; start = blocks.next(start + 1)) {
+      String node = node(start);
+      output.append("  ").append(node);
+      output.append(" [label=\"").append(hexWord(commands.addressForIndex(start)));
+      output.append("-").append(hexWord(commands.addressForIndex(blocks.getEnd(start) - 1))).append("\"];\n");
+      for (int successor : blocks.getSuccessors(start)) {
+        output.append("  ").append(node).append(" -> ").append(node(successor)).append(";\n");
+      }
+    }
+    output.append("}\n");
+
+    output.flush();
+  }
+
+  /**
+   * Write blocks in JSON format.
+   * Each block consists of its relative start and end address, its absolute address, its successors and predecessors.
+   *
+   * @param commands Command buffer
+   */
+  public void writeJson(CommandBuffer commands) throws IOException {
+    requireThat(commands, "commands").isNotNull();
+
+    BlockIndex blocks = commands.getBlocks();
+    output.append("{\"blocks\":[");
+    String separator = "\n";
+    for (int start = blocks.next(0); start >= 0; start = blocks.next(start + 1)) {
+      output.append(separator);
+      separator = ",\n";
+      output.append("{\"start\":").append(Integer.toString(start));
+      output.append(",\"end\":").append(Integer.toString(blocks.getEnd(start)));
+      output.append(",\"address\":\"").append(hexWordPlain(commands.addressForIndex(start))).append("\"");
+      output.append(",\"successors\":");
+      writeJson(blocks.getSuccessors(start));
+      output.append(",\"predecessors\":");
+      writeJson(blocks.getPredecessors(start));
+      output.append("}");
+    }
+    output.append("\n]}\n");
+
+    output.flush();
+  }
+
+  /**
+   * Write relative addresses as JSON array.
+   *
+   * @param indices relative addresses
+   */
+  private void writeJson(int[] indices) throws IOException {
+    output.append("[");
+    for (int i = 0; i < indices.length; i++) {
+      if (i > 0) {
+        output.append(",");
+      }
+      output.append(Integer.toString(indices[i]));
+    }
+    output.append("]");
+  }
+
+  /**
+   * DOT node id of a block.
+   *
+   * @param startIndex relative start address of the block
+   */
+  private static String node(int startIndex) {
+    return "\"" + hexWordPlain(startIndex) + "\"";
+  }
+}
@@ -1,10 +1,9 @@
 package de.heiden.c64dt.reassembler.command;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Collections;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.SortedMap;
@@ -13,6 +12,8 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 
 import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.assembler.Opcode;
+import de.heiden.c64dt.assembler.OpcodeTable;
 import de.heiden.c64dt.reassembler.label.CodeLabel;
 import de.heiden.c64dt.reassembler.label.DataLabel;
 import de.heiden.c64dt.reassembler.label.ExternalLabel;
@@ -20,11 +21,47 @@ import de.heiden.c64dt.reassembler.label.ILabel;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
 import static de.heiden.c64dt.bytes.AddressUtil.requireValidAddress;
+import static de.heiden.c64dt.common.Checks.requireTrue;
 
 /**
  * Input stream for code.
  */
 public class CommandBuffer implements Iterable<ICommand> {
+  /**
+   * Kind: No command starts at the relative address.
+   */
+  private static final byte NONE = 0;
+
+  /**
+   * Kind: {@link OpcodeCommand}.
+   */
+  private static final byte OPCODE = 1;
+
+  /**
+   * Kind: {@link BitCommand}.
+   */
+  private static final byte BIT = 2;
+
+  /**
+   * Kind: {@link AddressCommand}.
+   */
+  private static final byte ADDRESS = 3;
+
+  /**
+   * Kind: {@link DataCommand}.
+   */
+  private static final byte DATA = 4;
+
+  /**
+   * Mask for the kind.
+   */
+  private static final byte KIND = 0x0F;
+
+  /**
+   * Flag for reachable commands.
+   */
+  private static final byte REACHABLE = 0x10;
+
   /**
    * Index to referenced absolute address.
    * Target is code, e.g. if the reference is from a jmp $xxxx.
@@ -43,28 +80,86 @@ public class CommandBuffer implements Iterable<ICommand> {
    */
   private final int[] externalReferences;
 
+  /**
+   * Reverse index of {@link #codeReferences}.
+   */
+  private final ReferenceIndex codeReferenceIndex;
+
+  /**
+   * Reverse index of {@link #dataReferences}.
+   */
+  private final ReferenceIndex dataReferenceIndex;
+
+  /**
+   * Reverse index of {@link #externalReferences}.
+   */
+  private final ReferenceIndex externalReferenceIndex;
+
   /**
    * Absolute address to code label.
    * If there is at least one reference to an address a label for it exists.
    */
-  private final Map<Integer, CodeLabel> codeLabels;
+  private final AddressMap<CodeLabel> codeLabels;
 
   /**
    * Absolute address to data label.
    * If there is at least one reference to an address a label for it exists.
    */
-  private final Map<Integer, DataLabel> dataLabels;
+  private final AddressMap<DataLabel> dataLabels;
 
   /**
    * Absolute address to external label.
    * If there is at least one reference to an address a label for it exists.
    */
-  private final Map<Integer, ExternalLabel> externalLabels;
+  private final AddressMap<ExternalLabel> externalLabels;
+
+  //
+  // Commands as detected by the reassembler, stored in columns indexed by relative address.
+  // The commands returned by getCommand() are views of these columns.
+  //
 
   /**
-   * Commands as detected by the reassembler.
+   * Kind of the command at a relative address, combined with the {@link #REACHABLE} flag.
+   * {@link #NONE}, if there is no command starting at a relative address.
    */
-  private final ICommand[] commands;
+  private final byte[] kinds;
+
+  /**
+   * Byte representation of the opcode of opcode and bit commands.
+   */
+  private final byte[] opcodes;
+
+  /**
+   * Argument of opcode and bit commands, referenced absolute address of address commands.
+   */
+  private final char[] arguments;
+
+  /**
+   * Size of the commands in bytes.
+   */
+  private final int[] sizes;
+
+  /**
+   * Absolute address to number of references from all created commands, including unreachable ones.
+   * Commands get combined before unreachable references are removed, so incremental updates need these.
+   * Null, if the commands need to be recreated completely.
+   */
+  private int[] tokenReferences;
+
+  /**
+   * Relative addresses whose code type or reference has been changed since the last creation of the commands.
+   */
+  private final BitSet dirty;
+
+  /**
+   * Relative addresses whose command, reachability or label has been changed since the last detection.
+   */
+  private final BitSet changes;
+
+  /**
+   * Relative addresses whose code type or label has been changed since the last poll.
+   */
+  private final BitSet modifications;
 
   //
   // persistent attributes
@@ -87,10 +182,41 @@ public class CommandBuffer implements Iterable<ICommand> {
    */
   private final NavigableMap<Integer, Integer> startAddresses;
 
+  /**
+   * Compiled {@link #startAddresses}: Relative start address of all segments, followed by the length of the code.
+   */
+  private int[] segmentIndices;
+
+  /**
+   * Compiled {@link #startAddresses}: Absolute base address of all segments.
+   */
+  private int[] segmentBases;
+
+  /**
+   * Compiled {@link #startAddresses}: Absolute address to relative address, -1 for addresses outside of the code.
+   * Just used if there are multiple segments.
+   */
+  private int[] addressIndices;
+
+  /**
+   * Compiled {@link #startAddresses}: Highest end address (excl.) of all segments.
+   */
+  private int endAddress;
+
   /**
    * Absolute address to subroutines.
    */
-  private final Map<Integer, Subroutine> subroutines;
+  private final AddressMap<Subroutine> subroutines;
+
+  /**
+   * Absolute addresses of the known entry points of the code.
+   */
+  private final SortedSet<Integer> entryPoints;
+
+  /**
+   * Cached index of the blocks.
+   */
+  private final BlockIndex blocks;
 
   //
   //
@@ -101,9 +227,12 @@ public class CommandBuffer implements Iterable<ICommand> {
    *
    * @param code code
    * @param startAddress address of the code
+   * @throws IllegalArgumentException if the code does not fit into the 64 KB address space
    */
   public CommandBuffer(byte[] code, int startAddress) {
     requireThat(startAddress, "startAddress").isGreaterThanOrEqualTo(0);
+    // All tables by absolute address are limited to 64 KB
+    requireThat(startAddress, "startAddress").isLessThanOrEqualTo(0x10000 - code.length);
 
     this.codeReferences = new int[code.length];
     Arrays.fill(this.codeReferences, -1);
@@ -111,9 +240,12 @@ public class CommandBuffer implements Iterable<ICommand> {
     Arrays.fill(this.dataReferences, -1);
     this.externalReferences = new int[code.length];
     Arrays.fill(this.externalReferences, -1);
-    this.codeLabels = new HashMap<>();
-    this.dataLabels = new HashMap<>();
-    this.externalLabels = new HashMap<>();
+    this.codeReferenceIndex = new ReferenceIndex();
+    this.dataReferenceIndex = new ReferenceIndex();
+    this.externalReferenceIndex = new ReferenceIndex();
+    this.codeLabels = new AddressMap<>();
+    this.dataLabels = new AddressMap<>();
+    this.externalLabels = new AddressMap<>();
 
     this.code = code;
     this.types = new CodeType[code.length];
@@ -121,8 +253,17 @@ public class CommandBuffer implements Iterable<ICommand> {
     this.startAddresses = new TreeMap<>();
     this.startAddresses.put(0, startAddress);
     this.startAddresses.put(code.length, startAddress);
-    this.subroutines = new HashMap<>();
-    this.commands = new ICommand[code.length];
+    compileSegments();
+    this.subroutines = new AddressMap<>();
+    this.entryPoints = new TreeSet<>();
+    this.kinds = new byte[code.length];
+    this.opcodes = new byte[code.length];
+    this.arguments = new char[code.length];
+    this.sizes = new int[code.length];
+    this.dirty = new BitSet(code.length);
+    this.changes = new BitSet(code.length);
+    this.modifications = new BitSet(code.length);
+    this.blocks = new BlockIndex(this);
   }
 
   /**
@@ -195,13 +336,20 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @return absolute address
    */
   public int addressForIndex(int index) {
-    requireThat(hasIndex(index), "hasIndex(index)").isTrue();
+    requireTrue(hasIndex(index), "hasIndex(index)");
+
+    if (segmentIndices.length == 2) {
+      // single segment
+      return segmentBases[0] + index;
+    }
 
     // Compute start index for address range index belongs to
-    Integer startIndex = startAddresses.floorKey(index);
-    requireThat(startIndex, "startIndex").isNotNull();
+    int segment = Arrays.binarySearch(segmentIndices, 0, segmentIndices.length - 1, index);
+    if (segment < 0) {
+      segment = -segment - 2;
+    }
 
-    return startAddresses.get(startIndex) + index;
+    return segmentBases[segment] + index;
   }
 
   /**
@@ -220,9 +368,10 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @return relative address or -1, if not found
    */
   public int indexForAddress(int address) {
-    requireThat(hasAddress(address), "hasAddress(address)").isTrue();
+    int index = indexForAddressImpl(address);
+    requireTrue(index >= 0, "hasAddress(address)");
 
-    return indexForAddressImpl(address);
+    return index;
   }
 
   /**
@@ -232,18 +381,57 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @return relative address or -1, if not found
    */
   private int indexForAddressImpl(int address) {
-    Iterator<Entry<Integer, Integer>> iter = startAddresses.entrySet().iterator();
-    Entry<Integer, Integer> lastAddressEntry = iter.next();
-    while (iter.hasNext()) {
-      Entry<Integer, Integer> addressEntry = iter.next();
-      if (address >= lastAddressEntry.getValue() + lastAddressEntry.getKey() &&
-        address < lastAddressEntry.getValue() + addressEntry.getKey()) {
-        return address - lastAddressEntry.getValue();
+    if (addressIndices != null) {
+      // multiple segments
+      return address >= 0 && address < addressIndices.length ? addressIndices[address] : -1;
+    }
+
+    if (segmentIndices.length < 2) {
+      // no code
+      return -1;
+    }
+
+    // single segment
+    int index = address - segmentBases[0];
+    return index >= 0 && index < code.length ? index : -1;
+  }
+
+  /**
+   * Compile {@link #startAddresses} into primitive tables for fast address computations.
+   */
+  private void compileSegments() {
+    int count = startAddresses.size();
+    int[] indices = new int[count];
+    int[] bases = new int[count];
+    int i = 0;
+    for (Entry<Integer, Integer> entry : startAddresses.entrySet()) {
+      indices[i] = entry.getKey();
+      bases[i] = entry.getValue();
+      i++;
+    }
+
+    int end = 0;
+    for (int segment = 0; segment < count - 1; segment++) {
+      end = Math.max(end, bases[segment] + indices[segment + 1]);
+    }
+
+    int[] addresses = null;
+    if (count > 2) {
+      // multiple segments: direct map from absolute address to relative address
+      addresses = new int[end];
+      Arrays.fill(addresses, -1);
+      // backwards, so that the first segment wins, if segments overlap
+      for (int segment = count - 2; segment >= 0; segment--) {
+        for (int index = indices[segment]; index < indices[segment + 1]; index++) {
+          addresses[bases[segment] + index] = index;
+        }
       }
-      lastAddressEntry = addressEntry;
     }
 
-    return -1;
+    segmentIndices = indices;
+    segmentBases = bases;
+    addressIndices = addresses;
+    endAddress = end;
   }
 
   /**
@@ -251,14 +439,20 @@ public class CommandBuffer implements Iterable<ICommand> {
    *
    * @param startIndex relative address from which the new absolute base address should be used
    * @param baseAddress new absolute base address
+   * @throws IllegalArgumentException if the segment does not start within the 64 KB address space
    */
   public void rebase(int startIndex, int baseAddress) {
     requireThat(hasIndex(startIndex), "hasIndex(startIndex)").isTrue();
     requireValidAddress(baseAddress);
+    requireValidAddress(baseAddress + startIndex);
 
     Integer removed = startAddresses.put(startIndex, baseAddress);
+    compileSegments();
     // Check that same index will not be rebased twice.
     requireThat(removed, "removed").isNull();
+    // All addresses may have been changed
+    tokenReferences = null;
+    blocks.invalidate(0, code.length);
   }
 
   /**
@@ -272,8 +466,21 @@ public class CommandBuffer implements Iterable<ICommand> {
     requireValidAddress(address);
 
     Integer removed = startAddresses.put(startIndex, address - startIndex);
+    compileSegments();
     // Check that the same index is not based twice.
     requireThat(removed, "removed").isNull();
+    // All addresses may have been changed
+    tokenReferences = null;
+    blocks.invalidate(0, code.length);
+  }
+
+  /**
+   * Highest end address (excl.) of all segments.
+   * The end of a segment moves, if a later segment is added.
+   * So the segments can just be checked against the 64 KB address space after all of them have been added.
+   */
+  public int getEndAddress() {
+    return endAddress;
   }
 
   //
@@ -287,6 +494,7 @@ public class CommandBuffer implements Iterable<ICommand> {
    */
   public void addSubroutine(Subroutine subroutine) {
     requireThat(subroutine, "subroutine").isNotNull();
+    requireValidAddress(subroutine.getAddress());
 
     Subroutine removed = subroutines.put(subroutine.getAddress(), subroutine);
     // Check that there are no doubled subroutines.
@@ -307,8 +515,42 @@ public class CommandBuffer implements Iterable<ICommand> {
    * All subroutines.
    * Just for the mapper.
    */
-  Map<Integer, Subroutine> getSubroutines() {
-    return subroutines;
+  Collection<Subroutine> getSubroutines() {
+    return subroutines.values();
+  }
+
+  //
+  // Entry points
+  //
+
+  /**
+   * Add a known entry point of the code, e.g. the address of a BASIC SYS.
+   *
+   * @param address absolute address
+   */
+  public void addEntryPoint(int address) {
+    requireTrue(hasAddress(address), "hasAddress(address)");
+
+    entryPoints.add(address);
+  }
+
+  /**
+   * Absolute addresses of the known entry points of the code.
+   */
+  public SortedSet<Integer> getEntryPoints() {
+    return Collections.unmodifiableSortedSet(entryPoints);
+  }
+
+  //
+  // Blocks
+  //
+
+  /**
+   * Index of the blocks of the reachable opcodes.
+   * The index is cached and just recomputed for the ranges edited since the last access.
+   */
+  public BlockIndex getBlocks() {
+    return blocks;
   }
 
   //
@@ -321,7 +563,7 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @param index relative address
    */
   public CodeType getType(int index) {
-    requireThat(hasIndex(index), "hasIndex(index)").isTrue();
+    requireTrue(hasIndex(index), "hasIndex(index)");
 
     return types[index];
   }
@@ -336,7 +578,7 @@ public class CommandBuffer implements Iterable<ICommand> {
    */
   public boolean setType(int startIndex, int endIndex, CodeType type) {
     requireThat(hasIndex(startIndex), "hasIndex(startIndex)").isTrue();
-    requireThat(hasIndex(endIndex), "hasIndex(endIndex)").isTrue();
+    requireThat(hasEndIndex(endIndex), "hasEndIndex(endIndex)").isTrue();
     requireThat(startIndex, "startIndex").isLessThanOrEqualTo(endIndex, "endIndex");
     requireThat(type, "type").isNotNull();
 
@@ -356,11 +598,15 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @return whether a change has taken place
    */
   public boolean setType(int index, CodeType type) {
-    requireThat(hasIndex(index), "hasIndex(index)").isTrue();
+    requireTrue(hasIndex(index), "hasIndex(index)");
     requireThat(type, "type").isNotNull();
 
     boolean change = !type.equals(types[index]);
     types[index] = type;
+    if (change) {
+      dirty.set(index);
+      modifications.set(index);
+    }
 
     return change;
   }
@@ -375,7 +621,7 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @param address absolute address
    */
   public boolean hasLabel(int address) {
-    requireThat(hasAddress(address), "hasAddress(address)").isTrue();
+    requireTrue(hasAddress(address), "hasAddress(address)");
 
     return hasCodeLabel(address) || hasDataLabel(address);
   }
@@ -455,9 +701,12 @@ public class CommandBuffer implements Iterable<ICommand> {
     requireThat(hasAddress(to), "hasAddress(to)").isTrue();
 
     // add label for address "to"
-    codeLabels.put(to, new CodeLabel(to));
+    if (!codeLabels.containsKey(to)) {
+      codeLabels.put(to, new CodeLabel(to));
+      labelChanged(indexForAddressImpl(to));
+    }
     // add reference
-    codeReferences[fromIndex] = to;
+    putReference(fromIndex, to, codeReferences, codeReferenceIndex);
   }
 
   /**
@@ -472,9 +721,12 @@ public class CommandBuffer implements Iterable<ICommand> {
     requireThat(hasAddress(to), "hasAddress(to)").isTrue();
 
     // add label for address "to"
-    dataLabels.put(to, new DataLabel(to));
+    if (!dataLabels.containsKey(to)) {
+      dataLabels.put(to, new DataLabel(to));
+      labelChanged(indexForAddressImpl(to));
+    }
     // add reference
-    dataReferences[fromIndex] = to;
+    putReference(fromIndex, to, dataReferences, dataReferenceIndex);
   }
 
   /**
@@ -487,11 +739,33 @@ public class CommandBuffer implements Iterable<ICommand> {
   public void addExternalReference(int fromIndex, int to) {
     requireThat(hasIndex(fromIndex), "hasIndex(fromIndex)").isTrue();
     requireThat(hasAddress(to), "hasAddress(to)").isFalse();
+    requireValidAddress(to);
 
     // add label for address "to"
-    externalLabels.put(to, new ExternalLabel(to));
+    if (!externalLabels.containsKey(to)) {
+      externalLabels.put(to, new ExternalLabel(to));
+    }
     // add reference
-    externalReferences[fromIndex] = to;
+    putReference(fromIndex, to, externalReferences, externalReferenceIndex);
+  }
+
+  /**
+   * Add a reference from the given relative address to a given address.
+   * Replaces an existing reference from the given relative address.
+   *
+   * @param fromIndex relative address of the command referencing
+   * @param to referenced absolute address
+   * @param references all references
+   * @param referenceIndex reverse index of all references
+   */
+  private void putReference(int fromIndex, int to, int[] references, ReferenceIndex referenceIndex) {
+    int referenced = references[fromIndex];
+    if (referenced >= 0) {
+      referenceIndex.remove(referenced, fromIndex);
+    }
+    references[fromIndex] = to;
+    referenceIndex.add(to, fromIndex);
+    dirty.set(fromIndex);
   }
 
   /**
@@ -501,14 +775,9 @@ public class CommandBuffer implements Iterable<ICommand> {
    */
   public SortedSet<Integer> getReferences(int address) {
     SortedSet<Integer> result = new TreeSet<>();
-    for (int i = 0; i < code.length; i++) {
-      if (codeReferences[i] == address) {
-        result.add(i);
-      } else if (dataReferences[i] == address) {
-        result.add(i);
-      }
-      // external references are not needed, because they do never point into the reassembled code
-    }
+    codeReferenceIndex.addIndices(address, result);
+    dataReferenceIndex.addIndices(address, result);
+    // external references are not needed, because they do never point into the reassembled code
 
     return result;
   }
@@ -521,9 +790,9 @@ public class CommandBuffer implements Iterable<ICommand> {
    */
   public boolean removeReference(int index) {
     return
-      removeReference(index, codeReferences, codeLabels) |
-        removeReference(index, dataReferences, dataLabels) |
-        removeReference(index, externalReferences, externalLabels);
+      removeReference(index, codeReferences, codeReferenceIndex, codeLabels) |
+        removeReference(index, dataReferences, dataReferenceIndex, dataLabels) |
+        removeReference(index, externalReferences, externalReferenceIndex, externalLabels);
   }
 
   /**
@@ -531,10 +800,11 @@ public class CommandBuffer implements Iterable<ICommand> {
    *
    * @param index relative address
    * @param references all references
+   * @param referenceIndex reverse index of all references
    * @param labels all labels
    * @return whether a label has been removed
    */
-  private boolean removeReference(int index, int[] references, Map<Integer, ?> labels) {
+  private boolean removeReference(int index, int[] references, ReferenceIndex referenceIndex, AddressMap<?> labels) {
     // get referenced absolute address
     int referenced = references[index];
     // delete reference
@@ -546,17 +816,19 @@ public class CommandBuffer implements Iterable<ICommand> {
     }
 
     // check if referenced address is referenced from elsewhere too
-    for (int reference : references) {
-      if (reference == referenced) {
-        // referenced address is still referenced, no label needs to be removed
-        return false;
-      }
+    if (referenceIndex.remove(referenced, index) > 0) {
+      // referenced address is still referenced, no label needs to be removed
+      return false;
     }
 
     // remove label, because the address is no more referenced
     Object removed = labels.remove(referenced);
     // There need to be a label, if there had been a reference.
     requireThat(removed, "removed").isNotNull();
+    int referencedIndex = indexForAddressImpl(referenced);
+    if (referencedIndex >= 0) {
+      labelChanged(referencedIndex);
+    }
 
     // label has been removed
     return true;
@@ -573,40 +845,92 @@ public class CommandBuffer implements Iterable<ICommand> {
     Arrays.fill(codeReferences, -1);
     Arrays.fill(dataReferences, -1);
     Arrays.fill(externalReferences, -1);
+    codeReferenceIndex.clear();
+    dataReferenceIndex.clear();
+    externalReferenceIndex.clear();
     codeLabels.clear();
     dataLabels.clear();
     externalLabels.clear();
-    Arrays.fill(commands, null);
+    Arrays.fill(kinds, NONE);
+    if (tokenReferences == null) {
+      tokenReferences = new int[0x10000];
+    } else {
+      Arrays.fill(tokenReferences, 0);
+    }
+    dirty.clear();
+    changes.set(0, code.length);
+    modifications.set(0, code.length);
+    blocks.invalidate(0, code.length);
   }
 
   /**
    * Get command at relative address.
+   * The command is a view of the command buffer, changes to it are written through.
    *
    * @param index relative address
+   * @return command or null, if there is no command starting at the relative address
    */
   public ICommand getCommand(int index) {
-    requireThat(hasIndex(index), "hasIndex(index)").isTrue();
+    requireTrue(hasIndex(index), "hasIndex(index)");
+
+    AbstractCommand command;
+    switch (kinds[index] & KIND) {
+      case OPCODE -> {
+        var opcode = Opcode.opcode(opcodes[index] & 0xFF);
+        command = opcode.getSize() > 1 ? new OpcodeCommand(opcode, arguments[index]) : new OpcodeCommand(opcode);
+      }
+      case BIT -> command = new BitCommand(Opcode.opcode(opcodes[index] & 0xFF), arguments[index]);
+      case ADDRESS -> command = new AddressCommand(arguments[index]);
+      case DATA -> command = new DataCommand();
+      default -> {
+        return null;
+      }
+    }
+    command.bind(this, index, addressForIndex(index));
 
-    return commands[index];
+    return command;
   }
 
   /**
    * Add a command at index.
+   * The state of the command is stored in the command buffer and the command becomes a view of it.
+   * Data commands are views of the code, so their data bytes have to match the code.
    *
    * @param index relative address
    * @param command command
+   * @throws IllegalArgumentException if the data bytes of a data command do not match the code
    */
   public void setCommand(int index, ICommand command) {
-    requireThat(hasIndex(index), "hasIndex(index)").isTrue();
+    requireTrue(hasIndex(index), "hasIndex(index)");
     requireThat(command, "command").isNotNull();
     requireThat(command.hasAddress(), "command.hasAddress()").isFalse();
 
     int address = addressForIndex(index);
     requireThat(address, "address").isGreaterThanOrEqualTo(0);
 
-    command.setAddress(address);
-    commands[index] = command;
-    index += command.getSize();
+    byte kind;
+    if (command instanceof OpcodeCommand opcodeCommand) {
+      kind = OPCODE;
+      opcodes[index] = (byte) opcodeCommand.getOpcode().getOpcode();
+      arguments[index] = (char) (opcodeCommand.getSize() > 1 ? opcodeCommand.getArgument() : 0);
+    } else if (command instanceof BitCommand bitCommand) {
+      kind = BIT;
+      opcodes[index] = (byte) bitCommand.getOpcode().getOpcode();
+      arguments[index] = (char) bitCommand.getArgument();
+    } else if (command instanceof AddressCommand addressCommand) {
+      kind = ADDRESS;
+      arguments[index] = (char) addressCommand.getReferencedAddress();
+    } else if (command instanceof DataCommand dataCommand) {
+      requireTrue(dataCommand.matches(code, index), "dataCommand.matches(code, index)");
+      kind = DATA;
+    } else {
+      throw new IllegalArgumentException("Unsupported command " + command.getClass().getSimpleName() + ".");
+    }
+    sizes[index] = command.getSize();
+    kinds[index] = command.isReachable() ? (byte) (kind | REACHABLE) : kind;
+    blocks.invalidate(index, index + sizes[index]);
+
+    ((AbstractCommand) command).bind(this, index, address);
   }
 
   /**
@@ -615,9 +939,346 @@ public class CommandBuffer implements Iterable<ICommand> {
    * @param index relative address
    */
   void removeCommand(int index) {
-    requireThat(hasIndex(index), "hasIndex(index)").isTrue();
+    requireTrue(hasIndex(index), "hasIndex(index)");
+
+    kinds[index] = NONE;
+    blocks.invalidate(index, index + 1);
+  }
 
-    commands[index] = null;
+  /**
+   * Is there a command starting at the given relative address?.
+   * Just for the commands and the iterator.
+   *
+   * @param index relative address
+   */
+  boolean hasCommand(int index) {
+    return kinds[index] != NONE;
+  }
+
+  /**
+   * Size of the command at the given relative address.
+   * Just for the commands and the iterator.
+   *
+   * @param index relative address of the command
+   */
+  int commandSize(int index) {
+    return sizes[index];
+  }
+
+  /**
+   * Set the size of the command at the given relative address.
+   * Just for the commands.
+   *
+   * @param index relative address of the command
+   * @param size size in bytes
+   */
+  void setCommandSize(int index, int size) {
+    sizes[index] = size;
+  }
+
+  /**
+   * Is the command at the given relative address reachable?.
+   * Just for the commands.
+   *
+   * @param index relative address of the command
+   */
+  boolean isReachable(int index) {
+    return (kinds[index] & REACHABLE) != 0;
+  }
+
+  /**
+   * Set whether the command at the given relative address is reachable.
+   * Just for the commands.
+   *
+   * @param index relative address of the command
+   * @param reachable is the command reachable?
+   */
+  void setReachable(int index, boolean reachable) {
+    byte kind = (byte) (reachable ? kinds[index] | REACHABLE : kinds[index] & ~REACHABLE);
+    if (kind != kinds[index]) {
+      kinds[index] = kind;
+      blocks.invalidate(index, index + sizes[index]);
+    }
+  }
+
+  /**
+   * Is there an opcode or bit command starting at the given relative address?.
+   * Just for the control flow graph.
+   *
+   * @param index relative address
+   */
+  boolean isInstruction(int index) {
+    int kind = kinds[index] & KIND;
+    return kind == OPCODE || kind == BIT;
+  }
+
+  /**
+   * Is there a bit command starting at the given relative address?.
+   * Just for the block index.
+   *
+   * @param index relative address
+   */
+  boolean isBit(int index) {
+    return (kinds[index] & KIND) == BIT;
+  }
+
+  /**
+   * Byte representation of the opcode of the opcode or bit command at the given relative address.
+   * Just for the control flow graph.
+   *
+   * @param index relative address of the command
+   */
+  int opcode(int index) {
+    return opcodes[index] & 0xFF;
+  }
+
+  /**
+   * Argument of the opcode or bit command at the given relative address.
+   * Just for the control flow graph.
+   *
+   * @param index relative address of the command
+   */
+  int argument(int index) {
+    return arguments[index];
+  }
+
+  /**
+   * Split the commands into about the given number of parts of similar size.
+   * The parts are split at reachability boundaries:
+   * The command before the start of a part is not reachable or does not lead to the next command.
+   * Parts for which no such boundary could be found are merged with the previous part.
+   *
+   * @param count number of parts
+   * @return relative start addresses of all parts, followed by the length of the code
+   */
+  public int[] split(int count) {
+    requireThat(count, "count").isGreaterThan(0);
+
+    if (code.length == 0 || kinds[0] == NONE) {
+      // no commands to split
+      return new int[]{0, code.length};
+    }
+
+    int[] result = new int[count + 1];
+    int parts = 0;
+    result[parts++] = 0;
+    int index = 0;
+    for (int part = 1; part < count; part++) {
+      int target = (int) ((long) code.length * part / count);
+      int nextTarget = (int) ((long) code.length * (part + 1) / count);
+      // search the first reachability boundary at or after the target, but before the next target
+      while (index < nextTarget) {
+        // removed commands may leave stale sizes behind, so always advance
+        int nextIndex = index + Math.max(1, sizes[index]);
+        if (nextIndex >= code.length) {
+          index = code.length;
+          break;
+        }
+        if (nextIndex >= target && isBoundary(index)) {
+          result[parts++] = nextIndex;
+          index = nextIndex;
+          break;
+        }
+        index = nextIndex;
+      }
+    }
+    result[parts++] = code.length;
+
+    return Arrays.copyOf(result, parts);
+  }
+
+  /**
+   * Is the command at the given relative address not reachable or does it not lead to the next command?.
+   *
+   * @param index relative address of the command
+   */
+  private boolean isBoundary(int index) {
+    int kind = kinds[index] & KIND;
+    return
+      (kinds[index] & REACHABLE) == 0 ||
+        kind == OPCODE && OpcodeTable.isEnd(opcodes[index]) ||
+        kind == ADDRESS || kind == DATA;
+  }
+
+  //
+  // binary format
+  //
+
+  /**
+   * Is the given byte a valid kind, optionally combined with the reachable flag?.
+   * Just for the binary format.
+   *
+   * @param kind kind
+   */
+  static boolean isValidKind(byte kind) {
+    return (kind & ~(KIND | REACHABLE)) == 0 && (kind & KIND) <= DATA;
+  }
+
+  /**
+   * Kinds of the commands at all relative addresses, combined with the reachable flag.
+   * Just for the binary format.
+   */
+  byte[] getKinds() {
+    return kinds;
+  }
+
+  /**
+   * Byte representation of the opcodes of opcode and bit commands.
+   * Just for the binary format.
+   */
+  byte[] getOpcodes() {
+    return opcodes;
+  }
+
+  /**
+   * Arguments of opcode and bit commands, referenced absolute addresses of address commands.
+   * Just for the binary format.
+   */
+  char[] getArguments() {
+    return arguments;
+  }
+
+  /**
+   * Sizes of the commands in bytes.
+   * Just for the binary format.
+   */
+  int[] getSizes() {
+    return sizes;
+  }
+
+  /**
+   * Relative address to referenced absolute address of code references, -1 if none.
+   * Just for the binary format.
+   */
+  int[] getCodeReferences() {
+    return codeReferences;
+  }
+
+  /**
+   * Relative address to referenced absolute address of data references, -1 if none.
+   * Just for the binary format.
+   */
+  int[] getDataReferences() {
+    return dataReferences;
+  }
+
+  /**
+   * Relative address to referenced absolute address of external references, -1 if none.
+   * Just for the binary format.
+   */
+  int[] getExternalReferences() {
+    return externalReferences;
+  }
+
+  //
+  // incremental update
+  //
+
+  /**
+   * Absolute address to number of references from all created commands, including unreachable ones.
+   * Just for the creator.
+   *
+   * @return references or null, if the commands need to be recreated completely
+   */
+  int[] getTokenReferences() {
+    return tokenReferences;
+  }
+
+  /**
+   * Relative addresses whose code type or reference has been changed since the last creation of the commands.
+   * Just for the creator.
+   */
+  BitSet getDirty() {
+    return dirty;
+  }
+
+  /**
+   * Mark the commands in the given relative address range as changed.
+   * Just for the creator.
+   *
+   * @param startIndex first relative address (incl.)
+   * @param endIndex last relative address (excl.)
+   */
+  void changed(int startIndex, int endIndex) {
+    changes.set(startIndex, endIndex);
+    blocks.invalidate(startIndex, endIndex);
+  }
+
+  /**
+   * Mark the label at the given relative address as changed.
+   *
+   * @param index relative address
+   */
+  private void labelChanged(int index) {
+    changes.set(index);
+    modifications.set(index);
+    blocks.invalidate(index, index + 1);
+  }
+
+  /**
+   * Relative address of the command containing the given relative address.
+   *
+   * @param index relative address
+   * @return relative address of the command or -1, if there is no command
+   */
+  int commandIndex(int index) {
+    while (index >= 0 && kinds[index] == NONE) {
+      index--;
+    }
+
+    return index;
+  }
+
+  /**
+   * Relative addresses of all commands which need to be checked by the detectors again.
+   * These are the commands whose command, reachability or labels have been changed since the last detection
+   * and the commands whose code types have been changed since the last creation of the commands.
+   */
+  public BitSet getChangedCommands() {
+    BitSet indices = (BitSet) changes.clone();
+    indices.or(dirty);
+
+    return getCommands(indices);
+  }
+
+  /**
+   * Relative addresses of the commands containing the given relative addresses.
+   *
+   * @param indices relative addresses
+   */
+  public BitSet getCommands(BitSet indices) {
+    requireThat(indices, "indices").isNotNull();
+
+    BitSet result = new BitSet(code.length);
+    for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+      int commandIndex = commandIndex(index);
+      if (commandIndex >= 0) {
+        result.set(commandIndex);
+        // skip the rest of the command
+        index = Math.max(index, commandIndex + sizes[commandIndex] - 1);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Reset the changes after a detection.
+   */
+  public void clearChanges() {
+    changes.clear();
+  }
+
+  /**
+   * Relative addresses whose code type or label has been changed since the last poll.
+   * Resets the modifications.
+   * This is how the detectors report their modifications to the reassembler.
+   */
+  public BitSet pollModifications() {
+    BitSet result = (BitSet) modifications.clone();
+    modifications.clear();
+
+    return result;
   }
 
   @Override
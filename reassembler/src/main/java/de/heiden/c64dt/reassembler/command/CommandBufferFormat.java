@@ -0,0 +1,388 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+
+import de.heiden.c64dt.assembler.CodeType;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Compact binary format for {@link CommandBuffer}, as alternative to {@link CommandBufferMapper}.
+ * Stores the code, the base addresses, subroutines, entry points and run-length encoded code types.
+ * Optionally stores the created commands with their references too,
+ * so that reading does not need to tokenize the code again.
+ */
+public class CommandBufferFormat {
+  /**
+   * Code types by ordinal.
+   */
+  private static final CodeType[] TYPES = CodeType.values();
+
+  /**
+   * Hidden constructor.
+   */
+  private CommandBufferFormat() {
+  }
+
+  //
+  // Write
+  //
+
+  /**
+   * Write command buffer.
+   *
+   * @param commands Command buffer
+   * @param output Output to write to
+   * @param withCommands Write the created commands too?
+   */
+  public static void write(CommandBuffer commands, DataOutput output, boolean withCommands) throws IOException {
+    requireThat(commands, "commands").isNotNull();
+    requireThat(output, "output").isNotNull();
+
+    byte[] code = commands.getCode();
+    output.writeInt(code.length);
+    output.write(code);
+
+    // start addresses
+    SortedMap<Integer, Integer> startAddresses = commands.getStartAddresses();
+    output.writeInt(startAddresses.size());
+    for (Entry<Integer, Integer> entry : startAddresses.entrySet()) {
+      output.writeInt(entry.getKey());
+      output.writeInt(entry.getValue());
+    }
+
+    // subroutines
+    output.writeInt(commands.getSubroutines().size());
+    for (Subroutine subroutine : commands.getSubroutines()) {
+      output.writeInt(subroutine.getAddress());
+      output.writeInt(subroutine.getArguments());
+      output.writeByte(subroutine.getType().ordinal());
+    }
+
+    // entry points
+    output.writeInt(commands.getEntryPoints().size());
+    for (int address : commands.getEntryPoints()) {
+      output.writeInt(address);
+    }
+
+    writeTypes(commands, output);
+
+    // commands need to be recreated completely, if there are no token references
+    boolean hasCommands = withCommands && commands.getTokenReferences() != null;
+    output.writeBoolean(hasCommands);
+    if (hasCommands) {
+      writeCommands(commands, output);
+    }
+  }
+
+  /**
+   * Write run-length encoded code types.
+   *
+   * @param commands Command buffer
+   * @param output Output to write to
+   */
+  private static void writeTypes(CommandBuffer commands, DataOutput output) throws IOException {
+    int length = commands.getLength();
+    int runs = 0;
+    for (int index = 0; index < length; ) {
+      CodeType type = commands.getType(index);
+      int endIndex = endOfRun(commands, index, type);
+      if (!type.isUnknown()) {
+        runs++;
+      }
+      index = endIndex;
+    }
+
+    output.writeInt(runs);
+    for (int index = 0; index < length; ) {
+      CodeType type = commands.getType(index);
+      int endIndex = endOfRun(commands, index, type);
+      if (!type.isUnknown()) {
+        output.writeInt(index);
+        output.writeInt(endIndex - index);
+        output.writeByte(type.ordinal());
+      }
+      index = endIndex;
+    }
+  }
+
+  /**
+   * Relative address after the run of the same code type.
+   *
+   * @param commands Command buffer
+   * @param startIndex relative start address of the run
+   * @param type code type of the run
+   */
+  private static int endOfRun(CommandBuffer commands, int startIndex, CodeType type) {
+    int index = startIndex + 1;
+    while (index < commands.getLength() && commands.getType(index) == type) {
+      index++;
+    }
+
+    return index;
+  }
+
+  /**
+   * Write created commands with their references.
+   *
+   * @param commands Command buffer
+   * @param output Output to write to
+   */
+  private static void writeCommands(CommandBuffer commands, DataOutput output) throws IOException {
+    byte[] kinds = commands.getKinds();
+    char[] arguments = commands.getArguments();
+    int[] sizes = commands.getSizes();
+    output.write(kinds);
+    output.write(commands.getOpcodes());
+    for (int index = 0; index < kinds.length; index++) {
+      if (commands.hasCommand(index)) {
+        output.writeChar(arguments[index]);
+        output.writeInt(sizes[index]);
+      }
+    }
+
+    writeReferences(commands.getCodeReferences(), output);
+    writeReferences(commands.getDataReferences(), output);
+    writeReferences(commands.getExternalReferences(), output);
+
+    int[] tokenReferences = commands.getTokenReferences();
+    int count = 0;
+    for (int references : tokenReferences) {
+      if (references != 0) {
+        count++;
+      }
+    }
+    output.writeInt(count);
+    for (int address = 0; address < tokenReferences.length; address++) {
+      if (tokenReferences[address] != 0) {
+        output.writeInt(address);
+        output.writeInt(tokenReferences[address]);
+      }
+    }
+  }
+
+  /**
+   * Write references.
+   *
+   * @param references relative address to referenced absolute address, -1 if none
+   * @param output Output to write to
+   */
+  private static void writeReferences(int[] references, DataOutput output) throws IOException {
+    int count = 0;
+    for (int reference : references) {
+      if (reference >= 0) {
+        count++;
+      }
+    }
+
+    output.writeInt(count);
+    for (int index = 0; index < references.length; index++) {
+      if (references[index] >= 0) {
+        output.writeInt(index);
+        output.writeInt(references[index]);
+      }
+    }
+  }
+
+  //
+  // Read
+  //
+
+  /**
+   * Read command buffer.
+   * Creates the commands, if they have not been written.
+   *
+   * @param input Input to read from
+   */
+  public static CommandBuffer read(DataInput input) throws IOException {
+    requireThat(input, "input").isNotNull();
+
+    byte[] code = new byte[readCount(input, 0x10000)];
+    input.readFully(code);
+
+    // start addresses: the first one automatically sets the end base address
+    int addresses = readCount(input, code.length + 1);
+    if (addresses < 2 || input.readInt() != 0) {
+      throw new IOException("Invalid start addresses.");
+    }
+    int startAddress = input.readInt();
+    CommandBuffer commands = new CommandBuffer(code, startAddress);
+    for (int i = 1; i < addresses - 1; i++) {
+      commands.rebase(input.readInt(), input.readInt());
+    }
+    if (input.readInt() != code.length || input.readInt() != startAddress) {
+      throw new IOException("Invalid end address.");
+    }
+    if (commands.getEndAddress() > 0x10000) {
+      throw new IOException("Start addresses exceed 64 KB.");
+    }
+
+    // subroutines
+    for (int i = readCount(input, 0x10000); i > 0; i--) {
+      commands.addSubroutine(new Subroutine(input.readInt(), input.readInt(), readType(input)));
+    }
+
+    // entry points
+    for (int i = readCount(input, 0x10000); i > 0; i--) {
+      commands.addEntryPoint(input.readInt());
+    }
+
+    // code types
+    for (int i = readCount(input, code.length); i > 0; i--) {
+      int index = input.readInt();
+      commands.setType(index, index + input.readInt(), readType(input));
+    }
+
+    if (input.readBoolean()) {
+      readCommands(commands, input);
+    } else {
+      new CommandCreator(commands).createCommands();
+    }
+
+    return commands;
+  }
+
+  /**
+   * Read created commands with their references.
+   *
+   * @param commands Command buffer
+   * @param input Input to read from
+   * @throws IOException on invalid kinds, opcodes, sizes, relative or absolute addresses
+   *   or if the commands do not cover the code exactly
+   */
+  private static void readCommands(CommandBuffer commands, DataInput input) throws IOException {
+    commands.clear();
+
+    byte[] kinds = commands.getKinds();
+    char[] arguments = commands.getArguments();
+    int[] sizes = commands.getSizes();
+    input.readFully(kinds);
+    for (int index = 0; index < kinds.length; index++) {
+      if (!CommandBuffer.isValidKind(kinds[index])) {
+        throw new IOException("Invalid kind " + kinds[index] + " at index " + index + ".");
+      }
+    }
+    byte[] code = commands.getCode();
+    byte[] opcodes = commands.getOpcodes();
+    input.readFully(opcodes);
+    // the commands have to cover the code without gaps and overlaps
+    int end = 0;
+    for (int index = 0; index < kinds.length; index++) {
+      if (commands.hasCommand(index)) {
+        if (index < end) {
+          throw new IOException("Command at index " + index + " overlaps the previous command.");
+        } else if (index > end) {
+          throw new IOException("No command at index " + end + ".");
+        }
+        if (commands.isInstruction(index) && opcodes[index] != code[index]) {
+          throw new IOException("Invalid opcode " + (opcodes[index] & 0xFF) + " at index " + index + ".");
+        }
+        arguments[index] = input.readChar();
+        int size = input.readInt();
+        if (size <= 0 || size > kinds.length - index) {
+          throw new IOException("Invalid size " + size + " at index " + index + ".");
+        }
+        sizes[index] = size;
+        end = index + size;
+      }
+    }
+    if (end < kinds.length) {
+      throw new IOException("No command at index " + end + ".");
+    }
+
+    for (int i = readCount(input, kinds.length); i > 0; i--) {
+      int index = readIndex(commands, input);
+      int address = readAddress(input);
+      if (!commands.hasAddress(address)) {
+        throw new IOException("Invalid code reference to " + address + ".");
+      }
+      commands.addCodeReference(index, address);
+    }
+    for (int i = readCount(input, kinds.length); i > 0; i--) {
+      int index = readIndex(commands, input);
+      int address = readAddress(input);
+      if (!commands.hasAddress(address)) {
+        throw new IOException("Invalid data reference to " + address + ".");
+      }
+      commands.addDataReference(index, address);
+    }
+    for (int i = readCount(input, kinds.length); i > 0; i--) {
+      int index = readIndex(commands, input);
+      int address = readAddress(input);
+      if (commands.hasAddress(address)) {
+        throw new IOException("Invalid external reference to " + address + ".");
+      }
+      commands.addExternalReference(index, address);
+    }
+
+    int[] tokenReferences = commands.getTokenReferences();
+    for (int i = readCount(input, tokenReferences.length); i > 0; i--) {
+      tokenReferences[readAddress(input)] = readCount(input, kinds.length);
+    }
+
+    // the commands are up to date
+    commands.getDirty().clear();
+  }
+
+  /**
+   * Read a count.
+   *
+   * @param input Input to read from
+   * @param max Maximum valid count
+   */
+  private static int readCount(DataInput input, int max) throws IOException {
+    int count = input.readInt();
+    if (count < 0 || count > max) {
+      throw new IOException("Invalid count " + count + ".");
+    }
+
+    return count;
+  }
+
+  /**
+   * Read the relative address of a command.
+   *
+   * @param commands Command buffer with read commands
+   * @param input Input to read from
+   */
+  private static int readIndex(CommandBuffer commands, DataInput input) throws IOException {
+    int index = input.readInt();
+    if (!commands.hasIndex(index) || !commands.hasCommand(index)) {
+      throw new IOException("Invalid index " + index + ".");
+    }
+
+    return index;
+  }
+
+  /**
+   * Read an absolute address.
+   *
+   * @param input Input to read from
+   */
+  private static int readAddress(DataInput input) throws IOException {
+    int address = input.readInt();
+    if (address < 0 || address > 0xFFFF) {
+      throw new IOException("Invalid address " + address + ".");
+    }
+
+    return address;
+  }
+
+  /**
+   * Read a code type.
+   *
+   * @param input Input to read from
+   */
+  private static CodeType readType(DataInput input) throws IOException {
+    int ordinal = input.readUnsignedByte();
+    if (ordinal >= TYPES.length) {
+      throw new IOException("Invalid code type " + ordinal + ".");
+    }
+
+    return TYPES[ordinal];
+  }
+}
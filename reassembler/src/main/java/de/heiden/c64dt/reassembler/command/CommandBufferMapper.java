@@ -56,6 +56,17 @@ public class CommandBufferMapper extends XmlAdapter<CommandBufferMapper, Command
     private CodeType type;
   }
 
+  @XmlElement(name = "entry-point")
+  @XmlElementWrapper(name = "entry-points")
+  private final List<EntryPointMapper> entryPoints = new ArrayList<>();
+
+  @XmlType
+  public static class EntryPointMapper {
+    @XmlAttribute
+    @XmlJavaTypeAdapter(type = int.class, value = HexWordAdapter.class)
+    private int address;
+  }
+
   @XmlElement(name = "type")
   @XmlElementWrapper(name = "types")
   private final List<TypeMapper> types = new ArrayList<>();
@@ -88,14 +99,21 @@ public class CommandBufferMapper extends XmlAdapter<CommandBufferMapper, Command
     }
 
     // subroutines
-    for (Entry<Integer, Subroutine> entry : commands.getSubroutines().entrySet()) {
+    for (Subroutine commandsSubroutine : commands.getSubroutines()) {
       SubroutineMapper subroutine = new SubroutineMapper();
-      subroutine.address = entry.getKey();
-      subroutine.arguments = entry.getValue().getArguments();
-      subroutine.type = entry.getValue().getType();
+      subroutine.address = commandsSubroutine.getAddress();
+      subroutine.arguments = commandsSubroutine.getArguments();
+      subroutine.type = commandsSubroutine.getType();
       result.subroutines.add(subroutine);
     }
 
+    // entry points
+    for (int address : commands.getEntryPoints()) {
+      EntryPointMapper entryPoint = new EntryPointMapper();
+      entryPoint.address = address;
+      result.entryPoints.add(entryPoint);
+    }
+
     // detected code types
     for (int index = 0; index < commands.getLength(); ) {
       int startIndex = index;
@@ -153,6 +171,11 @@ public class CommandBufferMapper extends XmlAdapter<CommandBufferMapper, Command
       commands.addSubroutine(new Subroutine(subroutineMapper.address, subroutineMapper.arguments, subroutineMapper.type));
     }
 
+    // entry points
+    for (EntryPointMapper entryPointMapper : xmlCommands.entryPoints) {
+      commands.addEntryPoint(entryPointMapper.address);
+    }
+
     // detected code types
     for (TypeMapper typeMapper : xmlCommands.types) {
       if (typeMapper.end != null) {
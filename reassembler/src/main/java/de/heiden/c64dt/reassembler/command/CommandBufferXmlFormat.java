@@ -0,0 +1,329 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.function.ToIntFunction;
+
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.bytes.HexUtil;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.attribute;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.endWrapper;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.indent;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.nextElement;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.skipElement;
+import static de.heiden.c64dt.reassembler.xml.XmlUtil.startWrapper;
+
+/**
+ * Streaming StAX format for {@link CommandBuffer} with the same XML schema as {@link CommandBufferMapper}.
+ * Reading applies the base addresses, subroutines, entry points and code types directly to the command buffer,
+ * so no mapper objects are created per element.
+ * The elements are expected in the order JAXB writes them: code, addresses, subroutines, entry points and types.
+ */
+public class CommandBufferXmlFormat {
+  /**
+   * Hidden constructor.
+   */
+  private CommandBufferXmlFormat() {
+  }
+
+  //
+  // Write
+  //
+
+  /**
+   * Write the content of the command buffer element.
+   *
+   * @param commands Command buffer
+   * @param writer StAX writer
+   * @param depth Nesting depth of the content
+   */
+  public static void write(CommandBuffer commands, XMLStreamWriter writer, int depth) throws XMLStreamException {
+    requireThat(commands, "commands").isNotNull();
+    requireThat(writer, "writer").isNotNull();
+
+    indent(writer, depth);
+    writer.writeStartElement("code");
+    writer.writeCharacters(Base64.getEncoder().encodeToString(commands.getCode()));
+    writer.writeEndElement();
+
+    // start addresses
+    SortedMap<Integer, Integer> startAddresses = commands.getStartAddresses();
+    if (startWrapper(writer, depth, "addresses", startAddresses.isEmpty())) {
+      for (Entry<Integer, Integer> entry : startAddresses.entrySet()) {
+        indent(writer, depth + 1);
+        writer.writeEmptyElement("address");
+        writer.writeAttribute("index", HexUtil.hexWordPlain(entry.getKey()));
+        writer.writeAttribute("base", HexUtil.hexWordPlain(entry.getValue()));
+      }
+      endWrapper(writer, depth);
+    }
+
+    // subroutines
+    Collection<Subroutine> subroutines = commands.getSubroutines();
+    if (startWrapper(writer, depth, "subroutines", subroutines.isEmpty())) {
+      for (Subroutine subroutine : subroutines) {
+        indent(writer, depth + 1);
+        writer.writeStartElement("subroutine");
+        writer.writeAttribute("address", HexUtil.hexWordPlain(subroutine.getAddress()));
+        writer.writeAttribute("arguments", HexUtil.hexBytePlain(subroutine.getArguments()));
+        writer.writeCharacters(subroutine.getType().name());
+        writer.writeEndElement();
+      }
+      endWrapper(writer, depth);
+    }
+
+    // entry points
+    if (startWrapper(writer, depth, "entry-points", commands.getEntryPoints().isEmpty())) {
+      for (int address : commands.getEntryPoints()) {
+        indent(writer, depth + 1);
+        writer.writeEmptyElement("entry-point");
+        writer.writeAttribute("address", HexUtil.hexWordPlain(address));
+      }
+      endWrapper(writer, depth);
+    }
+
+    writeTypes(commands, writer, depth);
+  }
+
+  /**
+   * Write the detected code types as ranges of the same type.
+   *
+   * @param commands Command buffer
+   * @param writer StAX writer
+   * @param depth Nesting depth of the types element
+   */
+  private static void writeTypes(CommandBuffer commands, XMLStreamWriter writer, int depth) throws XMLStreamException {
+    int length = commands.getLength();
+    int firstIndex = 0;
+    while (firstIndex < length && commands.getType(firstIndex).isUnknown()) {
+      firstIndex++;
+    }
+
+    if (startWrapper(writer, depth, "types", firstIndex == length)) {
+      for (int index = firstIndex; index < length; ) {
+        int startIndex = index;
+        CodeType type = commands.getType(index++);
+        if (type.isUnknown()) {
+          continue;
+        }
+
+        while (index < length && commands.getType(index) == type) {
+          index++;
+        }
+
+        indent(writer, depth + 1);
+        writer.writeStartElement("type");
+        writer.writeAttribute("index", HexUtil.hexWordPlain(startIndex));
+        if (index - startIndex > 1) {
+          writer.writeAttribute("end", HexUtil.hexWordPlain(index));
+        }
+        writer.writeCharacters(type.name());
+        writer.writeEndElement();
+      }
+      endWrapper(writer, depth);
+    }
+  }
+
+  //
+  // Read
+  //
+
+  /**
+   * Read the command buffer element and create the commands.
+   *
+   * @param reader StAX reader at the start of the command buffer element
+   * @return command buffer, the reader is at the end of the command buffer element
+   */
+  public static CommandBuffer read(XMLStreamReader reader) throws XMLStreamException {
+    requireThat(reader, "reader").isNotNull();
+
+    byte[] code = null;
+    CommandBuffer commands = null;
+    while (nextElement(reader)) {
+      switch (reader.getLocalName()) {
+        case "code" -> code = readCode(reader);
+        case "addresses" -> commands = readAddresses(reader, code);
+        case "subroutines" -> readSubroutines(reader, checkCommands(reader, commands));
+        case "entry-points" -> readEntryPoints(reader, checkCommands(reader, commands));
+        case "types" -> readTypes(reader, checkCommands(reader, commands));
+        default -> skipElement(reader);
+      }
+    }
+
+    checkCommands(reader, commands);
+    new CommandCreator(commands).createCommands();
+
+    return commands;
+  }
+
+  /**
+   * Read the base64 encoded code.
+   *
+   * @param reader StAX reader at the start of the code element
+   */
+  private static byte[] readCode(XMLStreamReader reader) throws XMLStreamException {
+    try {
+      return Base64.getMimeDecoder().decode(reader.getElementText());
+    } catch (IllegalArgumentException e) {
+      throw new XMLStreamException("Invalid code.", reader.getLocation(), e);
+    }
+  }
+
+  /**
+   * Read the base addresses and create the command buffer.
+   * Each base address is applied, when the next one has been read,
+   * because the last one is just the end marker.
+   *
+   * @param reader StAX reader at the start of the addresses element
+   * @param code Code read before
+   */
+  private static CommandBuffer readAddresses(XMLStreamReader reader, byte[] code) throws XMLStreamException {
+    if (code == null) {
+      throw new XMLStreamException("Code expected before addresses.", reader.getLocation());
+    }
+
+    CommandBuffer commands = null;
+    int startAddress = 0;
+    // last read base address, which has not been applied yet
+    int index = -1;
+    int base = -1;
+    while (nextElement(reader)) {
+      if (!reader.getLocalName().equals("address")) {
+        skipElement(reader);
+        continue;
+      }
+
+      int nextIndex = hex(reader, "index", HexUtil::parseHexWordPlain);
+      int nextBase = hex(reader, "base", HexUtil::parseHexWordPlain);
+      skipElement(reader);
+
+      if (commands == null) {
+        if (nextIndex != 0) {
+          throw new XMLStreamException("Invalid start index " + nextIndex + ".", reader.getLocation());
+        }
+        // the start address is the first base address and automatically sets the end base address
+        startAddress = nextBase;
+        commands = new CommandBuffer(code, startAddress);
+      } else if (index > 0) {
+        commands.rebase(index, base);
+      }
+      index = nextIndex;
+      base = nextBase;
+    }
+
+    if (commands == null || index != code.length || base != startAddress) {
+      throw new XMLStreamException("Invalid end address.", reader.getLocation());
+    }
+
+    return commands;
+  }
+
+  /**
+   * Read the subroutines.
+   *
+   * @param reader StAX reader at the start of the subroutines element
+   * @param commands Command buffer
+   */
+  private static void readSubroutines(XMLStreamReader reader, CommandBuffer commands) throws XMLStreamException {
+    while (nextElement(reader)) {
+      if (!reader.getLocalName().equals("subroutine")) {
+        skipElement(reader);
+        continue;
+      }
+
+      int address = hex(reader, "address", HexUtil::parseHexWordPlain);
+      int arguments = hex(reader, "arguments", HexUtil::parseHexBytePlain);
+      commands.addSubroutine(new Subroutine(address, arguments, readType(reader)));
+    }
+  }
+
+  /**
+   * Read the entry points.
+   *
+   * @param reader StAX reader at the start of the entry points element
+   * @param commands Command buffer
+   */
+  private static void readEntryPoints(XMLStreamReader reader, CommandBuffer commands) throws XMLStreamException {
+    while (nextElement(reader)) {
+      if (reader.getLocalName().equals("entry-point")) {
+        commands.addEntryPoint(hex(reader, "address", HexUtil::parseHexWordPlain));
+      }
+      skipElement(reader);
+    }
+  }
+
+  /**
+   * Read the detected code types and set them directly.
+   *
+   * @param reader StAX reader at the start of the types element
+   * @param commands Command buffer
+   */
+  private static void readTypes(XMLStreamReader reader, CommandBuffer commands) throws XMLStreamException {
+    while (nextElement(reader)) {
+      if (!reader.getLocalName().equals("type")) {
+        skipElement(reader);
+        continue;
+      }
+
+      int index = hex(reader, "index", HexUtil::parseHexWordPlain);
+      if (reader.getAttributeValue(null, "end") != null) {
+        int endIndex = hex(reader, "end", HexUtil::parseHexWordPlain);
+        commands.setType(index, endIndex, readType(reader));
+      } else {
+        commands.setType(index, readType(reader));
+      }
+    }
+  }
+
+  /**
+   * Read the code type of the current element.
+   *
+   * @param reader StAX reader at the start of the element
+   * @return code type, the reader is at the end of the element
+   */
+  private static CodeType readType(XMLStreamReader reader) throws XMLStreamException {
+    String type = reader.getElementText().trim();
+    try {
+      return CodeType.valueOf(type);
+    } catch (IllegalArgumentException e) {
+      throw new XMLStreamException("Invalid code type " + type + ".", reader.getLocation(), e);
+    }
+  }
+
+  /**
+   * Parse a mandatory hex attribute of the current element.
+   *
+   * @param reader StAX reader at the start of the element
+   * @param name Name of the attribute
+   * @param parser Hex parser
+   */
+  private static int hex(XMLStreamReader reader, String name, ToIntFunction<String> parser) throws XMLStreamException {
+    String value = attribute(reader, name);
+    try {
+      return parser.applyAsInt(value);
+    } catch (IllegalArgumentException e) {
+      throw new XMLStreamException("Invalid " + name + " " + value + ".", reader.getLocation(), e);
+    }
+  }
+
+  /**
+   * Check that the command buffer has been created by reading the addresses.
+   *
+   * @param reader StAX reader
+   * @param commands Command buffer or null, if not yet created
+   */
+  private static CommandBuffer checkCommands(XMLStreamReader reader, CommandBuffer commands) throws XMLStreamException {
+    if (commands == null) {
+      throw new XMLStreamException("Addresses expected before " + reader.getLocalName() + ".", reader.getLocation());
+    }
+
+    return commands;
+  }
+}
@@ -1,5 +1,9 @@
 package de.heiden.c64dt.reassembler.command;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 import de.heiden.c64dt.assembler.CodeBuffer;
 import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.assembler.OpcodeType;
@@ -17,6 +21,12 @@ public class CommandCreator {
    */
   private int index;
 
+  /**
+   * Absolute addresses whose labels used for combining commands have been added or removed.
+   * Just tracked during incremental updates.
+   */
+  private List<Integer> flipped;
+
   /**
    * Constructor.
    *
@@ -28,11 +38,40 @@ public class CommandCreator {
 
   /**
    * Update commands.
+   *
+   * @throws IllegalArgumentException if the code does not fit into the 64 KB address space
    */
   public void createCommands() {
+    // The token references and labels are tables by absolute address, limited to 64 KB
+    requireThat(commandBuffer.getEndAddress(), "commandBuffer.getEndAddress()").isLessThanOrEqualTo(0x10000);
+
     create();
     combine();
     unreachability();
+    // all changes have been considered
+    commandBuffer.getDirty().clear();
+  }
+
+  /**
+   * Update commands incrementally after code types or references have been changed.
+   * Commands are just recreated from a changed relative address on,
+   * until they resynchronize with the previously created commands.
+   * The result is the same as of {@link #createCommands()}.
+   */
+  public void updateCommands() {
+    if (commandBuffer.getTokenReferences() == null) {
+      // no previously created commands to update
+      createCommands();
+      return;
+    }
+
+    var code = new CodeBuffer(commandBuffer.getStartAddress(), commandBuffer.getCode());
+    BitSet dirty = commandBuffer.getDirty();
+    BitSet created = new BitSet(commandBuffer.getLength());
+    for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(0)) {
+      recreate(code, commandBuffer.commandIndex(index), index, created);
+    }
+    reachability(created);
   }
 
   /**
@@ -42,65 +81,215 @@ public class CommandCreator {
     var code = new CodeBuffer(commandBuffer.getStartAddress(), commandBuffer.getCode());
 
     commandBuffer.clear();
+    flipped = null;
+    index = 0;
     while (code.hasMore()) {
-      int codeIndex = code.getCurrentIndex();
-
-      requireThat(codeIndex, "codeIndex").isEqualTo(index, "index");
-      var type = commandBuffer.getType(index);
-
-      if (type == CodeType.BIT) {
-        // BIT opcode used just to skip the next opcode
-        var opcode = code.readOpcode();
-        int modeSize = opcode.getMode().getSize();
-
-        if (opcode.getType() == OpcodeType.BIT && modeSize > 0 && code.has(modeSize)) {
-          int argumentIndex = code.getCurrentIndex();
-          // Reset code buffer to the argument, because this should be the skipped opcode
-          code.setCurrentIndex(argumentIndex);
-          addCommand(new BitCommand(opcode, code.read(modeSize)));
-        } else {
-          // no BIT opcode -> assume data
-          code.setCurrentIndex(codeIndex);
-          addCommand(new DataCommand(code.readByte()));
-        }
-      } else if (type == CodeType.ADDRESS) {
-        // absolute address as data
-        int address;
-        if (code.has(2) && commandBuffer.hasAddress(address = code.read(2))) {
-          commandBuffer.addCodeReference(index, address);
-          addCommand(new AddressCommand(address));
-        } else {
-          code.setCurrentIndex(codeIndex);
-          addCommand(new DataCommand(code.readByte(), code.readByte()));
+      requireThat(code.getCurrentIndex(), "codeIndex").isEqualTo(index, "index");
+      addCommand(create(code));
+    }
+  }
+
+  /**
+   * Recreate the commands from the given relative address on,
+   * until they resynchronize with the previously created commands.
+   *
+   * @param code Code buffer
+   * @param startIndex relative address of the first command to recreate
+   * @param changedIndex relative address of the change
+   * @param created relative addresses of all recreated commands
+   */
+  private void recreate(CodeBuffer code, int startIndex, int changedIndex, BitSet created) {
+    BitSet dirty = commandBuffer.getDirty();
+    flipped = new ArrayList<>();
+
+    // tokenize
+    code.setCurrentIndex(startIndex);
+    index = startIndex;
+    ICommand lastCommand = null;
+    while (code.hasMore()) {
+      ICommand oldCommand = commandBuffer.getCommand(index);
+      if (index > changedIndex && oldCommand != null && !dirty.get(index) &&
+        !(lastCommand instanceof DataCommand && oldCommand instanceof DataCommand)) {
+        // Resynchronized: The following commands will be the same and can not be combined with the new ones
+        break;
+      }
+
+      removeOldCommand(index);
+      var command = create(code);
+      for (int i = index + 1; i < index + command.getSize(); i++) {
+        removeOldCommand(i);
+      }
+      addCommand(command);
+      lastCommand = command;
+    }
+    int endIndex = index;
+
+    // combine with the previous command and with each other
+    int combineIndex = startIndex > 0 ? commandBuffer.commandIndex(startIndex - 1) : startIndex;
+    lastCommand = startIndex > 0 ? commandBuffer.getCommand(combineIndex) : null;
+    for (int i = startIndex; i < endIndex; ) {
+      var command = commandBuffer.getCommand(i);
+      int size = command.getSize();
+      if (!hasTokenLabel(command.getAddress()) && lastCommand != null && lastCommand.combineWith(command)) {
+        commandBuffer.removeCommand(i);
+      } else {
+        lastCommand = command;
+        created.set(i);
+      }
+      i += size;
+    }
+
+    dirty.clear(startIndex, endIndex);
+    commandBuffer.changed(combineIndex, endIndex);
+
+    // Labels used for combining data commands changed outside the recreated commands
+    for (int address : flipped) {
+      int flippedIndex = commandBuffer.indexForAddress(address);
+      if (flippedIndex >= startIndex && flippedIndex < endIndex) {
+        // already considered
+        continue;
+      }
+
+      int commandIndex = commandBuffer.commandIndex(flippedIndex);
+      if (commandBuffer.getCommand(commandIndex) instanceof DataCommand) {
+        // data command has to be split at the new label or may be combined with the previous one
+        dirty.set(commandIndex);
+        if (commandIndex == flippedIndex && commandIndex > 0) {
+          dirty.set(commandBuffer.commandIndex(commandIndex - 1));
         }
-      } else if (type == CodeType.DATA) {
-        // plain data
-        addCommand(new DataCommand(code.readByte()));
+      }
+    }
+    flipped = null;
+  }
+
+  /**
+   * Remove a previously created command.
+   *
+   * @param index relative address
+   */
+  private void removeOldCommand(int index) {
+    var command = commandBuffer.getCommand(index);
+    if (command == null) {
+      return;
+    }
+
+    int address = getReferencedAddress(command);
+    if (address >= 0) {
+      countTokenReference(address, -1);
+    }
+    commandBuffer.removeReference(index);
+    commandBuffer.removeCommand(index);
+  }
+
+  /**
+   * Create the command at the current position of the code buffer.
+   * Adds the references of the command too.
+   *
+   * @param code Code buffer
+   * @return command
+   */
+  private ICommand create(CodeBuffer code) {
+    int codeIndex = code.getCurrentIndex();
+    var type = commandBuffer.getType(codeIndex);
+
+    if (type == CodeType.BIT) {
+      // BIT opcode used just to skip the next opcode
+      var opcode = code.readOpcode();
+      int modeSize = opcode.getMode().getSize();
+
+      if (opcode.getType() == OpcodeType.BIT && modeSize > 0 && code.has(modeSize)) {
+        int argumentIndex = code.getCurrentIndex();
+        int argument = code.readUnchecked(modeSize);
+        // Reset code buffer to the argument, because this should be the skipped opcode
+        code.setCurrentIndex(argumentIndex);
+        return new BitCommand(opcode, argument);
+      } else {
+        // no BIT opcode -> assume data
+        code.setCurrentIndex(codeIndex);
+        return new DataCommand(code.readByte());
+      }
+    } else if (type == CodeType.ADDRESS) {
+      // absolute address as data
+      int address;
+      if (code.has(2) && commandBuffer.hasAddress(address = code.readUnchecked(2))) {
+        commandBuffer.addCodeReference(codeIndex, address);
+        countTokenReference(address, 1);
+        return new AddressCommand(address);
       } else {
-        // unknown or code -> try to disassemble an opcode
-        var opcode = code.readOpcode();
-        var mode = opcode.getMode();
-        int modeSize = mode.getSize();
-
-        if (code.has(modeSize) && (opcode.isLegal() || type == CodeType.OPCODE)) {
-          // TODO mh: log error if illegal opcode and type is OPCODE?
-          int argument = code.read(modeSize);
-          if (mode.isAddress()) {
-            int pc = commandBuffer.addressForIndex(index);
-            int address = mode.getAddress(pc, argument);
-            // track references of opcodes
-            commandBuffer.addReference(opcode.getType().isJump(), index, address);
-          }
-          addCommand(new OpcodeCommand(opcode, argument));
-        } else {
-          // not enough argument bytes for opcode or illegal opcode -> assume data
-          code.setCurrentIndex(codeIndex);
-          addCommand(new DataCommand(code.readByte()));
+        code.setCurrentIndex(codeIndex);
+        return new DataCommand(code.readByte(), code.readByte());
+      }
+    } else if (type == CodeType.DATA) {
+      // plain data
+      return new DataCommand(code.readByte());
+    } else {
+      // unknown or code -> try to disassemble an opcode
+      var opcode = code.readOpcode();
+      var mode = opcode.getMode();
+      int modeSize = mode.getSize();
+
+      if (code.has(modeSize) && (opcode.isLegal() || type == CodeType.OPCODE)) {
+        // TODO mh: log error if illegal opcode and type is OPCODE?
+        int argument = code.readUnchecked(modeSize);
+        if (mode.isAddress()) {
+          int pc = commandBuffer.addressForIndex(codeIndex);
+          int address = mode.getAddress(pc, argument);
+          // track references of opcodes
+          commandBuffer.addReference(opcode.getType().isJump(), codeIndex, address);
+          countTokenReference(address, 1);
         }
+        return new OpcodeCommand(opcode, argument);
+      } else {
+        // not enough argument bytes for opcode or illegal opcode -> assume data
+        code.setCurrentIndex(codeIndex);
+        return new DataCommand(code.readByte());
       }
     }
   }
 
+  /**
+   * Absolute address referenced by a command.
+   *
+   * @param command Command with address
+   * @return absolute address or -1, if the command does not reference an address
+   */
+  private int getReferencedAddress(ICommand command) {
+    if (command instanceof AddressCommand addressCommand) {
+      return addressCommand.getReferencedAddress();
+    } else if (command instanceof OpcodeCommand opcodeCommand && opcodeCommand.getOpcode().getMode().isAddress()) {
+      return opcodeCommand.getOpcode().getMode().getAddress(command.getAddress(), opcodeCommand.getArgument());
+    }
+
+    return -1;
+  }
+
+  /**
+   * Count a reference of a command, regardless of its reachability.
+   *
+   * @param address referenced absolute address
+   * @param delta 1 for added, -1 for removed references
+   */
+  private void countTokenReference(int address, int delta) {
+    if (!commandBuffer.hasAddress(address)) {
+      // external references do not lead to labels inside the code
+      return;
+    }
+
+    int count = commandBuffer.getTokenReferences()[address] += delta;
+    if (flipped != null && count == (delta > 0 ? 1 : 0)) {
+      flipped.add(address);
+    }
+  }
+
+  /**
+   * Is there a label at the given absolute address, regardless of the reachability of the references?.
+   *
+   * @param address absolute address
+   */
+  private boolean hasTokenLabel(int address) {
+    return commandBuffer.getTokenReferences()[address] > 0;
+  }
+
   /**
    * Add a command at the end of the buffer.
    *
@@ -160,6 +349,50 @@ public class CommandCreator {
     }
   }
 
+  /**
+   * Updates the reachability of the recreated commands and of the commands before them.
+   * Works like {@link #unreachability()}, but stops tracing backward as soon as the reachability does not change anymore.
+   *
+   * @param created relative addresses of all recreated commands
+   */
+  private void reachability(BitSet created) {
+    BitSet check = (BitSet) created.clone();
+    for (int index = check.previousSetBit(commandBuffer.getLength() - 1); index >= 0; index = check.previousSetBit(index - 1)) {
+      var command = commandBuffer.getCommand(index);
+      if (command == null) {
+        // combined with a previous command later on
+        continue;
+      }
+
+      boolean initial = command instanceof OpcodeCommand || command instanceof BitCommand;
+      // references of new commands have been added regardless of their reachability
+      boolean wasReachable = created.get(index) ? initial : command.isReachable();
+      int nextIndex = index + command.getSize();
+      boolean nextReachable = commandBuffer.hasIndex(nextIndex) && commandBuffer.isReachable(nextIndex);
+      boolean reachable = initial &&
+        (nextReachable || command.isEnd() || isJsr(command) || commandBuffer.getType(index).isCode());
+
+      command.setReachable(reachable);
+      if (wasReachable && !reachable) {
+        commandBuffer.removeReference(index);
+      } else if (!wasReachable && reachable && command instanceof OpcodeCommand opcodeCommand) {
+        int address = getReferencedAddress(command);
+        if (address >= 0) {
+          commandBuffer.addReference(opcodeCommand.getOpcode().getType().isJump(), index, address);
+          commandBuffer.getDirty().clear(index);
+        }
+      }
+
+      if (created.get(index) || wasReachable != reachable) {
+        commandBuffer.changed(index, nextIndex);
+        if (index > 0) {
+          // the previous command may lead to a command with a changed reachability
+          check.set(commandBuffer.commandIndex(index - 1));
+        }
+      }
+    }
+  }
+
   /**
    * Check if command is a JSR.
    *
@@ -6,6 +6,7 @@ import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.reassembler.label.ILabel;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.common.Checks.requireNotNull;
 
 /**
  * Command iterator.
@@ -40,7 +41,7 @@ public class CommandIterator implements Iterator<ICommand> {
    */
   public CommandIterator reverse() {
     // trace backward for last command
-    for (index = commands.getLength() - 1; index >= 0 && commands.getCommand(index) == null; index--) {
+    for (index = commands.getLength() - 1; index >= 0 && !commands.hasCommand(index); index--) {
       // search further
     }
     // set index after last command
@@ -105,7 +106,7 @@ public class CommandIterator implements Iterator<ICommand> {
    * This is the index from where the next command will be read.
    */
   public int getNextIndex() {
-    return index < 0 ? 0 : index + getCommand().getSize();
+    return index < 0 ? 0 : index + commands.commandSize(index);
   }
 
   /**
@@ -124,7 +125,7 @@ public class CommandIterator implements Iterator<ICommand> {
     index = getNextIndex();
     ICommand result = getCommand();
 
-    requireThat(result, "result").isNotNull();
+    requireNotNull(result, "result");
     return result;
   }
 
@@ -158,12 +159,12 @@ public class CommandIterator implements Iterator<ICommand> {
     // get start of current command for consistency check
     int endIndex = index;
     // trace backwards for previous command
-    while (index > 0 && commands.getCommand(--index) == null) {
+    while (index > 0 && !commands.hasCommand(--index)) {
       // search further
     }
     ICommand result = getCommand();
 
-    requireThat(result, "result").isNotNull();
+    requireNotNull(result, "result");
     // Check that the previous commands ends at the start of the current command.
     requireThat(getNextIndex(), "getNextIndex()").isEqualTo(endIndex);
     return result;
@@ -197,7 +198,7 @@ public class CommandIterator implements Iterator<ICommand> {
    * Is a label at the current opcode / command?
    */
   public boolean hasLabel() {
-    return commands.hasLabel(getCommand().getAddress());
+    return commands.hasLabel(getAddress());
   }
 
   /**
@@ -206,21 +207,21 @@ public class CommandIterator implements Iterator<ICommand> {
    * @return label representation or null if no label exists for the current address
    */
   public ILabel getLabel() {
-    return commands.getLabel(getCommand().getAddress());
+    return commands.getLabel(getAddress());
   }
 
   /**
    * Is a code label at the current opcode / command?
    */
   public boolean hasCodeLabel() {
-    return commands.hasCodeLabel(getCommand().getAddress());
+    return commands.hasCodeLabel(getAddress());
   }
 
   /**
    * Is a data label at the current opcode / command?
    */
   public boolean hasDataLabel() {
-    return commands.hasDataLabel(getCommand().getAddress());
+    return commands.hasDataLabel(getAddress());
   }
 
   /**
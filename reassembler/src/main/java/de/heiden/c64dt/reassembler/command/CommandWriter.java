@@ -3,7 +3,6 @@ package de.heiden.c64dt.reassembler.command;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Collection;
-import java.util.List;
 import java.util.TreeSet;
 
 import de.heiden.c64dt.reassembler.label.ExternalLabel;
@@ -57,6 +56,8 @@ public class CommandWriter {
 
     // code
     StringBuilder line = new StringBuilder(80);
+    // commands are never longer than the code
+    byte[] data = new byte[commands.getLength()];
     for (CommandIterator iter = commands.iterator(); iter.hasNext(); ) {
       ICommand command = iter.next();
       int pc = command.getAddress();
@@ -84,13 +85,13 @@ public class CommandWriter {
 
       // debug output: byte representation of command
       line.append(hexWordPlain(pc));
-      List<Integer> data = command.toBytes();
-      for (int i = 0; i < data.size() && i < 3; i++) {
+      int size = command.toBytes(data, 0);
+      for (int i = 0; i < size && i < 3; i++) {
         line.append(" ");
-        line.append(hexBytePlain(data.get(i)));
+        line.append(hexBytePlain(data[i] & 0xFF));
       }
       fillSpaces(line, 21);
-      line.append(data.size() > 3 ? "..." : "   ");
+      line.append(size > 3 ? "..." : "   ");
       line.append(" | ");
 
       // reassembler output
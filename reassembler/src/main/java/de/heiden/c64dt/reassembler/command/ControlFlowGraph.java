@@ -0,0 +1,356 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import de.heiden.c64dt.assembler.OpcodeMode;
+import de.heiden.c64dt.assembler.OpcodeTable;
+import de.heiden.c64dt.assembler.OpcodeType;
+
+import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+
+/**
+ * Control flow graph of the commands reachable from the entry points of a command buffer.
+ * Follows branches, JMP, JSR and RTS in one pass over the reachable commands.
+ * JSRs to known subroutines with arguments continue after the arguments.
+ * Indirect jumps are not followed, because their targets are not known statically.
+ * <p>
+ * The graph just covers code reachable from the entry points.
+ * It does not replace the unreachability sweep of the {@link CommandCreator},
+ * which is still needed for all other code.
+ * <p>
+ * The leaders of the {@link BasicBlock}s are the entry points, the successors of jumps
+ * and the instructions with multiple predecessors, regardless of code labels.
+ * Unlike the label based blocks of the {@link BlockIndex}, these blocks follow the control flow from the entry points.
+ * <p>
+ * The graph is a snapshot of the commands at the time of its creation,
+ * see {@link #isAffectedBy(BitSet)} for when it has to be created again.
+ * The basic blocks are created on first access, because the reachability alone does not need them.
+ * So they should be accessed before the commands are changed.
+ */
+public class ControlFlowGraph {
+  /**
+   * Marker for unknown subroutines in {@link #calls}.
+   */
+  private static final int NO_SUBROUTINE = Integer.MIN_VALUE;
+
+  /**
+   * Command buffer.
+   */
+  private final CommandBuffer commands;
+
+  /**
+   * Relative addresses of the reachable instructions.
+   */
+  private final BitSet reachable;
+
+  /**
+   * Relative addresses of the first instructions of the basic blocks.
+   */
+  private final BitSet leaders;
+
+  /**
+   * Relative addresses, which are reachable but no instruction starts at, e.g. jumps into data or into an opcode.
+   */
+  private final BitSet conflicts;
+
+  /**
+   * Absolute addresses of the entry points the graph has been created from.
+   */
+  private final Set<Integer> entryPoints;
+
+  /**
+   * Absolute addresses of the called subroutines, each followed by its number of arguments as used by the graph.
+   * {@link #NO_SUBROUTINE}, if the subroutine was not known.
+   */
+  private int[] calls;
+
+  /**
+   * Number of used entries of {@link #calls}.
+   */
+  private int callsSize;
+
+  /**
+   * Relative addresses of the first instructions of all basic blocks, ascending.
+   * Null, if the blocks have not been created yet.
+   */
+  private int[] blockIndices;
+
+  /**
+   * Basic blocks, in the order of {@link #blockIndices}.
+   */
+  private List<BasicBlock> blocks;
+
+  /**
+   * Constructor.
+   * Builds the control flow graph from the entry points of the command buffer.
+   *
+   * @param commands Command buffer with created commands
+   */
+  public ControlFlowGraph(CommandBuffer commands) {
+    requireThat(commands, "commands").isNotNull();
+
+    this.commands = commands;
+    this.reachable = new BitSet(commands.getLength());
+    this.leaders = new BitSet(commands.getLength());
+    this.conflicts = new BitSet();
+    this.entryPoints = Set.copyOf(commands.getEntryPoints());
+    this.calls = new int[16];
+
+    traverse();
+    leaders.and(reachable);
+  }
+
+  /**
+   * Follow the control flow from the entry points and determine the leaders of the basic blocks.
+   */
+  private void traverse() {
+    // work queue of relative addresses to visit
+    int[] queue = new int[64];
+    int size = 0;
+    // relative addresses with at least one predecessor
+    BitSet reached = new BitSet(commands.getLength());
+    BitSet visited = new BitSet(commands.getLength());
+
+    for (int address : commands.getEntryPoints()) {
+      int index = commands.indexForAddress(address);
+      leaders.set(index);
+      queue[size++] = index;
+      if (size == queue.length) {
+        queue = Arrays.copyOf(queue, size * 2);
+      }
+    }
+
+    int[] successors = new int[2];
+    while (size > 0) {
+      int index = queue[--size];
+      if (visited.get(index)) {
+        continue;
+      }
+      visited.set(index);
+
+      if (!commands.isInstruction(index)) {
+        conflicts.set(index);
+        continue;
+      }
+      reachable.set(index);
+
+      int count = successors(index, successors);
+      // control flow does not just continue with the next instruction
+      boolean split = count != 1 || OpcodeTable.isJump(commands.opcode(index));
+      for (int i = 0; i < count; i++) {
+        int successor = successors[i];
+        if (split || reached.get(successor)) {
+          // successor of a jump or successor with multiple predecessors
+          leaders.set(successor);
+        }
+        reached.set(successor);
+
+        if (size + 1 >= queue.length) {
+          queue = Arrays.copyOf(queue, queue.length * 2);
+        }
+        queue[size++] = successor;
+      }
+    }
+  }
+
+  /**
+   * Determine the successors of an instruction.
+   *
+   * @param index relative address of the instruction
+   * @param result array for the relative addresses of the successors, with space for 2 successors
+   * @return number of successors
+   */
+  private int successors(int index, int[] result) {
+    int opcode = commands.opcode(index);
+    int entry = OpcodeTable.entry(opcode);
+    int count = 0;
+
+    // for bit commands the next instruction is after the skipped opcode too
+    int nextIndex = index + OpcodeTable.size(opcode);
+    if ((entry & OpcodeTable.JUMP) != 0) {
+      OpcodeMode mode = OpcodeTable.mode(opcode);
+      if (mode == OpcodeMode.ABS || mode == OpcodeMode.REL) {
+        int address = mode.getAddress(commands.addressForIndex(index), commands.argument(index));
+        if (commands.hasAddress(address)) {
+          result[count++] = commands.indexForAddress(address);
+        }
+
+        if (OpcodeTable.type(opcode) == OpcodeType.JSR) {
+          nextIndex = returnIndex(index, address);
+        }
+      }
+    }
+
+    if ((entry & OpcodeTable.END) == 0 && commands.hasIndex(nextIndex)) {
+      result[count++] = nextIndex;
+    }
+
+    return count;
+  }
+
+  /**
+   * Relative address where the code continues after a JSR.
+   * Skips the arguments of known subroutines.
+   *
+   * @param index relative address of the JSR
+   * @param address absolute address of the subroutine
+   * @return relative address after the JSR or -1, if not known
+   */
+  private int returnIndex(int index, int address) {
+    int nextIndex = index + 3;
+    Subroutine subroutine = commands.getSubroutine(address);
+    recordCall(address, subroutine);
+    if (subroutine == null || subroutine.getArguments() < 0) {
+      // "normal" subroutine
+      return nextIndex;
+    } else if (subroutine.getArguments() > 0) {
+      // fixed length argument
+      return nextIndex + subroutine.getArguments();
+    }
+
+    // zero terminated argument
+    byte[] code = commands.getCode();
+    for (int i = nextIndex; i < code.length; i++) {
+      if (code[i] == 0) {
+        return i + 1;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Record the number of arguments of a called subroutine, which has been used by the graph.
+   *
+   * @param address absolute address of the subroutine
+   * @param subroutine subroutine or null, if not known
+   */
+  private void recordCall(int address, Subroutine subroutine) {
+    if (callsSize + 2 > calls.length) {
+      calls = Arrays.copyOf(calls, calls.length * 2);
+    }
+    calls[callsSize++] = address;
+    calls[callsSize++] = arguments(subroutine);
+  }
+
+  /**
+   * Number of arguments of a subroutine as recorded in {@link #calls}.
+   *
+   * @param subroutine subroutine or null, if not known
+   */
+  private static int arguments(Subroutine subroutine) {
+    return subroutine != null ? subroutine.getArguments() : NO_SUBROUTINE;
+  }
+
+  /**
+   * Create the basic blocks from the leaders.
+   */
+  private void createBlocks() {
+    blockIndices = new int[leaders.cardinality()];
+    blocks = new ArrayList<>(blockIndices.length);
+
+    int[] successors = new int[2];
+    int block = 0;
+    for (int startIndex = leaders.nextSetBit(0); startIndex >= 0; startIndex = leaders.nextSetBit(startIndex + 1)) {
+      // follow the instructions until the control flow does not just continue with the next instruction
+      int index = startIndex;
+      int count;
+      while ((count = successors(index, successors)) == 1 &&
+        !OpcodeTable.isJump(commands.opcode(index)) && !leaders.get(successors[0]) && reachable.get(successors[0])) {
+        index = successors[0];
+      }
+
+      int[] blockSuccessors = new int[count];
+      int blockSuccessorCount = 0;
+      for (int i = 0; i < count; i++) {
+        if (reachable.get(successors[i])) {
+          blockSuccessors[blockSuccessorCount++] = successors[i];
+        }
+      }
+
+      blockIndices[block++] = startIndex;
+      blocks.add(new BasicBlock(
+        startIndex,
+        index + OpcodeTable.size(commands.opcode(index)),
+        Arrays.copyOf(blockSuccessors, blockSuccessorCount)));
+    }
+  }
+
+  //
+  // Result
+  //
+
+  /**
+   * Could changes of the commands at the given relative addresses change this graph?.
+   * The graph depends only on the commands it visited, the subroutines it called and the entry points,
+   * so changes of all other commands do not affect it.
+   *
+   * @param indices relative addresses of the changed commands
+   */
+  public boolean isAffectedBy(BitSet indices) {
+    requireThat(indices, "indices").isNotNull();
+
+    if (indices.intersects(reachable) || indices.intersects(conflicts) || !entryPoints.equals(commands.getEntryPoints())) {
+      return true;
+    }
+    for (int i = 0; i < callsSize; i += 2) {
+      if (arguments(commands.getSubroutine(calls[i])) != calls[i + 1]) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Is the instruction at the given relative address reachable from the entry points?.
+   *
+   * @param index relative address
+   */
+  public boolean isReachable(int index) {
+    return reachable.get(index);
+  }
+
+  /**
+   * Relative addresses of all reachable instructions.
+   */
+  public BitSet getReachable() {
+    return (BitSet) reachable.clone();
+  }
+
+  /**
+   * Relative addresses, which are reachable but no instruction starts at, e.g. jumps into data or into an opcode.
+   */
+  public BitSet getConflicts() {
+    return (BitSet) conflicts.clone();
+  }
+
+  /**
+   * All basic blocks, ordered by their relative start address.
+   */
+  public List<BasicBlock> getBlocks() {
+    if (blockIndices == null) {
+      createBlocks();
+    }
+    return Collections.unmodifiableList(blocks);
+  }
+
+  /**
+   * Basic block starting at the given relative address.
+   *
+   * @param index relative address
+   * @return basic block or null, if no basic block starts at the given relative address
+   */
+  public BasicBlock getBlock(int index) {
+    if (blockIndices == null) {
+      createBlocks();
+    }
+    int block = Arrays.binarySearch(blockIndices, index);
+    return block >= 0 ? blocks.get(block) : null;
+  }
+}
@@ -1,8 +1,6 @@
 package de.heiden.c64dt.reassembler.command;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.charset.C64Charset;
@@ -22,8 +20,26 @@ public class DataCommand extends AbstractCommand {
 
   /**
    * Data bytes.
+   * If this command is a view of a command buffer, this is the code of the command buffer.
    */
-  private final List<Integer> data;
+  private byte[] data;
+
+  /**
+   * Index of the first data byte in {@link #data}.
+   */
+  private int offset;
+
+  /**
+   * Number of data bytes, if this command is not a view of a command buffer.
+   */
+  private int size;
+
+  /**
+   * Constructor for views of a command buffer.
+   */
+  DataCommand() {
+    super(CodeType.DATA);
+  }
 
   /**
    * Constructor.
@@ -33,8 +49,9 @@ public class DataCommand extends AbstractCommand {
   public DataCommand(int dataByte) {
     super(CodeType.DATA);
 
-    this.data = new ArrayList<>(MAX_BYTES);
-    this.data.add(dataByte);
+    this.data = new byte[]{(byte) dataByte};
+    this.offset = 0;
+    this.size = 1;
   }
 
   /**
@@ -45,15 +62,27 @@ public class DataCommand extends AbstractCommand {
   public DataCommand(int... dataBytes) {
     super(CodeType.DATA);
 
-    this.data = new ArrayList<>(MAX_BYTES);
-    for (int dataByte : dataBytes) {
-      this.data.add(dataByte);
+    this.data = new byte[dataBytes.length];
+    for (int i = 0; i < dataBytes.length; i++) {
+      this.data[i] = (byte) dataBytes[i];
     }
+    this.offset = 0;
+    this.size = dataBytes.length;
+  }
+
+  @Override
+  void bind(CommandBuffer buffer, int index, int address) {
+    super.bind(buffer, index, address);
+
+    // the data bytes are the code of the command buffer
+    this.data = buffer.getCode();
+    this.offset = index;
   }
 
   @Override
   public final int getSize() {
-    return data.size();
+    CommandBuffer buffer = getBuffer();
+    return buffer != null ? buffer.commandSize(getIndex()) : size;
   }
 
   @Override
@@ -69,11 +98,24 @@ public class DataCommand extends AbstractCommand {
     }
 
     // Only merge more than MAX_BYTES if result is a !FILL
-    if (data.size() >= MAX_BYTES && (!isSameByte() || !dataCommand.isSameByte() || !data.get(0).equals(dataCommand.data.get(0)))) {
+    int size = getSize();
+    if (size >= MAX_BYTES && (!isSameByte() || !dataCommand.isSameByte() || data[offset] != dataCommand.data[dataCommand.offset])) {
       return false;
     }
 
-    data.addAll(dataCommand.data);
+    int combinedSize = size + dataCommand.getSize();
+    CommandBuffer buffer = getBuffer();
+    if (buffer != null) {
+      // the data bytes of the following command are already part of the code
+      buffer.setCommandSize(getIndex(), combinedSize);
+    } else {
+      byte[] combined = Arrays.copyOfRange(data, offset, offset + combinedSize);
+      System.arraycopy(dataCommand.data, dataCommand.offset, combined, size, dataCommand.getSize());
+      this.data = combined;
+      this.offset = 0;
+      this.size = combinedSize;
+    }
+
     return true;
   }
 
@@ -81,30 +123,27 @@ public class DataCommand extends AbstractCommand {
   public String toString(CommandBuffer buffer) {
     requireThat(buffer, "buffer").isNotNull();
 
-    StringBuilder output = new StringBuilder(16 + data.size() * 8);
-    if (data.size() > 8 && isSameByte()) {
+    int size = getSize();
+    StringBuilder output = new StringBuilder(16 + size * 8);
+    if (size > 8 && isSameByte()) {
       // special case: the data consists of the same byte over and over again
 
       output.append("!FILL ");
-      output.append(hex(data.size()));
+      output.append(hex(size));
       output.append(", ");
-      output.append(hexByte(data.get(0)));
+      output.append(hexByte(data[offset] & 0xFF));
 
     } else {
       // default case: different data bytes
 
       output.append("!BYTE ");
-      output.append(hexByte(data.get(0)));
-      for (int i = 1; i < data.size(); i++) {
+      output.append(hexByte(data[offset] & 0xFF));
+      for (int i = 1; i < size; i++) {
         output.append(", ");
-        output.append(hexByte(data.get(i)));
+        output.append(hexByte(data[offset + i] & 0xFF));
       }
       output.append("; '");
-      byte[] string = new byte[data.size()];
-      for (int i = 0; i < data.size(); i++) {
-        string[i] = data.get(i).byteValue();
-      }
-      output.append(C64Charset.LOWER.toString(string));
+      output.append(C64Charset.LOWER.view(data, offset, size));
       output.append("'");
     }
 
@@ -115,9 +154,9 @@ public class DataCommand extends AbstractCommand {
    * Detect if the data consists of the same byte repeated multiple times.
    */
   private boolean isSameByte() {
-    Integer content = data.get(0);
-    for (Integer dataByte : data) {
-      if (!content.equals(dataByte)) {
+    byte content = data[offset];
+    for (int i = offset + 1, end = offset + getSize(); i < end; i++) {
+      if (data[i] != content) {
         return false;
       }
     }
@@ -125,8 +164,21 @@ public class DataCommand extends AbstractCommand {
     return true;
   }
 
+  /**
+   * Do the data bytes match the given code?.
+   *
+   * @param code code
+   * @param index index of the first data byte in the code
+   */
+  boolean matches(byte[] code, int index) {
+    int size = getSize();
+    return index >= 0 && index + size <= code.length && Arrays.equals(data, offset, offset + size, code, index, index + size);
+  }
+
   @Override
-  public List<Integer> toBytes() {
-    return Collections.unmodifiableList(data);
+  public int toBytes(byte[] bytes, int index) {
+    int size = getSize();
+    System.arraycopy(data, offset, bytes, index, size);
+    return index + size;
   }
 }
@@ -46,4 +46,9 @@ public class DummyCommand extends AbstractCommand {
   public List<Integer> toBytes() {
     throw new UnsupportedOperationException();
   }
+
+  @Override
+  public int toBytes(byte[] bytes, int index) {
+    throw new UnsupportedOperationException();
+  }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 
 /**
  * Command.
+ * The commands of a {@link CommandBuffer} are views of its columns.
  */
 public interface ICommand {
   /**
@@ -71,4 +72,13 @@ public interface ICommand {
    * Byte representation of this command.
    */
   List<Integer> toBytes();
+
+  /**
+   * Write the byte representation of this command into a buffer.
+   *
+   * @param bytes Buffer
+   * @param index Index in the buffer to write to
+   * @return Index after the written bytes
+   */
+  int toBytes(byte[] bytes, int index);
 }
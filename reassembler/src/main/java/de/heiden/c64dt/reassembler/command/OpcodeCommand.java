@@ -1,8 +1,5 @@
 package de.heiden.c64dt.reassembler.command;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.assembler.Opcode;
 import de.heiden.c64dt.assembler.OpcodeMode;
@@ -10,6 +7,7 @@ import de.heiden.c64dt.bytes.ByteUtil;
 import de.heiden.c64dt.reassembler.label.ILabel;
 
 import static com.github.cowwoc.requirements10.java.DefaultJavaValidators.requireThat;
+import static de.heiden.c64dt.common.Checks.requireNotNull;
 
 /**
  * Command for an opcode.
@@ -39,11 +37,11 @@ public class OpcodeCommand extends AbstractCommand {
   public OpcodeCommand(Opcode opcode, int argument) {
     super(CodeType.OPCODE);
 
-    requireThat(opcode, "opcode").isNotNull();
+    requireNotNull(opcode, "opcode");
 
     this.opcode = opcode;
     this.argument = argument;
-    this.size = 1 + opcode.getMode().getSize();
+    this.size = opcode.getSize();
     this.end = opcode.getType().isEnd();
 
   }
@@ -117,17 +115,15 @@ public class OpcodeCommand extends AbstractCommand {
   }
 
   @Override
-  public List<Integer> toBytes() {
-    List<Integer> result = new ArrayList<>(getSize());
-    result.add(opcode.getOpcode());
+  public int toBytes(byte[] bytes, int index) {
+    bytes[index++] = (byte) opcode.getOpcode();
     if (opcode.getMode().getSize() == 1) {
-      result.add(argument);
+      bytes[index++] = (byte) argument;
     } else if (opcode.getMode().getSize() == 2) {
-      result.add(ByteUtil.lo(argument));
-      result.add(ByteUtil.hi(argument));
+      bytes[index++] = (byte) ByteUtil.lo(argument);
+      bytes[index++] = (byte) ByteUtil.hi(argument);
     }
 
-    requireThat(result, "result").isNotNull();
-    return result;
+    return index;
   }
 }
@@ -0,0 +1,142 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Reverse index of references: Absolute address to the relative addresses of the commands referencing it.
+ * The relative addresses are kept in sorted primitive arrays,
+ * so all operations are proportional to the number of references to an address and not to the size of the code.
+ * The per address entries are kept in pages of {@value #PAGE_SIZE} addresses, which are allocated on first use,
+ * so the memory is proportional to the address ranges referenced.
+ * Just 16-bit addresses are supported, which {@link CommandBuffer} ensures for all references.
+ */
+class ReferenceIndex {
+  /**
+   * Number of bits of the address within a page.
+   */
+  private static final int PAGE_BITS = 8;
+
+  /**
+   * Number of addresses per page.
+   */
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+  /**
+   * Page of the absolute address to sorted relative addresses of the referencing commands.
+   * Just the first {@link #counts} entries are used.
+   * Pages without any reference ever are null.
+   */
+  private final int[][][] indices = new int[0x10000 >> PAGE_BITS][][];
+
+  /**
+   * Page of the absolute address to number of references.
+   * Pages without any reference ever are null.
+   */
+  private final int[][] counts = new int[0x10000 >> PAGE_BITS][];
+
+  /**
+   * Add a reference.
+   *
+   * @param address referenced absolute address
+   * @param index relative address of the command referencing
+   */
+  void add(int address, int index) {
+    int page = address >> PAGE_BITS;
+    int slot = address & (PAGE_SIZE - 1);
+    if (counts[page] == null) {
+      counts[page] = new int[PAGE_SIZE];
+      indices[page] = new int[PAGE_SIZE][];
+    }
+    int[] pageCounts = counts[page];
+    int[][] pageIndices = indices[page];
+
+    int count = pageCounts[slot];
+    int[] references = pageIndices[slot];
+    if (references == null) {
+      references = pageIndices[slot] = new int[2];
+    }
+
+    int position = Arrays.binarySearch(references, 0, count, index);
+    if (position >= 0) {
+      // already referenced
+      return;
+    }
+
+    position = -position - 1;
+    if (count == references.length) {
+      references = pageIndices[slot] = Arrays.copyOf(references, count * 2);
+    }
+    System.arraycopy(references, position, references, position + 1, count - position);
+    references[position] = index;
+    pageCounts[slot] = count + 1;
+  }
+
+  /**
+   * Remove a reference.
+   *
+   * @param address referenced absolute address
+   * @param index relative address of the command referencing
+   * @return number of remaining references to the address
+   */
+  int remove(int address, int index) {
+    int page = address >> PAGE_BITS;
+    int slot = address & (PAGE_SIZE - 1);
+    int[] pageCounts = counts[page];
+    if (pageCounts == null) {
+      // not referenced
+      return 0;
+    }
+
+    int count = pageCounts[slot];
+    int[] references = indices[page][slot];
+    int position = references != null ? Arrays.binarySearch(references, 0, count, index) : -1;
+    if (position < 0) {
+      // not referenced
+      return count;
+    }
+
+    System.arraycopy(references, position + 1, references, position, count - position - 1);
+    pageCounts[slot] = --count;
+    return count;
+  }
+
+  /**
+   * Number of references to an address.
+   *
+   * @param address referenced absolute address
+   */
+  int count(int address) {
+    int[] pageCounts = counts[address >> PAGE_BITS];
+    return pageCounts != null ? pageCounts[address & (PAGE_SIZE - 1)] : 0;
+  }
+
+  /**
+   * Add the relative addresses of all commands referencing an address to the given collection.
+   *
+   * @param address referenced absolute address
+   * @param result collection to add the relative addresses to
+   */
+  void addIndices(int address, Collection<Integer> result) {
+    int[][] pageIndices = indices[address >> PAGE_BITS];
+    if (pageIndices == null) {
+      return;
+    }
+
+    int[] references = pageIndices[address & (PAGE_SIZE - 1)];
+    for (int i = 0, count = count(address); i < count; i++) {
+      result.add(references[i]);
+    }
+  }
+
+  /**
+   * Remove all references.
+   */
+  void clear() {
+    for (int[] pageCounts : counts) {
+      if (pageCounts != null) {
+        Arrays.fill(pageCounts, 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package de.heiden.c64dt.reassembler.detector;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import de.heiden.c64dt.reassembler.command.CommandBuffer;
+import de.heiden.c64dt.reassembler.command.CommandIterator;
+
+/**
+ * Base class for code type detectors which check each command on its own.
+ * These detectors just change code types inside the checked command,
+ * so they may be restricted to changed commands.
+ * The analysis of the commands does not change the command buffer, it just proposes code type changes.
+ * So it may run in parallel. The proposed changes are applied afterward in the order of the commands.
+ */
+public abstract class AbstractCommandDetector implements IDetector {
+  @Override
+  public boolean detect(CommandBuffer commands) {
+    CodeTypeChanges changes = new CodeTypeChanges();
+    for (CommandIterator iter = commands.iterator(); iter.hasNext(); ) {
+      iter.next();
+      analyze(commands, iter, changes);
+    }
+
+    return changes.apply(commands);
+  }
+
+  @Override
+  public boolean detect(CommandBuffer commands, BitSet indices) {
+    CodeTypeChanges changes = new CodeTypeChanges();
+    CommandIterator iter = commands.iterator();
+    for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+      iter.setIndex(index);
+      analyze(commands, iter, changes);
+    }
+
+    return changes.apply(commands);
+  }
+
+  @Override
+  public boolean detect(CommandBuffer commands, int[] parts) {
+    List<CodeTypeChanges> changes = IntStream.range(0, parts.length - 1).parallel()
+      .mapToObj(part -> analyze(commands, parts[part], parts[part + 1]))
+      .toList();
+
+    // apply in the order of the parts to get the same result as a serial detection
+    boolean change = false;
+    for (CodeTypeChanges partChanges : changes) {
+      change |= partChanges.apply(commands);
+    }
+
+    return change;
+  }
+
+  /**
+   * Analyze all commands of a part of the command buffer.
+   *
+   * @param commands command buffer
+   * @param startIndex relative address of the first command of the part (incl.)
+   * @param endIndex relative address after the last command of the part (excl.)
+   * @return proposed code type changes
+   */
+  private CodeTypeChanges analyze(CommandBuffer commands, int startIndex, int endIndex) {
+    CodeTypeChanges changes = new CodeTypeChanges();
+    if (startIndex < endIndex) {
+      CommandIterator iter = commands.iterator();
+      iter.setIndex(startIndex);
+      analyze(commands, iter, changes);
+      while (iter.getNextIndex() < endIndex) {
+        iter.next();
+        analyze(commands, iter, changes);
+      }
+    }
+
+    return changes;
+  }
+
+  /**
+   * Analyze the current command and propose code type changes inside of it.
+   * Must not change the command buffer.
+   *
+   * @param commands command buffer
+   * @param iter command iterator, positioned at the command to check
+   * @param changes proposed code type changes
+   */
+  protected abstract void analyze(CommandBuffer commands, CommandIterator iter, CodeTypeChanges changes);
+}
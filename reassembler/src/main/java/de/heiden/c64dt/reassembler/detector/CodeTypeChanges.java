@@ -0,0 +1,87 @@
+package de.heiden.c64dt.reassembler.detector;
+
+import java.util.Arrays;
+
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.reassembler.command.CommandBuffer;
+
+/**
+ * Code type changes proposed by the analysis of a detector.
+ * The changes are applied later on in the order they have been proposed.
+ */
+public class CodeTypeChanges {
+  /**
+   * First relative address (incl.) of the changes.
+   */
+  private int[] startIndices = new int[16];
+
+  /**
+   * Last relative address (excl.) of the changes.
+   */
+  private int[] endIndices = new int[16];
+
+  /**
+   * Code types of the changes.
+   */
+  private CodeType[] types = new CodeType[16];
+
+  /**
+   * Number of changes.
+   */
+  private int size = 0;
+
+  /**
+   * Propose a code type for a given relative address.
+   *
+   * @param index relative address
+   * @param type code type
+   */
+  public void setType(int index, CodeType type) {
+    setType(index, index + 1, type);
+  }
+
+  /**
+   * Propose a code type for a given relative address range.
+   *
+   * @param startIndex first relative address of the range (incl.)
+   * @param endIndex last relative address of the range (excl.)
+   * @param type code type
+   */
+  public void setType(int startIndex, int endIndex, CodeType type) {
+    if (size == startIndices.length) {
+      startIndices = Arrays.copyOf(startIndices, size * 2);
+      endIndices = Arrays.copyOf(endIndices, size * 2);
+      types = Arrays.copyOf(types, size * 2);
+    }
+    startIndices[size] = startIndex;
+    endIndices[size] = endIndex;
+    types[size] = type;
+    size++;
+  }
+
+  /**
+   * Number of proposed changes.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Apply all proposed changes in the order they have been proposed.
+   *
+   * @param commands command buffer
+   * @return whether a change of code types has taken place
+   */
+  public boolean apply(CommandBuffer commands) {
+    boolean change = false;
+    for (int i = 0; i < size; i++) {
+      if (endIndices[i] == startIndices[i] + 1) {
+        change |= commands.setType(startIndices[i], types[i]);
+      } else {
+        change |= commands.setType(startIndices[i], endIndices[i], types[i]);
+      }
+    }
+
+    return change;
+  }
+}
@@ -1,5 +1,7 @@
 package de.heiden.c64dt.reassembler.detector;
 
+import java.util.BitSet;
+
 import de.heiden.c64dt.reassembler.command.CommandBuffer;
 
 /**
@@ -13,4 +15,29 @@ public interface IDetector {
    * @return whether a change of code types has taken place
    */
   boolean detect(CommandBuffer commands);
+
+  /**
+   * Detect type of code, restricted to the given commands.
+   * Detectors which need a global view of the code check all commands.
+   *
+   * @param commands command buffer
+   * @param indices relative addresses of the commands to check
+   * @return whether a change of code types has taken place
+   */
+  default boolean detect(CommandBuffer commands, BitSet indices) {
+    return detect(commands);
+  }
+
+  /**
+   * Detect type of code, analyzing the given parts of the command buffer in parallel.
+   * The result is the same as of {@link #detect(CommandBuffer)}.
+   * Detectors which do not support a parallel analysis check all commands serially.
+   *
+   * @param commands command buffer
+   * @param parts relative start addresses of all parts, followed by the length of the code, see {@link CommandBuffer#split(int)}
+   * @return whether a change of code types has taken place
+   */
+  default boolean detect(CommandBuffer commands, int[] parts) {
+    return detect(commands);
+  }
 }
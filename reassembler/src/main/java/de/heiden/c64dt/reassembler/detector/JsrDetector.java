@@ -2,19 +2,21 @@ package de.heiden.c64dt.reassembler.detector;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.stream.IntStream;
 
 import de.heiden.c64dt.assembler.CodeBuffer;
 import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.assembler.Opcode;
 import de.heiden.c64dt.reassembler.command.CommandBuffer;
 import de.heiden.c64dt.reassembler.command.CommandIterator;
-import de.heiden.c64dt.reassembler.command.ICommand;
 import de.heiden.c64dt.reassembler.command.OpcodeCommand;
 import de.heiden.c64dt.reassembler.command.Subroutine;
 import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlTransient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,11 +59,96 @@ public class JsrDetector implements IDetector {
   @XmlAttribute(name = "max-length")
   private int maxLength = 256;
 
+  /**
+   * Constructor with default settings.
+   */
+  public JsrDetector() {
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param minMatches Minimum number of matches (check for expected argument type) to detect a new subroutine
+   * @param unreachableRatio Minimum ratio of unreachable code after JSR to detect a new subroutine
+   * @param matchRatio Minimum ratio of matches (check for expected argument type) to detect a new subroutine
+   * @param maxLength Maximum length of zero-terminated argument after JSR opcode
+   */
+  public JsrDetector(int minMatches, double unreachableRatio, double matchRatio, int maxLength) {
+    requireThat(minMatches, "minMatches").isGreaterThan(0);
+    requireThat(unreachableRatio, "unreachableRatio").isGreaterThanOrEqualTo(0.0).isLessThanOrEqualTo(1.0);
+    requireThat(matchRatio, "matchRatio").isGreaterThanOrEqualTo(0.0).isLessThanOrEqualTo(1.0);
+    requireThat(maxLength, "maxLength").isGreaterThan(0);
+
+    this.minMatches = minMatches;
+    this.unreachableRatio = unreachableRatio;
+    this.matchRatio = matchRatio;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Minimum number of matches (check for expected argument type) to detect a new subroutine.
+   */
+  @XmlTransient
+  public int getMinMatches() {
+    return minMatches;
+  }
+
+  /**
+   * Minimum ratio of unreachable code after JSR to detect a new subroutine.
+   */
+  @XmlTransient
+  public double getUnreachableRatio() {
+    return unreachableRatio;
+  }
+
+  /**
+   * Minimum ratio of matches (check for expected argument type) to detect a new subroutine.
+   */
+  @XmlTransient
+  public double getMatchRatio() {
+    return matchRatio;
+  }
+
+  /**
+   * Maximum length of zero-terminated argument after JSR opcode.
+   */
+  @XmlTransient
+  public int getMaxLength() {
+    return maxLength;
+  }
+
   @Override
   public boolean detect(CommandBuffer commands) {
+    return detect(commands, crossReference(commands));
+  }
+
+  @Override
+  public boolean detect(CommandBuffer commands, int[] parts) {
+    List<Map<Integer, List<Integer>>> partCrossReferences = IntStream.range(0, parts.length - 1).parallel()
+      .mapToObj(part -> crossReference(commands, parts[part], parts[part + 1]))
+      .toList();
+
+    // merge in the order of the parts to get the same result as a serial detection
+    Map<Integer, List<Integer>> crossReferences = new HashMap<>();
+    for (Map<Integer, List<Integer>> partCrossReference : partCrossReferences) {
+      partCrossReference.forEach((address, references) -> crossReferences
+        .computeIfAbsent(address, k -> new ArrayList<>())
+        .addAll(references));
+    }
+
+    return detect(commands, crossReferences);
+  }
+
+  /**
+   * Detect subroutines and mark their calls.
+   *
+   * @param commands command buffer
+   * @param crossReferences absolute address to list of relative addresses of JSR to that absolute address
+   * @return whether a change of code types has taken place
+   */
+  private boolean detect(CommandBuffer commands, Map<Integer, List<Integer>> crossReferences) {
     boolean change = false;
 
-    Map<Integer, List<Integer>> crossReferences = crossReference(commands);
     for (Entry<Integer, List<Integer>> crossReference : crossReferences.entrySet()) {
       int address = crossReference.getKey();
       List<Integer> references = crossReference.getValue();
@@ -115,23 +202,58 @@ public class JsrDetector implements IDetector {
     Map<Integer, List<Integer>> result = new HashMap<>();
 
     for (CommandIterator iter = commands.iterator(); iter.hasNext(); ) {
-      ICommand command = iter.next();
-      if (!(command instanceof OpcodeCommand opcodeCommand)) {
-        continue;
-      }
+      iter.next();
+      crossReference(iter, result);
+    }
 
-      Opcode opcode = opcodeCommand.getOpcode();
-      if (command.isReachable() && opcode.getType() == JSR && opcode.getMode() == ABS && iter.hasNext()) {
-        int address = opcodeCommand.getArgument();
-        result
-          .computeIfAbsent(address, k -> new ArrayList<>())
-          .add(iter.getIndex());
+    return result;
+  }
+
+  /**
+   * Build JSR cross reference of a part of the command buffer.
+   * Does not change the command buffer.
+   *
+   * @param commands command buffer
+   * @param startIndex relative address of the first command of the part (incl.)
+   * @param endIndex relative address after the last command of the part (excl.)
+   * @return Absolute address to list of relative addresses of JSR to that absolute address, in the order of the JSRs
+   */
+  private Map<Integer, List<Integer>> crossReference(CommandBuffer commands, int startIndex, int endIndex) {
+    // keep the order of the first JSRs to get the same result as a serial detection
+    Map<Integer, List<Integer>> result = new LinkedHashMap<>();
+    if (startIndex < endIndex) {
+      CommandIterator iter = commands.iterator();
+      iter.setIndex(startIndex);
+      crossReference(iter, result);
+      while (iter.getNextIndex() < endIndex) {
+        iter.next();
+        crossReference(iter, result);
       }
     }
 
     return result;
   }
 
+  /**
+   * Add the current command to the JSR cross reference, if it is a JSR.
+   *
+   * @param iter command iterator, positioned at the command to check
+   * @param result Absolute address to list of relative addresses of JSR to that absolute address
+   */
+  private void crossReference(CommandIterator iter, Map<Integer, List<Integer>> result) {
+    if (!(iter.getCommand() instanceof OpcodeCommand opcodeCommand)) {
+      return;
+    }
+
+    Opcode opcode = opcodeCommand.getOpcode();
+    if (opcodeCommand.isReachable() && opcode.getType() == JSR && opcode.getMode() == ABS && iter.hasNext()) {
+      int address = opcodeCommand.getArgument();
+      result
+        .computeIfAbsent(address, k -> new ArrayList<>())
+        .add(iter.getIndex());
+    }
+  }
+
   /**
    * Detect yet unknown subroutines with zero terminated argument.
    *
@@ -3,6 +3,12 @@ package de.heiden.c64dt.reassembler.xml;
 import org.apache.commons.io.IOUtils;
 
 import jakarta.xml.bind.JAXB;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 
@@ -10,6 +16,11 @@ import java.nio.charset.StandardCharsets;
  * XML utils.
  */
 public class XmlUtil {
+  /**
+   * Indentation per level, like the formatted output of JAXB.
+   */
+  private static final String INDENT = "    ";
+
   /**
    * Marshal an arbitrary object with JAXB.
    *
@@ -41,4 +52,116 @@ public class XmlUtil {
     System.out.println();
     System.out.flush();
   }
+
+  //
+  // StAX
+  //
+
+  /**
+   * Create a StAX reader which does not resolve DTDs or external entities.
+   *
+   * @param stream Input stream to read from
+   */
+  public static XMLStreamReader createReader(InputStream stream) throws XMLStreamException {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory.createXMLStreamReader(stream);
+  }
+
+  /**
+   * Create a StAX writer for UTF-8 and write the same XML declaration as JAXB.
+   *
+   * @param writer Writer to write UTF-8 to
+   */
+  public static XMLStreamWriter createWriter(Writer writer) throws IOException, XMLStreamException {
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+    return XMLOutputFactory.newFactory().createXMLStreamWriter(writer);
+  }
+
+  /**
+   * Start a new line with the indentation for the given nesting depth.
+   *
+   * @param writer StAX writer
+   * @param depth Nesting depth
+   */
+  public static void indent(XMLStreamWriter writer, int depth) throws XMLStreamException {
+    writer.writeCharacters("\n");
+    for (int i = 0; i < depth; i++) {
+      writer.writeCharacters(INDENT);
+    }
+  }
+
+  /**
+   * Start a wrapper element on a new line.
+   * Empty wrapper elements are written as empty element, like JAXB does.
+   *
+   * @param writer StAX writer
+   * @param depth Nesting depth of the wrapper element
+   * @param name Name of the wrapper element
+   * @param empty Is the wrapper element empty?
+   * @return whether the wrapper element has content and has to be ended via {@link #endWrapper(XMLStreamWriter, int)}
+   */
+  public static boolean startWrapper(XMLStreamWriter writer, int depth, String name, boolean empty) throws XMLStreamException {
+    indent(writer, depth);
+    if (empty) {
+      writer.writeEmptyElement(name);
+      return false;
+    }
+
+    writer.writeStartElement(name);
+    return true;
+  }
+
+  /**
+   * End a wrapper element on a new line.
+   *
+   * @param writer StAX writer
+   * @param depth Nesting depth of the wrapper element
+   */
+  public static void endWrapper(XMLStreamWriter writer, int depth) throws XMLStreamException {
+    indent(writer, depth);
+    writer.writeEndElement();
+  }
+
+  /**
+   * Move to the next child element of the current element.
+   *
+   * @param reader StAX reader
+   * @return whether there is a next child element, otherwise the reader is at the end of the current element
+   */
+  public static boolean nextElement(XMLStreamReader reader) throws XMLStreamException {
+    return reader.nextTag() == XMLStreamConstants.START_ELEMENT;
+  }
+
+  /**
+   * Skip the current element including its content.
+   *
+   * @param reader StAX reader at the start of the element
+   */
+  public static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    for (int depth = 1; depth > 0; ) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /**
+   * Value of a mandatory attribute of the current element.
+   *
+   * @param reader StAX reader at the start of the element
+   * @param name Name of the attribute
+   */
+  public static String attribute(XMLStreamReader reader, String name) throws XMLStreamException {
+    String value = reader.getAttributeValue(null, name);
+    if (value == null) {
+      throw new XMLStreamException("Missing attribute " + name + " of " + reader.getLocalName() + ".", reader.getLocation());
+    }
+
+    return value;
+  }
 }
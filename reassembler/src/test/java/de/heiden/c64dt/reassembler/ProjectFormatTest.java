@@ -0,0 +1,157 @@
+package de.heiden.c64dt.reassembler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.reassembler.command.CommandBuffer;
+import de.heiden.c64dt.reassembler.command.Subroutine;
+import de.heiden.c64dt.reassembler.detector.IDetector;
+import de.heiden.c64dt.reassembler.detector.JsrDetector;
+import de.heiden.c64dt.reassembler.xml.XmlUtil;
+import org.junit.jupiter.api.Test;
+
+import static de.heiden.c64dt.reassembler.command.CommandCreatorTest.assertSameCommands;
+import static de.heiden.c64dt.reassembler.command.CommandCreatorTest.createCode;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link ProjectFormat}.
+ */
+public class ProjectFormatTest {
+  @Test
+  public void testWriteRead() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(0));
+
+    byte[] project = write(reassembler, true);
+    Reassembler read = ProjectFormat.read(new ByteArrayInputStream(project));
+
+    assertSameProject(reassembler, read);
+    // write read project again
+    assertArrayEquals(project, write(read, true));
+  }
+
+  @Test
+  public void testWriteReadWithoutCommands() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(1));
+
+    Reassembler read = ProjectFormat.read(new ByteArrayInputStream(write(reassembler, false)));
+
+    assertSameProject(reassembler, read);
+  }
+
+  /**
+   * Test that incremental updates of read commands lead to the same result as a complete reassembly.
+   */
+  @Test
+  public void testUpdateAfterRead() throws Exception {
+    Random random = new Random(2);
+    Reassembler expected = createReassembler(random);
+    Reassembler actual = ProjectFormat.read(new ByteArrayInputStream(write(expected, true)));
+
+    for (int edit = 0; edit < 50; edit++) {
+      int startIndex = random.nextInt(expected.getCommands().getLength() - 1);
+      int endIndex = Math.min(startIndex + 1 + random.nextInt(8), expected.getCommands().getLength() - 1);
+      CodeType type = CodeType.values()[random.nextInt(CodeType.values().length)];
+      expected.getCommands().setType(startIndex, endIndex, type);
+      actual.getCommands().setType(startIndex, endIndex, type);
+
+      expected.reassemble();
+      actual.update();
+      assertSameCommands(expected.getCommands(), actual.getCommands(), "Edit " + edit + ": ");
+    }
+  }
+
+  @Test
+  public void testLoad() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(3));
+
+    ByteArrayOutputStream xml = new ByteArrayOutputStream();
+    XmlUtil.marshal(reassembler, xml);
+    assertSameProject(reassembler, ProjectFormat.load(new ByteArrayInputStream(xml.toByteArray())));
+    assertSameProject(reassembler, ProjectFormat.load(new ByteArrayInputStream(write(reassembler, true))));
+  }
+
+  @Test
+  public void testUnsupportedVersion() throws Exception {
+    byte[] project = write(createReassembler(new Random(4)), true);
+    project[7]++;
+
+    assertThrows(IOException.class, () -> ProjectFormat.read(new ByteArrayInputStream(project)));
+  }
+
+  /**
+   * Create a reassembler with rebased code, subroutines, entry points, code types and a non-default detector.
+   *
+   * @param random Random
+   */
+  static Reassembler createReassembler(Random random) throws Exception {
+    Reassembler result = new Reassembler();
+    result.getDetectors().removeIf(JsrDetector.class::isInstance);
+    result.add(new JsrDetector(3, 0.3, 0.7, 128));
+    result.reassemble(new CodeBuffer(0x1000, createCode(random, 0x800)));
+
+    CommandBuffer commands = result.getCommands();
+    commands.rebase(0x400, 0x8000);
+    commands.addSubroutine(new Subroutine(0x1100, 2));
+    commands.addSubroutine(new Subroutine(0x1200, 0, CodeType.CODE));
+    commands.addEntryPoint(0x1000);
+    commands.setType(0x100, 0x180, CodeType.DATA);
+    commands.setType(0x200, 0x210, CodeType.ADDRESS);
+    result.reassemble();
+
+    return result;
+  }
+
+  /**
+   * Write a reassembler to a byte array.
+   *
+   * @param reassembler Reassembler
+   * @param withCommands Write the created commands too?
+   */
+  private static byte[] write(Reassembler reassembler, boolean withCommands) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    ProjectFormat.write(reassembler, os, withCommands);
+    return os.toByteArray();
+  }
+
+  /**
+   * Assert that both reassemblers have the same detectors and commands.
+   *
+   * @param expected Expected reassembler
+   * @param actual Actual reassembler
+   */
+  static void assertSameProject(Reassembler expected, Reassembler actual) {
+    List<IDetector> expectedDetectors = expected.getDetectors();
+    List<IDetector> actualDetectors = actual.getDetectors();
+    assertEquals(expectedDetectors.size(), actualDetectors.size());
+    for (int i = 0; i < expectedDetectors.size(); i++) {
+      assertEquals(expectedDetectors.get(i).getClass(), actualDetectors.get(i).getClass());
+      if (expectedDetectors.get(i) instanceof JsrDetector expectedJsr) {
+        JsrDetector actualJsr = (JsrDetector) actualDetectors.get(i);
+        assertEquals(expectedJsr.getMinMatches(), actualJsr.getMinMatches());
+        assertEquals(expectedJsr.getUnreachableRatio(), actualJsr.getUnreachableRatio());
+        assertEquals(expectedJsr.getMatchRatio(), actualJsr.getMatchRatio());
+        assertEquals(expectedJsr.getMaxLength(), actualJsr.getMaxLength());
+      }
+    }
+
+    CommandBuffer expectedCommands = expected.getCommands();
+    CommandBuffer actualCommands = actual.getCommands();
+    assertSameCommands(expectedCommands, actualCommands, "");
+    assertEquals(expectedCommands.getEntryPoints(), actualCommands.getEntryPoints());
+    for (int index = 0; index < expectedCommands.getLength(); index++) {
+      int address = expectedCommands.addressForIndex(index);
+      assertEquals(address, actualCommands.addressForIndex(index), "Address at index " + index + ":");
+      Subroutine expectedSubroutine = expectedCommands.getSubroutine(address);
+      Subroutine actualSubroutine = actualCommands.getSubroutine(address);
+      assertEquals(expectedSubroutine != null, actualSubroutine != null, "Subroutine at index " + index + ":");
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package de.heiden.c64dt.reassembler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.reassembler.xml.XmlUtil;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.Test;
+
+import static de.heiden.c64dt.reassembler.ProjectFormatTest.assertSameProject;
+import static de.heiden.c64dt.reassembler.ProjectFormatTest.createReassembler;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link ProjectXmlFormat}.
+ */
+public class ProjectXmlFormatTest {
+  /**
+   * Test that the same XML is written as by JAXB.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(0));
+
+    assertEquals(marshal(reassembler), write(reassembler));
+  }
+
+  /**
+   * Test that XML written by JAXB is read.
+   */
+  @Test
+  public void testRead() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(1));
+
+    Reassembler read = ProjectXmlFormat.read(new ByteArrayInputStream(marshal(reassembler).getBytes(StandardCharsets.UTF_8)));
+
+    assertSameProject(reassembler, read);
+  }
+
+  /**
+   * Test that XML written by the streaming writer is read by JAXB.
+   */
+  @Test
+  public void testWriteUnmarshal() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(2));
+
+    Reassembler read = XmlUtil.unmarshal(new ByteArrayInputStream(write(reassembler).getBytes(StandardCharsets.UTF_8)), Reassembler.class);
+
+    assertSameProject(reassembler, read);
+  }
+
+  /**
+   * Test a code type range up to the end of the code.
+   */
+  @Test
+  public void testReadTypesUpToEnd() throws Exception {
+    Reassembler reassembler = createReassembler(new Random(3));
+    int length = reassembler.getCommands().getLength();
+    reassembler.getCommands().setType(length - 8, length, CodeType.DATA);
+    reassembler.reassemble();
+
+    assertSameProject(reassembler, read(write(reassembler)));
+  }
+
+  @Test
+  public void testReadEmpty() throws Exception {
+    Reassembler reassembler = new Reassembler();
+
+    assertSameProject(reassembler, read(write(reassembler)));
+  }
+
+  @Test
+  public void testReadInvalid() {
+    assertThrows(XMLStreamException.class, () -> read("<commands/>"));
+    // missing base
+    assertThrows(XMLStreamException.class, () -> read("""
+      <reassembler><commands><code>AQID</code><addresses>
+        <address index="0000"/>
+      </addresses></commands></reassembler>
+      """));
+    // missing end address
+    assertThrows(XMLStreamException.class, () -> read("""
+      <reassembler><commands><code>AQID</code><addresses>
+        <address index="0000" base="1000"/>
+      </addresses></commands></reassembler>
+      """));
+    // addresses before code
+    assertThrows(XMLStreamException.class, () -> read("""
+      <reassembler><commands><addresses/><code>AQID</code></commands></reassembler>
+      """));
+    // invalid code type
+    assertThrows(XMLStreamException.class, () -> read("""
+      <reassembler><commands><code>AQID</code><addresses>
+        <address index="0000" base="1000"/>
+        <address index="0003" base="1000"/>
+      </addresses><types><type index="0000">NONE</type></types></commands></reassembler>
+      """));
+  }
+
+  /**
+   * Write a reassembler with JAXB.
+   *
+   * @param reassembler Reassembler
+   */
+  private static String marshal(Reassembler reassembler) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    XmlUtil.marshal(reassembler, os);
+    return os.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write a reassembler with the streaming writer.
+   *
+   * @param reassembler Reassembler
+   */
+  private static String write(Reassembler reassembler) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    ProjectXmlFormat.write(reassembler, os);
+    return os.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Read a reassembler with the streaming reader.
+   *
+   * @param xml XML
+   */
+  private static Reassembler read(String xml) throws Exception {
+    return ProjectXmlFormat.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -1,18 +1,167 @@
 package de.heiden.c64dt.reassembler;
 
 import de.heiden.c64dt.assembler.CodeBuffer;
+import de.heiden.c64dt.assembler.CodeType;
 import de.heiden.c64dt.assembler.Disassembler;
+import de.heiden.c64dt.reassembler.command.CommandBuffer;
+import de.heiden.c64dt.reassembler.command.Subroutine;
 import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Random;
+import java.util.Set;
+
+import static de.heiden.c64dt.reassembler.command.CommandCreatorTest.assertSameCommands;
+import static de.heiden.c64dt.reassembler.command.CommandCreatorTest.createCode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Reassembler test startup.
  */
 public class ReassemblerTest {
+  /**
+   * Test that {@link Reassembler#update()} leads to the same result as {@link Reassembler#reassemble()}.
+   */
+  @Test
+  public void testUpdate() throws Exception {
+    for (int seed = 0; seed < 5; seed++) {
+      Random random = new Random(seed);
+      byte[] code = createCodeWithSubroutine(random);
+
+      Reassembler expected = new Reassembler();
+      expected.reassemble(new CodeBuffer(0x1000, code));
+      Reassembler actual = new Reassembler();
+      actual.reassemble(new CodeBuffer(0x1000, code));
+
+      for (int edit = 0; edit < 50; edit++) {
+        int startIndex = random.nextInt(code.length - 1);
+        int endIndex = Math.min(startIndex + 1 + random.nextInt(8), code.length - 1);
+        CodeType type = CodeType.values()[random.nextInt(CodeType.values().length)];
+        expected.getCommands().setType(startIndex, endIndex, type);
+        actual.getCommands().setType(startIndex, endIndex, type);
+
+        expected.reassemble();
+        actual.update();
+        assertSameReassembly(expected, actual, "Seed " + seed + ", edit " + edit + ": ");
+      }
+    }
+  }
+
+  /**
+   * Test that a parallel detection leads to the same result as a serial detection.
+   */
+  @Test
+  public void testParallel() throws Exception {
+    for (int seed = 0; seed < 5; seed++) {
+      Random random = new Random(seed);
+      byte[] code = createCodeWithSubroutine(random);
+
+      Reassembler expected = new Reassembler();
+      expected.reassemble(new CodeBuffer(0x1000, code));
+      Reassembler actual = new Reassembler();
+      actual.setParallel(true);
+      actual.reassemble(new CodeBuffer(0x1000, code));
+
+      assertSameReassembly(expected, actual, "Seed " + seed + ": ");
+    }
+  }
+
+  /**
+   * Test that the SYS of a BASIC header is used as entry point and the code reachable from it is marked as code.
+   */
+  @Test
+  public void testBasicEntryPoint() throws Exception {
+    byte[] code = {
+      // $0801: 10 SYS2061
+      0x0B, 0x08, 0x0A, 0x00, (byte) 0x9E, 0x32, 0x30, 0x36, 0x31, 0x00, 0x00, 0x00,
+      // $080D: INX, followed by data
+      (byte) 0xE8, 0x02
+    };
+
+    Reassembler reassembler = new Reassembler();
+    reassembler.reassemble(new CodeBuffer(0x0801, code));
+    CommandBuffer commands = reassembler.getCommands();
+
+    assertEquals(Set.of(0x080D), commands.getEntryPoints());
+    assertEquals(CodeType.OPCODE, commands.getType(0x0C));
+    assertTrue(commands.getCommand(0x0C).isReachable());
+  }
+
+  /**
+   * Test that {@link Reassembler#update()} leads to the same result as {@link Reassembler#reassemble()},
+   * if commands are marked as code from an entry point.
+   */
+  @Test
+  public void testUpdateWithEntryPoint() throws Exception {
+    for (int seed = 0; seed < 5; seed++) {
+      Random random = new Random(seed);
+      byte[] code = createCodeWithSubroutine(random);
+
+      Reassembler expected = new Reassembler();
+      expected.reassemble(new CodeBuffer(0x1000, code));
+      expected.getCommands().addEntryPoint(0x1000);
+      Reassembler actual = new Reassembler();
+      actual.reassemble(new CodeBuffer(0x1000, code));
+      actual.getCommands().addEntryPoint(0x1000);
+
+      for (int edit = 0; edit < 20; edit++) {
+        int startIndex = random.nextInt(code.length - 1);
+        int endIndex = Math.min(startIndex + 1 + random.nextInt(8), code.length - 1);
+        CodeType type = CodeType.values()[random.nextInt(CodeType.values().length)];
+        expected.getCommands().setType(startIndex, endIndex, type);
+        actual.getCommands().setType(startIndex, endIndex, type);
+
+        expected.reassemble();
+        actual.update();
+        assertSameReassembly(expected, actual, "Seed " + seed + ", edit " + edit + ": ");
+      }
+    }
+  }
+
+  /**
+   * Create random code with calls of a subroutine with zero terminated arguments.
+   *
+   * @param random Random
+   */
+  private static byte[] createCodeWithSubroutine(Random random) {
+    byte[] code = createCode(random, 0x400);
+    for (int i = 0; i < 8; i++) {
+      int index = random.nextInt(code.length - 10);
+      code[index++] = 0x20;
+      code[index++] = 0x00;
+      code[index++] = 0x11;
+      for (int count = 2 + random.nextInt(4); count > 0; count--) {
+        code[index++] = (byte) ('A' + random.nextInt(26));
+      }
+      code[index] = 0x00;
+    }
+
+    return code;
+  }
+
+  /**
+   * Assert that both reassemblers lead to the same commands and subroutines.
+   *
+   * @param expected Expected reassembler
+   * @param actual Actual reassembler
+   * @param message Message prefix
+   */
+  private static void assertSameReassembly(Reassembler expected, Reassembler actual, String message) {
+    CommandBuffer expectedCommands = expected.getCommands();
+    CommandBuffer actualCommands = actual.getCommands();
+    assertSameCommands(expectedCommands, actualCommands, message);
+    for (int index = 0; index < expectedCommands.getLength(); index++) {
+      Subroutine expectedSubroutine = expectedCommands.getSubroutine(expectedCommands.addressForIndex(index));
+      Subroutine actualSubroutine = actualCommands.getSubroutine(actualCommands.addressForIndex(index));
+      assertEquals(expectedSubroutine != null, actualSubroutine != null, message + "Subroutine at index " + index + ":");
+    }
+  }
+
   public static void main(String[] args) throws Exception {
     disassemble();
   }
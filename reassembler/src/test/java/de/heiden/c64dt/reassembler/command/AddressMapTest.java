@@ -0,0 +1,64 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link AddressMap}.
+ */
+public class AddressMapTest {
+  @Test
+  public void testPutGetRemove() {
+    AddressMap<String> map = new AddressMap<>();
+    assertNull(map.put(0xFFFF, "c"));
+    assertNull(map.put(0x1000, "b"));
+    assertNull(map.put(0x0000, "a"));
+    assertEquals("b", map.put(0x1000, "B"));
+
+    assertEquals("B", map.get(0x1000));
+    assertTrue(map.containsKey(0xFFFF));
+    assertFalse(map.containsKey(0x1001));
+    // addresses outside of 16 bit have no values
+    assertFalse(map.containsKey(-1));
+    assertNull(map.get(0x10000));
+    assertNull(map.remove(0x10000));
+    assertThrows(IllegalArgumentException.class, () -> map.put(0x10000, "d"));
+    assertThrows(IllegalArgumentException.class, () -> map.put(-1, "d"));
+    assertEquals(List.of("a", "B", "c"), List.copyOf(map.values()));
+    assertEquals(3, map.values().size());
+
+    assertEquals("B", map.remove(0x1000));
+    assertNull(map.remove(0x1000));
+    assertEquals(List.of("a", "c"), List.copyOf(map.values()));
+
+    map.clear();
+    assertTrue(map.values().isEmpty());
+    assertNull(map.get(0x0000));
+  }
+
+  @Test
+  public void testPages() {
+    AddressMap<Integer> map = new AddressMap<>();
+    // unallocated pages
+    assertNull(map.get(0x1234));
+    assertNull(map.remove(0x1234));
+    assertTrue(map.values().isEmpty());
+
+    for (int address : new int[]{0x00FF, 0x0100, 0x01FF, 0x8000, 0xFF00}) {
+      map.put(address, address);
+    }
+    assertNull(map.get(0x0101));
+    assertEquals(List.of(0x00FF, 0x0100, 0x01FF, 0x8000, 0xFF00), List.copyOf(map.values()));
+
+    // emptied pages are skipped too
+    map.remove(0x8000);
+    assertEquals(List.of(0x00FF, 0x0100, 0x01FF, 0xFF00), List.copyOf(map.values()));
+  }
+}
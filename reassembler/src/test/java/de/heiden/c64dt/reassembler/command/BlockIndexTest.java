@@ -0,0 +1,163 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.Random;
+
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.assembler.Opcode;
+import org.junit.jupiter.api.Test;
+
+import static de.heiden.c64dt.reassembler.command.CommandCreatorTest.createCode;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test for {@link BlockIndex}.
+ */
+public class BlockIndexTest {
+  /**
+   * Start address of the code.
+   */
+  private static final int START = 0x1000;
+
+  /**
+   * Code with a branch, a JSR, a JMP, data and a subroutine.
+   */
+  static final byte[] CODE = {
+    (byte) 0xA9, 0x00, // $1000: LDA #$00
+    (byte) 0xF0, 0x04, // $1002: BEQ $1008
+    0x20, 0x0C, 0x10, // $1004: JSR $100C
+    0x60, // $1007: RTS
+    0x4C, 0x07, 0x10, // $1008: JMP $1007
+    (byte) 0xFF, // $100B: data
+    (byte) 0xE8, // $100C: INX
+    0x60 // $100D: RTS
+  };
+
+  @Test
+  public void testBlocks() {
+    CommandBuffer commands = new CommandBuffer(CODE, START);
+    new CommandCreator(commands).createCommands();
+    BlockIndex blocks = commands.getBlocks();
+
+    assertEquals(5, blocks.size());
+    assertBlock(blocks, 0x0, 0x4, new int[]{0x8, 0x4}, new int[]{});
+    assertBlock(blocks, 0x4, 0x7, new int[]{0xC, 0x7}, new int[]{0x0});
+    assertBlock(blocks, 0x7, 0x8, new int[]{}, new int[]{0x4, 0x8});
+    assertBlock(blocks, 0x8, 0xB, new int[]{0x7}, new int[]{0x0});
+    assertBlock(blocks, 0xC, 0xE, new int[]{}, new int[]{0x4});
+
+    assertFalse(blocks.isStart(0x2));
+    assertFalse(blocks.isStart(0xB));
+    assertEquals(-1, blocks.getEnd(0xB));
+    assertEquals(0xC, blocks.next(0x9));
+    assertEquals(0x8, blocks.previous(0xB));
+  }
+
+  /**
+   * Test that the incrementally recomputed blocks are the same as the blocks computed from scratch.
+   */
+  @Test
+  public void testInvalidate() {
+    for (int seed = 0; seed < 10; seed++) {
+      Random random = new Random(seed);
+      byte[] code = createCode(random, 0x400);
+
+      CommandBuffer commands = new CommandBuffer(code, START);
+      CommandCreator creator = new CommandCreator(commands);
+      creator.createCommands();
+      commands.getBlocks().size();
+
+      for (int edit = 0; edit < 100; edit++) {
+        int startIndex = random.nextInt(code.length - 1);
+        int endIndex = Math.min(startIndex + 1 + random.nextInt(8), code.length - 1);
+        CodeType type = CodeType.values()[random.nextInt(CodeType.values().length)];
+        commands.setType(startIndex, endIndex, type);
+        creator.updateCommands();
+
+        assertSameBlocks(new BlockIndex(commands), commands.getBlocks(), "Seed " + seed + ", edit " + edit + ": ");
+      }
+    }
+  }
+
+  @Test
+  public void testSetReachable() {
+    CommandBuffer commands = new CommandBuffer(CODE, START);
+    new CommandCreator(commands).createCommands();
+    BlockIndex blocks = commands.getBlocks();
+    assertEquals(5, blocks.size());
+
+    // JMP $1007 is no longer reachable
+    commands.getCommand(0x8).setReachable(false);
+    assertFalse(blocks.isStart(0x8));
+    assertSameBlocks(new BlockIndex(commands), blocks, "");
+
+    commands.getCommand(0x8).setReachable(true);
+    assertBlock(blocks, 0x8, 0xB, new int[]{0x7}, new int[]{0x0});
+    assertSameBlocks(new BlockIndex(commands), blocks, "");
+  }
+
+  @Test
+  public void testBitCommand() {
+    byte[] code = {
+      (byte) 0xA9, 0x01, // $1000: LDA #$01
+      0x2C, // $1002: BIT $00A9, skipping LDA #$00
+      (byte) 0xA9, 0x00, // $1003: LDA #$00
+      0x60 // $1005: RTS
+    };
+    CommandBuffer commands = new CommandBuffer(code, START);
+    setReachableCommand(commands, 0x0, new OpcodeCommand(Opcode.OPCODE_A9, 0x01));
+    setReachableCommand(commands, 0x2, new BitCommand(Opcode.OPCODE_2C, 0x00A9));
+    setReachableCommand(commands, 0x3, new OpcodeCommand(Opcode.OPCODE_A9, 0x00));
+    setReachableCommand(commands, 0x5, new OpcodeCommand(Opcode.OPCODE_60));
+
+    // bit commands end their block, even if the code type is not BIT
+    assertEquals(CodeType.UNKNOWN, commands.getType(0x2));
+    BlockIndex blocks = commands.getBlocks();
+    assertEquals(0x3, blocks.getEnd(0x0));
+    assertEquals(0x6, blocks.getEnd(0x3));
+  }
+
+  /**
+   * Set a reachable command.
+   *
+   * @param commands Command buffer
+   * @param index Relative address
+   * @param command Command
+   */
+  private static void setReachableCommand(CommandBuffer commands, int index, ICommand command) {
+    command.setReachable(true);
+    commands.setCommand(index, command);
+  }
+
+  /**
+   * Assert a block.
+   *
+   * @param blocks Block index
+   * @param startIndex Expected relative start address
+   * @param endIndex Expected relative end address
+   * @param successors Expected successors
+   * @param predecessors Expected predecessors
+   */
+  private static void assertBlock(BlockIndex blocks, int startIndex, int endIndex, int[] successors, int[] predecessors) {
+    assertEquals(endIndex, blocks.getEnd(startIndex), "End:");
+    assertArrayEquals(successors, blocks.getSuccessors(startIndex), "Successors:");
+    assertArrayEquals(predecessors, blocks.getPredecessors(startIndex), "Predecessors:");
+  }
+
+  /**
+   * Assert that both block indices contain the same blocks.
+   *
+   * @param expected Expected block index
+   * @param actual Actual block index
+   * @param message Message prefix
+   */
+  private static void assertSameBlocks(BlockIndex expected, BlockIndex actual, String message) {
+    assertEquals(expected.size(), actual.size(), message + "Size:");
+    for (int index = expected.next(0); index >= 0; index = expected.next(index + 1)) {
+      assertEquals(expected.getEnd(index), actual.getEnd(index), message + "End of block " + index + ":");
+      assertArrayEquals(expected.getSuccessors(index), actual.getSuccessors(index), message + "Successors of block " + index + ":");
+      assertArrayEquals(expected.getPredecessors(index), actual.getPredecessors(index), message + "Predecessors of block " + index + ":");
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import static de.heiden.c64dt.reassembler.command.BlockIndexTest.CODE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link BlockWriter}.
+ */
+public class BlockWriterTest {
+  @Test
+  public void testWriteDot() throws Exception {
+    StringWriter output = new StringWriter();
+    new BlockWriter(output).writeDot(createCommands());
+
+    assertEquals("""
+      digraph code {
+        node [shape=box];
+        "0000" [label="$1000-$1003"];
+        "0000" -> "0008";
+        "0000" -> "0004";
+        "0004" [label="$1004-$1006"];
+        "0004" -> "000C";
+        "0004" -> "0007";
+        "0007" [label="$1007-$1007"];
+        "0008" [label="$1008-$100A"];
+        "0008" -> "0007";
+        "000C" [label="$100C-$100D"];
+      }
+      """, output.toString());
+  }
+
+  @Test
+  public void testWriteJson() throws Exception {
+    StringWriter output = new StringWriter();
+    new BlockWriter(output).writeJson(createCommands());
+
+    assertEquals("""
+      {"blocks":[
+      {"start":0,"end":4,"address":"1000","successors":[8,4],"predecessors":[]},
+      {"start":4,"end":7,"address":"1004","successors":[12,7],"predecessors":[0]},
+      {"start":7,"end":8,"address":"1007","successors":[],"predecessors":[4,8]},
+      {"start":8,"end":11,"address":"1008","successors":[7],"predecessors":[0]},
+      {"start":12,"end":14,"address":"100C","successors":[],"predecessors":[4]}
+      ]}
+      """, output.toString());
+  }
+
+  /**
+   * Create the commands of the test code.
+   */
+  private static CommandBuffer createCommands() {
+    CommandBuffer commands = new CommandBuffer(CODE, 0x1000);
+    new CommandCreator(commands).createCommands();
+    return commands;
+  }
+}
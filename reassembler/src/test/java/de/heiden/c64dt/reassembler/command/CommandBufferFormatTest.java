@@ -0,0 +1,157 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import static de.heiden.c64dt.reassembler.command.CommandCreatorTest.assertSameCommands;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test for {@link CommandBufferFormat}.
+ */
+public class CommandBufferFormatTest {
+  /**
+   * JMP $1000, NOP, RTS.
+   */
+  private static final byte[] CODE = {0x4C, 0x00, 0x10, (byte) 0xEA, 0x60};
+
+  @Test
+  public void testWriteRead() throws Exception {
+    CommandBuffer commands = create();
+
+    assertSameCommands(commands, read(write(commands, true)), "");
+  }
+
+  @Test
+  public void testInvalidKind() throws Exception {
+    byte[] data = write(create(), true);
+    data[kindsOffset()] = 0x0F;
+    assertThrows(IOException.class, () -> read(data));
+
+    data[kindsOffset()] = 0x20;
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testInvalidSize() throws Exception {
+    byte[] data = write(create(), true);
+    // size of the JMP, after its argument
+    int offset = kindsOffset() + 2 * CODE.length + 2;
+
+    ByteBuffer.wrap(data).putInt(offset, 0);
+    assertThrows(IOException.class, () -> read(data));
+    ByteBuffer.wrap(data).putInt(offset, -1);
+    assertThrows(IOException.class, () -> read(data));
+    ByteBuffer.wrap(data).putInt(offset, CODE.length + 1);
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testOverlappingCommands() throws Exception {
+    byte[] data = write(create(), true);
+    // the JMP overlaps the NOP
+    ByteBuffer.wrap(data).putInt(kindsOffset() + 2 * CODE.length + 2, 4);
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testUncoveredCode() throws Exception {
+    byte[] data = write(create(), true);
+    // the last byte of the JMP is covered by no command
+    ByteBuffer.wrap(data).putInt(kindsOffset() + 2 * CODE.length + 2, 2);
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testInvalidOpcode() throws Exception {
+    byte[] data = write(create(), true);
+    // JSR instead of JMP, which has the same size
+    data[kindsOffset() + CODE.length] = 0x20;
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testInvalidReference() throws Exception {
+    byte[] data = write(create(), true);
+    // code reference of the JMP, after the 3 commands
+    int offset = kindsOffset() + 2 * CODE.length + 3 * 6;
+
+    // from a relative address without command
+    ByteBuffer.wrap(data).putInt(offset + 4, 1);
+    assertThrows(IOException.class, () -> read(data));
+    ByteBuffer.wrap(data).putInt(offset + 4, CODE.length);
+    assertThrows(IOException.class, () -> read(data));
+
+    // to an address outside the code
+    ByteBuffer.wrap(data).putInt(offset + 4, 0);
+    ByteBuffer.wrap(data).putInt(offset + 8, 0x2000);
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testInvalidTokenReference() throws Exception {
+    byte[] data = write(create(), true);
+    // last token reference: address, count
+    int offset = data.length - 8;
+
+    ByteBuffer.wrap(data).putInt(offset, 0x10000);
+    assertThrows(IOException.class, () -> read(data));
+    ByteBuffer.wrap(data).putInt(offset, -1);
+    assertThrows(IOException.class, () -> read(data));
+  }
+
+  @Test
+  public void testTruncated() throws Exception {
+    byte[] data = write(create(), true);
+    byte[] truncated = new byte[data.length - 1];
+    System.arraycopy(data, 0, truncated, 0, truncated.length);
+
+    assertThrows(IOException.class, () -> read(truncated));
+  }
+
+  /**
+   * Create commands for {@link #CODE} at $1000.
+   */
+  private static CommandBuffer create() {
+    CommandBuffer commands = new CommandBuffer(CODE, 0x1000);
+    new CommandCreator(commands).createCommands();
+    return commands;
+  }
+
+  /**
+   * Offset of the kinds of the commands in the written command buffer.
+   * Everything before the commands is the same as without commands.
+   */
+  private static int kindsOffset() throws Exception {
+    return write(create(), false).length;
+  }
+
+  /**
+   * Write a command buffer to a byte array.
+   *
+   * @param commands Command buffer
+   * @param withCommands Write the created commands too?
+   */
+  private static byte[] write(CommandBuffer commands, boolean withCommands) throws Exception {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(os)) {
+      CommandBufferFormat.write(commands, output, withCommands);
+    }
+    return os.toByteArray();
+  }
+
+  /**
+   * Read a command buffer from a byte array.
+   *
+   * @param data Written command buffer
+   */
+  private static CommandBuffer read(byte[] data) throws IOException {
+    return CommandBufferFormat.read(new DataInputStream(new ByteArrayInputStream(data)));
+  }
+}
@@ -31,13 +31,17 @@ public class CommandBufferMapperTest {
     // addresses
     commands.rebase(0x0010, 0x2000);
     commands.rebase(0x0020, 0x8000);
-    commands.rebase(0x0030, 0xF000);
+    commands.rebase(0x0030, 0x4000);
 
     // subroutines
     commands.addSubroutine(new Subroutine(0x1000, 0x10));
     commands.addSubroutine(new Subroutine(0x2000, 0x20));
     commands.addSubroutine(new Subroutine(0x3000, 0x30));
 
+    // entry points
+    commands.addEntryPoint(0x1000);
+    commands.addEntryPoint(0x2010);
+
     // code types
     commands.setType(0x0000, 0x9000, CodeType.DATA);
     commands.setType(0x9000, CodeType.OPCODE);
@@ -77,6 +81,9 @@ public class CommandBufferMapperTest {
       assertEquals(commandsSubroutines.get(address), readSubroutines.get(address), "Address " + address + ":");
     }
 
+    // entry points
+    assertEquals(commands.getEntryPoints(), readCommands.getEntryPoints());
+
     // write read xml again
     os.reset();
     XmlUtil.marshal(readReassembler, os);
@@ -1,9 +1,22 @@
 package de.heiden.c64dt.reassembler.command;
 
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.assembler.Opcode;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -35,6 +48,27 @@ public class CommandBufferTest {
     assertFalse(commands.hasAddress(0xE000));
   }
 
+  @Test
+  public void testAddressSpace() throws Exception {
+    // code up to $FFFF
+    CommandBuffer commands = new CommandBuffer(new byte[0x2000], 0xE000);
+    new CommandCreator(commands).createCommands();
+    assertTrue(commands.hasAddress(0xFFFF));
+
+    assertThrows(IllegalArgumentException.class, () -> new CommandBuffer(new byte[0x2000], 0xE001));
+    assertThrows(IllegalArgumentException.class, () -> commands.rebase(0x1000, 0xF000));
+    assertThrows(IllegalArgumentException.class, () -> commands.addExternalReference(0x0000, 0x10000));
+    assertThrows(IllegalArgumentException.class, () -> commands.addSubroutine(new Subroutine(-1, 0)));
+
+    // segments beyond $FFFF are rejected when creating commands, because a later segment may end them before
+    commands.base(0x1000, 0xF001);
+    assertEquals(0x10001, commands.getEndAddress());
+    assertThrows(IllegalArgumentException.class, () -> new CommandCreator(commands).createCommands());
+    commands.base(0x1800, 0x1000);
+    assertEquals(0xF801, commands.getEndAddress());
+    new CommandCreator(commands).createCommands();
+  }
+
   @Test
   public void testAddressForIndex() throws Exception {
     CommandBuffer commands = new CommandBuffer(new byte[0x2000], 0x8000);
@@ -45,4 +79,168 @@ public class CommandBufferTest {
     assertEquals(0xDE00, commands.addressForIndex(0x1E00));
     assertEquals(0xDFFF, commands.addressForIndex(0x1FFF));
   }
+
+  @Test
+  public void testIndexForAddress() throws Exception {
+    CommandBuffer commands = new CommandBuffer(new byte[0x2000], 0x8000);
+    assertEquals(0x0000, commands.indexForAddress(0x8000));
+    assertEquals(0x1FFF, commands.indexForAddress(0x9FFF));
+    assertThrows(IllegalArgumentException.class, () -> commands.indexForAddress(0xA000));
+
+    commands.rebase(0x1E00, 0xC000);
+    assertEquals(0x0000, commands.indexForAddress(0x8000));
+    assertEquals(0x1DFF, commands.indexForAddress(0x9DFF));
+    assertEquals(0x1E00, commands.indexForAddress(0xDE00));
+    assertEquals(0x1FFF, commands.indexForAddress(0xDFFF));
+    assertThrows(IllegalArgumentException.class, () -> commands.indexForAddress(0x9E00));
+
+    // overlapping segment: the first segment wins
+    commands.base(0x1000, 0x8800);
+    assertEquals(0x0800, commands.indexForAddress(0x8800));
+    assertEquals(0x0FFF, commands.indexForAddress(0x8FFF));
+    assertEquals(0x1800, commands.indexForAddress(0x9000));
+    assertEquals(0x1DFF, commands.indexForAddress(0x95FF));
+    assertFalse(commands.hasAddress(0x9600));
+    assertEquals(0x8800, commands.addressForIndex(0x1000));
+    assertEquals(0x95FF, commands.addressForIndex(0x1DFF));
+  }
+
+  @Test
+  public void testReferences() throws Exception {
+    CommandBuffer commands = new CommandBuffer(new byte[0x2000], 0x8000);
+    commands.addCodeReference(0x0010, 0x8100);
+    commands.addCodeReference(0x0020, 0x8100);
+    commands.addDataReference(0x0030, 0x8100);
+    commands.addDataReference(0x0040, 0x8200);
+
+    assertEquals(Set.of(0x0010, 0x0020, 0x0030), commands.getReferences(0x8100));
+    assertEquals(Set.of(0x0040), commands.getReferences(0x8200));
+    assertTrue(commands.hasCodeLabel(0x8100));
+    assertTrue(commands.hasDataLabel(0x8100));
+
+    // replace reference
+    commands.addCodeReference(0x0020, 0x8200);
+    assertEquals(Set.of(0x0010, 0x0030), commands.getReferences(0x8100));
+    assertEquals(Set.of(0x0020, 0x0040), commands.getReferences(0x8200));
+
+    // labels are removed with the last reference
+    assertTrue(commands.removeReference(0x0030));
+    assertFalse(commands.hasDataLabel(0x8100));
+    assertTrue(commands.hasCodeLabel(0x8100));
+    assertTrue(commands.removeReference(0x0010));
+    assertFalse(commands.hasCodeLabel(0x8100));
+    assertEquals(Set.of(), commands.getReferences(0x8100));
+    assertFalse(commands.removeReference(0x0010));
+  }
+
+  @Test
+  public void testCommands() throws Exception {
+    // LDA $1234, BIT $00A9 (skipping LDA #$00), !WORD $1000, !BYTE $41, $41
+    byte[] code = {(byte) 0xAD, 0x34, 0x12, 0x2C, (byte) 0xA9, 0x00, 0x00, 0x10, 0x41, 0x41};
+    CommandBuffer commands = new CommandBuffer(code, 0x1000);
+    OpcodeCommand lda = new OpcodeCommand(Opcode.OPCODE_AD, 0x1234);
+    lda.setReachable(true);
+    commands.setCommand(0, lda);
+    commands.setCommand(3, new BitCommand(Opcode.OPCODE_2C, 0x00A9));
+    commands.setCommand(4, new OpcodeCommand(Opcode.OPCODE_A9, 0x00));
+    commands.setCommand(6, new AddressCommand(0x1000));
+    commands.setCommand(8, new DataCommand(0x41));
+    commands.setCommand(9, new DataCommand(0x41));
+
+    // commands are views of the columns
+    ICommand command = commands.getCommand(0);
+    assertEquals(Opcode.OPCODE_AD, ((OpcodeCommand) command).getOpcode());
+    assertEquals(0x1234, ((OpcodeCommand) command).getArgument());
+    assertEquals(0x1000, command.getAddress());
+    assertTrue(command.isReachable());
+    assertNull(commands.getCommand(1));
+    assertEquals(0x00A9, ((BitCommand) commands.getCommand(3)).getArgument());
+    assertEquals(0x1000, ((AddressCommand) commands.getCommand(6)).getReferencedAddress());
+    assertFalse(commands.getCommand(6).isReachable());
+
+    // changes are written through
+    commands.getCommand(6).setReachable(true);
+    assertTrue(commands.getCommand(6).isReachable());
+    lda.setReachable(false);
+    assertFalse(commands.getCommand(0).isReachable());
+    assertTrue(commands.getCommand(8).combineWith(commands.getCommand(9)));
+    commands.removeCommand(9);
+    assertEquals(2, commands.getCommand(8).getSize());
+    assertEquals("!BYTE $41, $41; 'AA'", commands.getCommand(8).toString(commands));
+
+    // byte representation
+    assertEquals(List.of(0xAD, 0x34, 0x12), commands.getCommand(0).toBytes());
+    byte[] bytes = new byte[code.length];
+    int index = 0;
+    for (ICommand c : commands) {
+      index = c.toBytes(bytes, index);
+    }
+    assertEquals(code.length, index);
+    assertArrayEquals(code, bytes);
+  }
+
+  @Test
+  public void testSetDataCommand() throws Exception {
+    CommandBuffer commands = new CommandBuffer(new byte[]{0x41, 0x42, 0x43}, 0x1000);
+    commands.setCommand(0, new DataCommand(0x41, 0x42));
+
+    // data bytes have to match the code
+    assertThrows(IllegalArgumentException.class, () -> commands.setCommand(2, new DataCommand(0x44)));
+    assertThrows(IllegalArgumentException.class, () -> commands.setCommand(2, new DataCommand(0x43, 0x44)));
+    assertNull(commands.getCommand(2));
+  }
+
+  @Test
+  public void testModifications() throws Exception {
+    CommandBuffer commands = new CommandBuffer(new byte[0x100], 0x1000);
+    commands.setType(0x10, CodeType.DATA);
+    commands.setType(0x20, CodeType.UNKNOWN);
+    commands.addCodeReference(0x30, 0x1040);
+
+    // unchanged code types are no modifications
+    BitSet expected = new BitSet();
+    expected.set(0x10);
+    expected.set(0x40);
+    assertEquals(expected, commands.pollModifications());
+    assertTrue(commands.pollModifications().isEmpty());
+
+    // removed labels are modifications too
+    commands.removeReference(0x30);
+    expected.clear(0x10);
+    assertEquals(expected, commands.pollModifications());
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    byte[] code = CommandCreatorTest.createCode(new Random(0), 0x1000);
+    CommandBuffer commands = new CommandBuffer(code, 0x1000);
+    new CommandCreator(commands).createCommands();
+
+    int[] parts = commands.split(8);
+    assertTrue(parts.length > 2);
+    assertTrue(parts.length <= 9);
+    assertEquals(0, parts[0]);
+    assertEquals(code.length, parts[parts.length - 1]);
+    for (int part = 1; part < parts.length - 1; part++) {
+      assertTrue(parts[part - 1] < parts[part]);
+      // parts start at commands after a command, which does not lead to them
+      assertNotNull(commands.getCommand(parts[part]));
+      ICommand previous = commands.getCommand(commands.commandIndex(parts[part] - 1));
+      assertTrue(!previous.isReachable() || previous.isEnd());
+    }
+
+    // no commands
+    assertArrayEquals(new int[]{0, 0x100}, new CommandBuffer(new byte[0x100], 0x1000).split(8));
+  }
+
+  @Test
+  public void testSplitWithoutSizes() throws Exception {
+    // just the first command, so all following relative addresses have no size
+    CommandBuffer commands = new CommandBuffer(new byte[0x100], 0x1000);
+    commands.setCommand(0, new OpcodeCommand(Opcode.OPCODE_EA));
+
+    int[] parts = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> commands.split(8));
+    assertEquals(0, parts[0]);
+    assertEquals(0x100, parts[parts.length - 1]);
+  }
 }
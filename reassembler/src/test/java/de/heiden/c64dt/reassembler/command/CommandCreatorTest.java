@@ -0,0 +1,170 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.Random;
+
+import de.heiden.c64dt.assembler.CodeType;
+import de.heiden.c64dt.assembler.Opcode;
+import de.heiden.c64dt.assembler.OpcodeMode;
+import de.heiden.c64dt.reassembler.label.ExternalLabel;
+import de.heiden.c64dt.reassembler.label.ILabel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test for {@link CommandCreator}.
+ */
+public class CommandCreatorTest {
+  /**
+   * Start address of the generated code.
+   */
+  private static final int START = 0x1000;
+
+  /**
+   * Test that {@link CommandCreator#updateCommands()} leads to the same commands as {@link CommandCreator#createCommands()}.
+   */
+  @Test
+  public void testUpdateCommands() {
+    for (int seed = 0; seed < 10; seed++) {
+      Random random = new Random(seed);
+      byte[] code = createCode(random, 0x400);
+
+      CommandBuffer expected = new CommandBuffer(code, START);
+      new CommandCreator(expected).createCommands();
+      CommandBuffer actual = new CommandBuffer(code, START);
+      new CommandCreator(actual).createCommands();
+
+      for (int edit = 0; edit < 100; edit++) {
+        if (random.nextInt(4) == 0) {
+          // reference added e.g. by a detector
+          int index = actual.commandIndex(random.nextInt(code.length));
+          int address = START + random.nextInt(code.length);
+          expected.addCodeReference(index, address);
+          actual.addCodeReference(index, address);
+        } else {
+          int startIndex = random.nextInt(code.length - 1);
+          int endIndex = Math.min(startIndex + 1 + random.nextInt(8), code.length - 1);
+          CodeType type = CodeType.values()[random.nextInt(CodeType.values().length)];
+          expected.setType(startIndex, endIndex, type);
+          actual.setType(startIndex, endIndex, type);
+        }
+
+        new CommandCreator(expected).createCommands();
+        new CommandCreator(actual).updateCommands();
+        assertSameCommands(expected, actual, "Seed " + seed + ", edit " + edit + ": ");
+      }
+    }
+  }
+
+  /**
+   * Test that an update without previously created commands creates all commands.
+   */
+  @Test
+  public void testUpdateCommandsWithoutCommands() {
+    byte[] code = createCode(new Random(0), 0x100);
+
+    CommandBuffer expected = new CommandBuffer(code, START);
+    new CommandCreator(expected).createCommands();
+    CommandBuffer actual = new CommandBuffer(code, START);
+    new CommandCreator(actual).updateCommands();
+
+    assertSameCommands(expected, actual, "");
+  }
+
+  /**
+   * Test that the argument of a BIT opcode used to skip the next opcode is tokenized as that opcode.
+   */
+  @Test
+  public void testCreateBitCommand() {
+    // BIT $00A9 hiding LDA #$00, RTS
+    byte[] code = {0x2C, (byte) 0xA9, 0x00, 0x60};
+    CommandBuffer commands = new CommandBuffer(code, START);
+    commands.setType(0, CodeType.BIT);
+    new CommandCreator(commands).createCommands();
+
+    BitCommand bit = assertInstanceOf(BitCommand.class, commands.getCommand(0));
+    assertEquals(1, bit.getSize());
+    assertEquals(0x00A9, bit.getArgument());
+    OpcodeCommand lda = assertInstanceOf(OpcodeCommand.class, commands.getCommand(1));
+    assertEquals(Opcode.opcode(0xA9), lda.getOpcode());
+    assertEquals(0x00, lda.getArgument());
+    OpcodeCommand rts = assertInstanceOf(OpcodeCommand.class, commands.getCommand(3));
+    assertEquals(Opcode.opcode(0x60), rts.getOpcode());
+  }
+
+  /**
+   * Create random code with many references into the code itself.
+   *
+   * @param random Random
+   * @param length Length of code
+   */
+  public static byte[] createCode(Random random, int length) {
+    byte[] code = new byte[length];
+    for (int index = 0; index < length; ) {
+      if (random.nextInt(8) == 0) {
+        // data
+        code[index++] = (byte) random.nextInt(0x100);
+        continue;
+      }
+
+      Opcode opcode = Opcode.opcode(random.nextInt(0x100));
+      if (!opcode.isLegal()) {
+        continue;
+      }
+      code[index++] = (byte) opcode.getOpcode();
+
+      OpcodeMode mode = opcode.getMode();
+      int argument = mode.getSize() == 2 ? START + random.nextInt(length + 0x10) : random.nextInt(0x100);
+      for (int i = 0; i < mode.getSize() && index < length; i++, argument >>= 8) {
+        code[index++] = (byte) argument;
+      }
+    }
+
+    return code;
+  }
+
+  /**
+   * Assert that both command buffers contain the same commands, code types, references and labels.
+   *
+   * @param expected Expected command buffer
+   * @param actual Actual command buffer
+   * @param message Message prefix
+   */
+  public static void assertSameCommands(CommandBuffer expected, CommandBuffer actual, String message) {
+    assertEquals(expected.getLength(), actual.getLength(), message + "Length:");
+    for (int index = 0; index < expected.getLength(); index++) {
+      assertEquals(expected.getType(index), actual.getType(index), message + "Type at index " + index + ":");
+
+      ICommand expectedCommand = expected.getCommand(index);
+      ICommand actualCommand = actual.getCommand(index);
+      if (expectedCommand == null) {
+        assertNull(actualCommand, message + "Command at index " + index + ":");
+        continue;
+      }
+
+      assertNotNull(actualCommand, message + "Command at index " + index + ":");
+      assertEquals(expectedCommand.getClass(), actualCommand.getClass(), message + "Command at index " + index + ":");
+      assertEquals(expectedCommand.getSize(), actualCommand.getSize(), message + "Size at index " + index + ":");
+      assertEquals(expectedCommand.getAddress(), actualCommand.getAddress(), message + "Address at index " + index + ":");
+      assertEquals(expectedCommand.isReachable(), actualCommand.isReachable(), message + "Reachability at index " + index + ":");
+      assertEquals(expectedCommand.toString(expected), actualCommand.toString(actual), message + "Command at index " + index + ":");
+    }
+
+    for (int index = 0; index < expected.getLength(); index++) {
+      int address = expected.addressForIndex(index);
+      assertEquals(expected.hasCodeLabel(address), actual.hasCodeLabel(address), message + "Code label at index " + index + ":");
+      assertEquals(expected.hasDataLabel(address), actual.hasDataLabel(address), message + "Data label at index " + index + ":");
+      if (expected.hasLabel(address)) {
+        assertEquals(expected.getReferences(address), actual.getReferences(address), message + "References at index " + index + ":");
+      }
+    }
+
+    assertEquals(
+      expected.getExternalLabels().stream().map(ILabel::getAddress).sorted().toList(),
+      actual.getExternalLabels().stream().map(ExternalLabel::getAddress).sorted().toList(),
+      message + "External labels:");
+  }
+}
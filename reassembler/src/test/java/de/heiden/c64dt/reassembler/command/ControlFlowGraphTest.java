@@ -0,0 +1,149 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ControlFlowGraph}.
+ */
+public class ControlFlowGraphTest {
+  /**
+   * Code with a branch, a JSR, a JMP, unreachable data and a subroutine.
+   */
+  private static final byte[] CODE = {
+    (byte) 0xA9, 0x00, // $1000: LDA #$00
+    (byte) 0xF0, 0x04, // $1002: BEQ $1008
+    0x20, 0x0C, 0x10, // $1004: JSR $100C
+    0x60, // $1007: RTS
+    0x4C, 0x07, 0x10, // $1008: JMP $1007
+    (byte) 0xFF, // $100B: data
+    (byte) 0xE8, // $100C: INX
+    0x60 // $100D: RTS
+  };
+
+  @Test
+  public void testBlocks() {
+    ControlFlowGraph graph = new ControlFlowGraph(create(CODE));
+
+    assertEquals(bits(0x0, 0x2, 0x4, 0x7, 0x8, 0xC, 0xD), graph.getReachable());
+    assertTrue(graph.getConflicts().isEmpty());
+
+    List<BasicBlock> blocks = graph.getBlocks();
+    assertEquals(5, blocks.size());
+    assertBlock(blocks.get(0), 0x0, 0x4, 0x8, 0x4);
+    assertBlock(blocks.get(1), 0x4, 0x7, 0xC, 0x7);
+    assertBlock(blocks.get(2), 0x7, 0x8);
+    assertBlock(blocks.get(3), 0x8, 0xB, 0x7);
+    assertBlock(blocks.get(4), 0xC, 0xE);
+
+    assertEquals(blocks.get(3), graph.getBlock(0x8));
+    assertNull(graph.getBlock(0x2));
+  }
+
+  @Test
+  public void testSubroutineArguments() {
+    CommandBuffer commands = create(CODE);
+    commands.addSubroutine(new Subroutine(0x100C, 1));
+    ControlFlowGraph graph = new ControlFlowGraph(commands);
+
+    // the JSR continues after its argument at $1008, so $1007 is just reached by the JMP
+    List<BasicBlock> blocks = graph.getBlocks();
+    assertEquals(5, blocks.size());
+    assertBlock(blocks.get(1), 0x4, 0x7, 0xC, 0x8);
+    assertBlock(blocks.get(2), 0x7, 0x8);
+    assertBlock(blocks.get(3), 0x8, 0xB, 0x7);
+  }
+
+  @Test
+  public void testConflicts() {
+    byte[] code = {
+      (byte) 0xA9, 0x00, // $1000: LDA #$00
+      0x4C, 0x01, 0x10 // $1002: JMP $1001
+    };
+    ControlFlowGraph graph = new ControlFlowGraph(create(code));
+
+    assertEquals(bits(0x0, 0x2), graph.getReachable());
+    assertEquals(bits(0x1), graph.getConflicts());
+    assertEquals(1, graph.getBlocks().size());
+    assertBlock(graph.getBlocks().get(0), 0x0, 0x5);
+  }
+
+  @Test
+  public void testNoEntryPoints() {
+    CommandBuffer commands = new CommandBuffer(CODE, 0x1000);
+    new CommandCreator(commands).createCommands();
+    ControlFlowGraph graph = new ControlFlowGraph(commands);
+
+    assertTrue(graph.getReachable().isEmpty());
+    assertTrue(graph.getBlocks().isEmpty());
+  }
+
+  @Test
+  public void testIsAffectedBy() {
+    CommandBuffer commands = create(CODE);
+    ControlFlowGraph graph = new ControlFlowGraph(commands);
+
+    // unreachable data
+    assertFalse(graph.isAffectedBy(bits(0xB)));
+    assertFalse(graph.isAffectedBy(new BitSet()));
+    // reachable command
+    assertTrue(graph.isAffectedBy(bits(0x8)));
+
+    // subroutine called by the graph
+    commands.addSubroutine(new Subroutine(0x100C, 1));
+    assertTrue(graph.isAffectedBy(bits(0xB)));
+    graph = new ControlFlowGraph(commands);
+    assertFalse(graph.isAffectedBy(bits(0xB)));
+
+    // entry point
+    commands.addEntryPoint(0x100B);
+    assertTrue(graph.isAffectedBy(bits(0xB)));
+  }
+
+  /**
+   * Create commands for code at $1000 with the entry point $1000.
+   *
+   * @param code Code
+   */
+  private static CommandBuffer create(byte[] code) {
+    CommandBuffer commands = new CommandBuffer(code, 0x1000);
+    commands.addEntryPoint(0x1000);
+    new CommandCreator(commands).createCommands();
+    return commands;
+  }
+
+  /**
+   * Assert start, end and successors of a basic block.
+   *
+   * @param block Basic block
+   * @param startIndex Expected relative address of the first instruction
+   * @param endIndex Expected relative address after the last instruction
+   * @param successors Expected relative addresses of the successor blocks
+   */
+  private static void assertBlock(BasicBlock block, int startIndex, int endIndex, int... successors) {
+    assertEquals(startIndex, block.getStartIndex(), "Start:");
+    assertEquals(endIndex, block.getEndIndex(), "End:");
+    assertArrayEquals(successors, block.getSuccessors(), "Successors:");
+  }
+
+  /**
+   * Bit set with the given bits set.
+   *
+   * @param indices Bits to set
+   */
+  private static BitSet bits(int... indices) {
+    BitSet result = new BitSet();
+    for (int index : indices) {
+      result.set(index);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,73 @@
+package de.heiden.c64dt.reassembler.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link ReferenceIndex}.
+ */
+public class ReferenceIndexTest {
+  @Test
+  public void testAddRemove() {
+    ReferenceIndex index = new ReferenceIndex();
+    index.add(0x1000, 5);
+    index.add(0x1000, 1);
+    index.add(0x1000, 9);
+    index.add(0x1000, 3);
+    index.add(0x1000, 3);
+    index.add(0x2000, 1);
+
+    assertEquals(4, index.count(0x1000));
+    assertEquals(List.of(1, 3, 5, 9), indices(index, 0x1000));
+    assertEquals(List.of(1), indices(index, 0x2000));
+    assertEquals(List.of(), indices(index, 0x3000));
+
+    assertEquals(3, index.remove(0x1000, 5));
+    assertEquals(3, index.remove(0x1000, 5));
+    assertEquals(List.of(1, 3, 9), indices(index, 0x1000));
+    assertEquals(0, index.remove(0x2000, 1));
+    assertEquals(0, index.remove(0x3000, 1));
+
+    index.clear();
+    assertEquals(0, index.count(0x1000));
+    assertEquals(List.of(), indices(index, 0x1000));
+  }
+
+  @Test
+  public void testPages() {
+    ReferenceIndex index = new ReferenceIndex();
+    // unallocated pages
+    assertEquals(0, index.count(0xFFFF));
+    assertEquals(List.of(), indices(index, 0xFFFF));
+    assertEquals(0, index.remove(0xFFFF, 1));
+
+    index.add(0x10FF, 1);
+    index.add(0x1100, 2);
+    index.add(0xFFFF, 3);
+    assertEquals(List.of(1), indices(index, 0x10FF));
+    assertEquals(List.of(2), indices(index, 0x1100));
+    assertEquals(List.of(3), indices(index, 0xFFFF));
+    assertEquals(0, index.count(0x1101));
+
+    index.clear();
+    assertEquals(0, index.count(0xFFFF));
+    index.add(0xFFFF, 4);
+    assertEquals(List.of(4), indices(index, 0xFFFF));
+  }
+
+  /**
+   * Relative addresses of all references to an address.
+   *
+   * @param index Reference index
+   * @param address Absolute address
+   */
+  private List<Integer> indices(ReferenceIndex index, int address) {
+    List<Integer> result = new ArrayList<>();
+    index.addIndices(address, result);
+    return result;
+  }
+}
@@ -5,6 +5,7 @@ plugins {
 rootProject.name = "c64dt"
 
 include("assembler")
+include("benchmarks")
 include("browser")
 include("bytes")
 include("charset")